@@ -23,19 +23,40 @@ import java.util.Map;
 public interface ContainerControlApi {
     String ping() throws NoDockerServerException, DockerServerException;
     boolean canConnect();
+    boolean canConnect(DockerServer dockerServer);
 
     String pingHub(DockerHub hub) throws DockerServerException, NoDockerServerException;
     String pingHub(DockerHub hub, String username, String password) throws DockerServerException, NoDockerServerException;
 
     List<DockerImage> getAllImages() throws NoDockerServerException, DockerServerException;
+    List<DockerImage> getAllImages(DockerServer dockerServer) throws DockerServerException;
     DockerImage getImageById(final String imageId) throws NotFoundException, DockerServerException, NoDockerServerException;
     void deleteImageById(String id, Boolean force) throws NoDockerServerException, DockerServerException;
 
+    /**
+     * @return The size in bytes of each layer of the image, oldest first. A layer's key is the same in every image
+     *         that shares it and all the layers below it, so images can be added up without counting shared layers twice.
+     */
+    Map<String, Long> getImageLayerSizes(String imageId) throws NoDockerServerException, DockerServerException;
+    boolean imageMustBePulled(DockerServer server, String imageName) throws DockerServerException;
+
     DockerImage pullImage(String name) throws NoDockerServerException, DockerServerException, NotFoundException;
     DockerImage pullImage(String name, DockerHub hub) throws NoDockerServerException, DockerServerException, NotFoundException;
     DockerImage pullImage(String name, DockerHub hub, String username, String password) throws NoDockerServerException, DockerServerException, NotFoundException;
+    DockerImage pullImage(DockerServer server, String name, DockerHub hub, String username, String password) throws DockerServerException, NotFoundException;
+
+    /**
+     * @return The enabled server on which to launch a new container
+     */
+    DockerServer chooseServer() throws NoDockerServerException;
+
+    /**
+     * @return The server the container was placed on, or the server on which to launch it if it has not been placed yet
+     */
+    DockerServer chooseServer(Container container) throws NoDockerServerException;
 
     Container createContainerOrSwarmService(final ResolvedCommand dockerCommand, final UserI userI) throws NoDockerServerException, DockerServerException, ContainerException;
+    Container createContainerOrSwarmService(final ResolvedCommand dockerCommand, final DockerServer server, final UserI userI) throws DockerServerException, ContainerException;
     Container createContainerOrSwarmService(final Container container, final UserI userI) throws NoDockerServerException, DockerServerException, ContainerException;
     //    String createContainer(final String imageName, final List<String> runCommand, final List <String> volumes) throws NoServerPrefException, DockerServerException;
 //    String createContainer(final DockerServer server, final String imageName,
@@ -57,8 +78,12 @@ public interface ContainerControlApi {
 
     List<DockerContainerEvent> getContainerEvents(final Date since, final Date until) throws NoDockerServerException, DockerServerException;
     void throwContainerEvents(final Date since, final Date until) throws NoDockerServerException, DockerServerException;
+    List<DockerContainerEvent> getContainerEvents(DockerServer dockerServer, Date since, Date until) throws DockerServerException;
+    void throwContainerEvents(DockerServer dockerServer, Date since, Date until) throws DockerServerException;
 
     void killContainer(final String id) throws NoDockerServerException, DockerServerException, NotFoundException;
+    void killContainer(Container container) throws NoDockerServerException, DockerServerException, NotFoundException;
+    void removeContainerOrService(final Container containerOrService) throws NoDockerServerException, DockerServerException;
 
     ServiceTask getTaskForService(Container service) throws NoDockerServerException, DockerServerException, ServiceNotFoundException;
     ServiceTask getTaskForService(DockerServer dockerServer, Container service) throws DockerServerException, ServiceNotFoundException;
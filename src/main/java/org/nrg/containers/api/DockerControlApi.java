@@ -4,6 +4,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
 import com.spotify.docker.client.DefaultDockerClient;
 import com.spotify.docker.client.DockerCertificates;
 import com.spotify.docker.client.DockerClient;
@@ -22,6 +23,7 @@ import com.spotify.docker.client.messages.ContainerInfo;
 import com.spotify.docker.client.messages.Event;
 import com.spotify.docker.client.messages.HostConfig;
 import com.spotify.docker.client.messages.Image;
+import com.spotify.docker.client.messages.ImageHistory;
 import com.spotify.docker.client.messages.ImageInfo;
 import com.spotify.docker.client.messages.PortBinding;
 import com.spotify.docker.client.messages.RegistryAuth;
@@ -29,6 +31,8 @@ import com.spotify.docker.client.messages.ServiceCreateResponse;
 import com.spotify.docker.client.messages.mount.Mount;
 import com.spotify.docker.client.messages.swarm.ContainerSpec;
 import com.spotify.docker.client.messages.swarm.EndpointSpec;
+import com.spotify.docker.client.messages.swarm.Node;
+import com.spotify.docker.client.messages.swarm.Placement;
 import com.spotify.docker.client.messages.swarm.PortConfig;
 import com.spotify.docker.client.messages.swarm.ReplicatedService;
 import com.spotify.docker.client.messages.swarm.RestartPolicy;
@@ -55,6 +59,7 @@ import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
 import org.nrg.containers.model.image.docker.DockerImage;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
 import org.nrg.containers.services.CommandLabelService;
+import org.nrg.containers.services.DockerServerPlacementService;
 import org.nrg.containers.services.DockerServerService;
 import org.nrg.containers.utils.ShellSplitter;
 import org.nrg.framework.exceptions.NotFoundException;
@@ -66,12 +71,18 @@ import org.springframework.stereotype.Service;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.spotify.docker.client.DockerClient.EventsParam.since;
 import static com.spotify.docker.client.DockerClient.EventsParam.type;
@@ -83,14 +94,19 @@ import static org.nrg.containers.services.CommandLabelService.LABEL_KEY;
 public class DockerControlApi implements ContainerControlApi {
 
     private final DockerServerService dockerServerService;
+    private final DockerServerPlacementService dockerServerPlacementService;
     private final CommandLabelService commandLabelService;
     private final NrgEventService eventService;
+    private final ConcurrentMap<String, DockerImageCatalog> imageCatalogs = new ConcurrentHashMap<>();
+    private final AtomicLong spreadTurns = new AtomicLong();
 
     @Autowired
     public DockerControlApi(final DockerServerService dockerServerService,
+                            final DockerServerPlacementService dockerServerPlacementService,
                             final CommandLabelService commandLabelService,
                             final NrgEventService eventService) {
         this.dockerServerService = dockerServerService;
+        this.dockerServerPlacementService = dockerServerPlacementService;
         this.commandLabelService = commandLabelService;
         this.eventService = eventService;
     }
@@ -104,6 +120,45 @@ public class DockerControlApi implements ContainerControlApi {
         }
     }
 
+    /**
+     * The server a container was launched on. Containers launched before servers were recorded are on the default server.
+     */
+    @Nonnull
+    private DockerServer getServer(final Container container) throws NoDockerServerException {
+        final Long dockerServerId = container.dockerServerId();
+        if (dockerServerId != null) {
+            final DockerServer server = dockerServerService.retrieveServer(dockerServerId);
+            if (server != null) {
+                return server;
+            }
+            log.warn("Docker server {} for container {} no longer exists. Using the default server.", dockerServerId, container.databaseId());
+        }
+        return getServer();
+    }
+
+    @Override
+    @Nonnull
+    public DockerServer chooseServer() throws NoDockerServerException {
+        return dockerServerPlacementService.chooseServer();
+    }
+
+    @Override
+    @Nonnull
+    public DockerServer chooseServer(final Container container) throws NoDockerServerException {
+        return container.dockerServerId() != null ? getServer(container) : chooseServer();
+    }
+
+    @Nonnull
+    private DockerImageCatalog imageCatalog(final String server) {
+        final DockerImageCatalog imageCatalog = imageCatalogs.get(server);
+        if (imageCatalog != null) {
+            return imageCatalog;
+        }
+        final DockerImageCatalog newImageCatalog = new DockerImageCatalog();
+        final DockerImageCatalog existing = imageCatalogs.putIfAbsent(server, newImageCatalog);
+        return existing == null ? newImageCatalog : existing;
+    }
+
     @Override
     public String ping() throws NoDockerServerException, DockerServerException {
         return ping(getServer());
@@ -136,10 +191,18 @@ public class DockerControlApi implements ContainerControlApi {
     @Override
     public boolean canConnect() {
         try {
-            final String pingResult = ping();
-            return StringUtils.isNotBlank(pingResult) && pingResult.equals("OK");
+            return canConnect(getServer());
         } catch (NoDockerServerException e) {
             log.error(e.getMessage());
+        }
+        return false;
+    }
+
+    @Override
+    public boolean canConnect(final DockerServer dockerServer) {
+        try {
+            final String pingResult = ping(dockerServer);
+            return StringUtils.isNotBlank(pingResult) && pingResult.equals("OK");
         } catch (DockerServerException ignored) {
             // Any actual errors have already been logged. We can safely ignore them here.
         }
@@ -187,7 +250,15 @@ public class DockerControlApi implements ContainerControlApi {
     @Override
     @Nonnull
     public List<DockerImage> getAllImages() throws NoDockerServerException, DockerServerException {
-        return getImages(null);
+        return getAllImages(getServer());
+    }
+
+    @Override
+    @Nonnull
+    public List<DockerImage> getAllImages(final DockerServer dockerServer) throws DockerServerException {
+        final List<DockerImage> images = getImages(dockerServer, null);
+        imageCatalog(dockerServer.host()).replaceAll(dockerServer.host(), images);
+        return images;
     }
 
     /**
@@ -197,10 +268,10 @@ public class DockerControlApi implements ContainerControlApi {
      * @return Image objects stored on docker server meeting the query parameters
      **/
     @Nonnull
-    private List<DockerImage> getImages(final Map<String, String> params)
-            throws NoDockerServerException, DockerServerException {
+    private List<DockerImage> getImages(final DockerServer dockerServer, final Map<String, String> params)
+            throws DockerServerException {
         return Lists.newArrayList(
-                Lists.transform(_getImages(params),
+                Lists.transform(_getImages(dockerServer, params),
                         new Function<Image, DockerImage>() {
                             @Override
                             @Nullable
@@ -212,8 +283,8 @@ public class DockerControlApi implements ContainerControlApi {
         );
     }
 
-    private List<com.spotify.docker.client.messages.Image> _getImages(final Map<String, String> params)
-            throws NoDockerServerException, DockerServerException {
+    private List<com.spotify.docker.client.messages.Image> _getImages(final DockerServer dockerServer, final Map<String, String> params)
+            throws DockerServerException {
         // Transform param map to ListImagesParam array
         final List<ListImagesParam> dockerParamsList = Lists.newArrayList();
         if (params != null && params.size() > 0) {
@@ -226,7 +297,7 @@ public class DockerControlApi implements ContainerControlApi {
         final ListImagesParam[] dockerParams =
                 dockerParamsList.toArray(new ListImagesParam[dockerParamsList.size()]);
 
-        try (final DockerClient dockerClient = getClient()) {
+        try (final DockerClient dockerClient = getClient(dockerServer)) {
             return dockerClient.listImages(dockerParams);
         } catch (DockerException | InterruptedException e) {
             log.error("Failed to list images. " + e.getMessage());
@@ -247,22 +318,61 @@ public class DockerControlApi implements ContainerControlApi {
     @Nonnull
     public DockerImage getImageById(final String imageId)
         throws NotFoundException, DockerServerException, NoDockerServerException {
-        try (final DockerClient client = getClient()) {
-            return getImageById(imageId, client);
+        return getImageById(getServer(), imageId);
+    }
+
+    @Nonnull
+    private DockerImage getImageById(final DockerServer dockerServer, final String imageId)
+            throws NotFoundException, DockerServerException {
+        final String server = dockerServer.host();
+        final DockerImageCatalog imageCatalog = imageCatalog(server);
+        if (!imageCatalog.isCurrent(server)) {
+            try {
+                getAllImages(dockerServer);
+            } catch (DockerServerException e) {
+                log.debug("Could not list images to refresh the image catalog. Will inspect image {} instead.", imageId);
+            }
+        }
+        final DockerImage cached = imageCatalog.find(server, imageId);
+        if (cached != null) {
+            return cached;
+        }
+
+        try (final DockerClient client = getClient(dockerServer)) {
+            return getImageById(dockerServer, imageId, client);
         }
     }
 
-    private DockerImage getImageById(final String imageId, final DockerClient client)
-            throws NoDockerServerException, DockerServerException, NotFoundException {
+    /**
+     * Whether the image must be pulled onto the server before we can create a container from it, according to the server's image catalog.
+     * Never in swarm mode, where each node pulls the images for its own tasks.
+     */
+    @Override
+    public boolean imageMustBePulled(final DockerServer server, final String imageName) throws DockerServerException {
+        if (server.swarmMode()) {
+            return false;
+        }
+        try {
+            getImageById(server, imageName);
+            return false;
+        } catch (NotFoundException e) {
+            return true;
+        }
+    }
+
+    private DockerImage getImageById(final DockerServer dockerServer, final String imageId, final DockerClient client)
+            throws DockerServerException, NotFoundException {
         final DockerImage image = spotifyToNrg(_getImageById(imageId, client));
         if (image != null) {
+            final String server = dockerServer.host();
+            imageCatalog(server).put(server, imageId, image);
             return image;
         }
         throw new NotFoundException(String.format("Could not find image %s", imageId));
     }
 
     private com.spotify.docker.client.messages.ImageInfo _getImageById(final String imageId, final DockerClient client)
-        throws DockerServerException, NoDockerServerException, NotFoundException {
+        throws DockerServerException, NotFoundException {
         try {
             return client.inspectImage(imageId);
         } catch (ImageNotFoundException e) {
@@ -282,6 +392,20 @@ public class DockerControlApi implements ContainerControlApi {
     @Override
     public Container createContainerOrSwarmService(final ResolvedCommand resolvedCommand, final UserI userI)
             throws NoDockerServerException, DockerServerException, ContainerException {
+        return createContainerOrSwarmService(resolvedCommand, chooseServer(), userI);
+    }
+
+    /**
+     * Launch image on the given Docker server, either by scheduling a swarm service or directly creating a container
+     *
+     * @param resolvedCommand A ResolvedDockerCommand. All templates are resolved, all mount paths exist.
+     * @param server The server to launch on, from {@link #chooseServer()}
+     * @param userI The XNAT user launching the container
+     * @return Created Container or Service
+     **/
+    @Override
+    public Container createContainerOrSwarmService(final ResolvedCommand resolvedCommand, final DockerServer server, final UserI userI)
+            throws DockerServerException, ContainerException {
 
         // CS-403 We need to make sure everything exists before we mount it, else
         // bad stuff can happen.
@@ -315,9 +439,11 @@ public class DockerControlApi implements ContainerControlApi {
         final Double limitCpu = resolvedCommand.limitCpu() == null ?
                 0D :
                 resolvedCommand.limitCpu();
+        final Double reserveCpu = resolvedCommand.reserveCpu() == null ?
+                0D :
+                resolvedCommand.reserveCpu();
 
         final List<ResolvedCommandMount> resolvedCommandMounts = resolvedCommand.mounts();
-        final DockerServer server = getServer();
         if (server.swarmMode()) {
             final List<Mount> mounts = new ArrayList<>(resolvedCommandMounts.size());
             for (final ResolvedCommandMount resolvedCommandMount : resolvedCommandMounts) {
@@ -330,6 +456,7 @@ public class DockerControlApi implements ContainerControlApi {
 
             return Container.serviceFromResolvedCommand(resolvedCommand,
                     createService(server,
+                            resolvedCommand.commandId(),
                             resolvedCommand.image(),
                             resolvedCommand.commandLine(),
                             resolvedCommand.overrideEntrypoint(),
@@ -339,9 +466,15 @@ public class DockerControlApi implements ContainerControlApi {
                             workingDirectory,
                             reserveMemory,
                             limitMemory,
-                            limitCpu),
+                            reserveCpu,
+                            limitCpu,
+                            resolvedCommand.placementConstraints(),
+                            resolvedCommand.placementSpread(),
+                            resolvedCommand.maxReplicasPerNode()),
                     userI.getLogin()
-            );
+            ).toBuilder()
+                    .dockerServerId(server.id())
+                    .build();
         } else {
             final List<String> bindMounts = new ArrayList<>(resolvedCommandMounts.size());
             for (final ResolvedCommandMount mount : resolvedCommandMounts) {
@@ -361,7 +494,9 @@ public class DockerControlApi implements ContainerControlApi {
                             limitMemory,
                             limitCpu),
                     userI.getLogin()
-            );
+            ).toBuilder()
+                    .dockerServerId(server.id())
+                    .build();
         }
     }
 
@@ -403,8 +538,12 @@ public class DockerControlApi implements ContainerControlApi {
         final Double limitCpu = container.limitCpu() == null ?
                 0D :
                 container.limitCpu();
+        final Double reserveCpu = container.reserveCpu() == null ?
+                0D :
+                container.reserveCpu();
 
-        final DockerServer server = getServer();
+        // A container that was already placed, like one recorded before its image was pulled, stays where it was placed
+        final DockerServer server = chooseServer(container);
 
         final List<Container.ContainerMount> containerMounts = container.mounts();
         final Boolean overrideEntrypointMayBeNull = container.overrideEntrypoint();
@@ -420,6 +559,7 @@ public class DockerControlApi implements ContainerControlApi {
             }
 
             final String serviceId = createService(server,
+                    container.commandId(),
                     container.dockerImage(),
                     container.commandLine(),
                     overrideEntrypoint,
@@ -429,11 +569,16 @@ public class DockerControlApi implements ContainerControlApi {
                     workingDirectory,
                     reserveMemory,
                     limitMemory,
-                    limitCpu);
+                    reserveCpu,
+                    limitCpu,
+                    container.placementConstraints(),
+                    container.placementSpread(),
+                    container.maxReplicasPerNode());
             return container.toBuilder()
                     .serviceId(serviceId)
                     .swarm(true)
                     .userId(userI.getLogin())
+                    .dockerServerId(server.id())
                     .build();
         } else {
             final List<String> bindMounts = new ArrayList<>(containerMounts.size());
@@ -456,6 +601,7 @@ public class DockerControlApi implements ContainerControlApi {
             return container.toBuilder()
                     .containerId(containerId)
                     .userId(userI.getLogin())
+                    .dockerServerId(server.id())
                     .build();
         }
     }
@@ -548,7 +694,14 @@ public class DockerControlApi implements ContainerControlApi {
         }
 
         try (final DockerClient client = getClient(server)) {
-            final ContainerCreation container = client.createContainer(containerConfig);
+            final ContainerCreation container;
+            try {
+                container = client.createContainer(containerConfig);
+            } catch (ImageNotFoundException e) {
+                // Launches pull missing images onto the server before they get here, so the image was removed in the meantime
+                imageCatalog(server.host()).remove(server.host(), imageName);
+                throw new DockerServerException("Image " + imageName + " is not on docker server " + server.name(), e);
+            }
 
             final List<String> warnings = container.warnings();
             if (warnings != null) {
@@ -565,6 +718,7 @@ public class DockerControlApi implements ContainerControlApi {
     }
 
     private String createService(final DockerServer server,
+                                 final long commandId,
                                  final String imageName,
                                  final String runCommand,
                                  final boolean overrideEntrypoint,
@@ -574,7 +728,11 @@ public class DockerControlApi implements ContainerControlApi {
                                  final String workingDirectory,
                                  final Long reserveMemory,
                                  final Long limitMemory,
-                                 final Double limitCpu)
+                                 final Double reserveCpu,
+                                 final Double limitCpu,
+                                 final List<String> commandPlacementConstraints,
+                                 final String placementSpread,
+                                 final Integer maxReplicasPerNode)
             throws DockerServerException, ContainerException {
 
         final List<PortConfig> portConfigs = Lists.newArrayList();
@@ -637,7 +795,10 @@ public class DockerControlApi implements ContainerControlApi {
             containerSpecBuilder.args(ShellSplitter.shellSplit(runCommand));
         }
 
-        final TaskSpec taskSpec = TaskSpec.builder()
+        final List<String> placementConstraints = placementConstraints(server, commandId, mounts,
+                commandPlacementConstraints, placementSpread, maxReplicasPerNode);
+
+        final TaskSpec.Builder taskSpecBuilder = TaskSpec.builder()
                 .containerSpec(containerSpecBuilder.build())
                 .restartPolicy(RestartPolicy.builder()
                         .condition("none")
@@ -645,13 +806,17 @@ public class DockerControlApi implements ContainerControlApi {
                 .resources(ResourceRequirements.builder()
                         .reservations(Resources.builder()
                             .memoryBytes(1024 * 1024 * reserveMemory) // megabytes to bytes
+                            .nanoCpus((new Double(1e9 * reserveCpu)).longValue())
                             .build())
                         .limits(Resources.builder()
                             .memoryBytes(1024 * 1024 * limitMemory) // megabytes to bytes
                             .nanoCpus((new Double(1e9 * limitCpu)).longValue()) // number of cpus (double) to nano-cpus (long, = cpu / 10^9)
                             .build())
-                        .build())
-                .build();
+                        .build());
+        if (!placementConstraints.isEmpty()) {
+            taskSpecBuilder.placement(Placement.create(placementConstraints));
+        }
+        final TaskSpec taskSpec = taskSpecBuilder.build();
         final ServiceSpec serviceSpec =
                 ServiceSpec.builder()
                         .taskTemplate(taskSpec)
@@ -675,7 +840,8 @@ public class DockerControlApi implements ContainerControlApi {
                             "\n\tcontainerUser \"%s\"" +
                             "\n\tvolumes [%s]" +
                             "\n\tenvironment variables [%s]" +
-                            "\n\texposed ports: {%s}",
+                            "\n\texposed ports: {%s}" +
+                            "\n\tplacement constraints [%s]",
                     server.name(), server.host(),
                     imageName,
                     runCommand,
@@ -683,7 +849,8 @@ public class DockerControlApi implements ContainerControlApi {
                     user,
                     StringUtils.join(bindMounts, ", "),
                     StringUtils.join(environmentVariables, ", "),
-                    StringUtils.join(portStringList, ", ")
+                    StringUtils.join(portStringList, ", "),
+                    StringUtils.join(placementConstraints, ", ")
             );
             log.debug(message);
         }
@@ -705,9 +872,98 @@ public class DockerControlApi implements ContainerControlApi {
         }
     }
 
+    /**
+     * The command's own placement constraints, plus those we write to place the service well:
+     * on the swarm nodes where its mounts are local, if the server says where that is, and spread out
+     * from the command's other unfinished tasks, if the command asks for that.
+     * If no node has the mounts locally, or none that does can take tasks, the service may run on any node.
+     */
+    private List<String> placementConstraints(final DockerServer server,
+                                              final long commandId,
+                                              final List<Mount> mounts,
+                                              final List<String> commandPlacementConstraints,
+                                              final String placementSpread,
+                                              final Integer maxReplicasPerNode) {
+        final List<String> constraints = Lists.newArrayList();
+        if (commandPlacementConstraints != null) {
+            for (final String constraint : commandPlacementConstraints) {
+                constraints.add(constraint.trim());
+            }
+        }
+
+        final List<String> mountSources = new ArrayList<>(mounts.size());
+        for (final Mount mount : mounts) {
+            mountSources.add(mount.source());
+        }
+        final Set<String> localNodes = SwarmNodeLocality.localNodes(server.swarmNodeArchivePrefixes(), mountSources);
+        final boolean spread = StringUtils.isNotBlank(placementSpread);
+        final boolean limitPerNode = maxReplicasPerNode != null && maxReplicasPerNode > 0;
+        if (localNodes.isEmpty() && !spread && !limitPerNode) {
+            return constraints;
+        }
+
+        final List<Node> nodes;
+        try (final DockerClient client = getClient(server)) {
+            nodes = client.listNodes();
+        } catch (DockerException | InterruptedException e) {
+            log.warn("Could not list swarm nodes on server {}. Service may run on any node.", server.name(), e);
+            return constraints;
+        }
+
+        final List<String> commandNodeIds = spread || limitPerNode ?
+                dockerServerPlacementService.getCommandNodeIds(server, commandId) :
+                Collections.<String>emptyList();
+        final Set<String> fullNodes = limitPerNode ?
+                SwarmTaskSpread.fullNodes(commandNodeIds, maxReplicasPerNode) :
+                Collections.<String>emptySet();
+        constraints.addAll(SwarmTaskSpread.excludeNodes(fullNodes));
+
+        final List<String> swarmNodes = Lists.newArrayList();
+        final List<String> readyNodes = Lists.newArrayList();
+        final Map<String, String> spreadLabelValues = Maps.newHashMap();
+        for (final Node node : nodes) {
+            final String hostname = node.description() == null ? null : node.description().hostname();
+            if (StringUtils.isBlank(hostname)) {
+                continue;
+            }
+            swarmNodes.add(hostname);
+            if (node.status() == null || !"ready".equals(node.status().state()) ||
+                    node.spec() == null || !"active".equals(node.spec().availability()) ||
+                    fullNodes.contains(node.id())) {
+                continue;
+            }
+            readyNodes.add(hostname);
+
+            final Map<String, String> labels = node.spec().labels();
+            final String spreadLabelValue = !spread || labels == null ? null :
+                    labels.get(StringUtils.removeStart(placementSpread, SwarmTaskSpread.NODE_LABEL_PREFIX));
+            if (spreadLabelValue != null) {
+                spreadLabelValues.put(node.id(), spreadLabelValue);
+            }
+        }
+
+        final List<String> localityConstraints = localNodes.isEmpty() ?
+                Collections.<String>emptyList() :
+                SwarmNodeLocality.constraints(localNodes, swarmNodes, readyNodes);
+        if (!localNodes.isEmpty() && localityConstraints.isEmpty()) {
+            log.info("None of the nodes {} with local mounts can take tasks. Service may run on any node.", localNodes);
+        }
+        constraints.addAll(localityConstraints);
+
+        // Keeping the task near its data matters more than spreading it out, and the two together could leave it no node
+        if (spread && localityConstraints.isEmpty()) {
+            final String spreadConstraint = SwarmTaskSpread.spreadConstraint(placementSpread, spreadLabelValues,
+                    commandNodeIds, spreadTurns.getAndIncrement());
+            if (spreadConstraint != null) {
+                constraints.add(spreadConstraint);
+            }
+        }
+        return constraints;
+    }
+
     @Override
     public void startContainer(final Container containerOrService) throws DockerServerException, NoDockerServerException {
-        startContainer(containerOrService, getServer());
+        startContainer(containerOrService, getServer(containerOrService));
     }
 
     private void startContainer(final Container containerOrService,
@@ -754,11 +1010,35 @@ public class DockerControlApi implements ContainerControlApi {
     public void deleteImageById(final String id, final Boolean force) throws NoDockerServerException, DockerServerException {
         try (final DockerClient dockerClient = getClient()) {
             dockerClient.removeImage(id, force, false);
+            final String server = getServer().host();
+            imageCatalog(server).remove(server, id);
         } catch (DockerException|InterruptedException e) {
             throw new DockerServerException(e);
         }
     }
 
+    @Override
+    @Nonnull
+    public Map<String, Long> getImageLayerSizes(final String imageId) throws NoDockerServerException, DockerServerException {
+        final List<ImageHistory> history;
+        try (final DockerClient dockerClient = getClient()) {
+            history = dockerClient.history(imageId);
+        } catch (DockerException|InterruptedException e) {
+            throw new DockerServerException(e);
+        }
+
+        // History is newest first. Each entry's key covers the entries below it, because a layer is only shared
+        // between images that were built on the same layers.
+        final Map<String, Long> layerSizes = new LinkedHashMap<>();
+        String key = "";
+        for (final ImageHistory entry : Lists.reverse(history)) {
+            key = Hashing.sha256().hashString(key + "\n" + entry.created() + "\n" + entry.createdBy() + "\n" + entry.size(),
+                    StandardCharsets.UTF_8).toString();
+            layerSizes.put(key, entry.size() == null ? 0L : entry.size());
+        }
+        return layerSizes;
+    }
+
     @Override
     @Nullable
     public DockerImage pullImage(final String name) throws NoDockerServerException, DockerServerException, NotFoundException {
@@ -775,10 +1055,18 @@ public class DockerControlApi implements ContainerControlApi {
     @Override
     @Nullable
     public DockerImage pullImage(final String name, final @Nullable DockerHub hub, final @Nullable String username, final @Nullable String password) throws NoDockerServerException, DockerServerException, NotFoundException {
-        final DockerClient client = getClient();
+        return pullImage(getServer(), name, hub, username, password);
+    }
+
+    @Override
+    @Nullable
+    public DockerImage pullImage(final DockerServer dockerServer, final String name, final @Nullable DockerHub hub, final @Nullable String username, final @Nullable String password) throws DockerServerException, NotFoundException {
+        final DockerClient client = getClient(dockerServer);
         _pullImage(name, registryAuth(hub, username, password), client);  // We want to throw NotFoundException here if the image is not found on the hub
+        final String server = dockerServer.host();
+        imageCatalog(server).apply(server, "pull", name, null);
         try {
-            return getImageById(name, client);  // We don't want to throw NotFoundException from here. If we can't find the image here after it has been pulled, that is a server error.
+            return getImageById(dockerServer, name, client);  // We don't want to throw NotFoundException from here. If we can't find the image here after it has been pulled, that is a server error.
         } catch (NotFoundException e) {
             final String m = String.format("Image \"%s\" was not found", name);
             log.error(m);
@@ -919,7 +1207,7 @@ public class DockerControlApi implements ContainerControlApi {
     }
 
     private LogStream logStream(final Container container, final LogsParam logType) throws DockerServerException, NoDockerServerException, DockerException, InterruptedException {
-        final DockerServer server = getServer();
+        final DockerServer server = getServer(container);
         return server.swarmMode() && container.isSwarmService() ?
                 getClient(server).serviceLogs(container.serviceId(), logType) :
                 getClient(server).logs(container.containerId(), logType);
@@ -958,11 +1246,27 @@ public class DockerControlApi implements ContainerControlApi {
 
     @Override
     public List<DockerContainerEvent> getContainerEvents(final Date since, final Date until) throws NoDockerServerException, DockerServerException {
-        final List<Event> dockerEventList = getDockerContainerEvents(since, until);
+        return getContainerEvents(getServer(), since, until);
+    }
+
+    @Override
+    public List<DockerContainerEvent> getContainerEvents(final DockerServer dockerServer, final Date since, final Date until) throws DockerServerException {
+        final String server = dockerServer.host();
+        final DockerImageCatalog imageCatalog = imageCatalog(server);
+        final List<Event> dockerEventList = getDockerContainerEvents(dockerServer, since, until);
 
         final List<DockerContainerEvent> events = Lists.newArrayList();
         for (final Event dockerEvent : dockerEventList) {
             final Event.Actor dockerEventActor = dockerEvent.actor();
+            if (Event.Type.IMAGE.equals(dockerEvent.type())) {
+                if (dockerEventActor != null) {
+                    imageCatalog.apply(server, dockerEvent.action(), dockerEventActor.id(), dockerEventActor.attributes());
+                }
+                continue;
+            }
+            if (dockerEvent.type() != null && !Event.Type.CONTAINER.equals(dockerEvent.type())) {
+                continue;
+            }
             final Map<String, String> attributes = Maps.newHashMap();
             if (dockerEventActor != null && dockerEventActor.attributes() != null) {
                 attributes.putAll(dockerEventActor.attributes());
@@ -983,7 +1287,12 @@ public class DockerControlApi implements ContainerControlApi {
 
     @Override
     public void throwContainerEvents(final Date since, final Date until) throws NoDockerServerException, DockerServerException {
-        final List<DockerContainerEvent> events = getContainerEvents(since, until);
+        throwContainerEvents(getServer(), since, until);
+    }
+
+    @Override
+    public void throwContainerEvents(final DockerServer dockerServer, final Date since, final Date until) throws DockerServerException {
+        final List<DockerContainerEvent> events = getContainerEvents(dockerServer, since, until);
 
         for (final DockerContainerEvent event : events) {
             if (log.isDebugEnabled()) {
@@ -993,15 +1302,16 @@ public class DockerControlApi implements ContainerControlApi {
         }
     }
 
-    private List<Event> getDockerContainerEvents(final Date since, final Date until) throws NoDockerServerException, DockerServerException {
-        try(final DockerClient client = getClient()) {
-            log.trace("Reading all docker container events from {} to {}.", since.getTime(), until.getTime());
+    private List<Event> getDockerContainerEvents(final DockerServer dockerServer, final Date since, final Date until) throws DockerServerException {
+        try(final DockerClient client = getClient(dockerServer)) {
+            log.trace("Reading all docker container and image events from {} to {}.", since.getTime(), until.getTime());
             
             final List<Event> eventList;
             try (final EventStream eventStream =
                          client.events(since(since.getTime() / 1000),
                                  until(until.getTime() / 1000),
-                                 type(Event.Type.CONTAINER))) {
+                                 type(Event.Type.CONTAINER),
+                                 type(Event.Type.IMAGE))) {
 
                 log.trace("Got a stream of docker events.");
 
@@ -1022,7 +1332,16 @@ public class DockerControlApi implements ContainerControlApi {
 
     @Override
     public void killContainer(final String id) throws NoDockerServerException, DockerServerException, NotFoundException {
-        try(final DockerClient client = getClient()) {
+        killContainer(getServer(), id);
+    }
+
+    @Override
+    public void killContainer(final Container container) throws NoDockerServerException, DockerServerException, NotFoundException {
+        killContainer(getServer(container), container.containerId());
+    }
+
+    private void killContainer(final DockerServer server, final String id) throws DockerServerException, NotFoundException {
+        try(final DockerClient client = getClient(server)) {
             log.info("Killing container " + id);
             client.killContainer(id);
         } catch (ContainerNotFoundException e) {
@@ -1037,10 +1356,31 @@ public class DockerControlApi implements ContainerControlApi {
         }
     }
 
+    /**
+     * Remove a finished container, or a finished swarm service, from the docker server.
+     * One that is already gone is not an error.
+     */
+    @Override
+    public void removeContainerOrService(final Container containerOrService) throws NoDockerServerException, DockerServerException {
+        try (final DockerClient client = getClient(getServer(containerOrService))) {
+            if (containerOrService.isSwarmService()) {
+                log.debug("Removing service {}.", containerOrService.serviceId());
+                client.removeService(containerOrService.serviceId());
+            } else {
+                log.debug("Removing container {}.", containerOrService.containerId());
+                client.removeContainer(containerOrService.containerId());
+            }
+        } catch (ContainerNotFoundException | ServiceNotFoundException e) {
+            log.debug("Container or service for container {} was already removed.", containerOrService.databaseId());
+        } catch (DockerException | InterruptedException e) {
+            throw new DockerServerException(e);
+        }
+    }
+
     @Override
     @Nullable
     public ServiceTask getTaskForService(final Container service) throws NoDockerServerException, DockerServerException, ServiceNotFoundException {
-        return getTaskForService(getServer(), service);
+        return getTaskForService(getServer(service), service);
     }
 
     @Override
@@ -1106,7 +1446,7 @@ public class DockerControlApi implements ContainerControlApi {
 
     @Override
     public void throwTaskEventForService(final Container service) throws NoDockerServerException, DockerServerException, ServiceNotFoundException {
-        throwTaskEventForService(getServer(), service);
+        throwTaskEventForService(getServer(service), service);
     }
 
     @Override
@@ -1128,7 +1468,7 @@ public class DockerControlApi implements ContainerControlApi {
     @Nullable
     private DockerImage spotifyToNrg(final @Nullable Image image) {
         return image == null ? null :
-                DockerImage.create(image.id(), image.repoTags(), image.labels());
+                DockerImage.create(image.id(), image.repoTags(), image.labels(), image.size());
     }
 
     /**
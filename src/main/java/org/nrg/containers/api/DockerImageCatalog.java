@@ -0,0 +1,174 @@
+package org.nrg.containers.api;
+
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.model.image.docker.DockerImage;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.nrg.containers.utils.ContainerUtils.withDefaultTag;
+
+/**
+ * The images on the docker server, as of the last time we listed them, kept current
+ * by our own pulls and deletes and by the image events we read from the server.
+ *
+ * The catalog is for one server at a time. Asking about a different server, or
+ * asking after the catalog has gone too long without a full listing, finds it stale.
+ */
+@Slf4j
+class DockerImageCatalog {
+    // Image events are only read when we poll for container events, which we do not do in swarm mode.
+    // Relist at least this often so changes made behind our back are seen eventually.
+    private static final long MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final Pattern IMAGE_ID_PREFIX = Pattern.compile("^[0-9a-f]{12,64}$");
+    private static final String SHA256 = "sha256:";
+
+    private String server = null;
+    private long listedAt = 0L;
+    private final Map<String, DockerImage> imagesById = Maps.newHashMap();
+    private final Map<String, String> imageIdsByName = Maps.newHashMap();
+
+    synchronized boolean isCurrent(final String server) {
+        return StringUtils.equals(this.server, server) && System.currentTimeMillis() - listedAt < MAX_AGE_MILLIS;
+    }
+
+    synchronized void replaceAll(final String server, final List<DockerImage> images) {
+        this.server = server;
+        this.listedAt = System.currentTimeMillis();
+        imagesById.clear();
+        imageIdsByName.clear();
+        for (final DockerImage image : images) {
+            add(image);
+        }
+    }
+
+    /**
+     * @param nameOrId An image ID, full or abbreviated, or a name by which the image has been tagged or requested
+     * @return The image, or null if the catalog does not know it
+     */
+    @Nullable
+    synchronized DockerImage find(final String server, final String nameOrId) {
+        if (!StringUtils.equals(this.server, server) || StringUtils.isBlank(nameOrId)) {
+            return null;
+        }
+
+        final DockerImage byId = imagesById.get(nameOrId.startsWith(SHA256) ? nameOrId : SHA256 + nameOrId);
+        if (byId != null) {
+            return byId;
+        }
+
+        String imageId = imageIdsByName.get(nameOrId);
+        if (imageId == null) {
+            imageId = imageIdsByName.get(withDefaultTag(nameOrId));
+        }
+        if (imageId != null) {
+            return imagesById.get(imageId);
+        }
+
+        if (IMAGE_ID_PREFIX.matcher(nameOrId).matches()) {
+            for (final Map.Entry<String, DockerImage> entry : imagesById.entrySet()) {
+                if (entry.getKey().startsWith(SHA256 + nameOrId)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Record an image we just inspected or pulled, and the name we used to find it.
+     * An image we already know keeps its listed tags and size.
+     */
+    synchronized void put(final String server, final String name, final DockerImage image) {
+        if (!StringUtils.equals(this.server, server) || StringUtils.isBlank(image.imageId())) {
+            return;
+        }
+        if (!imagesById.containsKey(image.imageId())) {
+            imagesById.put(image.imageId(), image);
+        }
+        if (StringUtils.isNotBlank(name) && !name.equals(image.imageId())) {
+            imageIdsByName.put(name, image.imageId());
+        }
+    }
+
+    synchronized void remove(final String server, final String nameOrId) {
+        if (!StringUtils.equals(this.server, server)) {
+            return;
+        }
+        final DockerImage image = find(server, nameOrId);
+        if (image != null) {
+            removeImage(image.imageId());
+        }
+    }
+
+    /**
+     * Apply an image event from the docker server.
+     *
+     * @param action The event's action, e.g. "pull", "tag", "delete"
+     * @param actorId The image the event is about. An ID for most actions, but the pulled name for "pull".
+     * @param attributes The event actor's attributes. "tag" events name the new tag here.
+     */
+    synchronized void apply(final String server, final String action, final String actorId, final Map<String, String> attributes) {
+        if (!StringUtils.equals(this.server, server) || action == null || actorId == null) {
+            return;
+        }
+        log.trace("Updating image catalog for image event {} {}.", action, actorId);
+        switch (action) {
+            case "pull":
+                // The name may now refer to a different image. Forget it; the next lookup will inspect the image.
+                forgetName(actorId);
+                break;
+            case "tag":
+                final String tag = attributes == null ? null : attributes.get("name");
+                final DockerImage tagged = find(server, actorId);
+                if (tag != null && tagged != null) {
+                    imageIdsByName.put(tag, tagged.imageId());
+                } else if (tag != null) {
+                    forgetName(tag);
+                }
+                break;
+            case "untag":
+            case "delete":
+                // We are not told which tag was removed, so forget the image. It will be relearned if it is still there.
+                final DockerImage removed = find(server, actorId);
+                if (removed != null) {
+                    removeImage(removed.imageId());
+                }
+                break;
+            default:
+                // Images that were imported or loaded are found by inspecting them on first lookup
+                break;
+        }
+    }
+
+    private void add(final DockerImage image) {
+        if (StringUtils.isBlank(image.imageId())) {
+            return;
+        }
+        imagesById.put(image.imageId(), image);
+        for (final String tag : image.tags()) {
+            imageIdsByName.put(tag, image.imageId());
+        }
+    }
+
+    private void removeImage(final String imageId) {
+        imagesById.remove(imageId);
+        final Iterator<Map.Entry<String, String>> names = imageIdsByName.entrySet().iterator();
+        while (names.hasNext()) {
+            if (names.next().getValue().equals(imageId)) {
+                names.remove();
+            }
+        }
+    }
+
+    private void forgetName(final String name) {
+        imageIdsByName.remove(name);
+        imageIdsByName.remove(withDefaultTag(name));
+    }
+}
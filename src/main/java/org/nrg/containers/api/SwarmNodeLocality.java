@@ -0,0 +1,98 @@
+package org.nrg.containers.api;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chooses the swarm nodes a service should run on, given the host paths the docker server
+ * says are local or fast on each node.
+ *
+ * Swarm constraints are all required, so "any of these nodes" is written as "none of the others."
+ */
+class SwarmNodeLocality {
+    private static final String HOSTNAME_CONSTRAINT = "node.hostname";
+
+    /**
+     * @param nodePrefixes Host paths that are local to each node, by node hostname
+     * @param mountSources The host paths the service will mount
+     * @return The hostnames of the nodes that have the most mounts locally, or an empty set if no node has any
+     */
+    static Set<String> localNodes(final Map<String, List<String>> nodePrefixes, final Collection<String> mountSources) {
+        final Set<String> localNodes = Sets.newHashSet();
+        if (nodePrefixes == null || nodePrefixes.isEmpty() || mountSources == null || mountSources.isEmpty()) {
+            return localNodes;
+        }
+
+        int mostLocalMounts = 0;
+        for (final Map.Entry<String, List<String>> node : nodePrefixes.entrySet()) {
+            int localMounts = 0;
+            for (final String mountSource : mountSources) {
+                if (isUnderAny(mountSource, node.getValue())) {
+                    localMounts++;
+                }
+            }
+            if (localMounts == 0 || localMounts < mostLocalMounts) {
+                continue;
+            }
+            if (localMounts > mostLocalMounts) {
+                mostLocalMounts = localMounts;
+                localNodes.clear();
+            }
+            localNodes.add(node.getKey());
+        }
+        return localNodes;
+    }
+
+    /**
+     * @param localNodes The hostnames of the nodes we want the service to run on
+     * @param swarmNodes The hostnames of all nodes in the swarm
+     * @param readyNodes The hostnames of the nodes in the swarm that can take tasks now
+     * @return Placement constraints that keep the service on the local nodes, or no constraints
+     *         (any node) if none of the local nodes can take tasks
+     */
+    static List<String> constraints(final Set<String> localNodes,
+                                    final Collection<String> swarmNodes,
+                                    final Collection<String> readyNodes) {
+        final List<String> readyLocalNodes = Lists.newArrayList();
+        for (final String readyNode : readyNodes) {
+            if (localNodes.contains(readyNode)) {
+                readyLocalNodes.add(readyNode);
+            }
+        }
+        if (readyLocalNodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (readyLocalNodes.size() == 1) {
+            return Collections.singletonList(HOSTNAME_CONSTRAINT + "==" + readyLocalNodes.get(0));
+        }
+
+        final List<String> constraints = Lists.newArrayList();
+        for (final String swarmNode : swarmNodes) {
+            if (!localNodes.contains(swarmNode)) {
+                constraints.add(HOSTNAME_CONSTRAINT + "!=" + swarmNode);
+            }
+        }
+        return constraints;
+    }
+
+    private static boolean isUnderAny(final String path, final List<String> prefixes) {
+        if (StringUtils.isBlank(path) || prefixes == null) {
+            return false;
+        }
+        for (final String prefix : prefixes) {
+            final String trimmedPrefix = StringUtils.removeEnd(StringUtils.trimToEmpty(prefix), "/");
+            if (StringUtils.isNotEmpty(trimmedPrefix) &&
+                    (path.equals(trimmedPrefix) || path.startsWith(trimmedPrefix + "/"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,96 @@
+package org.nrg.containers.api;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spreads a command's swarm tasks over the nodes, given the nodes its unfinished tasks are on.
+ *
+ * Each of our services runs a single task, so swarm's own spread preferences and replica limits, which work
+ * within one service, would not apply across a command's services even if our docker client could send them.
+ * We write them as constraints on each new service instead.
+ */
+class SwarmTaskSpread {
+    static final String NODE_LABEL_PREFIX = "node.labels.";
+    private static final String NODE_ID_CONSTRAINT = "node.id";
+
+    /**
+     * @param commandNodeIds The node of each of the command's unfinished tasks
+     * @param maxReplicasPerNode The most tasks of the command a node may run at once
+     * @return The nodes that may not take another of the command's tasks
+     */
+    static Set<String> fullNodes(final Collection<String> commandNodeIds, final int maxReplicasPerNode) {
+        final Set<String> fullNodes = Sets.newHashSet();
+        for (final Map.Entry<String, Integer> nodeCount : countByNode(commandNodeIds).entrySet()) {
+            if (nodeCount.getValue() >= maxReplicasPerNode) {
+                fullNodes.add(nodeCount.getKey());
+            }
+        }
+        return fullNodes;
+    }
+
+    static List<String> excludeNodes(final Collection<String> nodeIds) {
+        final List<String> constraints = Lists.newArrayList();
+        for (final String nodeId : nodeIds) {
+            constraints.add(NODE_ID_CONSTRAINT + "!=" + nodeId);
+        }
+        Collections.sort(constraints);
+        return constraints;
+    }
+
+    /**
+     * @param placementSpread The node label to spread over, e.g. "node.labels.rack"
+     * @param labelValuesByNodeId The value of that label on each node that can take the task. Nodes without the label are left out.
+     * @param commandNodeIds The node of each of the command's unfinished tasks
+     * @param turn Chooses among label values that have equally few tasks, so a burst of launches is spread too
+     * @return A constraint keeping the task on nodes with the label value that has the fewest of the command's tasks,
+     *         or null if no node that can take the task has the label
+     */
+    @Nullable
+    static String spreadConstraint(final String placementSpread,
+                                   final Map<String, String> labelValuesByNodeId,
+                                   final Collection<String> commandNodeIds,
+                                   final long turn) {
+        if (StringUtils.isBlank(placementSpread) || labelValuesByNodeId.isEmpty()) {
+            return null;
+        }
+
+        final Map<String, Integer> tasksByLabelValue = Maps.newTreeMap();
+        for (final String labelValue : labelValuesByNodeId.values()) {
+            tasksByLabelValue.put(labelValue, 0);
+        }
+        for (final Map.Entry<String, Integer> nodeCount : countByNode(commandNodeIds).entrySet()) {
+            final String labelValue = labelValuesByNodeId.get(nodeCount.getKey());
+            if (labelValue != null) {
+                tasksByLabelValue.put(labelValue, tasksByLabelValue.get(labelValue) + nodeCount.getValue());
+            }
+        }
+
+        final int fewestTasks = Collections.min(tasksByLabelValue.values());
+        final List<String> leastUsed = Lists.newArrayList();
+        for (final Map.Entry<String, Integer> labelValueCount : tasksByLabelValue.entrySet()) {
+            if (labelValueCount.getValue() == fewestTasks) {
+                leastUsed.add(labelValueCount.getKey());
+            }
+        }
+        return placementSpread + "==" + leastUsed.get((int) (turn % leastUsed.size()));
+    }
+
+    private static Map<String, Integer> countByNode(final Collection<String> nodeIds) {
+        final Map<String, Integer> countByNode = Maps.newHashMap();
+        for (final String nodeId : nodeIds) {
+            final Integer count = countByNode.get(nodeId);
+            countByNode.put(nodeId, count == null ? 1 : count + 1);
+        }
+        return countByNode;
+    }
+}
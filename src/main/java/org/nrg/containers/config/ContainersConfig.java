@@ -4,6 +4,11 @@ import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import org.nrg.containers.events.DockerStatusUpdater;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.services.ContainerReaperService;
+import org.nrg.containers.services.DockerHubHealthService;
+import org.nrg.containers.services.DockerServerHealthService;
+import org.nrg.containers.services.ImageGarbageCollectionService;
 import org.nrg.framework.annotations.XnatPlugin;
 import org.nrg.xnat.initialization.RootConfig;
 import org.springframework.context.annotation.Bean;
@@ -13,9 +18,12 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
 import org.springframework.scheduling.config.TriggerTask;
 import org.springframework.scheduling.support.PeriodicTrigger;
 
+import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
@@ -47,4 +55,84 @@ public class ContainersConfig {
                 new PeriodicTrigger(10L, TimeUnit.SECONDS)
         );
     }
-}
\ No newline at end of file
+
+    @Bean
+    public TriggerTask dockerServerPingTask(final DockerServerHealthService dockerServerHealthService,
+                                           final ContainerServicePrefsBean containerServicePrefsBean) {
+        return new TriggerTask(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        dockerServerHealthService.refreshInBackground();
+                    }
+                },
+                new Trigger() {
+                    @Override
+                    public Date nextExecutionTime(final TriggerContext triggerContext) {
+                        final Integer ttlSeconds = containerServicePrefsBean.getDockerServerPingTtlSeconds();
+                        return nextPingTime(triggerContext, ttlSeconds == null || ttlSeconds <= 0 ?
+                                ContainerServicePrefsBean.DEFAULT_DOCKER_SERVER_PING_TTL_SECONDS :
+                                ttlSeconds);
+                    }
+                }
+        );
+    }
+
+    @Bean
+    public TriggerTask dockerHubPingTask(final DockerHubHealthService dockerHubHealthService,
+                                        final ContainerServicePrefsBean containerServicePrefsBean) {
+        return new TriggerTask(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        dockerHubHealthService.refreshInBackground();
+                    }
+                },
+                new Trigger() {
+                    @Override
+                    public Date nextExecutionTime(final TriggerContext triggerContext) {
+                        final Integer ttlSeconds = containerServicePrefsBean.getDockerHubPingTtlSeconds();
+                        return nextPingTime(triggerContext, ttlSeconds == null || ttlSeconds <= 0 ?
+                                ContainerServicePrefsBean.DEFAULT_DOCKER_HUB_PING_TTL_SECONDS :
+                                ttlSeconds);
+                    }
+                }
+        );
+    }
+
+    @Bean
+    public TriggerTask imageGarbageCollectionTask(final ImageGarbageCollectionService imageGarbageCollectionService) {
+        return new TriggerTask(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        imageGarbageCollectionService.collectIfEnabled();
+                    }
+                },
+                new PeriodicTrigger(1L, TimeUnit.HOURS)
+        );
+    }
+
+    @Bean
+    public TriggerTask containerReaperTask(final ContainerReaperService containerReaperService) {
+        return new TriggerTask(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        containerReaperService.sweep();
+                    }
+                },
+                new PeriodicTrigger(1L, TimeUnit.MINUTES)
+        );
+    }
+
+    /**
+     * The background refresh pings anything older than half the TTL. Running it four times per TTL
+     * refreshes each result before it expires, and follows changes to the TTL preference.
+     */
+    private static Date nextPingTime(final TriggerContext triggerContext, final int ttlSeconds) {
+        final Date lastCompletion = triggerContext.lastCompletionTime();
+        final long periodMillis = Math.max(TimeUnit.SECONDS.toMillis(ttlSeconds) / 4, TimeUnit.SECONDS.toMillis(1));
+        return new Date((lastCompletion == null ? System.currentTimeMillis() : lastCompletion.getTime()) + periodMillis);
+    }
+}
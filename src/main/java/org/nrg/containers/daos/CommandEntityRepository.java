@@ -29,6 +29,7 @@ public class CommandEntityRepository extends AbstractHibernateDAO<CommandEntity>
         }
         Hibernate.initialize(commandEntity);
         Hibernate.initialize(commandEntity.getEnvironmentVariables());
+        Hibernate.initialize(commandEntity.getPlacementConstraints());
         Hibernate.initialize(commandEntity.getMounts());
         Hibernate.initialize(commandEntity.getInputs());
         Hibernate.initialize(commandEntity.getOutputs());
@@ -42,4 +42,16 @@ public class CommandEventMappingDao extends AbstractHibernateDAO<CommandEventMap
         }
         return findByProperties(properties);
     }
+
+    /**
+     * Find all enabled CommandEventMappings, for every eventType and project.
+     *
+     * @return List of enabled CommandEventMappings. Never null.
+     */
+    public List<CommandEventMapping> findAllEnabledMappings() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("enabled", true);
+        final List<CommandEventMapping> enabled = findByProperties(properties);
+        return enabled == null ? Lists.<CommandEventMapping>newArrayList() : enabled;
+    }
 }
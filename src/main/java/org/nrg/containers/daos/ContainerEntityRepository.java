@@ -6,13 +6,18 @@ import org.hibernate.criterion.Restrictions;
 import org.nrg.containers.model.container.entity.ContainerEntity;
 import org.nrg.containers.model.container.entity.ContainerEntityHistory;
 import org.nrg.containers.model.container.entity.ContainerEntityMount;
+import org.nrg.containers.model.server.docker.DockerServerLoad;
 import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
 import org.springframework.stereotype.Repository;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Repository
@@ -38,6 +43,7 @@ public class ContainerEntityRepository extends AbstractHibernateDAO<ContainerEnt
         Hibernate.initialize(entity.getInputs());
         Hibernate.initialize(entity.getOutputs());
         Hibernate.initialize(entity.getLogPaths());
+        Hibernate.initialize(entity.getPlacementConstraints());
 
         initialize(entity.getParentContainerEntity());
     }
@@ -152,6 +158,88 @@ public class ContainerEntityRepository extends AbstractHibernateDAO<ContainerEnt
         return initializeAndReturnList(list);
     }
 
+    /**
+     * @return For each image name or ID that containers have been launched from, when the most recent one was created
+     */
+    @Nonnull
+    public Map<String, Date> getLastLaunchTimesByImage() {
+        final List rows = getSession()
+                .createQuery("select c.dockerImage, max(c.created) from ContainerEntity as c where c.dockerImage is not null group by c.dockerImage")
+                .list();
+        final Map<String, Date> lastLaunchTimes = new HashMap<>();
+        if (rows != null) {
+            for (final Object row : rows) {
+                final Object[] columns = (Object[]) row;
+                lastLaunchTimes.put((String) columns[0], (Date) columns[1]);
+            }
+        }
+        return lastLaunchTimes;
+    }
+
+    /**
+     * @return For each docker server with containers that have not finished, how many there are and how much memory they reserved
+     */
+    @Nonnull
+    public List<DockerServerLoad> getNonfinalizedLoadByServer() {
+        final List rows = getSession()
+                .createQuery("select c.dockerServerId, count(c), sum(c.reserveMemory) from ContainerEntity as c " +
+                        "where c.status not in ('Complete', 'Done', 'Failed', 'Killed') group by c.dockerServerId")
+                .list();
+        final List<DockerServerLoad> loads = new ArrayList<>();
+        if (rows != null) {
+            for (final Object row : rows) {
+                final Object[] columns = (Object[]) row;
+                final Number reservedMemory = (Number) columns[2];
+                loads.add(DockerServerLoad.create((Long) columns[0],
+                        ((Number) columns[1]).longValue(),
+                        reservedMemory == null ? 0L : reservedMemory.longValue()));
+            }
+        }
+        return loads;
+    }
+
+    /**
+     * @param includeUnplaced Whether to include services launched before servers were recorded
+     * @return The swarm node of each of the command's unfinished services on the docker server, for those that have been given one
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public List<String> getNonfinalizedNodeIds(final long commandId, final long dockerServerId, final boolean includeUnplaced) {
+        final List<String> nodeIds = getSession()
+                .createQuery("select c.nodeId from ContainerEntity as c " +
+                        "where c.commandId = :commandId and c.nodeId is not null " +
+                        "and c.status not in ('Complete', 'Done', 'Failed', 'Killed') " +
+                        "and (c.dockerServerId = :dockerServerId" + (includeUnplaced ? " or c.dockerServerId is null)" : ")"))
+                .setLong("commandId", commandId)
+                .setLong("dockerServerId", dockerServerId)
+                .list();
+        return nodeIds == null ? Collections.<String>emptyList() : nodeIds;
+    }
+
+    /**
+     * @param finishedBefore  Only containers that were last changed before this time
+     * @param includeFailed   Whether to include containers that failed
+     * @param maxResults      How many containers to return at most
+     * @return Finalized containers and services that are still on their docker server, least recently changed first
+     */
+    @Nonnull
+    public List<ContainerEntity> getFinalizedNotRemovedFromServer(final Date finishedBefore,
+                                                                  final boolean includeFailed,
+                                                                  final int maxResults) {
+        final List list = getSession()
+                .createQuery("select c from ContainerEntity as c " +
+                        "where (c.removedFromServer is null or c.removedFromServer = false) " +
+                        "and (c.containerId is not null or c.serviceId is not null) " +
+                        "and c.timestamp < :finishedBefore " +
+                        "and (c.status in ('Complete', 'Done') or c.status like 'Killed%'" +
+                        (includeFailed ? " or c.status like 'Failed%')" : ")") +
+                        " order by c.timestamp")
+                .setTimestamp("finishedBefore", finishedBefore)
+                .setMaxResults(maxResults)
+                .list();
+        return initializeAndReturnList(list);
+    }
+
     @SuppressWarnings("unchecked")
     @Nonnull
     private List<ContainerEntity> initializeAndReturnList(final List result) {
@@ -1,57 +1,101 @@
 package org.nrg.containers.daos;
 
+import org.hibernate.Hibernate;
 import org.nrg.containers.model.server.docker.DockerServerEntity;
 import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.Nonnull;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 @Repository
 public class DockerServerEntityRepository extends AbstractHibernateDAO<DockerServerEntity> {
 
-    public DockerServerEntity getUniqueEnabledServer() {
+    @Override
+    public void initialize(final DockerServerEntity entity) {
+        if (entity == null) {
+            return;
+        }
+        Hibernate.initialize(entity);
+        Hibernate.initialize(entity.getSwarmNodeArchivePrefixes());
+    }
+
+    /**
+     * @return The default server, which is the earliest-created of the enabled servers.
+     */
+    public DockerServerEntity getDefaultEnabledServer() {
         final DockerServerEntity dockerServerEntity = (DockerServerEntity) getSession()
-                .createQuery("select server from DockerServerEntity as server where server.enabled = true")
+                .createQuery("select server from DockerServerEntity as server where server.enabled = true order by server.id")
+                .setMaxResults(1)
                 .uniqueResult();
         initialize(dockerServerEntity);
         return dockerServerEntity;
     }
 
-    public long getUniqueEnabledServerId() {
-        final Long serverId = (Long) getSession()
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public List<DockerServerEntity> getEnabledServers() {
+        final List<DockerServerEntity> servers = getSession()
+                .createQuery("select server from DockerServerEntity as server where server.enabled = true order by server.id")
+                .list();
+        if (servers == null) {
+            return Collections.emptyList();
+        }
+        for (final DockerServerEntity server : servers) {
+            initialize(server);
+        }
+        return servers;
+    }
+
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private List<Long> getEnabledServerIds() {
+        final List<Long> serverIds = getSession()
                 .createQuery("select server.id from DockerServerEntity as server where server.enabled = true")
-                .uniqueResult();
-        return serverId == null ? 0L : serverId;
+                .list();
+        return serverIds == null ? Collections.<Long>emptyList() : serverIds;
     }
 
     @Override
     public DockerServerEntity create(final DockerServerEntity dockerServerEntity) {
-        // We only allow one enabled server at a time. To create this one, we must disable
-        // the previous one.
-        final DockerServerEntity currentlyEnabledServer = getUniqueEnabledServer();
-        if (currentlyEnabledServer != null) {
-            disableServer(currentlyEnabledServer);
+        // Creating a server this way replaces the default server. To create this one, we must disable
+        // the previous one. Servers added alongside the default are created with addEnabledServer.
+        final DockerServerEntity currentDefaultServer = getDefaultEnabledServer();
+        if (currentDefaultServer != null) {
+            disableServer(currentDefaultServer);
         }
         final Long id = (Long) super.create(dockerServerEntity);
         dockerServerEntity.setId(id);
         return dockerServerEntity;
     }
 
+    public DockerServerEntity addEnabledServer(final DockerServerEntity dockerServerEntity) {
+        dockerServerEntity.setEnabled(true);
+        final Long id = (Long) super.create(dockerServerEntity);
+        dockerServerEntity.setId(id);
+        return dockerServerEntity;
+    }
+
     @Override
     public void update(final DockerServerEntity dockerServerEntity) {
-        if (dockerServerEntity.isEnabled() && dockerServerEntity.getId() != getUniqueEnabledServerId()) {
-            // If the caller wants to update this server to be "enabled", we want to disable
-            // the currently enabled server. Unless they are the same.
-            disableServer(getUniqueEnabledServer());
+        if (dockerServerEntity.isEnabled() && !getEnabledServerIds().contains(dockerServerEntity.getId())) {
+            // If the caller wants to update this server to be "enabled", it replaces the default server.
+            // Updates to servers that are already enabled, like new event check times, replace nothing.
+            final DockerServerEntity currentDefaultServer = getDefaultEnabledServer();
+            if (currentDefaultServer != null) {
+                disableServer(currentDefaultServer);
+            }
         }
         super.update(dockerServerEntity);
     }
 
-    private void disableServer(final DockerServerEntity currentlyEnabledServer) {
+    public void disableServer(final DockerServerEntity dockerServerEntity) {
         final Date now = new Date();
-        currentlyEnabledServer.setEnabled(false);
-        currentlyEnabledServer.setDisabled(now);
-        currentlyEnabledServer.setTimestamp(now);
-        getSession().update(currentlyEnabledServer);
+        dockerServerEntity.setEnabled(false);
+        dockerServerEntity.setDisabled(now);
+        dockerServerEntity.setTimestamp(now);
+        getSession().update(dockerServerEntity);
     }
 }
@@ -1,17 +1,19 @@
 package org.nrg.containers.events;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.spotify.docker.client.exceptions.ServiceNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.nrg.containers.api.ContainerControlApi;
 import org.nrg.containers.exceptions.DockerServerException;
-import org.nrg.containers.exceptions.NoDockerServerException;
 import org.nrg.containers.model.container.auto.Container;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.DockerServerLoad;
+import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.containers.services.ContainerService;
 import org.nrg.containers.services.DockerServerService;
 import org.nrg.containers.utils.ContainerUtils;
-import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.xdat.turbine.utils.AdminUtils;
 import org.nrg.xft.event.persist.PersistentWorkflowUtils;
 import org.nrg.xft.schema.XFTManager;
@@ -19,19 +21,33 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nonnull;
+import javax.annotation.PreDestroy;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Slf4j
 @Component
 public class DockerStatusUpdater implements Runnable {
+    private static final String SKIP_MESSAGE = "Skipping attempt to update status.";
 
     private ContainerControlApi controlApi;
     private DockerServerService dockerServerService;
     private ContainerService containerService;
+    private ContainerEntityService containerEntityService;
 
-    private boolean haveLoggedDockerConnectFailure = false;
+    // Each server is checked on its own thread, so one slow or unreachable server does not hold up the others
+    private final ExecutorService executorService = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("docker-status-%d").setDaemon(true).build());
+
+    private final Set<Long> haveLoggedDockerConnectFailure = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
     private boolean haveLoggedNoServerInDb = false;
     private boolean haveLoggedXftInitFailure = false;
 
@@ -39,54 +55,112 @@ public class DockerStatusUpdater implements Runnable {
     @SuppressWarnings("SpringJavaAutowiringInspection")
     public DockerStatusUpdater(final ContainerControlApi controlApi,
                                final DockerServerService dockerServerService,
-                               final ContainerService containerService) {
+                               final ContainerService containerService,
+                               final ContainerEntityService containerEntityService) {
         this.controlApi = controlApi;
         this.dockerServerService = dockerServerService;
         this.containerService = containerService;
+        this.containerEntityService = containerEntityService;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
     }
 
     @Override
     public void run() {
         log.trace("Attempting to update status with docker.");
 
-        final String skipMessage = "Skipping attempt to update status.";
-
         if (!XFTManager.isInitialized()) {
             if (!haveLoggedXftInitFailure) {
-                log.info("XFT is not initialized. " + skipMessage);
+                log.info("XFT is not initialized. " + SKIP_MESSAGE);
                 haveLoggedXftInitFailure = true;
             }
             return;
         }
 
-        // Since XFT is up, we should be able to connect to the database and read the docker server
-        DockerServer dockerServer = null;
-        try {
-            dockerServer = dockerServerService.getServer();
-        } catch (NotFoundException e) {
-            // ignored
-        }
-        if (dockerServer == null) {
+        // Since XFT is up, we should be able to connect to the database and read the docker servers
+        final List<DockerServer> enabledServers = dockerServerService.getEnabledServers();
+        final List<DockerServer> dockerServers = enabledServers == null ?
+                Lists.<DockerServer>newArrayList() :
+                Lists.newArrayList(enabledServers);
+        dockerServers.addAll(disabledServersWithUnfinishedContainers(enabledServers));
+        if (dockerServers.isEmpty()) {
             if (!haveLoggedNoServerInDb) {
-                log.info("No docker server has been defined (or enabled) in the database. " + skipMessage);
+                log.info("No docker server has been defined (or enabled) in the database. " + SKIP_MESSAGE);
                 haveLoggedNoServerInDb = true;
                 haveLoggedXftInitFailure = false;
             }
             return;
         }
+        haveLoggedNoServerInDb = false;
+        haveLoggedXftInitFailure = false;
+
+        final Long defaultServerId = enabledServers == null || enabledServers.isEmpty() ? null : enabledServers.get(0).id();
+        final List<Callable<Void>> updates = Lists.newArrayList();
+        for (final DockerServer dockerServer : dockerServers) {
+            updates.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    update(dockerServer, dockerServer.id().equals(defaultServerId));
+                    return null;
+                }
+            });
+        }
+        try {
+            for (final Future<Void> update : executorService.invokeAll(updates)) {
+                try {
+                    update.get();
+                } catch (ExecutionException e) {
+                    log.error("Could not update status.", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            log.info("Interrupted while updating status.");
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        if (!controlApi.canConnect()) {
-            if (!haveLoggedDockerConnectFailure) {
-                log.info("Cannot ping docker server " + dockerServer.name() + ". " + skipMessage);
-                haveLoggedDockerConnectFailure = true;
-                haveLoggedXftInitFailure = false;
-                haveLoggedNoServerInDb = false;
+    /**
+     * No new containers are placed on a disabled server, but the ones already running there are
+     * still watched until they finish, so that they are finalized.
+     */
+    @Nonnull
+    private List<DockerServer> disabledServersWithUnfinishedContainers(final List<DockerServer> enabledServers) {
+        final Set<Long> enabledServerIds = Sets.newHashSet();
+        if (enabledServers != null) {
+            for (final DockerServer server : enabledServers) {
+                enabledServerIds.add(server.id());
+            }
+        }
+
+        final List<DockerServer> disabledServers = Lists.newArrayList();
+        for (final DockerServerLoad load : containerEntityService.getNonfinalizedLoadByServer()) {
+            // Containers without a server are on the default server, which is enabled
+            if (load.serverId() == null || enabledServerIds.contains(load.serverId())) {
+                continue;
+            }
+            final DockerServer server = dockerServerService.retrieveServer(load.serverId());
+            if (server != null) {
+                disabledServers.add(server);
+            }
+        }
+        return disabledServers;
+    }
+
+    private void update(final DockerServer dockerServer, final boolean isDefaultServer) {
+        if (!controlApi.canConnect(dockerServer)) {
+            if (haveLoggedDockerConnectFailure.add(dockerServer.id())) {
+                log.info("Cannot ping docker server " + dockerServer.name() + ". " + SKIP_MESSAGE);
             }
             return;
         }
 
         // Now we should be able to check the status
-        final UpdateReport updateReport = dockerServer.swarmMode() ? updateServices(dockerServer) : updateContainers(dockerServer);
+        final UpdateReport updateReport = dockerServer.swarmMode() ?
+                updateServices(dockerServer, isDefaultServer) :
+                updateContainers(dockerServer);
         if (updateReport.successful == null) {
             // This means some, but not all, of the services didn't update properly. Which ones?
             for (final UpdateReportEntry entry : updateReport.updateReports) {
@@ -97,17 +171,13 @@ public class DockerStatusUpdater implements Runnable {
                 }
             }
 
-            // Reset failure flags
-            haveLoggedDockerConnectFailure = false;
-            haveLoggedXftInitFailure = false;
-            haveLoggedNoServerInDb = false;
+            // Reset failure flag
+            haveLoggedDockerConnectFailure.remove(dockerServer.id());
         } else if (updateReport.successful) {
-            // Reset failure flags
-            haveLoggedDockerConnectFailure = false;
-            haveLoggedXftInitFailure = false;
-            haveLoggedNoServerInDb = false;
+            // Reset failure flag
+            haveLoggedDockerConnectFailure.remove(dockerServer.id());
         } else {
-            log.info("Did not update status successfully.");
+            log.info("Did not update status successfully for docker server {}.", dockerServer.name());
         }
     }
 
@@ -119,22 +189,25 @@ public class DockerStatusUpdater implements Runnable {
         final Date now = new Date();
 
         try {
-            controlApi.throwContainerEvents(since, now);
+            controlApi.throwContainerEvents(dockerServer, since, now);
             dockerServerService.update(dockerServer.updateEventCheckTime(now));
 
             return UpdateReport.singleton(UpdateReportEntry.success());
-        } catch (NoDockerServerException e) {
-            log.info("Cannot search for Docker container events. No Docker server defined.");
         } catch (DockerServerException e) {
-            log.error("Cannot find Docker container events.", e);
+            log.error("Cannot find Docker container events on server " + dockerServer.name() + ".", e);
         }
         return UpdateReport.singleton(UpdateReportEntry.failure());
     }
 
     @Nonnull
-    private UpdateReport updateServices(final DockerServer dockerServer) {
+    private UpdateReport updateServices(final DockerServer dockerServer, final boolean isDefaultServer) {
         final UpdateReport report = UpdateReport.create();
         for (final Container service : containerService.retrieveNonfinalizedServices()) {
+            // Services launched before servers were recorded are on the default server
+            final Long serviceServerId = service.dockerServerId();
+            if (serviceServerId == null ? !isDefaultServer : serviceServerId != dockerServer.id().longValue()) {
+                continue;
+            }
             // log.debug("Getting Task info for Service {}.", service.serviceId());
             try {
                 controlApi.throwTaskEventForService(dockerServer, service);
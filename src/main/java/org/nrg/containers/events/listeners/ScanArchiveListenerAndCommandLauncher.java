@@ -1,31 +1,19 @@
 package org.nrg.containers.events.listeners;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Maps;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.events.model.ScanArchiveEventToLaunchCommands;
-import org.nrg.containers.exceptions.CommandResolutionException;
-import org.nrg.containers.exceptions.ContainerException;
-import org.nrg.containers.exceptions.DockerServerException;
-import org.nrg.containers.exceptions.NoDockerServerException;
-import org.nrg.containers.exceptions.UnauthorizedException;
 import org.nrg.containers.model.CommandEventMapping;
 import org.nrg.containers.model.xnat.Scan;
+import org.nrg.containers.services.CommandEventLaunchService;
 import org.nrg.containers.services.CommandEventMappingService;
-import org.nrg.containers.services.ContainerService;
-import org.nrg.framework.exceptions.NotFoundException;
-import org.nrg.xdat.security.services.UserManagementServiceI;
-import org.nrg.xdat.security.user.exceptions.UserInitException;
-import org.nrg.xdat.security.user.exceptions.UserNotFoundException;
-import org.nrg.xft.security.UserI;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import reactor.bus.Event;
 import reactor.bus.EventBus;
 import reactor.fn.Consumer;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -34,24 +22,18 @@ import static reactor.bus.selector.Selectors.type;
 @Slf4j
 @Service
 public class ScanArchiveListenerAndCommandLauncher implements Consumer<Event<ScanArchiveEventToLaunchCommands>> {
-    private static final String EVENT_ID = "ScanArchived";
+    static final String EVENT_ID = "ScanArchived";
 
-    private ObjectMapper mapper;
-    private ContainerService containerService;
     private CommandEventMappingService commandEventMappingService;
-    private UserManagementServiceI userManagementService;
+    private CommandEventLaunchService commandEventLaunchService;
 
     @Autowired
     public ScanArchiveListenerAndCommandLauncher(final EventBus eventBus,
-                                                 final ObjectMapper mapper,
-                                                 final ContainerService containerService,
                                                  final CommandEventMappingService commandEventMappingService,
-                                                 final UserManagementServiceI userManagementService) {
+                                                 final CommandEventLaunchService commandEventLaunchService) {
         eventBus.on(type(ScanArchiveEventToLaunchCommands.class), this);
-        this.mapper = mapper;
-        this.containerService = containerService;
         this.commandEventMappingService = commandEventMappingService;
-        this.userManagementService = userManagementService;
+        this.commandEventLaunchService = commandEventLaunchService;
     }
 
 
@@ -59,61 +41,20 @@ public class ScanArchiveListenerAndCommandLauncher implements Consumer<Event<Sca
     public void accept(Event<ScanArchiveEventToLaunchCommands> event) {
         final ScanArchiveEventToLaunchCommands scanArchiveEventToLaunchCommands = event.getData();
 
-        // Find commands defined for this event type
-        final List<CommandEventMapping> commandEventMappings = commandEventMappingService.findByEventType(EVENT_ID);
+        // Find commands defined for this event type, either site-wide or for this scan's project
+        final String eventProjectId = scanArchiveEventToLaunchCommands.project();
+        final List<CommandEventMapping> commandEventMappings = commandEventMappingService.getEnabledMappings(EVENT_ID, eventProjectId);
 
         if (commandEventMappings != null && !commandEventMappings.isEmpty()) {
+            // Pass the scan by URI, and hand the scan we already built to these launches so it is not loaded again
             final Scan scan = scanArchiveEventToLaunchCommands.scan();
-            final String eventProjectId = scanArchiveEventToLaunchCommands.project();
+            final String scanUri = scan.getUri();
 
             for (CommandEventMapping commandEventMapping: commandEventMappings) {
-                final Long commandId = commandEventMapping.getCommandId();
-                final String wrapperName = commandEventMapping.getXnatCommandWrapperName();
-                final String subscriptionProjectId = commandEventMapping.getProjectId();
-
-                if (subscriptionProjectId == null || subscriptionProjectId.isEmpty() || subscriptionProjectId.equals(eventProjectId)) {
-
-                    final Map<String, String> inputValues = Maps.newHashMap();
-
-                    String scanString = scan.getUri();
-                    try {
-                        scanString = mapper.writeValueAsString(scan);
-                    } catch (JsonProcessingException e) {
-                        log.error(String.format("Could not serialize Scan %s to json.", scan), e);
-                    }
-                    inputValues.put("scan", scanString);
-                    try {
-                        final UserI subscriptionUser = userManagementService.getUser(commandEventMapping.getSubscriptionUserName());
-                        if (log.isInfoEnabled()) {
-                            final String wrapperMessage = StringUtils.isNotBlank(wrapperName) ?
-                                    String.format("wrapper \"%s\"", wrapperName) :
-                                    "identity wrapper";
-                            final String message = String.format(
-                                    "Launching command %s, %s, for user \"%s\" as \"%s\"",
-                                    commandId,
-                                    wrapperMessage,
-                                    scanArchiveEventToLaunchCommands.user().getLogin(),
-                                    subscriptionUser.getLogin()
-                            );
-                            log.info(message);
-                            if (log.isDebugEnabled()) {
-                                log.debug("Runtime parameter values:");
-                                for (final Map.Entry<String, String> paramEntry : inputValues.entrySet()) {
-                                    log.debug(paramEntry.getKey() + ": " + paramEntry.getValue());
-                                }
-                            }
-                        }
-                        if (subscriptionProjectId != null && !subscriptionProjectId.isEmpty()) {
-                            containerService.resolveCommandAndLaunchContainer(subscriptionProjectId, commandId, wrapperName, inputValues, subscriptionUser);
-                        } else {
-                            containerService.resolveCommandAndLaunchContainer(commandId, wrapperName, inputValues, subscriptionUser);
-                        }
-                    } catch (UserNotFoundException | UserInitException e) {
-                        log.error(String.format("Error launching command %d. Could not find or Init subscription owner: %s", commandId, commandEventMapping.getSubscriptionUserName()), e);
-                    } catch (NotFoundException | CommandResolutionException | NoDockerServerException | DockerServerException | ContainerException | UnauthorizedException e) {
-                        log.error("Error launching command " + commandId, e);
-                    }
-                }
+                final Map<String, String> inputValues = Maps.newHashMap();
+                inputValues.put("scan", scanUri);
+                commandEventLaunchService.queueLaunches(commandEventMapping, Collections.singletonList(inputValues),
+                        scanArchiveEventToLaunchCommands.user(), scanUri, Collections.singletonList(scan));
             }
         }
     }
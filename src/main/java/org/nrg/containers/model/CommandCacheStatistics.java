@@ -0,0 +1,23 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+/**
+ * How well the cache of commands has served reads since the container service started.
+ * Evictions include entries dropped because a command or wrapper changed.
+ */
+@AutoValue
+public abstract class CommandCacheStatistics {
+    @JsonProperty("hits") public abstract long hits();
+    @JsonProperty("misses") public abstract long misses();
+    @JsonProperty("evictions") public abstract long evictions();
+    @JsonProperty("size") public abstract long size();
+
+    public static CommandCacheStatistics create(final long hits,
+                                                final long misses,
+                                                final long evictions,
+                                                final long size) {
+        return new AutoValue_CommandCacheStatistics(hits, misses, evictions, size);
+    }
+}
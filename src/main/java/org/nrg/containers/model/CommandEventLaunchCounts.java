@@ -0,0 +1,24 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+/**
+ * How many launches a command event mapping has triggered since the container service started.
+ */
+@AutoValue
+public abstract class CommandEventLaunchCounts {
+    @JsonProperty("mapping-id") public abstract long mappingId();
+    @JsonProperty("pending") public abstract long pending();
+    @JsonProperty("succeeded") public abstract long succeeded();
+    @JsonProperty("failed") public abstract long failed();
+    @JsonProperty("skipped") public abstract long skipped();
+
+    public static CommandEventLaunchCounts create(final long mappingId,
+                                                  final long pending,
+                                                  final long succeeded,
+                                                  final long failed,
+                                                  final long skipped) {
+        return new AutoValue_CommandEventLaunchCounts(mappingId, pending, succeeded, failed, skipped);
+    }
+}
@@ -0,0 +1,52 @@
+package org.nrg.containers.model.command.auto;
+
+import com.google.auto.value.AutoValue;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The outcome of resolving one set of input values in a bulk resolution.
+ * Holds either the resolved command or the exception that stopped it from resolving.
+ */
+@AutoValue
+public abstract class BulkResolutionResult<T> {
+    public abstract int index();
+    public abstract Map<String, String> inputValues();
+    @Nullable public abstract T resolved();
+    @Nullable public abstract Exception error();
+
+    public boolean succeeded() {
+        return error() == null;
+    }
+
+    @Nullable
+    public String errorMessage() {
+        final Exception error = error();
+        if (error == null) {
+            return null;
+        }
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    public static <T> BulkResolutionResult<T> success(final int index,
+                                                      final Map<String, String> inputValues,
+                                                      final @Nonnull T resolved) {
+        return new AutoValue_BulkResolutionResult<T>(index, copy(inputValues), resolved, null);
+    }
+
+    public static <T> BulkResolutionResult<T> failure(final int index,
+                                                      final Map<String, String> inputValues,
+                                                      final @Nonnull Exception error) {
+        return new AutoValue_BulkResolutionResult<T>(index, copy(inputValues), null, error);
+    }
+
+    private static Map<String, String> copy(final Map<String, String> inputValues) {
+        return inputValues == null ?
+                Collections.<String, String>emptyMap() :
+                Collections.unmodifiableMap(new HashMap<>(inputValues));
+    }
+}
@@ -52,8 +52,14 @@ public abstract class Command {
     @Nullable @JsonProperty("reserve-memory") public abstract Long reserveMemory();
     @Nullable @JsonProperty("limit-memory") public abstract Long limitMemory();
     @Nullable @JsonProperty("limit-cpu") public abstract Double limitCpu();
+    @Nullable @JsonProperty("reserve-cpu") public abstract Double reserveCpu();
+    @JsonProperty("placement-constraints") public abstract ImmutableList<String> placementConstraints();
+    @Nullable @JsonProperty("placement-spread") public abstract String placementSpread();
+    @Nullable @JsonProperty("max-replicas-per-node") public abstract Integer maxReplicasPerNode();
 
     @JsonIgnore private static Pattern regCharPattern = Pattern.compile("[^A-Za-z0-9_-]");
+    @JsonIgnore private static Pattern placementConstraintPattern = Pattern.compile("^[A-Za-z0-9_.-]+\\s*(==|!=)\\s*\\S.*$");
+    @JsonIgnore private static Pattern placementSpreadPattern = Pattern.compile("^node\\.labels\\.[A-Za-z0-9_.-]+$");
 
 
     @JsonCreator
@@ -79,7 +85,11 @@ public abstract class Command {
                           @JsonProperty("xnat") final List<CommandWrapper> xnatCommandWrappers,
                           @JsonProperty("reserve-memory") final Long reserveMemory,
                           @JsonProperty("limit-memory") final Long limitMemory,
-                          @JsonProperty("limit-cpu") final Double limitCpu) {
+                          @JsonProperty("limit-cpu") final Double limitCpu,
+                          @JsonProperty("reserve-cpu") final Double reserveCpu,
+                          @JsonProperty("placement-constraints") final List<String> placementConstraints,
+                          @JsonProperty("placement-spread") final String placementSpread,
+                          @JsonProperty("max-replicas-per-node") final Integer maxReplicasPerNode) {
         return builder()
                 .id(id)
                 .name(name)
@@ -104,6 +114,10 @@ public abstract class Command {
                 .reserveMemory(reserveMemory)
                 .limitMemory(limitMemory)
                 .limitCpu(limitCpu)
+                .reserveCpu(reserveCpu)
+                .placementConstraints(placementConstraints == null ? Collections.<String>emptyList() : placementConstraints)
+                .placementSpread(placementSpread)
+                .maxReplicasPerNode(maxReplicasPerNode)
                 .build();
     }
 
@@ -127,6 +141,12 @@ public abstract class Command {
                 .reserveMemory(commandEntity.getReserveMemory())
                 .limitMemory(commandEntity.getLimitMemory())
                 .limitCpu(commandEntity.getLimitCpu())
+                .reserveCpu(commandEntity.getReserveCpu())
+                .placementConstraints(commandEntity.getPlacementConstraints() == null ?
+                        Collections.<String>emptyList() :
+                        commandEntity.getPlacementConstraints())
+                .placementSpread(commandEntity.getPlacementSpread())
+                .maxReplicasPerNode(commandEntity.getMaxReplicasPerNode())
                 .environmentVariables(commandEntity.getEnvironmentVariables() == null ?
                         Collections.<String, String>emptyMap() :
                         commandEntity.getEnvironmentVariables())
@@ -203,6 +223,10 @@ public abstract class Command {
                 .reserveMemory(creation.reserveMemory())
                 .limitMemory(creation.limitMemory())
                 .limitCpu(creation.limitCpu())
+                .reserveCpu(creation.reserveCpu())
+                .placementConstraints(creation.placementConstraints())
+                .placementSpread(creation.placementSpread())
+                .maxReplicasPerNode(creation.maxReplicasPerNode())
                 .mounts(creation.mounts() == null ? Collections.<CommandMount>emptyList() : creation.mounts())
                 .environmentVariables(creation.environmentVariables() == null ? Collections.<String, String>emptyMap() : creation.environmentVariables())
                 .ports(creation.ports() == null ? Collections.<String, String>emptyMap() : creation.ports())
@@ -267,6 +291,53 @@ public abstract class Command {
             errors.add(commandName + "Cannot validate command of type \"" + type() + "\". Known types: " + StringUtils.join(commandTypeNames, ", "));
         }
 
+        errors.addAll(validateScheduling());
+
+        return errors;
+    }
+
+    @Nonnull
+    private List<String> validateScheduling() {
+        return validateScheduling("Command \"" + name() + "\" - ",
+                reserveCpu(), limitCpu(), placementConstraints(), placementSpread(), maxReplicasPerNode());
+    }
+
+    /**
+     * Check swarm scheduling values, whether they are set on the command or in a wrapper's configuration.
+     *
+     * @param errorPrefix Starts each error, to say where the values came from
+     */
+    @Nonnull
+    public static List<String> validateScheduling(final String errorPrefix,
+                                                  final @Nullable Double reserveCpu,
+                                                  final @Nullable Double limitCpu,
+                                                  final @Nullable List<String> placementConstraints,
+                                                  final @Nullable String placementSpread,
+                                                  final @Nullable Integer maxReplicasPerNode) {
+        final List<String> errors = new ArrayList<>();
+
+        if (reserveCpu != null && reserveCpu < 0) {
+            errors.add(errorPrefix + "reserve-cpu cannot be negative.");
+        } else if (reserveCpu != null && limitCpu != null && limitCpu > 0 && reserveCpu > limitCpu) {
+            errors.add(errorPrefix + "reserve-cpu cannot be greater than limit-cpu.");
+        }
+
+        if (placementConstraints != null) {
+            for (final String constraint : placementConstraints) {
+                if (constraint == null || !placementConstraintPattern.matcher(constraint.trim()).matches()) {
+                    errors.add(errorPrefix + "placement constraint \"" + constraint + "\" must look like \"node.labels.name==value\" or \"node.role!=manager\".");
+                }
+            }
+        }
+
+        if (placementSpread != null && !placementSpreadPattern.matcher(placementSpread).matches()) {
+            errors.add(errorPrefix + "placement-spread \"" + placementSpread + "\" must name a node label, like \"node.labels.rack\".");
+        }
+
+        if (maxReplicasPerNode != null && maxReplicasPerNode < 1) {
+            errors.add(errorPrefix + "max-replicas-per-node must be at least 1.");
+        }
+
         return errors;
     }
 
@@ -549,6 +620,11 @@ public abstract class Command {
         public abstract Builder reserveMemory(Long reserveMemory);
         public abstract Builder limitMemory(Long limitMemory);
         public abstract Builder limitCpu(Double limitCpu);
+        public abstract Builder reserveCpu(Double reserveCpu);
+        public abstract Builder placementConstraints(List<String> placementConstraints);
+        abstract ImmutableList.Builder<String> placementConstraintsBuilder();
+        public abstract Builder placementSpread(String placementSpread);
+        public abstract Builder maxReplicasPerNode(Integer maxReplicasPerNode);
 
         public abstract Command build();
     }
@@ -1426,6 +1502,10 @@ public abstract class Command {
         @Nullable @JsonProperty("reserve-memory") public abstract Long reserveMemory();
         @Nullable @JsonProperty("limit-memory") public abstract Long limitMemory();
         @Nullable @JsonProperty("limit-cpu") public abstract Double limitCpu();
+        @Nullable @JsonProperty("reserve-cpu") public abstract Double reserveCpu();
+        @JsonProperty("placement-constraints") public abstract ImmutableList<String> placementConstraints();
+        @Nullable @JsonProperty("placement-spread") public abstract String placementSpread();
+        @Nullable @JsonProperty("max-replicas-per-node") public abstract Integer maxReplicasPerNode();
 
         @JsonCreator
         static CommandCreation create(@JsonProperty("name") final String name,
@@ -1449,7 +1529,11 @@ public abstract class Command {
                                       @JsonProperty("xnat") final List<CommandWrapperCreation> commandWrapperCreations,
                                       @JsonProperty("reserve-memory") final Long reserveMemory,
                                       @JsonProperty("limit-memory") final Long limitMemory,
-                                      @JsonProperty("limit-cpu") final Double limitCpu) {
+                                      @JsonProperty("limit-cpu") final Double limitCpu,
+                                      @JsonProperty("reserve-cpu") final Double reserveCpu,
+                                      @JsonProperty("placement-constraints") final List<String> placementConstraints,
+                                      @JsonProperty("placement-spread") final String placementSpread,
+                                      @JsonProperty("max-replicas-per-node") final Integer maxReplicasPerNode) {
             return new AutoValue_Command_CommandCreation(name, label, description, version, schemaVersion, infoUrl, image,
                     type, index, hash, workingDirectory, commandLine, overrideEntrypoint,
                     mounts == null ? ImmutableList.<CommandMount>of() : ImmutableList.copyOf(mounts),
@@ -1458,7 +1542,9 @@ public abstract class Command {
                     inputs == null ? ImmutableList.<CommandInput>of() : ImmutableList.copyOf(inputs),
                     outputs == null ? ImmutableList.<CommandOutput>of() : ImmutableList.copyOf(outputs),
                     commandWrapperCreations == null ? ImmutableList.<CommandWrapperCreation>of() : ImmutableList.copyOf(commandWrapperCreations),
-                    reserveMemory, limitMemory, limitCpu);
+                    reserveMemory, limitMemory, limitCpu, reserveCpu,
+                    placementConstraints == null ? ImmutableList.<String>of() : ImmutableList.copyOf(placementConstraints),
+                    placementSpread, maxReplicasPerNode);
         }
     }
 
@@ -1544,6 +1630,10 @@ public abstract class Command {
         @Nullable public abstract Long reserveMemory();
         @Nullable public abstract Long limitMemory();
         @Nullable public abstract Double limitCpu();
+        @Nullable public abstract Double reserveCpu();
+        public abstract ImmutableList<String> placementConstraints();
+        @Nullable public abstract String placementSpread();
+        @Nullable public abstract Integer maxReplicasPerNode();
 
         public static ConfiguredCommand.Builder initialize(final Command command) {
             return builder()
@@ -1567,7 +1657,11 @@ public abstract class Command {
                     .outputs(command.outputs())
                     .reserveMemory(command.reserveMemory())
                     .limitMemory(command.limitMemory())
-                    .limitCpu(command.limitCpu());
+                    .limitCpu(command.limitCpu())
+                    .reserveCpu(command.reserveCpu())
+                    .placementConstraints(command.placementConstraints())
+                    .placementSpread(command.placementSpread())
+                    .maxReplicasPerNode(command.maxReplicasPerNode());
         }
 
         static Builder builder() {
@@ -1634,6 +1728,11 @@ public abstract class Command {
             public abstract Builder reserveMemory(Long reserveMemory);
             public abstract Builder limitMemory(Long limitMemory);
             public abstract Builder limitCpu(Double limitCpu);
+            public abstract Builder reserveCpu(Double reserveCpu);
+            public abstract Builder placementConstraints(List<String> placementConstraints);
+            abstract ImmutableList.Builder<String> placementConstraintsBuilder();
+            public abstract Builder placementSpread(String placementSpread);
+            public abstract Builder maxReplicasPerNode(Integer maxReplicasPerNode);
 
             public abstract ConfiguredCommand build();
         }
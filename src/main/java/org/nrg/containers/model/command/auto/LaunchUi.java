@@ -14,6 +14,7 @@ import org.nrg.containers.model.configuration.CommandConfiguration.CommandInputC
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -309,10 +310,11 @@ public abstract class LaunchUi {
     @AutoValue
     public static abstract class BulkLaunchUi extends LaunchUi {
         @JsonProperty("input-values") public abstract List<List<LaunchUiValueTree>> listOfValueTrees();
-
+        @JsonProperty("errors") public abstract List<BulkLaunchUiError> errors();
 
         public static Builder builder() {
-            return new AutoValue_LaunchUi_BulkLaunchUi.Builder();
+            return new AutoValue_LaunchUi_BulkLaunchUi.Builder()
+                    .errors(Collections.<BulkLaunchUiError>emptyList());
         }
 
         @AutoValue.Builder
@@ -322,6 +324,7 @@ public abstract class LaunchUi {
             public abstract Builder inputTrees(@Nonnull List<LaunchUiInputTree> inputTrees);
 
             public abstract Builder listOfValueTrees(@Nonnull List<List<LaunchUiValueTree>> listOfValueTrees);
+            public abstract Builder errors(@Nonnull List<BulkLaunchUiError> errors);
 
             public Builder populateInputTreeAndInputValueTreeFromResolvedInputTrees(final @Nonnull List<List<ResolvedInputTreeNode<? extends Input>>> listOfResolvedInputTrees,
                                                                                     final @Nonnull Map<String, CommandInputConfiguration> inputConfigurationMap) {
@@ -358,6 +361,20 @@ public abstract class LaunchUi {
         }
     }
 
+    /**
+     * One set of bulk launch params that could not be pre-resolved, and why.
+     */
+    @AutoValue
+    public static abstract class BulkLaunchUiError {
+        @JsonProperty("params") public abstract Map<String, String> launchParams();
+        @JsonProperty("message") public abstract String message();
+
+        public static BulkLaunchUiError create(final @Nonnull Map<String, String> launchParams,
+                                               final @Nonnull String message) {
+            return new AutoValue_LaunchUi_BulkLaunchUiError(launchParams, message);
+        }
+    }
+
     private static LaunchUiInputTree convertResolvedInputTreeToLaunchUiInputTree(final @Nonnull ResolvedInputTreeNode<? extends Input> node,
                                                                                  final @Nonnull Map<String, CommandInputConfiguration> inputConfigurationMap,
                                                                                  final @Nonnull Map<String, Integer> maxInputValues,
@@ -44,6 +44,10 @@ public abstract class ResolvedCommand {
     @JsonProperty("reserve-memory") @Nullable public abstract Long reserveMemory();
     @JsonProperty("limit-memory") @Nullable public abstract Long limitMemory();
     @JsonProperty("limit-cpu") @Nullable public abstract Double limitCpu();
+    @JsonProperty("reserve-cpu") @Nullable public abstract Double reserveCpu();
+    @JsonProperty("placement-constraints") public abstract ImmutableList<String> placementConstraints();
+    @JsonProperty("placement-spread") @Nullable public abstract String placementSpread();
+    @JsonProperty("max-replicas-per-node") @Nullable public abstract Integer maxReplicasPerNode();
     @JsonProperty("parent-source-object-name") @Nullable public abstract String parentSourceObjectName();
 
     @JsonProperty("external-wrapper-input-values")
@@ -190,6 +194,10 @@ public abstract class ResolvedCommand {
                 .reserveMemory(command.reserveMemory())
                 .limitMemory(command.limitMemory())
                 .limitCpu(command.limitCpu())
+                .reserveCpu(command.reserveCpu())
+                .placementConstraints(command.placementConstraints())
+                .placementSpread(command.placementSpread())
+                .maxReplicasPerNode(command.maxReplicasPerNode())
                 .parentSourceObjectName(parentSourceObjectName)
                 .addMount(ResolvedCommandMount.builder()
                         .name("input")
@@ -291,6 +299,11 @@ public abstract class ResolvedCommand {
         public abstract Builder reserveMemory(Long reserveMemory);
         public abstract Builder limitMemory(Long limitMemory);
         public abstract Builder limitCpu(Double limitCpu);
+        public abstract Builder reserveCpu(Double reserveCpu);
+        public abstract Builder placementConstraints(List<String> placementConstraints);
+        public abstract ImmutableList.Builder<String> placementConstraintsBuilder();
+        public abstract Builder placementSpread(String placementSpread);
+        public abstract Builder maxReplicasPerNode(Integer maxReplicasPerNode);
         public abstract Builder parentSourceObjectName(String parentSourceObjectName);
 
         public abstract ResolvedCommand build();
@@ -43,6 +43,10 @@ public abstract class CommandEntity extends AbstractHibernateEntity {
     private Long reserveMemory;
     private Long limitMemory;
     private Double limitCpu;
+    private Double reserveCpu;
+    private List<String> placementConstraints;
+    private String placementSpread;
+    private Integer maxReplicasPerNode;
 
     @Nonnull
     public static CommandEntity fromPojo(@Nonnull final Command command) {
@@ -84,6 +88,10 @@ public abstract class CommandEntity extends AbstractHibernateEntity {
         this.setReserveMemory(command.reserveMemory());
         this.setLimitMemory(command.limitMemory());
         this.setLimitCpu(command.limitCpu());
+        this.setReserveCpu(command.reserveCpu());
+        this.setPlacementConstraints(Lists.newArrayList(command.placementConstraints()));
+        this.setPlacementSpread(command.placementSpread());
+        this.setMaxReplicasPerNode(command.maxReplicasPerNode());
 
         final Map<String, Command.CommandMount> mountsByName = new HashMap<>();
         for (final Command.CommandMount commandMount : command.mounts()) {
@@ -272,6 +280,41 @@ public abstract class CommandEntity extends AbstractHibernateEntity {
         this.limitCpu = limitCpu;
     }
 
+    public Double getReserveCpu() {
+        return reserveCpu;
+    }
+
+    public void setReserveCpu(final Double reserveCpu) {
+        this.reserveCpu = reserveCpu;
+    }
+
+    @ElementCollection
+    public List<String> getPlacementConstraints() {
+        return placementConstraints;
+    }
+
+    public void setPlacementConstraints(final List<String> placementConstraints) {
+        this.placementConstraints = placementConstraints == null ?
+                Lists.<String>newArrayList() :
+                placementConstraints;
+    }
+
+    public String getPlacementSpread() {
+        return placementSpread;
+    }
+
+    public void setPlacementSpread(final String placementSpread) {
+        this.placementSpread = placementSpread;
+    }
+
+    public Integer getMaxReplicasPerNode() {
+        return maxReplicasPerNode;
+    }
+
+    public void setMaxReplicasPerNode(final Integer maxReplicasPerNode) {
+        this.maxReplicasPerNode = maxReplicasPerNode;
+    }
+
     @OneToMany(mappedBy = "commandEntity", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy
     public List<CommandMountEntity> getMounts() {
@@ -431,7 +474,11 @@ public abstract class CommandEntity extends AbstractHibernateEntity {
                 .add("xnatCommandWrappers", commandWrapperEntities)
                 .add("reserveMemory", reserveMemory)
                 .add("limitMemory", limitMemory)
-                .add("limitCpu", limitCpu);
+                .add("limitCpu", limitCpu)
+                .add("reserveCpu", reserveCpu)
+                .add("placementConstraints", placementConstraints)
+                .add("placementSpread", placementSpread)
+                .add("maxReplicasPerNode", maxReplicasPerNode);
     }
 
     @Override
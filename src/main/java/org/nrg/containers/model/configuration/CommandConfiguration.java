@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 import org.nrg.containers.model.command.auto.Command;
@@ -18,6 +19,7 @@ import org.nrg.containers.model.command.auto.Command.ConfiguredCommand;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,13 +27,16 @@ import java.util.Set;
 public abstract class CommandConfiguration {
     @JsonProperty("inputs") public abstract ImmutableMap<String, CommandInputConfiguration> inputs();
     @JsonProperty("outputs") public abstract ImmutableMap<String, CommandOutputConfiguration> outputs();
+    @Nullable @JsonProperty("scheduling") public abstract CommandSchedulingConfiguration scheduling();
 
     @JsonCreator
     public static CommandConfiguration create(@JsonProperty("inputs") final Map<String, CommandInputConfiguration> inputs,
-                                              @JsonProperty("outputs") final Map<String, CommandOutputConfiguration> outputs) {
+                                              @JsonProperty("outputs") final Map<String, CommandOutputConfiguration> outputs,
+                                              @JsonProperty("scheduling") final CommandSchedulingConfiguration scheduling) {
         return builder()
                 .inputs(inputs == null ? Collections.<String, CommandInputConfiguration>emptyMap() : inputs)
                 .outputs(outputs == null ? Collections.<String, CommandOutputConfiguration>emptyMap() : outputs)
+                .scheduling(scheduling)
                 .build();
     }
 
@@ -72,7 +77,9 @@ public abstract class CommandConfiguration {
             }
         }
 
-        return builder.build();
+        return builder.scheduling(CommandSchedulingConfiguration.create(command,
+                commandConfigurationInternal == null ? null : commandConfigurationInternal.scheduling()))
+                .build();
     }
 
     public static Builder builder() {
@@ -95,6 +102,8 @@ public abstract class CommandConfiguration {
             return this;
         }
 
+        public abstract Builder scheduling(CommandSchedulingConfiguration scheduling);
+
         public abstract CommandConfiguration build();
     }
 
@@ -245,6 +254,59 @@ public abstract class CommandConfiguration {
         }
     }
 
+    /**
+     * How the command's containers are scheduled on a swarm. Values that are not set leave the command's values in place.
+     */
+    @AutoValue
+    @JsonInclude(Include.ALWAYS)
+    public static abstract class CommandSchedulingConfiguration {
+        @Nullable @JsonProperty("reserve-cpu") public abstract Double reserveCpu();
+        @Nullable @JsonProperty("placement-constraints") public abstract ImmutableList<String> placementConstraints();
+        @Nullable @JsonProperty("placement-spread") public abstract String placementSpread();
+        @Nullable @JsonProperty("max-replicas-per-node") public abstract Integer maxReplicasPerNode();
+
+        @JsonCreator
+        public static CommandSchedulingConfiguration create(@JsonProperty("reserve-cpu") final Double reserveCpu,
+                                                            @JsonProperty("placement-constraints") final List<String> placementConstraints,
+                                                            @JsonProperty("placement-spread") final String placementSpread,
+                                                            @JsonProperty("max-replicas-per-node") final Integer maxReplicasPerNode) {
+            return new AutoValue_CommandConfiguration_CommandSchedulingConfiguration(reserveCpu,
+                    placementConstraints == null ? null : ImmutableList.copyOf(placementConstraints),
+                    placementSpread,
+                    maxReplicasPerNode);
+        }
+
+        static CommandSchedulingConfiguration create(final Command command,
+                                                     final CommandSchedulingConfiguration commandSchedulingConfiguration) {
+            return create(command.reserveCpu(), command.placementConstraints(),
+                    command.placementSpread(), command.maxReplicasPerNode())
+                    .merge(commandSchedulingConfiguration);
+        }
+
+        /**
+         * Check the scheduling the command would get with these overrides, using the same checks as {@link Command#validate()}.
+         *
+         * @return The errors, or an empty list if the overrides are valid
+         */
+        @Nonnull
+        public List<String> validate(final Command command) {
+            final CommandSchedulingConfiguration scheduling = create(command, this);
+            return Command.validateScheduling("Command \"" + command.name() + "\" scheduling configuration - ",
+                    scheduling.reserveCpu(), command.limitCpu(), scheduling.placementConstraints(),
+                    scheduling.placementSpread(), scheduling.maxReplicasPerNode());
+        }
+
+        CommandSchedulingConfiguration merge(final CommandSchedulingConfiguration that) {
+            if (that == null) {
+                return this;
+            }
+            return create(that.reserveCpu() == null ? this.reserveCpu() : that.reserveCpu(),
+                    that.placementConstraints() == null ? this.placementConstraints() : that.placementConstraints(),
+                    that.placementSpread() == null ? this.placementSpread() : that.placementSpread(),
+                    that.maxReplicasPerNode() == null ? this.maxReplicasPerNode() : that.maxReplicasPerNode());
+        }
+    }
+
     @Nonnull
     public ConfiguredCommand apply(final Command commandWithOneWrapper) {
         // Initialize the command builder copy
@@ -254,6 +316,23 @@ public abstract class CommandConfiguration {
         // command inputs
         // wrapper inputs
         // wrapper outputs
+        // scheduling
+
+        final CommandSchedulingConfiguration scheduling = this.scheduling();
+        if (scheduling != null) {
+            if (scheduling.reserveCpu() != null) {
+                commandBuilder.reserveCpu(scheduling.reserveCpu());
+            }
+            if (scheduling.placementConstraints() != null) {
+                commandBuilder.placementConstraints(scheduling.placementConstraints());
+            }
+            if (scheduling.placementSpread() != null) {
+                commandBuilder.placementSpread(scheduling.placementSpread());
+            }
+            if (scheduling.maxReplicasPerNode() != null) {
+                commandBuilder.maxReplicasPerNode(scheduling.maxReplicasPerNode());
+            }
+        }
 
         for (final CommandInput commandInput : commandWithOneWrapper.inputs()) {
             commandBuilder.addInput(
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import org.nrg.containers.model.configuration.CommandConfiguration.CommandSchedulingConfiguration;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -17,18 +18,27 @@ public abstract class CommandConfigurationInternal {
     @Nullable @JsonProperty("enabled") public abstract Boolean enabled();
     @JsonProperty("inputs") abstract ImmutableMap<String, CommandInputConfiguration> inputs();
     @JsonProperty("outputs") abstract ImmutableMap<String, CommandOutputConfiguration> outputs();
+    @Nullable @JsonProperty("scheduling") abstract CommandSchedulingConfiguration scheduling();
 
     @JsonCreator
     public static CommandConfigurationInternal create(@JsonProperty("enabled") final Boolean enabled,
                                                       @JsonProperty("inputs") final Map<String, CommandInputConfiguration> inputs,
-                                                      @JsonProperty("outputs") final Map<String, CommandOutputConfiguration> outputs) {
+                                                      @JsonProperty("outputs") final Map<String, CommandOutputConfiguration> outputs,
+                                                      @JsonProperty("scheduling") final CommandSchedulingConfiguration scheduling) {
         return builder()
                 .enabled(enabled)
                 .inputs(inputs == null ? Collections.<String, CommandInputConfiguration>emptyMap() : inputs)
                 .outputs(outputs == null ? Collections.<String, CommandOutputConfiguration>emptyMap() : outputs)
+                .scheduling(scheduling)
                 .build();
     }
 
+    public static CommandConfigurationInternal create(final Boolean enabled,
+                                                      final Map<String, CommandInputConfiguration> inputs,
+                                                      final Map<String, CommandOutputConfiguration> outputs) {
+        return create(enabled, inputs, outputs, null);
+    }
+
     public static CommandConfigurationInternal create(final Boolean enabled,
                                                       final CommandConfiguration configuration) {
         final Builder builder = builder().enabled(enabled);
@@ -40,6 +50,7 @@ public abstract class CommandConfigurationInternal {
             for (final Map.Entry<String, CommandConfiguration.CommandOutputConfiguration> outputEntry : configuration.outputs().entrySet()) {
                 builder.addOutput(outputEntry.getKey(), outputEntry.getValue());
             }
+            builder.scheduling(configuration.scheduling());
         }
         return builder.build();
     }
@@ -73,6 +84,7 @@ public abstract class CommandConfigurationInternal {
                 .enabled(enabled)
                 .inputs(mergedInputs)
                 .outputs(mergedOutputs)
+                .scheduling(this.scheduling() == null ? overlay.scheduling() : this.scheduling().merge(overlay.scheduling()))
                 .build();
     }
 
@@ -102,6 +114,8 @@ public abstract class CommandConfigurationInternal {
             return this;
         }
 
+        public abstract Builder scheduling(CommandSchedulingConfiguration scheduling);
+
         public abstract CommandConfigurationInternal build();
     }
 
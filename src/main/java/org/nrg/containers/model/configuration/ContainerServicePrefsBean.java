@@ -0,0 +1,366 @@
+package org.nrg.containers.model.configuration;
+
+import com.google.common.base.MoreObjects;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.framework.configuration.ConfigPaths;
+import org.nrg.framework.utilities.OrderedProperties;
+import org.nrg.prefs.annotations.NrgPreference;
+import org.nrg.prefs.annotations.NrgPreferenceBean;
+import org.nrg.prefs.beans.AbstractPreferenceBean;
+import org.nrg.prefs.exceptions.InvalidPreferenceName;
+import org.nrg.prefs.services.NrgPreferenceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Site-wide tuning settings for the container service.
+ * Getters fall back to their defaults when a stored value is missing or out of range.
+ */
+@NrgPreferenceBean(toolId = "container-service",
+    toolName = "Container Service Prefs",
+    description = "Site-wide tuning settings for the container service")
+public class ContainerServicePrefsBean extends AbstractPreferenceBean {
+    private static final Logger _log = LoggerFactory.getLogger(ContainerServicePrefsBean.class);
+
+    public static final int DEFAULT_BULK_LAUNCH_UI_CONCURRENCY = 8;
+    // All bulk resolutions share a pool of this many threads, so no one request can use more
+    public static final int MAX_BULK_LAUNCH_UI_CONCURRENCY = 16;
+    public static final int DEFAULT_BULK_LAUNCH_UI_TIMEOUT_SECONDS = 60;
+    public static final int DEFAULT_COMMAND_CONFIGURATION_CACHE_TTL_SECONDS = 30;
+    public static final int DEFAULT_DOCKER_SERVER_PING_TTL_SECONDS = 30;
+    public static final int DEFAULT_DOCKER_HUB_PING_TTL_SECONDS = 60;
+    public static final int DEFAULT_DOCKER_HUB_PING_TIMEOUT_SECONDS = 5;
+    public static final int DEFAULT_EVENT_LAUNCH_THREADS = 4;
+    public static final int DEFAULT_EVENT_LAUNCH_QUEUE_SIZE = 500;
+    public static final int DEFAULT_EVENT_LAUNCH_DEBOUNCE_SECONDS = 60;
+    public static final boolean DEFAULT_SKIP_DUPLICATE_EVENT_LAUNCHES = true;
+    public static final int DEFAULT_IMAGE_PULL_THREADS = 2;
+    public static final boolean DEFAULT_IMAGE_GC_ENABLED = false;
+    public static final int DEFAULT_IMAGE_GC_HIGH_WATER_MARK_GB = 200;
+    public static final int DEFAULT_IMAGE_GC_KEEP_RECENT_DAYS = 14;
+    public static final boolean DEFAULT_REMOVE_FINISHED_CONTAINERS = false;
+    public static final int DEFAULT_REMOVE_FINISHED_CONTAINERS_AFTER_MINUTES = 10;
+    public static final boolean DEFAULT_KEEP_FAILED_CONTAINERS = true;
+    public static final String DEFAULT_DOCKER_SERVER_PLACEMENT = "round-robin";
+
+    public ContainerServicePrefsBean(final NrgPreferenceService preferenceService) {
+        super(preferenceService);
+    }
+
+    @Autowired
+    public ContainerServicePrefsBean(final NrgPreferenceService preferenceService, final ConfigPaths configFolderPaths, final
+                                     OrderedProperties initPrefs) {
+        super(preferenceService, configFolderPaths, initPrefs);
+    }
+
+    /**
+     * How many items of a bulk launch UI request are pre-resolved at the same time.
+     * At most {@value #MAX_BULK_LAUNCH_UI_CONCURRENCY}, the size of the thread pool that all bulk resolutions share.
+     */
+    @NrgPreference(defaultValue = "8")
+    public Integer getBulkLaunchUiConcurrency() {
+        return Math.min(positiveOrDefault(getIntegerValue("bulkLaunchUiConcurrency"), DEFAULT_BULK_LAUNCH_UI_CONCURRENCY),
+                MAX_BULK_LAUNCH_UI_CONCURRENCY);
+    }
+
+    public void setBulkLaunchUiConcurrency(final Integer bulkLaunchUiConcurrency) {
+        if (bulkLaunchUiConcurrency != null && bulkLaunchUiConcurrency > MAX_BULK_LAUNCH_UI_CONCURRENCY) {
+            _log.warn("Container service preference \"{}\" cannot be more than {}. Setting it to {}.",
+                    "bulkLaunchUiConcurrency", MAX_BULK_LAUNCH_UI_CONCURRENCY, MAX_BULK_LAUNCH_UI_CONCURRENCY);
+            setPositiveInteger(MAX_BULK_LAUNCH_UI_CONCURRENCY, "bulkLaunchUiConcurrency");
+            return;
+        }
+        setPositiveInteger(bulkLaunchUiConcurrency, "bulkLaunchUiConcurrency");
+    }
+
+    /**
+     * How long a bulk launch UI request waits for its pre-resolutions. Items that are not done in time are reported as errors.
+     */
+    @NrgPreference(defaultValue = "60")
+    public Integer getBulkLaunchUiTimeoutSeconds() {
+        return positiveOrDefault(getIntegerValue("bulkLaunchUiTimeoutSeconds"), DEFAULT_BULK_LAUNCH_UI_TIMEOUT_SECONDS);
+    }
+
+    public void setBulkLaunchUiTimeoutSeconds(final Integer bulkLaunchUiTimeoutSeconds) {
+        setPositiveInteger(bulkLaunchUiTimeoutSeconds, "bulkLaunchUiTimeoutSeconds");
+    }
+
+    /**
+     * How long a parsed command configuration is reused before it is read again. Changes made on this node are
+     * seen at once; this bounds how long a change made on another node goes unnoticed. Read when the container service starts.
+     */
+    @NrgPreference(defaultValue = "30")
+    public Integer getCommandConfigurationCacheTtlSeconds() {
+        return positiveOrDefault(getIntegerValue("commandConfigurationCacheTtlSeconds"), DEFAULT_COMMAND_CONFIGURATION_CACHE_TTL_SECONDS);
+    }
+
+    public void setCommandConfigurationCacheTtlSeconds(final Integer commandConfigurationCacheTtlSeconds) {
+        setPositiveInteger(commandConfigurationCacheTtlSeconds, "commandConfigurationCacheTtlSeconds");
+    }
+
+    /**
+     * How long a docker server ping result is reused before the server is pinged again.
+     */
+    @NrgPreference(defaultValue = "30")
+    public Integer getDockerServerPingTtlSeconds() {
+        return positiveOrDefault(getIntegerValue("dockerServerPingTtlSeconds"), DEFAULT_DOCKER_SERVER_PING_TTL_SECONDS);
+    }
+
+    public void setDockerServerPingTtlSeconds(final Integer dockerServerPingTtlSeconds) {
+        setPositiveInteger(dockerServerPingTtlSeconds, "dockerServerPingTtlSeconds");
+    }
+
+    /**
+     * How long a docker hub ping result is reported before the hub is pinged again.
+     */
+    @NrgPreference(defaultValue = "60")
+    public Integer getDockerHubPingTtlSeconds() {
+        return positiveOrDefault(getIntegerValue("dockerHubPingTtlSeconds"), DEFAULT_DOCKER_HUB_PING_TTL_SECONDS);
+    }
+
+    public void setDockerHubPingTtlSeconds(final Integer dockerHubPingTtlSeconds) {
+        setPositiveInteger(dockerHubPingTtlSeconds, "dockerHubPingTtlSeconds");
+    }
+
+    /**
+     * How long to wait for a docker hub to answer a ping. A hub that does not answer in time is reported as unreachable.
+     */
+    @NrgPreference(defaultValue = "5")
+    public Integer getDockerHubPingTimeoutSeconds() {
+        return positiveOrDefault(getIntegerValue("dockerHubPingTimeoutSeconds"), DEFAULT_DOCKER_HUB_PING_TIMEOUT_SECONDS);
+    }
+
+    public void setDockerHubPingTimeoutSeconds(final Integer dockerHubPingTimeoutSeconds) {
+        setPositiveInteger(dockerHubPingTimeoutSeconds, "dockerHubPingTimeoutSeconds");
+    }
+
+    /**
+     * How many event-triggered launches run at the same time. Read when the container service starts.
+     */
+    @NrgPreference(defaultValue = "4")
+    public Integer getEventLaunchThreads() {
+        return positiveOrDefault(getIntegerValue("eventLaunchThreads"), DEFAULT_EVENT_LAUNCH_THREADS);
+    }
+
+    public void setEventLaunchThreads(final Integer eventLaunchThreads) {
+        setPositiveInteger(eventLaunchThreads, "eventLaunchThreads");
+    }
+
+    /**
+     * How many event-triggered launches can wait for a thread. When the queue is full the event thread
+     * runs the launch itself, which slows down the events feeding the queue. Read when the container service starts.
+     */
+    @NrgPreference(defaultValue = "500")
+    public Integer getEventLaunchQueueSize() {
+        return positiveOrDefault(getIntegerValue("eventLaunchQueueSize"), DEFAULT_EVENT_LAUNCH_QUEUE_SIZE);
+    }
+
+    public void setEventLaunchQueueSize(final Integer eventLaunchQueueSize) {
+        setPositiveInteger(eventLaunchQueueSize, "eventLaunchQueueSize");
+    }
+
+    /**
+     * How long an event-triggered launch waits for a repeat of the same trigger, such as a re-archive of the same session.
+     * Repeats within the window are collapsed into one launch. Zero launches immediately.
+     */
+    @NrgPreference(defaultValue = "60")
+    public Integer getEventLaunchDebounceSeconds() {
+        final Integer value = getIntegerValue("eventLaunchDebounceSeconds");
+        return value == null || value < 0 ? DEFAULT_EVENT_LAUNCH_DEBOUNCE_SECONDS : value;
+    }
+
+    public void setEventLaunchDebounceSeconds(final Integer eventLaunchDebounceSeconds) {
+        if (eventLaunchDebounceSeconds != null && eventLaunchDebounceSeconds >= 0) {
+            try {
+                setIntegerValue(eventLaunchDebounceSeconds, "eventLaunchDebounceSeconds");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting container service preference \"{}\".", "eventLaunchDebounceSeconds", e);
+            }
+        }
+    }
+
+    /**
+     * Whether an event-triggered launch is skipped when a container for the same wrapper and inputs is already queued or running.
+     */
+    @NrgPreference(defaultValue = "true")
+    public Boolean getSkipDuplicateEventLaunches() {
+        final Boolean value = getBooleanValue("skipDuplicateEventLaunches");
+        return value == null ? DEFAULT_SKIP_DUPLICATE_EVENT_LAUNCHES : value;
+    }
+
+    public void setSkipDuplicateEventLaunches(final Boolean skipDuplicateEventLaunches) {
+        try {
+            setBooleanValue(skipDuplicateEventLaunches, "skipDuplicateEventLaunches");
+        } catch (InvalidPreferenceName e) {
+            _log.error("Error setting container service preference \"{}\".", "skipDuplicateEventLaunches", e);
+        }
+    }
+
+    /**
+     * How many images are pulled from the hubs at the same time. Read when the container service starts.
+     */
+    @NrgPreference(defaultValue = "2")
+    public Integer getImagePullThreads() {
+        return positiveOrDefault(getIntegerValue("imagePullThreads"), DEFAULT_IMAGE_PULL_THREADS);
+    }
+
+    public void setImagePullThreads(final Integer imagePullThreads) {
+        setPositiveInteger(imagePullThreads, "imagePullThreads");
+    }
+
+    /**
+     * Whether images are removed from the docker server on a schedule. See {@link #getImageGcHighWaterMarkGb()}.
+     */
+    @NrgPreference(defaultValue = "false")
+    public Boolean getImageGcEnabled() {
+        final Boolean value = getBooleanValue("imageGcEnabled");
+        return value == null ? DEFAULT_IMAGE_GC_ENABLED : value;
+    }
+
+    public void setImageGcEnabled(final Boolean imageGcEnabled) {
+        try {
+            setBooleanValue(imageGcEnabled, "imageGcEnabled");
+        } catch (InvalidPreferenceName e) {
+            _log.error("Error setting container service preference \"{}\".", "imageGcEnabled", e);
+        }
+    }
+
+    /**
+     * When the images on the docker server take up more than this, the least recently used images are removed
+     * until they are back under it. Images used by enabled commands or launched recently are never removed.
+     */
+    @NrgPreference(defaultValue = "200")
+    public Integer getImageGcHighWaterMarkGb() {
+        return positiveOrDefault(getIntegerValue("imageGcHighWaterMarkGb"), DEFAULT_IMAGE_GC_HIGH_WATER_MARK_GB);
+    }
+
+    public void setImageGcHighWaterMarkGb(final Integer imageGcHighWaterMarkGb) {
+        setPositiveInteger(imageGcHighWaterMarkGb, "imageGcHighWaterMarkGb");
+    }
+
+    /**
+     * Images that a container was launched from within this many days are not removed.
+     */
+    @NrgPreference(defaultValue = "14")
+    public Integer getImageGcKeepRecentDays() {
+        return positiveOrDefault(getIntegerValue("imageGcKeepRecentDays"), DEFAULT_IMAGE_GC_KEEP_RECENT_DAYS);
+    }
+
+    public void setImageGcKeepRecentDays(final Integer imageGcKeepRecentDays) {
+        setPositiveInteger(imageGcKeepRecentDays, "imageGcKeepRecentDays");
+    }
+
+    /**
+     * Whether containers and swarm services are removed from the docker server after they are finalized,
+     * which is after their logs and outputs have been saved.
+     */
+    @NrgPreference(defaultValue = "false")
+    public Boolean getRemoveFinishedContainers() {
+        final Boolean value = getBooleanValue("removeFinishedContainers");
+        return value == null ? DEFAULT_REMOVE_FINISHED_CONTAINERS : value;
+    }
+
+    public void setRemoveFinishedContainers(final Boolean removeFinishedContainers) {
+        try {
+            setBooleanValue(removeFinishedContainers, "removeFinishedContainers");
+        } catch (InvalidPreferenceName e) {
+            _log.error("Error setting container service preference \"{}\".", "removeFinishedContainers", e);
+        }
+    }
+
+    /**
+     * How long a finalized container is left on the docker server before it is removed.
+     * Zero removes it at the next sweep.
+     */
+    @NrgPreference(defaultValue = "10")
+    public Integer getRemoveFinishedContainersAfterMinutes() {
+        final Integer value = getIntegerValue("removeFinishedContainersAfterMinutes");
+        return value == null || value < 0 ? DEFAULT_REMOVE_FINISHED_CONTAINERS_AFTER_MINUTES : value;
+    }
+
+    public void setRemoveFinishedContainersAfterMinutes(final Integer removeFinishedContainersAfterMinutes) {
+        if (removeFinishedContainersAfterMinutes != null && removeFinishedContainersAfterMinutes >= 0) {
+            try {
+                setIntegerValue(removeFinishedContainersAfterMinutes, "removeFinishedContainersAfterMinutes");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting container service preference \"{}\".", "removeFinishedContainersAfterMinutes", e);
+            }
+        }
+    }
+
+    /**
+     * Whether failed containers are left on the docker server, so they can be inspected, when finished containers are removed.
+     */
+    @NrgPreference(defaultValue = "true")
+    public Boolean getKeepFailedContainers() {
+        final Boolean value = getBooleanValue("keepFailedContainers");
+        return value == null ? DEFAULT_KEEP_FAILED_CONTAINERS : value;
+    }
+
+    public void setKeepFailedContainers(final Boolean keepFailedContainers) {
+        try {
+            setBooleanValue(keepFailedContainers, "keepFailedContainers");
+        } catch (InvalidPreferenceName e) {
+            _log.error("Error setting container service preference \"{}\".", "keepFailedContainers", e);
+        }
+    }
+
+    /**
+     * How a launch chooses among the enabled docker servers:
+     * "round-robin", "least-containers" (fewest running), or "least-reserved-memory" (least memory reserved by running containers).
+     */
+    @NrgPreference(defaultValue = DEFAULT_DOCKER_SERVER_PLACEMENT)
+    public String getDockerServerPlacement() {
+        final String value = getValue("dockerServerPlacement");
+        return StringUtils.isBlank(value) ? DEFAULT_DOCKER_SERVER_PLACEMENT : value;
+    }
+
+    public void setDockerServerPlacement(final String dockerServerPlacement) {
+        if (StringUtils.isNotBlank(dockerServerPlacement)) {
+            try {
+                set(dockerServerPlacement, "dockerServerPlacement");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting container service preference \"{}\".", "dockerServerPlacement", e);
+            }
+        }
+    }
+
+    private static int positiveOrDefault(final Integer value, final int defaultValue) {
+        return value == null || value <= 0 ? defaultValue : value;
+    }
+
+    private void setPositiveInteger(final Integer value, final String name) {
+        if (value != null && value > 0) {
+            try {
+                setIntegerValue(value, name);
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting container service preference \"{}\".", name, e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("bulkLaunchUiConcurrency", getBulkLaunchUiConcurrency())
+                .add("bulkLaunchUiTimeoutSeconds", getBulkLaunchUiTimeoutSeconds())
+                .add("commandConfigurationCacheTtlSeconds", getCommandConfigurationCacheTtlSeconds())
+                .add("dockerServerPingTtlSeconds", getDockerServerPingTtlSeconds())
+                .add("dockerHubPingTtlSeconds", getDockerHubPingTtlSeconds())
+                .add("dockerHubPingTimeoutSeconds", getDockerHubPingTimeoutSeconds())
+                .add("eventLaunchThreads", getEventLaunchThreads())
+                .add("eventLaunchQueueSize", getEventLaunchQueueSize())
+                .add("eventLaunchDebounceSeconds", getEventLaunchDebounceSeconds())
+                .add("skipDuplicateEventLaunches", getSkipDuplicateEventLaunches())
+                .add("imagePullThreads", getImagePullThreads())
+                .add("imageGcEnabled", getImageGcEnabled())
+                .add("imageGcHighWaterMarkGb", getImageGcHighWaterMarkGb())
+                .add("imageGcKeepRecentDays", getImageGcKeepRecentDays())
+                .add("removeFinishedContainers", getRemoveFinishedContainers())
+                .add("removeFinishedContainersAfterMinutes", getRemoveFinishedContainersAfterMinutes())
+                .add("keepFailedContainers", getKeepFailedContainers())
+                .add("dockerServerPlacement", getDockerServerPlacement())
+                .toString();
+    }
+}
@@ -63,6 +63,11 @@ public abstract class Container {
     @Nullable @JsonProperty("reserve-memory") public abstract Long reserveMemory();
     @Nullable @JsonProperty("limit-memory") public abstract Long limitMemory();
     @Nullable @JsonProperty("limit-cpu") public abstract Double limitCpu();
+    @Nullable @JsonProperty("docker-server-id") public abstract Long dockerServerId();
+    @Nullable @JsonProperty("reserve-cpu") public abstract Double reserveCpu();
+    @JsonProperty("placement-constraints") public abstract ImmutableList<String> placementConstraints();
+    @Nullable @JsonProperty("placement-spread") public abstract String placementSpread();
+    @Nullable @JsonProperty("max-replicas-per-node") public abstract Integer maxReplicasPerNode();
 
     @JsonIgnore
     public boolean isSwarmService() {
@@ -118,7 +123,12 @@ public abstract class Container {
                                    @JsonProperty("log-paths") final List<String> logPaths,
                                    @JsonProperty("reserve-memory") final Long reserveMemory,
                                    @JsonProperty("limit-memory") final Long limitMemory,
-                                   @JsonProperty("limit-cpu") final Double limitCpu) {
+                                   @JsonProperty("limit-cpu") final Double limitCpu,
+                                   @JsonProperty("docker-server-id") final Long dockerServerId,
+                                   @JsonProperty("reserve-cpu") final Double reserveCpu,
+                                   @JsonProperty("placement-constraints") final List<String> placementConstraints,
+                                   @JsonProperty("placement-spread") final String placementSpread,
+                                   @JsonProperty("max-replicas-per-node") final Integer maxReplicasPerNode) {
 
         return builder()
                 .databaseId(databaseId)
@@ -150,6 +160,11 @@ public abstract class Container {
                 .reserveMemory(reserveMemory)
                 .limitMemory(limitMemory)
                 .limitCpu(limitCpu)
+                .dockerServerId(dockerServerId)
+                .reserveCpu(reserveCpu)
+                .placementConstraints(placementConstraints == null ? Collections.<String>emptyList() : placementConstraints)
+                .placementSpread(placementSpread)
+                .maxReplicasPerNode(maxReplicasPerNode)
                 .build();
     }
 
@@ -220,6 +235,13 @@ public abstract class Container {
                 .reserveMemory(containerEntity.getReserveMemory())
                 .limitMemory(containerEntity.getLimitMemory())
                 .limitCpu(containerEntity.getLimitCpu())
+                .dockerServerId(containerEntity.getDockerServerId())
+                .reserveCpu(containerEntity.getReserveCpu())
+                .placementConstraints(containerEntity.getPlacementConstraints() == null ?
+                        Collections.<String>emptyList() :
+                        containerEntity.getPlacementConstraints())
+                .placementSpread(containerEntity.getPlacementSpread())
+                .maxReplicasPerNode(containerEntity.getMaxReplicasPerNode())
                 .build();
     }
 
@@ -263,6 +285,10 @@ public abstract class Container {
                 .reserveMemory(resolvedCommand.reserveMemory())
                 .limitMemory(resolvedCommand.limitMemory())
                 .limitCpu(resolvedCommand.limitCpu())
+                .reserveCpu(resolvedCommand.reserveCpu())
+                .placementConstraints(resolvedCommand.placementConstraints())
+                .placementSpread(resolvedCommand.placementSpread())
+                .maxReplicasPerNode(resolvedCommand.maxReplicasPerNode())
                 .parentSourceObjectName(resolvedCommand.parentSourceObjectName());
     }
 
@@ -398,6 +424,12 @@ public abstract class Container {
         public abstract Builder reserveMemory(Long reserveMemory);
         public abstract Builder limitMemory(Long limitMemory);
         public abstract Builder limitCpu(Double limitCpu);
+        public abstract Builder dockerServerId(Long dockerServerId);
+        public abstract Builder reserveCpu(Double reserveCpu);
+        public abstract Builder placementConstraints(List<String> placementConstraints);
+        abstract ImmutableList.Builder<String> placementConstraintsBuilder();
+        public abstract Builder placementSpread(String placementSpread);
+        public abstract Builder maxReplicasPerNode(Integer maxReplicasPerNode);
 
         public abstract Builder environmentVariables(Map<String, String> environmentVariables);
         abstract ImmutableMap.Builder<String, String> environmentVariablesBuilder();
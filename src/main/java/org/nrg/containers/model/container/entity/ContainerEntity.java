@@ -75,6 +75,12 @@ public class ContainerEntity extends AbstractHibernateEntity {
     private Long limitMemory;
     private Double limitCpu;
     private String project;
+    private Long dockerServerId;
+    private Double reserveCpu;
+    private List<String> placementConstraints;
+    private String placementSpread;
+    private Integer maxReplicasPerNode;
+    private Boolean removedFromServer;
 
     public ContainerEntity() {}
 
@@ -146,6 +152,11 @@ public class ContainerEntity extends AbstractHibernateEntity {
         this.setReserveMemory(containerPojo.reserveMemory());
         this.setLimitMemory(containerPojo.limitMemory());
         this.setLimitCpu(containerPojo.limitCpu());
+        this.setDockerServerId(containerPojo.dockerServerId());
+        this.setReserveCpu(containerPojo.reserveCpu());
+        this.setPlacementConstraints(Lists.newArrayList(containerPojo.placementConstraints()));
+        this.setPlacementSpread(containerPojo.placementSpread());
+        this.setMaxReplicasPerNode(containerPojo.maxReplicasPerNode());
 
         return this;
     }
@@ -349,6 +360,39 @@ public class ContainerEntity extends AbstractHibernateEntity {
         this.limitCpu = limitCpu;
     }
 
+    public Double getReserveCpu() {
+        return reserveCpu;
+    }
+
+    public void setReserveCpu(final Double reserveCpu) {
+        this.reserveCpu = reserveCpu;
+    }
+
+    @ElementCollection
+    public List<String> getPlacementConstraints() {
+        return placementConstraints;
+    }
+
+    public void setPlacementConstraints(final List<String> placementConstraints) {
+        this.placementConstraints = placementConstraints;
+    }
+
+    public String getPlacementSpread() {
+        return placementSpread;
+    }
+
+    public void setPlacementSpread(final String placementSpread) {
+        this.placementSpread = placementSpread;
+    }
+
+    public Integer getMaxReplicasPerNode() {
+        return maxReplicasPerNode;
+    }
+
+    public void setMaxReplicasPerNode(final Integer maxReplicasPerNode) {
+        this.maxReplicasPerNode = maxReplicasPerNode;
+    }
+
     @ManyToOne
     public ContainerEntity getParentContainerEntity() {
         return parentContainerEntity;
@@ -459,6 +503,25 @@ public class ContainerEntity extends AbstractHibernateEntity {
         this.project = project;
     }
 
+    public Long getDockerServerId() {
+        return dockerServerId;
+    }
+
+    public void setDockerServerId(final Long dockerServerId) {
+        this.dockerServerId = dockerServerId;
+    }
+
+    /**
+     * @return Whether the finalized container or service has been removed from its docker server
+     */
+    public Boolean getRemovedFromServer() {
+        return removedFromServer;
+    }
+
+    public void setRemovedFromServer(final Boolean removedFromServer) {
+        this.removedFromServer = removedFromServer;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -506,6 +569,11 @@ public class ContainerEntity extends AbstractHibernateEntity {
                 .add("reserveMemory", reserveMemory)
                 .add("limitMemory", limitMemory)
                 .add("limitCpu", limitCpu)
+                .add("dockerServerId", dockerServerId)
+                .add("reserveCpu", reserveCpu)
+                .add("placementConstraints", placementConstraints)
+                .add("placementSpread", placementSpread)
+                .add("maxReplicasPerNode", maxReplicasPerNode)
                 .toString();
     }
 }
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
 
 import javax.annotation.Nullable;
+import java.util.Date;
 
 public abstract class DockerHubBase {
 
@@ -34,14 +35,24 @@ public abstract class DockerHubBase {
     @JsonInclude(JsonInclude.Include.ALWAYS)
     public abstract static class DockerHubWithPing extends DockerHubBase {
         @Nullable @JsonProperty("ping") public abstract Boolean ping();
+        @Nullable @JsonProperty("last-ping-time") public abstract Date lastPingTime();
 
         @JsonCreator
         public static DockerHubWithPing create(@JsonProperty("id") final Long id,
                                                @JsonProperty("name") final String name,
                                                @JsonProperty("url") final String url,
                                                @JsonProperty("default") final Boolean isDefault,
-                                               @JsonProperty("ping") final Boolean ping) {
-            return new AutoValue_DockerHubBase_DockerHubWithPing(id == null ? 0L : id, name, url, isDefault == null ? false : isDefault, ping);
+                                               @JsonProperty("ping") final Boolean ping,
+                                               @JsonProperty("last-ping-time") final Date lastPingTime) {
+            return new AutoValue_DockerHubBase_DockerHubWithPing(id == null ? 0L : id, name, url, isDefault == null ? false : isDefault, ping, lastPingTime);
+        }
+
+        public static DockerHubWithPing create(final Long id,
+                                               final String name,
+                                               final String url,
+                                               final Boolean isDefault,
+                                               final Boolean ping) {
+            return create(id, name, url, isDefault, ping, null);
         }
 
         public static DockerHubWithPing create(final DockerHub dockerHub,
@@ -54,5 +65,20 @@ public abstract class DockerHubBase {
                     ping
             );
         }
+
+        /**
+         * @param health The hub's most recent ping result, or null if it has not been pinged yet
+         */
+        public static DockerHubWithPing create(final DockerHub dockerHub,
+                                               final @Nullable DockerHubHealth health) {
+            return create(
+                    dockerHub.id(),
+                    dockerHub.name(),
+                    dockerHub.url(),
+                    dockerHub.isDefault(),
+                    health == null ? null : health.ping(),
+                    health == null ? null : health.lastPingTime()
+            );
+        }
     }
 }
@@ -0,0 +1,30 @@
+package org.nrg.containers.model.dockerhub;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Date;
+
+/**
+ * The result of the most recent ping of a docker hub.
+ */
+@AutoValue
+public abstract class DockerHubHealth {
+    /**
+     * True if the hub answered the ping, false if it did not answer or did not answer in time,
+     * null if the ping could not be sent.
+     */
+    @Nullable @JsonProperty("ping") public abstract Boolean ping();
+    @JsonProperty("last-ping-time") public abstract Date lastPingTime();
+
+    public static DockerHubHealth create(final @Nullable Boolean ping,
+                                         final @Nonnull Date lastPingTime) {
+        return new AutoValue_DockerHubHealth(ping, lastPingTime);
+    }
+
+    public boolean isOlderThan(final long maxAgeMillis) {
+        return System.currentTimeMillis() - lastPingTime().getTime() >= maxAgeMillis;
+    }
+}
@@ -21,15 +21,24 @@ public abstract class DockerImage {
     @Nullable @JsonProperty("image-id") public abstract String imageId();
     @JsonProperty("tags") public abstract ImmutableList<String> tags();
     @JsonProperty("labels") public abstract ImmutableMap<String, String> labels();
+    @Nullable @JsonProperty("size") public abstract Long size();
+
+    public static DockerImage create(final String imageId,
+                                     final List<String> repoTags,
+                                     final Map<String, String> labels) {
+        return create(imageId, repoTags, labels, null);
+    }
 
     @JsonCreator
     public static DockerImage create(@JsonProperty("image-id") final String imageId,
                                      @JsonProperty("tags") final List<String> repoTags,
-                                     @JsonProperty("labels") final Map<String, String> labels) {
+                                     @JsonProperty("labels") final Map<String, String> labels,
+                                     @JsonProperty("size") final Long size) {
         return builder()
                 .imageId(imageId)
                 .tags(repoTags == null ? Collections.<String>emptyList() : repoTags)
                 .labels(labels == null ? Collections.<String, String>emptyMap() : labels)
+                .size(size)
                 .build();
     }
 
@@ -59,6 +68,8 @@ public abstract class DockerImage {
             return this;
         }
 
+        public abstract Builder size(Long size);
+
         public abstract DockerImage build();
     }
 }
@@ -0,0 +1,32 @@
+package org.nrg.containers.model.image.docker;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What one run of image garbage collection removed, or in a dry run would have removed, from the docker server.
+ */
+@AutoValue
+public abstract class ImageGarbageCollectionReport {
+    @JsonProperty("dry-run") public abstract boolean dryRun();
+    @JsonProperty("total-bytes") public abstract long totalBytes();
+    @JsonProperty("high-water-mark-bytes") public abstract long highWaterMarkBytes();
+    @JsonProperty("removed") public abstract ImmutableList<DockerImage> removed();
+    @JsonProperty("removed-bytes") public abstract long removedBytes();
+    @JsonProperty("failures") public abstract ImmutableMap<String, String> failures();
+
+    public static ImageGarbageCollectionReport create(final boolean dryRun,
+                                                      final long totalBytes,
+                                                      final long highWaterMarkBytes,
+                                                      final List<DockerImage> removed,
+                                                      final long removedBytes,
+                                                      final Map<String, String> failures) {
+        return new AutoValue_ImageGarbageCollectionReport(dryRun, totalBytes, highWaterMarkBytes,
+                ImmutableList.copyOf(removed), removedBytes, ImmutableMap.copyOf(failures));
+    }
+}
@@ -0,0 +1,26 @@
+package org.nrg.containers.model.image.docker;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+/**
+ * Totals for the image pulls run since the container service started.
+ * Coalesced requests waited on a pull of the same image that was already running, and are not counted as pulls.
+ * Bytes are the sizes of the pulled images, which overstates the download when layers were already on the server.
+ */
+@AutoValue
+public abstract class ImagePullMetrics {
+    @JsonProperty("pulls") public abstract long pulls();
+    @JsonProperty("coalesced") public abstract long coalesced();
+    @JsonProperty("failures") public abstract long failures();
+    @JsonProperty("duration-millis") public abstract long durationMillis();
+    @JsonProperty("bytes") public abstract long bytes();
+
+    public static ImagePullMetrics create(final long pulls,
+                                          final long coalesced,
+                                          final long failures,
+                                          final long durationMillis,
+                                          final long bytes) {
+        return new AutoValue_ImagePullMetrics(pulls, coalesced, failures, durationMillis, bytes);
+    }
+}
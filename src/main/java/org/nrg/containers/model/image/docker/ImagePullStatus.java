@@ -0,0 +1,29 @@
+package org.nrg.containers.model.image.docker;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+import javax.annotation.Nullable;
+
+/**
+ * Where the container service is with pulling one image, as of the last time it was asked to pull it.
+ */
+@AutoValue
+public abstract class ImagePullStatus {
+    public static final String QUEUED = "Queued";
+    public static final String PULLING = "Pulling";
+    public static final String PULLED = "Pulled";
+    public static final String PRESENT = "Present";
+    public static final String FAILED = "Failed";
+
+    @JsonProperty("image") public abstract String image();
+    @JsonProperty("status") public abstract String status();
+    @Nullable @JsonProperty("message") public abstract String message();
+    @JsonProperty("timestamp") public abstract long timestamp();
+
+    public static ImagePullStatus create(final String image,
+                                         final String status,
+                                         final String message) {
+        return new AutoValue_ImagePullStatus(image, status, message, System.currentTimeMillis());
+    }
+}
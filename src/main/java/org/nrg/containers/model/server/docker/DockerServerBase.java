@@ -4,12 +4,21 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public abstract class DockerServerBase {
+    // Node prefixes are stored as one string per node
+    private static final String NODE_PREFIX_SEPARATOR = ",";
+
     @JsonProperty("id") public abstract Long id();
     @JsonProperty("name") public abstract String name();
     @JsonProperty("host") public abstract String host();
@@ -21,6 +30,45 @@ public abstract class DockerServerBase {
     @JsonProperty("pull-images-on-xnat-init") public abstract Boolean pullImagesOnXnatInit();
     @Nullable @JsonProperty("container-user") public abstract String containerUser();
 
+    /**
+     * In swarm mode, the host paths that are local or fast on each node, by node hostname.
+     * Services whose mounts fall under these paths are placed on the nodes that have them.
+     */
+    @JsonProperty("swarm-node-archive-prefixes") public abstract ImmutableMap<String, List<String>> swarmNodeArchivePrefixes();
+
+    static ImmutableMap<String, List<String>> copyOfNodePrefixes(final Map<String, List<String>> nodePrefixes) {
+        if (nodePrefixes == null) {
+            return ImmutableMap.of();
+        }
+        final ImmutableMap.Builder<String, List<String>> builder = ImmutableMap.builder();
+        for (final Map.Entry<String, List<String>> entry : nodePrefixes.entrySet()) {
+            if (StringUtils.isNotBlank(entry.getKey()) && entry.getValue() != null) {
+                builder.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+            }
+        }
+        return builder.build();
+    }
+
+    static Map<String, List<String>> splitNodePrefixes(final Map<String, String> joinedNodePrefixes) {
+        final Map<String, List<String>> nodePrefixes = new HashMap<>();
+        if (joinedNodePrefixes != null) {
+            for (final Map.Entry<String, String> entry : joinedNodePrefixes.entrySet()) {
+                nodePrefixes.put(entry.getKey(), Arrays.asList(StringUtils.split(StringUtils.defaultString(entry.getValue()), NODE_PREFIX_SEPARATOR)));
+            }
+        }
+        return nodePrefixes;
+    }
+
+    static Map<String, String> joinNodePrefixes(final Map<String, List<String>> nodePrefixes) {
+        final Map<String, String> joinedNodePrefixes = new HashMap<>();
+        if (nodePrefixes != null) {
+            for (final Map.Entry<String, List<String>> entry : nodePrefixes.entrySet()) {
+                joinedNodePrefixes.put(entry.getKey(), StringUtils.join(entry.getValue(), NODE_PREFIX_SEPARATOR));
+            }
+        }
+        return joinedNodePrefixes;
+    }
+
     @AutoValue
     public abstract static class DockerServer extends DockerServerBase {
         public static final DockerServer DEFAULT_SOCKET = DockerServer.create("Local socket", "unix:///var/run/docker.sock");
@@ -34,8 +82,21 @@ public abstract class DockerServerBase {
                                           @JsonProperty("path-translation-xnat-prefix") final String pathTranslationXnatPrefix,
                                           @JsonProperty("path-translation-docker-prefix") final String pathTranslationDockerPrefix,
                                           @JsonProperty("pull-images-on-xnat-init") final Boolean pullImagesOnXnatInit,
-                                          @JsonProperty("container-user") final String containerUser) {
-            return create(id, name, host, certPath, swarmMode, null, pathTranslationXnatPrefix, pathTranslationDockerPrefix, pullImagesOnXnatInit, containerUser);
+                                          @JsonProperty("container-user") final String containerUser,
+                                          @JsonProperty("swarm-node-archive-prefixes") final Map<String, List<String>> swarmNodeArchivePrefixes) {
+            return create(id, name, host, certPath, swarmMode, null, pathTranslationXnatPrefix, pathTranslationDockerPrefix, pullImagesOnXnatInit, containerUser, swarmNodeArchivePrefixes);
+        }
+
+        public static DockerServer create(final Long id,
+                                          final String name,
+                                          final String host,
+                                          final String certPath,
+                                          final Boolean swarmMode,
+                                          final String pathTranslationXnatPrefix,
+                                          final String pathTranslationDockerPrefix,
+                                          final Boolean pullImagesOnXnatInit,
+                                          final String containerUser) {
+            return create(id, name, host, certPath, swarmMode, pathTranslationXnatPrefix, pathTranslationDockerPrefix, pullImagesOnXnatInit, containerUser, null);
         }
 
         public static DockerServer create(final String name,
@@ -53,6 +114,20 @@ public abstract class DockerServerBase {
                                           final String pathTranslationDockerPrefix,
                                           final Boolean pullImagesOnXnatInit,
                                           final String containerUser) {
+            return create(id, name, host, certPath, swarmMode, lastEventCheckTime, pathTranslationXnatPrefix, pathTranslationDockerPrefix, pullImagesOnXnatInit, containerUser, null);
+        }
+
+        public static DockerServer create(final Long id,
+                                          final String name,
+                                          final String host,
+                                          final String certPath,
+                                          final Boolean swarmMode,
+                                          final Date lastEventCheckTime,
+                                          final String pathTranslationXnatPrefix,
+                                          final String pathTranslationDockerPrefix,
+                                          final Boolean pullImagesOnXnatInit,
+                                          final String containerUser,
+                                          final Map<String, List<String>> swarmNodeArchivePrefixes) {
             return new AutoValue_DockerServerBase_DockerServer(
                     id == null ? 0L : id,
                     StringUtils.isBlank(name) ? host : name,
@@ -63,7 +138,8 @@ public abstract class DockerServerBase {
                     pathTranslationXnatPrefix,
                     pathTranslationDockerPrefix,
                     pullImagesOnXnatInit != null && pullImagesOnXnatInit,
-                    containerUser
+                    containerUser,
+                    copyOfNodePrefixes(swarmNodeArchivePrefixes)
             );
         }
 
@@ -79,7 +155,8 @@ public abstract class DockerServerBase {
                     dockerServerEntity.getPathTranslationXnatPrefix(),
                     dockerServerEntity.getPathTranslationDockerPrefix(),
                     pullImagesOnXnatInit == null ? false : pullImagesOnXnatInit,
-                    dockerServerEntity.getContainerUser());
+                    dockerServerEntity.getContainerUser(),
+                    splitNodePrefixes(dockerServerEntity.getSwarmNodeArchivePrefixes()));
         }
 
         @SuppressWarnings("deprecation")
@@ -110,13 +187,16 @@ public abstract class DockerServerBase {
                             this.pathTranslationXnatPrefix(),
                             this.pathTranslationDockerPrefix(),
                             this.pullImagesOnXnatInit(),
-                            this.containerUser());
+                            this.containerUser(),
+                            this.swarmNodeArchivePrefixes());
         }
     }
 
     @AutoValue
     public static abstract class DockerServerWithPing extends DockerServerBase {
         @Nullable @JsonProperty("ping") public abstract Boolean ping();
+        @Nullable @JsonProperty("last-ping-time") public abstract Date lastPingTime();
+        @Nullable @JsonProperty("ping-latency-ms") public abstract Long pingLatencyMillis();
 
         @JsonCreator
         public static DockerServerWithPing create(@JsonProperty("id") final Long id,
@@ -128,9 +208,13 @@ public abstract class DockerServerBase {
                                                   @JsonProperty("path-translation-docker-prefix") final String pathTranslationDockerPrefix,
                                                   @JsonProperty("pull-images-on-xnat-init") final Boolean pullImagesOnXnatInit,
                                                   @JsonProperty("container-user") final String user,
-                                                  @JsonProperty("ping") final Boolean ping) {
+                                                  @JsonProperty("swarm-node-archive-prefixes") final Map<String, List<String>> swarmNodeArchivePrefixes,
+                                                  @JsonProperty("ping") final Boolean ping,
+                                                  @JsonProperty("last-ping-time") final Date lastPingTime,
+                                                  @JsonProperty("ping-latency-ms") final Long pingLatencyMillis) {
             return create(id == null ? 0L : id, name, host, certPath, swarmMode, new Date(0),
-                    pathTranslationXnatPrefix, pathTranslationDockerPrefix, pullImagesOnXnatInit, user, ping);
+                    pathTranslationXnatPrefix, pathTranslationDockerPrefix, pullImagesOnXnatInit, user, swarmNodeArchivePrefixes,
+                    ping, lastPingTime, pingLatencyMillis);
         }
 
         public static DockerServerWithPing create(final Long id,
@@ -143,7 +227,26 @@ public abstract class DockerServerBase {
                                                   final String pathTranslationDockerPrefix,
                                                   final Boolean pullImagesOnXnatInit,
                                                   final String user,
+                                                  final Map<String, List<String>> swarmNodeArchivePrefixes,
                                                   final Boolean ping) {
+            return create(id, name, host, certPath, swarmMode, lastEventCheckTime,
+                    pathTranslationXnatPrefix, pathTranslationDockerPrefix, pullImagesOnXnatInit, user, swarmNodeArchivePrefixes, ping, null, null);
+        }
+
+        public static DockerServerWithPing create(final Long id,
+                                                  final String name,
+                                                  final String host,
+                                                  final String certPath,
+                                                  final Boolean swarmMode,
+                                                  final Date lastEventCheckTime,
+                                                  final String pathTranslationXnatPrefix,
+                                                  final String pathTranslationDockerPrefix,
+                                                  final Boolean pullImagesOnXnatInit,
+                                                  final String user,
+                                                  final Map<String, List<String>> swarmNodeArchivePrefixes,
+                                                  final Boolean ping,
+                                                  final Date lastPingTime,
+                                                  final Long pingLatencyMillis) {
             return new AutoValue_DockerServerBase_DockerServerWithPing(
                     id == null ? 0L : id,
                     StringUtils.isBlank(name) ? host : name,
@@ -155,7 +258,10 @@ public abstract class DockerServerBase {
                     pathTranslationDockerPrefix,
                     pullImagesOnXnatInit != null && pullImagesOnXnatInit,
                     user,
-                    ping != null && ping);
+                    copyOfNodePrefixes(swarmNodeArchivePrefixes),
+                    ping != null && ping,
+                    lastPingTime,
+                    pingLatencyMillis);
         }
 
         public static DockerServerWithPing create(final DockerServer dockerServer,
@@ -171,8 +277,29 @@ public abstract class DockerServerBase {
                     dockerServer.pathTranslationDockerPrefix(),
                     dockerServer.pullImagesOnXnatInit(),
                     dockerServer.containerUser(),
+                    dockerServer.swarmNodeArchivePrefixes(),
                     ping
             );
         }
+
+        public static DockerServerWithPing create(final DockerServer dockerServer,
+                                                  final DockerServerHealth health) {
+            return create(
+                    dockerServer.id(),
+                    dockerServer.name(),
+                    dockerServer.host(),
+                    dockerServer.certPath(),
+                    dockerServer.swarmMode(),
+                    dockerServer.lastEventCheckTime(),
+                    dockerServer.pathTranslationXnatPrefix(),
+                    dockerServer.pathTranslationDockerPrefix(),
+                    dockerServer.pullImagesOnXnatInit(),
+                    dockerServer.containerUser(),
+                    dockerServer.swarmNodeArchivePrefixes(),
+                    health.ping(),
+                    health.lastPingTime(),
+                    health.pingLatencyMillis()
+            );
+        }
     }
 }
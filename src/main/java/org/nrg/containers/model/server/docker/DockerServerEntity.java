@@ -3,8 +3,10 @@ package org.nrg.containers.model.server.docker;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
 import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
 
+import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import java.util.Date;
+import java.util.Map;
 import java.util.Objects;
 
 @Entity
@@ -18,6 +20,7 @@ public class DockerServerEntity extends AbstractHibernateEntity {
     private String pathTranslationDockerPrefix;
     private Boolean pullImagesOnXnatInit;
     private String containerUser;
+    private Map<String, String> swarmNodeArchivePrefixes;
 
     public static DockerServerEntity create(final DockerServer dockerServer) {
         return new DockerServerEntity().update(dockerServer);
@@ -33,6 +36,7 @@ public class DockerServerEntity extends AbstractHibernateEntity {
         this.pathTranslationDockerPrefix = dockerServer.pathTranslationDockerPrefix();
         this.pullImagesOnXnatInit = dockerServer.pullImagesOnXnatInit();
         this.containerUser = dockerServer.containerUser();
+        this.swarmNodeArchivePrefixes = DockerServerBase.joinNodePrefixes(dockerServer.swarmNodeArchivePrefixes());
         return this;
     }
 
@@ -108,6 +112,18 @@ public class DockerServerEntity extends AbstractHibernateEntity {
         this.containerUser = containerUser;
     }
 
+    /**
+     * @return The archive prefixes local to each swarm node, by node hostname, each node's prefixes joined by commas
+     */
+    @ElementCollection
+    public Map<String, String> getSwarmNodeArchivePrefixes() {
+        return swarmNodeArchivePrefixes;
+    }
+
+    public void setSwarmNodeArchivePrefixes(final Map<String, String> swarmNodeArchivePrefixes) {
+        this.swarmNodeArchivePrefixes = swarmNodeArchivePrefixes;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -122,13 +138,14 @@ public class DockerServerEntity extends AbstractHibernateEntity {
                 Objects.equals(this.pathTranslationXnatPrefix, that.pathTranslationXnatPrefix) &&
                 Objects.equals(this.pathTranslationDockerPrefix, that.pathTranslationDockerPrefix) &&
                 Objects.equals(this.pullImagesOnXnatInit, that.pullImagesOnXnatInit) &&
-                Objects.equals(this.containerUser, that.containerUser);
+                Objects.equals(this.containerUser, that.containerUser) &&
+                Objects.equals(this.swarmNodeArchivePrefixes, that.swarmNodeArchivePrefixes);
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(super.hashCode(), name, host, certPath, lastEventCheckTime, swarmMode,
-                pathTranslationXnatPrefix, pathTranslationDockerPrefix, pullImagesOnXnatInit, containerUser);
+                pathTranslationXnatPrefix, pathTranslationDockerPrefix, pullImagesOnXnatInit, containerUser, swarmNodeArchivePrefixes);
     }
 
 }
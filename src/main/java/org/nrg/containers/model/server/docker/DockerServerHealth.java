@@ -0,0 +1,27 @@
+package org.nrg.containers.model.server.docker;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+import javax.annotation.Nonnull;
+import java.util.Date;
+
+/**
+ * The result of the most recent ping of the docker server.
+ */
+@AutoValue
+public abstract class DockerServerHealth {
+    @JsonProperty("ping") public abstract boolean ping();
+    @JsonProperty("last-ping-time") public abstract Date lastPingTime();
+    @JsonProperty("ping-latency-ms") public abstract long pingLatencyMillis();
+
+    public static DockerServerHealth create(final boolean ping,
+                                            final @Nonnull Date lastPingTime,
+                                            final long pingLatencyMillis) {
+        return new AutoValue_DockerServerHealth(ping, lastPingTime, pingLatencyMillis);
+    }
+
+    public boolean isOlderThan(final long maxAgeMillis) {
+        return System.currentTimeMillis() - lastPingTime().getTime() >= maxAgeMillis;
+    }
+}
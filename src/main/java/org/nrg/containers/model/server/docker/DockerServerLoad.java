@@ -0,0 +1,23 @@
+package org.nrg.containers.model.server.docker;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+import javax.annotation.Nullable;
+
+/**
+ * The containers that have not finished on a docker server, and the memory they reserved.
+ * Containers recorded before servers were tracked, or not yet created on any server, have no server ID.
+ */
+@AutoValue
+public abstract class DockerServerLoad {
+    @Nullable @JsonProperty("server-id") public abstract Long serverId();
+    @JsonProperty("containers") public abstract long containers();
+    @JsonProperty("reserved-memory") public abstract long reservedMemory();
+
+    public static DockerServerLoad create(final Long serverId,
+                                          final long containers,
+                                          final long reservedMemory) {
+        return new AutoValue_DockerServerLoad(serverId, containers, reservedMemory);
+    }
+}
@@ -64,7 +64,7 @@ public class CommandConfigurationRestApi extends AbstractXapiRestController {
                                                     final @PathVariable String wrapperName,
                                                     final @RequestParam(required = false, defaultValue = "true") boolean enable,
                                                     final @RequestParam(required = false) String reason)
-            throws CommandConfigurationException, NotFoundException {
+            throws CommandConfigurationException, CommandValidationException, NotFoundException {
         final UserI userI = XDAT.getUserDetails();
 
         commandService.configureForSite(commandConfiguration, commandId, wrapperName, enable, userI.getLogin(), reason);
@@ -77,7 +77,7 @@ public class CommandConfigurationRestApi extends AbstractXapiRestController {
                                                     final @PathVariable long wrapperId,
                                                     final @RequestParam(required = false, defaultValue = "true") boolean enable,
                                                     final @RequestParam(required = false) String reason)
-            throws CommandConfigurationException, NotFoundException {
+            throws CommandConfigurationException, CommandValidationException, NotFoundException {
         final UserI userI = XDAT.getUserDetails();
 
         commandService.configureForSite(commandConfiguration, wrapperId, enable, userI.getLogin(), reason);
@@ -129,7 +129,7 @@ public class CommandConfigurationRestApi extends AbstractXapiRestController {
                                                     final @PathVariable String wrapperName,
                                                     final @RequestParam(required = false, defaultValue = "true") boolean enable,
                                                     final @RequestParam(required = false) String reason)
-            throws CommandConfigurationException, NotFoundException {
+            throws CommandConfigurationException, CommandValidationException, NotFoundException {
         final UserI userI = XDAT.getUserDetails();
 
         commandService.configureForProject(commandConfiguration, project, commandId, wrapperName, enable, userI.getLogin(), reason);
@@ -143,7 +143,7 @@ public class CommandConfigurationRestApi extends AbstractXapiRestController {
                                                     final @PathVariable long wrapperId,
                                                     final @RequestParam(required = false, defaultValue = "true") boolean enable,
                                                     final @RequestParam(required = false) String reason)
-            throws CommandConfigurationException, NotFoundException {
+            throws CommandConfigurationException, CommandValidationException, NotFoundException {
         final UserI userI = XDAT.getUserDetails();
 
         commandService.configureForProject(commandConfiguration, project, wrapperId, enable, userI.getLogin(), reason);
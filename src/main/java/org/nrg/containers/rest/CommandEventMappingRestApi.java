@@ -6,7 +6,9 @@ import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.exceptions.BadRequestException;
+import org.nrg.containers.model.CommandEventLaunchCounts;
 import org.nrg.containers.model.CommandEventMapping;
+import org.nrg.containers.services.CommandEventLaunchService;
 import org.nrg.containers.services.CommandEventMappingService;
 import org.nrg.framework.annotations.XapiRestController;
 import org.nrg.framework.exceptions.NotFoundException;
@@ -48,13 +50,16 @@ public class CommandEventMappingRestApi extends AbstractXapiRestController {
     private static final String FORM = MediaType.APPLICATION_FORM_URLENCODED_VALUE;
 
     private CommandEventMappingService commandEventMappingService;
+    private CommandEventLaunchService commandEventLaunchService;
 
     @Autowired
     public CommandEventMappingRestApi(final CommandEventMappingService commandEventMappingService,
+                                      final CommandEventLaunchService commandEventLaunchService,
                                       final UserManagementServiceI userManagementService,
                                       final RoleHolder roleHolder) {
         super(userManagementService, roleHolder);
         this.commandEventMappingService = commandEventMappingService;
+        this.commandEventLaunchService = commandEventLaunchService;
     }
 
     @XapiRequestMapping(method = GET)
@@ -140,6 +145,13 @@ public class CommandEventMappingRestApi extends AbstractXapiRestController {
         return ResponseEntity.ok().build();
     }
 
+    @XapiRequestMapping(value = {"/launch-counts"}, method = GET, restrictTo = Admin)
+    @ApiOperation(value = "Get counts of pending, successful, and failed event-triggered launches for each Command-Event Mapping")
+    @ResponseBody
+    public List<CommandEventLaunchCounts> getLaunchCounts() {
+        return commandEventLaunchService.getLaunchCounts();
+    }
+
     /*
     EXCEPTION HANDLING
     */
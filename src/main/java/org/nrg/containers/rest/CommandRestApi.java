@@ -12,6 +12,7 @@ import org.nrg.containers.exceptions.ContainerException;
 import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.NoDockerServerException;
 import org.nrg.containers.exceptions.UnauthorizedException;
+import org.nrg.containers.model.CommandCacheStatistics;
 import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.command.auto.Command.CommandWrapper;
 import org.nrg.containers.model.command.auto.CommandSummaryForContext;
@@ -203,6 +204,13 @@ public class CommandRestApi extends AbstractXapiRestController {
         return ResponseEntity.noContent().build();
     }
 
+    @XapiRequestMapping(value = {"/commands/cache-statistics"}, method = GET, restrictTo = Admin)
+    @ApiOperation(value = "Get hit, miss, and eviction counts for the cache of Commands")
+    @ResponseBody
+    public CommandCacheStatistics getCacheStatistics() {
+        return commandService.getCacheStatistics();
+    }
+
     /*
     AVAILABLE FOR LAUNCHING
      */
@@ -17,6 +17,9 @@ import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
 import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHubWithPing;
 import org.nrg.containers.model.image.docker.DockerImage;
 import org.nrg.containers.model.image.docker.DockerImageAndCommandSummary;
+import org.nrg.containers.model.image.docker.ImageGarbageCollectionReport;
+import org.nrg.containers.model.image.docker.ImagePullMetrics;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServerWithPing;
 import org.nrg.containers.services.DockerHubService.DockerHubDeleteDefaultException;
@@ -105,6 +108,32 @@ public class DockerRestApi extends AbstractXapiRestController {
         return new ResponseEntity<>(server, HttpStatus.CREATED);
     }
 
+    @XapiRequestMapping(value = "/servers", method = GET, produces = JSON, restrictTo = Admin)
+    @ApiOperation(value = "Get enabled Docker servers",
+            notes = "Returns every enabled Docker server, the default server first. Containers are placed on any of them.")
+    @ResponseBody
+    public List<DockerServer> getEnabledServers() {
+        return dockerService.getEnabledServers();
+    }
+
+    @XapiRequestMapping(value = "/servers", method = POST, restrictTo = Admin)
+    @ApiOperation(value = "Add a Docker server",
+            notes = "Enables another Docker server alongside the ones already enabled, without replacing the default server.")
+    public ResponseEntity<DockerServer> addServer(final @RequestBody DockerServer dockerServer) throws BadRequestException {
+        if (StringUtils.isBlank(dockerServer.host())) {
+            throw new BadRequestException("Must set the \"host\" property in request body.");
+        }
+        return new ResponseEntity<>(dockerService.addServer(dockerServer), HttpStatus.CREATED);
+    }
+
+    @XapiRequestMapping(value = "/servers/{id:" + ID_REGEX + "}", method = DELETE, restrictTo = Admin)
+    @ApiOperation(value = "Disable a Docker server", notes = "No new containers are placed on a disabled server. Containers already running on it are watched until they finish.", code = 204)
+    @ResponseBody
+    public ResponseEntity<Void> disableServer(final @PathVariable long id) {
+        dockerService.disableServer(id);
+        return ResponseEntity.noContent().build();
+    }
+
     @XapiRequestMapping(value = "/server/ping", method = GET)
     @ApiOperation(value = "Ping docker server.", notes = "Returns \"OK\" on success.")
     @ResponseBody
@@ -243,6 +272,22 @@ public class DockerRestApi extends AbstractXapiRestController {
         dockerService.pullFromHub(image, saveCommands);
     }
 
+    @XapiRequestMapping(value = "/pulls", method = GET, produces = JSON, restrictTo = Admin)
+    @ApiOperation(value = "Get image pull status",
+            notes = "Returns the status of every image pull, including the pulls queued when XNAT started.")
+    @ResponseBody
+    public List<ImagePullStatus> getPullStatuses() {
+        return dockerService.getPullStatuses();
+    }
+
+    @XapiRequestMapping(value = "/pulls/metrics", method = GET, produces = JSON, restrictTo = Admin)
+    @ApiOperation(value = "Get image pull metrics",
+            notes = "Returns counts, total duration, and total size of the image pulls since XNAT started.")
+    @ResponseBody
+    public ImagePullMetrics getPullMetrics() {
+        return dockerService.getPullMetrics();
+    }
+
     @ApiOperation(value = "Get list of images.", notes = "Returns a list of all Docker images on the Docker server.")
     @ApiResponses({
             @ApiResponse(code = 200, message = "A list of images on the server"),
@@ -302,6 +347,30 @@ public class DockerRestApi extends AbstractXapiRestController {
         return ResponseEntity.noContent().build();
     }
 
+    @ApiOperation(value = "Preview image garbage collection",
+            notes = "Returns the images that image garbage collection would remove now, without removing them.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Images that would be removed"),
+            @ApiResponse(code = 424, message = "Admin must set up Docker server."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @XapiRequestMapping(value = "/image-gc", method = GET, produces = JSON, restrictTo = Admin)
+    @ResponseBody
+    public ImageGarbageCollectionReport previewImageGarbageCollection() throws NoDockerServerException, DockerServerException {
+        return dockerService.collectImages(true);
+    }
+
+    @ApiOperation(value = "Run image garbage collection",
+            notes = "Removes least recently used images until the images are under the high-water mark. Returns the images that were removed.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Images that were removed"),
+            @ApiResponse(code = 424, message = "Admin must set up Docker server."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @XapiRequestMapping(value = "/image-gc", method = POST, produces = JSON, restrictTo = Admin)
+    @ResponseBody
+    public ImageGarbageCollectionReport runImageGarbageCollection() throws NoDockerServerException, DockerServerException {
+        return dockerService.collectImages(false);
+    }
+
     @ApiOperation(value = "Save Commands from labels",
             notes = "Read labels from Docker image. If any labels contain key " +
                     LABEL_KEY + ", parse value as list of Commands.")
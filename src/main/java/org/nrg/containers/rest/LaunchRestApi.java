@@ -13,12 +13,16 @@ import org.nrg.containers.exceptions.ContainerException;
 import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.NoDockerServerException;
 import org.nrg.containers.exceptions.UnauthorizedException;
+import org.nrg.containers.model.command.auto.BulkResolutionResult;
+import org.nrg.containers.model.command.auto.Command.ConfiguredCommand;
 import org.nrg.containers.model.command.auto.Command.Input;
 import org.nrg.containers.model.command.auto.LaunchReport;
 import org.nrg.containers.model.command.auto.LaunchUi;
+import org.nrg.containers.model.command.auto.ResolvedCommand;
 import org.nrg.containers.model.command.auto.ResolvedCommand.PartiallyResolvedCommand;
 import org.nrg.containers.model.command.auto.ResolvedInputTreeNode;
 import org.nrg.containers.model.configuration.CommandConfiguration;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
 import org.nrg.containers.model.container.auto.Container;
 import org.nrg.containers.services.CommandResolutionService;
 import org.nrg.containers.services.CommandService;
@@ -48,6 +52,7 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.nrg.xdat.security.helpers.AccessLevel.Edit;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
@@ -68,17 +73,20 @@ public class LaunchRestApi extends AbstractXapiRestController {
     private final CommandService commandService;
     private final ContainerService containerService;
     private final CommandResolutionService commandResolutionService;
+    private final ContainerServicePrefsBean containerServicePrefsBean;
 
     @Autowired
     public LaunchRestApi(final CommandService commandService,
                          final ContainerService containerService,
                          final CommandResolutionService commandResolutionService,
+                         final ContainerServicePrefsBean containerServicePrefsBean,
                          final UserManagementServiceI userManagementService,
                          final RoleHolder roleHolder) {
         super(userManagementService, roleHolder);
         this.commandService = commandService;
         this.containerService = containerService;
         this.commandResolutionService = commandResolutionService;
+        this.containerServicePrefsBean = containerServicePrefsBean;
     }
 
     /*
@@ -188,6 +196,19 @@ public class LaunchRestApi extends AbstractXapiRestController {
                         commandService.getProjectConfiguration(project, commandId, wrapperName));
     }
 
+    private ConfiguredCommand getConfiguredCommand(final String project,
+                                                   final long commandId,
+                                                   final String wrapperName,
+                                                   final long wrapperId) throws NotFoundException {
+        return project == null ?
+                (commandId == 0L && wrapperName == null ?
+                        commandService.getAndConfigure(wrapperId) :
+                        commandService.getAndConfigure(commandId, wrapperName)) :
+                (commandId == 0L && wrapperName == null ?
+                        commandService.getAndConfigure(project, wrapperId) :
+                        commandService.getAndConfigure(project, commandId, wrapperName));
+    }
+
     /*
     BULK LAUNCH UI
      */
@@ -273,29 +294,52 @@ public class LaunchRestApi extends AbstractXapiRestController {
             log.debug("Getting {} configuration for command {}, wrapper name {}, wrapper id {}.", project == null ? "site" : "project " + project, commandId, wrapperName, wrapperId);
             final CommandConfiguration commandConfiguration = getCommandConfiguration(project, commandId, wrapperName, wrapperId);
 
+            final ConfiguredCommand configuredCommand = getConfiguredCommand(project, commandId, wrapperName, wrapperId);
+
             final UserI userI = XDAT.getUserDetails();
 
+            log.debug("Preparing to pre-resolve command {}, wrapperName {}, wrapperId {}, in project {} with {} sets of inputs.", commandId, wrapperName, wrapperId, project, paramsMapList.size());
+            final List<BulkResolutionResult<PartiallyResolvedCommand>> preResolutionResults =
+                    commandResolutionService.preResolveAll(configuredCommand, paramsMapList, userI,
+                            containerServicePrefsBean.getBulkLaunchUiConcurrency(),
+                            containerServicePrefsBean.getBulkLaunchUiTimeoutSeconds(), TimeUnit.SECONDS);
+            log.debug("Done pre-resolving command {}, wrapperName {}, wrapperId {}, in project {}.", commandId, wrapperName, wrapperId, project);
+
+            // The results are in the same order as paramsMapList, so the value trees are always merged in the same order.
             PartiallyResolvedCommand aPartiallyResolvedCommand = null;
             final List<List<ResolvedInputTreeNode<? extends Input>>> listOfResolvedInputTrees = new ArrayList<>();
-            for (final Map<String, String> paramsMap : paramsMapList) {
-                log.debug("Preparing to pre-resolve command {}, wrapperName {}, wrapperId {}, in project {} with inputs {}.", commandId, wrapperName, wrapperId, project, paramsMap);
-                final PartiallyResolvedCommand partiallyResolvedCommand = preResolve(project, commandId, wrapperName, wrapperId, paramsMap, userI);
+            final List<LaunchUi.BulkLaunchUiError> errors = new ArrayList<>();
+            for (final BulkResolutionResult<PartiallyResolvedCommand> preResolutionResult : preResolutionResults) {
+                if (!preResolutionResult.succeeded()) {
+                    log.error("Could not pre-resolve command {}, wrapperName {}, wrapperId {}, in project {} with inputs {}.",
+                            commandId, wrapperName, wrapperId, project, preResolutionResult.inputValues(), preResolutionResult.error());
+                    errors.add(LaunchUi.BulkLaunchUiError.create(preResolutionResult.inputValues(), preResolutionResult.errorMessage()));
+                    continue;
+                }
+
+                final PartiallyResolvedCommand partiallyResolvedCommand = preResolutionResult.resolved();
                 if (aPartiallyResolvedCommand == null) {
                     aPartiallyResolvedCommand = partiallyResolvedCommand; // We use this to populate Meta info, which  should be the same in all
                 }
                 listOfResolvedInputTrees.add(partiallyResolvedCommand.resolvedInputTrees());
-                log.debug("Done pre-resolving command {}, wrapperName {}, wrapperId {}, in project {}.", commandId, wrapperName, project);
             }
 
             if (aPartiallyResolvedCommand == null) {
-                log.error("Could not populate Launch UI meta information. Something must have gone wrong.");
-                throw new CommandResolutionException("Unknown error. Inform your admin to consult container logs.");
+                log.error("Could not populate Launch UI meta information. No set of inputs could be pre-resolved.");
+                final Exception firstError = preResolutionResults.isEmpty() ? null : preResolutionResults.get(0).error();
+                if (firstError instanceof UnauthorizedException) {
+                    throw (UnauthorizedException) firstError;
+                } else if (firstError instanceof CommandResolutionException) {
+                    throw (CommandResolutionException) firstError;
+                }
+                throw new CommandResolutionException("Unknown error. Inform your admin to consult container logs.", firstError);
             }
 
             log.debug("Creating launch UI.");
             return LaunchUi.BulkLaunchUi.builder()
                     .meta(LaunchUi.LaunchUiMeta.create(aPartiallyResolvedCommand))
                     .populateInputTreeAndInputValueTreeFromResolvedInputTrees(listOfResolvedInputTrees, commandConfiguration.inputs())
+                    .errors(errors)
                     .build();
         } catch (Throwable t) {
             log.error("Error getting launch UI.", t);
@@ -508,13 +552,61 @@ public class LaunchRestApi extends AbstractXapiRestController {
                                                      final List<Map<String, String>> allRequestParams) {
 
         final LaunchReport.BulkLaunchReport.Builder reportBuilder = LaunchReport.BulkLaunchReport.builder();
-        for (final Map<String, String> paramsSet : allRequestParams) {
-            reportBuilder.addReport(launchContainer(project, commandId, wrapperName, wrapperId, paramsSet));
+        final UserI userI = XDAT.getUserDetails();
+
+        // Resolve everything in one batch, so the configuration and server lookups happen only once
+        final List<BulkResolutionResult<ResolvedCommand>> resolutionResults;
+        try {
+            final ConfiguredCommand configuredCommand = getConfiguredCommand(project, commandId, wrapperName, wrapperId);
+            resolutionResults = commandResolutionService.resolveAll(configuredCommand, allRequestParams, userI);
+        } catch (Exception e) {
+            log.error("Could not resolve command {}, wrapper {} {} for bulk launch.", commandId, wrapperId, wrapperName, e);
+            final String message = e.getMessage() != null ? e.getMessage() : "";
+            for (final Map<String, String> paramsSet : allRequestParams) {
+                reportBuilder.addFailure(LaunchReport.Failure.create(message, paramsSet, commandId, wrapperId));
+            }
+            return reportBuilder.build();
+        }
+
+        for (final BulkResolutionResult<ResolvedCommand> resolutionResult : resolutionResults) {
+            if (!resolutionResult.succeeded()) {
+                log.error("Launch failed for command wrapper name {}.", wrapperName);
+                log.error(mapLogString("Params: ", resolutionResult.inputValues()));
+                log.error("Exception: ", resolutionResult.error());
+                reportBuilder.addFailure(LaunchReport.Failure.create(resolutionResult.errorMessage(), resolutionResult.inputValues(), commandId, wrapperId));
+                continue;
+            }
+
+            final ResolvedCommand resolvedCommand = project == null ?
+                    resolutionResult.resolved() :
+                    resolutionResult.resolved().toBuilder().project(project).build();
+            reportBuilder.addReport(launchResolvedCommand(resolvedCommand, commandId, wrapperName, wrapperId, resolutionResult.inputValues(), userI));
         }
 
         return reportBuilder.build();
     }
 
+    @Nonnull
+    private LaunchReport launchResolvedCommand(final ResolvedCommand resolvedCommand,
+                                               final long commandId,
+                                               @Nullable final String wrapperName,
+                                               final long wrapperId,
+                                               final Map<String, String> allRequestParams,
+                                               final UserI userI) {
+        try {
+            final Container container = containerService.launchResolvedCommand(resolvedCommand, userI);
+            log.info("Launched command {}, wrapper {} {}. Produced container {}.", commandId, wrapperId, wrapperName, container.databaseId());
+            return container.isSwarmService() ?
+                    LaunchReport.ServiceSuccess.create(container) :
+                    LaunchReport.ContainerSuccess.create(container);
+        } catch (Throwable t) {
+            log.error("Launch failed for command wrapper name {}.", wrapperName);
+            log.error(mapLogString("Params: ", allRequestParams));
+            log.error("Exception: ", t);
+            return LaunchReport.Failure.create(t.getMessage() != null ? t.getMessage() : "", allRequestParams, commandId, wrapperId);
+        }
+    }
+
     /*
     EXCEPTION HANDLING
      */
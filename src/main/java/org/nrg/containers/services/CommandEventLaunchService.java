@@ -0,0 +1,55 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.CommandEventLaunchCounts;
+import org.nrg.containers.model.CommandEventMapping;
+import org.nrg.containers.model.xnat.XnatModelObject;
+import org.nrg.xft.security.UserI;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Launches the commands that are subscribed to XNAT events, away from the thread that delivered the event.
+ */
+public interface CommandEventLaunchService {
+    /**
+     * Queue a launch of the mapping's command, as the mapping's subscription user.
+     * If the queue is full, the launch runs on the calling thread instead.
+     *
+     * @param commandEventMapping The mapping that matched the event
+     * @param inputValues Input values for the command's wrapper
+     * @param eventUser The user whose action triggered the event. Only used for logging.
+     * @param triggerId Identifies the object the event is about, such as a session URI. Triggers for the same mapping
+     *                  and object within the debounce window are collapsed into one launch. If null, the launch is never debounced.
+     */
+    void queueLaunch(CommandEventMapping commandEventMapping, Map<String, String> inputValues, UserI eventUser, @Nullable String triggerId);
+
+    /**
+     * Queue launches of the mapping's command for many sets of input values, as one unit of work.
+     * The subscription user and the configured command are looked up once, and the input value sets
+     * are resolved together. Each set still gets its own container, and is counted as its own launch.
+     *
+     * @param commandEventMapping The mapping that matched the events
+     * @param inputValuesList One set of input values for each launch
+     * @param eventUser The user whose action triggered the events. Only used for logging.
+     * @param triggerId See {@link #queueLaunch(CommandEventMapping, Map, UserI, String)}
+     */
+    void queueLaunches(CommandEventMapping commandEventMapping, List<Map<String, String>> inputValuesList, UserI eventUser, @Nullable String triggerId);
+
+    /**
+     * Queue launches of the mapping's command, as {@link #queueLaunches(CommandEventMapping, List, UserI, String)}.
+     *
+     * @param prebuiltModelObjects XNAT objects the event listener has already built, such as the archived session.
+     *                             Inputs given as one of these objects' URIs resolve to that object for these launches only.
+     */
+    void queueLaunches(CommandEventMapping commandEventMapping, List<Map<String, String>> inputValuesList, UserI eventUser, @Nullable String triggerId,
+                       List<? extends XnatModelObject> prebuiltModelObjects);
+
+    /**
+     * Counts of pending, successful, failed, and skipped launches for every mapping that has been launched.
+     * Launches are skipped when a repeated trigger replaces them, when the same container is already queued or running,
+     * or when a debounced launch finds the launch queue still full at the end of its window.
+     */
+    List<CommandEventLaunchCounts> getLaunchCounts();
+}
@@ -16,4 +16,15 @@ public interface CommandEventMappingService extends BaseHibernateService<Command
 
     List<CommandEventMapping> findByEventType(String eventType);
     List<CommandEventMapping> findByEventType(String eventType, boolean onlyEnabled);
+
+    /**
+     * Get the enabled mappings that should fire for an event in a project: the site-wide mappings
+     * for the event type plus the mappings subscribed to that project. Served from an in-memory
+     * index that is refreshed whenever a mapping is created, updated, enabled, disabled, or deleted.
+     *
+     * @param eventType The event type
+     * @param projectId The project in which the event happened. May be null, in which case only site-wide mappings are returned.
+     * @return Detached copies of the matching enabled mappings. Never null.
+     */
+    List<CommandEventMapping> getEnabledMappings(String eventType, String projectId);
 }
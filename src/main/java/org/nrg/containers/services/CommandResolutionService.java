@@ -2,13 +2,17 @@ package org.nrg.containers.services;
 
 import org.nrg.containers.exceptions.CommandResolutionException;
 import org.nrg.containers.exceptions.UnauthorizedException;
+import org.nrg.containers.model.command.auto.BulkResolutionResult;
 import org.nrg.containers.model.command.auto.Command.ConfiguredCommand;
 import org.nrg.containers.model.command.auto.ResolvedCommand;
 import org.nrg.containers.model.command.auto.ResolvedCommand.PartiallyResolvedCommand;
+import org.nrg.containers.model.xnat.XnatModelObject;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.xft.security.UserI;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public interface CommandResolutionService {
     String[] ILLEGAL_INPUT_STRINGS = {";", "&&", "||", "`", "("};
@@ -62,4 +66,50 @@ public interface CommandResolutionService {
                             Map<String, String> inputValues,
                             UserI userI)
             throws NotFoundException, CommandResolutionException, UnauthorizedException;
+
+    /**
+     * Pre-resolve one command against many sets of input values.
+     * Configuration, Docker server settings and the resolution plan are looked up once for the whole batch.
+     * The items are resolved in parallel and the results are returned in the same order as the input value sets.
+     * A failure to resolve one item is recorded in its result and does not stop the others.
+     */
+    List<BulkResolutionResult<PartiallyResolvedCommand>> preResolveAll(ConfiguredCommand configuredCommand,
+                                                                       List<Map<String, String>> inputValuesList,
+                                                                       UserI userI)
+            throws CommandResolutionException;
+
+    /**
+     * Pre-resolve one command against many sets of input values, with at most maxConcurrent items in flight at once.
+     * maxConcurrent is capped at {@link org.nrg.containers.model.configuration.ContainerServicePrefsBean#MAX_BULK_LAUNCH_UI_CONCURRENCY}.
+     * Items that have not finished when the timeout expires are returned as failures.
+     * A timeout of zero or less waits for every item.
+     */
+    List<BulkResolutionResult<PartiallyResolvedCommand>> preResolveAll(ConfiguredCommand configuredCommand,
+                                                                       List<Map<String, String>> inputValuesList,
+                                                                       UserI userI,
+                                                                       int maxConcurrent,
+                                                                       long timeout,
+                                                                       TimeUnit timeUnit)
+            throws CommandResolutionException;
+
+    /**
+     * Resolve one command against many sets of input values.
+     * See {@link #preResolveAll(ConfiguredCommand, List, UserI)}.
+     */
+    List<BulkResolutionResult<ResolvedCommand>> resolveAll(ConfiguredCommand configuredCommand,
+                                                           List<Map<String, String>> inputValuesList,
+                                                           UserI userI)
+            throws CommandResolutionException;
+
+    /**
+     * Resolve one command against many sets of input values, using XNAT objects that the caller has already built,
+     * such as the session in an archive event. Inputs whose value is one of those objects' URIs resolve to that object
+     * instead of loading it again. The objects are only used for this call. Read permissions on the URI are still
+     * checked for every resolution.
+     */
+    List<BulkResolutionResult<ResolvedCommand>> resolveAll(ConfiguredCommand configuredCommand,
+                                                           List<Map<String, String>> inputValuesList,
+                                                           UserI userI,
+                                                           List<? extends XnatModelObject> prebuiltModelObjects)
+            throws CommandResolutionException;
 }
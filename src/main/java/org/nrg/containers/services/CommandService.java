@@ -1,6 +1,7 @@
 package org.nrg.containers.services;
 
 import org.nrg.containers.exceptions.CommandValidationException;
+import org.nrg.containers.model.CommandCacheStatistics;
 import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.command.auto.Command.CommandWrapper;
 import org.nrg.containers.model.command.auto.Command.ConfiguredCommand;
@@ -38,10 +39,10 @@ public interface CommandService {
     CommandWrapper updateWrapper(long commandId, CommandWrapper updates) throws CommandValidationException, NotFoundException;
     void deleteWrapper(long wrapperId);
 
-    void configureForSite(CommandConfiguration commandConfiguration, long wrapperId, boolean enable, String username, String reason) throws CommandConfigurationException, NotFoundException;
-    void configureForSite(CommandConfiguration commandConfiguration, long commandId, String wrapperName, boolean enable, String username, String reason) throws CommandConfigurationException, NotFoundException;
-    void configureForProject(CommandConfiguration commandConfiguration, String project, long wrapperId, boolean enable, String username, String reason) throws CommandConfigurationException, NotFoundException;
-    void configureForProject(CommandConfiguration commandConfiguration, String project, long commandId, String wrapperName, boolean enable, String username, String reason) throws CommandConfigurationException, NotFoundException;
+    void configureForSite(CommandConfiguration commandConfiguration, long wrapperId, boolean enable, String username, String reason) throws CommandConfigurationException, CommandValidationException, NotFoundException;
+    void configureForSite(CommandConfiguration commandConfiguration, long commandId, String wrapperName, boolean enable, String username, String reason) throws CommandConfigurationException, CommandValidationException, NotFoundException;
+    void configureForProject(CommandConfiguration commandConfiguration, String project, long wrapperId, boolean enable, String username, String reason) throws CommandConfigurationException, CommandValidationException, NotFoundException;
+    void configureForProject(CommandConfiguration commandConfiguration, String project, long commandId, String wrapperName, boolean enable, String username, String reason) throws CommandConfigurationException, CommandValidationException, NotFoundException;
 
     CommandConfiguration getSiteConfiguration(long wrapperId) throws NotFoundException;
     CommandConfiguration getSiteConfiguration(long commandId, String wrapperName) throws NotFoundException;
@@ -79,4 +80,6 @@ public interface CommandService {
                                              UserI userI) throws ElementNotFoundException;
 
     void throwExceptionIfCommandExists(Command command) throws NrgRuntimeException;
+
+    CommandCacheStatistics getCacheStatistics();
 }
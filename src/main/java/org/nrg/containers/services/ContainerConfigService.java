@@ -27,6 +27,11 @@ public interface ContainerConfigService {
     void disableForProject(String project, long wrapperId, final String username, final String reason) throws CommandConfigurationException;
     boolean isEnabledForProject(String project, long wrapperId);
 
+    /**
+     * Drop all cached configurations, so the next reads see what is stored now.
+     */
+    void invalidateCachedConfigurations();
+
     class CommandConfigurationException extends Exception {
         public CommandConfigurationException(final String message, final Throwable e) {
             super(message, e);
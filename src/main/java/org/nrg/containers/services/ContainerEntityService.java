@@ -3,11 +3,14 @@ package org.nrg.containers.services;
 import org.nrg.containers.events.model.ContainerEvent;
 import org.nrg.containers.model.container.entity.ContainerEntity;
 import org.nrg.containers.model.container.entity.ContainerEntityHistory;
+import org.nrg.containers.model.server.docker.DockerServerLoad;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.framework.orm.hibernate.BaseHibernateService;
 import org.nrg.xft.security.UserI;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 public interface ContainerEntityService extends BaseHibernateService<ContainerEntity> {
     ContainerEntity save(final ContainerEntity toCreate,
@@ -26,6 +29,11 @@ public interface ContainerEntityService extends BaseHibernateService<ContainerEn
     List<ContainerEntity> retrieveSetupContainersForParent(long parentId);
     List<ContainerEntity> retrieveWrapupContainersForParent(long parentId);
 
+    Map<String, Date> getLastLaunchTimesByImage();
+    List<DockerServerLoad> getNonfinalizedLoadByServer();
+    List<String> getNonfinalizedNodeIds(long commandId, long dockerServerId, boolean includeUnplaced);
+    List<ContainerEntity> getFinalizedNotRemovedFromServer(Date finishedBefore, boolean includeFailed, int maxResults);
+
     ContainerEntity addContainerEventToHistory(final ContainerEvent containerEvent, final UserI userI);
     ContainerEntityHistory addContainerHistoryItem(final ContainerEntity containerEntity,
                                                    final ContainerEntityHistory history, final UserI userI);
@@ -0,0 +1,14 @@
+package org.nrg.containers.services;
+
+/**
+ * Removes finalized containers and swarm services from the docker server, a while after they finish.
+ * Their logs and outputs have already been saved by finalization; the docker side is only taking up space.
+ */
+public interface ContainerReaperService {
+    /**
+     * Remove a batch of the finalized containers and services whose grace period is over, and record that they
+     * were removed. Candidates are found in the database, so containers that finished before a restart are
+     * removed too. Run on a schedule.
+     */
+    void sweep();
+}
@@ -0,0 +1,35 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
+import org.nrg.containers.model.dockerhub.DockerHubHealth;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+public interface DockerHubHealthService {
+    /**
+     * The most recent ping result for the hub, without waiting on a ping. If the result is older than the TTL,
+     * or the hub has not been pinged yet, the hub is pinged in the background for later callers.
+     *
+     * @return The most recent ping result, or null if the hub has not been pinged yet
+     */
+    @Nullable DockerHubHealth getHealth(DockerHub hub);
+
+    /**
+     * Ping the hub now, regardless of the age of the last result. Waits no longer than the ping timeout.
+     * If an earlier ping of the hub has not returned yet, waits on that ping instead of starting another.
+     */
+    @Nonnull DockerHubHealth refresh(DockerHub hub);
+
+    /**
+     * Ping all hubs whose last result is old enough that it should be refreshed before any caller needs it.
+     * The hubs are pinged at the same time, each waiting no longer than the ping timeout.
+     * This is run periodically in the background, so that callers of {@link #getHealth(DockerHub)} rarely see a stale result.
+     */
+    void refreshInBackground();
+
+    /**
+     * Drop the hub's ping result, because the hub has changed or is gone. A ping of the hub that is running now will not be recorded.
+     */
+    void forget(long hubId);
+}
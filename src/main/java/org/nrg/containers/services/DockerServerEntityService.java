@@ -3,6 +3,11 @@ package org.nrg.containers.services;
 import org.nrg.containers.model.server.docker.DockerServerEntity;
 import org.nrg.framework.orm.hibernate.BaseHibernateService;
 
+import java.util.List;
+
 public interface DockerServerEntityService extends BaseHibernateService<DockerServerEntity> {
     DockerServerEntity getServer();
+    List<DockerServerEntity> getEnabledServers();
+    DockerServerEntity addServer(DockerServerEntity dockerServerEntity);
+    void disableServer(long id);
 }
@@ -0,0 +1,25 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.server.docker.DockerServerHealth;
+
+import javax.annotation.Nonnull;
+
+public interface DockerServerHealthService {
+    /**
+     * The most recent ping result, if it is younger than the TTL. Otherwise ping the server and return the new result.
+     */
+    @Nonnull DockerServerHealth getHealth();
+
+    /**
+     * Ping the server now, regardless of the age of the last result.
+     */
+    @Nonnull DockerServerHealth refresh();
+
+    /**
+     * Ping the server if the last result is old enough that it should be refreshed before any caller needs it.
+     * This is run periodically in the background, so that callers of {@link #getHealth()} rarely wait on a ping.
+     * The other enabled servers are pinged here too, and every result is passed on to placement,
+     * so that containers are not placed on servers that do not answer.
+     */
+    void refreshInBackground();
+}
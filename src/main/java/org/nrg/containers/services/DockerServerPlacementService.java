@@ -0,0 +1,34 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.exceptions.NoDockerServerException;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.DockerServerHealth;
+
+import java.util.List;
+
+/**
+ * Chooses which of the enabled docker servers each new container is launched on,
+ * using the placement strategy in the container service preferences.
+ */
+public interface DockerServerPlacementService {
+    /**
+     * @return The server on which to launch the next container. The default server, if it is the only one enabled.
+     * @throws NoDockerServerException If no server is enabled
+     */
+    DockerServer chooseServer() throws NoDockerServerException;
+
+    /**
+     * Record the result of a ping of an enabled server. Servers whose last ping failed are not chosen
+     * while another enabled server answered.
+     * @param serverId A server
+     * @param health The result of its most recent ping
+     */
+    void recordHealth(long serverId, DockerServerHealth health);
+
+    /**
+     * @param server A swarm server
+     * @param commandId A command
+     * @return The swarm node of each of the command's unfinished tasks on the server, one entry per task
+     */
+    List<String> getCommandNodeIds(DockerServer server, long commandId);
+}
@@ -11,4 +11,17 @@ public interface DockerServerService {
     DockerServer getServer() throws NotFoundException;
     DockerServer setServer(DockerServer dockerServer);
     void update(DockerServer dockerServer);
+
+    /**
+     * @return Every enabled server, the default server first. Containers may be launched on any of them.
+     */
+    List<DockerServer> getEnabledServers();
+    DockerServer retrieveServer(long id);
+
+    /**
+     * Enable another server alongside the ones already enabled. Unlike {@link #setServer(DockerServer)},
+     * this does not replace the default server.
+     */
+    DockerServer addServer(DockerServer dockerServer);
+    void disableServer(long id);
 }
@@ -8,6 +8,9 @@ import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
 import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHubWithPing;
 import org.nrg.containers.model.image.docker.DockerImage;
 import org.nrg.containers.model.image.docker.DockerImageAndCommandSummary;
+import org.nrg.containers.model.image.docker.ImageGarbageCollectionReport;
+import org.nrg.containers.model.image.docker.ImagePullMetrics;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServerWithPing;
 import org.nrg.containers.services.DockerHubService.DockerHubDeleteDefaultException;
@@ -41,15 +44,21 @@ public interface DockerService {
             throws DockerServerException, NoDockerServerException, NotFoundException, NotUniqueException;
     DockerImage pullFromHub(String imageName, boolean saveCommands)
             throws DockerServerException, NoDockerServerException, NotFoundException;
+    List<ImagePullStatus> getPullStatuses();
+    ImagePullMetrics getPullMetrics();
 
     DockerServerWithPing getServer() throws NotFoundException;
     DockerServerWithPing setServer(DockerServer server);
+    List<DockerServer> getEnabledServers();
+    DockerServer addServer(DockerServer server);
+    void disableServer(long id);
     String ping() throws NoDockerServerException, DockerServerException;
 
     List<DockerImage> getImages() throws NoDockerServerException, DockerServerException;
     List<DockerImageAndCommandSummary> getImageSummaries() throws NoDockerServerException, DockerServerException;
     DockerImage getImage(String imageId) throws NoDockerServerException, NotFoundException;
     void removeImageById(String imageId, Boolean force) throws NotFoundException, NoDockerServerException, DockerServerException;
+    ImageGarbageCollectionReport collectImages(boolean dryRun) throws NoDockerServerException, DockerServerException;
     List<Command> saveFromImageLabels(String imageName) throws DockerServerException, NotFoundException, NoDockerServerException;
 
     Command getCommandByImage(String image) throws NotFoundException;
@@ -0,0 +1,21 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoDockerServerException;
+import org.nrg.containers.model.image.docker.ImageGarbageCollectionReport;
+
+/**
+ * Removes the least recently used images from the docker server when its images take up too much space.
+ * Images used by enabled commands, or by containers launched recently, are kept.
+ */
+public interface ImageGarbageCollectionService {
+    /**
+     * Collect images, if image garbage collection is enabled in the container service preferences. Run on a schedule.
+     */
+    void collectIfEnabled();
+
+    /**
+     * @param dryRun If true, report which images would be removed without removing them
+     */
+    ImageGarbageCollectionReport collect(boolean dryRun) throws NoDockerServerException, DockerServerException;
+}
@@ -0,0 +1,56 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoDockerServerException;
+import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
+import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.ImagePullMetrics;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.framework.exceptions.NotFoundException;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pulls images onto the docker servers, no more than a configured number at a time.
+ * Requests for an image that is already being pulled onto the same server from the same hub as the same user
+ * wait for that pull instead of starting another.
+ */
+public interface ImagePullService {
+    /**
+     * Pull an image onto the default server, waiting for a free pull thread if all of them are busy.
+     * If the same image is already being pulled from the same hub as the same user, wait for that pull and share its result or failure.
+     *
+     * @param hub The hub to pull from. If null, the image name decides.
+     * @return The pulled image
+     */
+    DockerImage pull(String imageName, @Nullable DockerHub hub, @Nullable String username, @Nullable String password)
+            throws NoDockerServerException, DockerServerException, NotFoundException;
+
+    /**
+     * Queue a pull of the image onto the server, or join the same pull that is already running, and return without waiting.
+     * The image is pulled from the hub configured for its registry: the default hub, if the image name has no registry.
+     * The listener is told the outcome on the pulling thread.
+     */
+    void pullInBackground(DockerServer server, String imageName, PullListener listener);
+
+    /**
+     * Queue pulls of the images that are not already on the docker server, and return without waiting for them.
+     * The server's images are listed once, up front.
+     */
+    void prePull(Collection<String> imageNames) throws NoDockerServerException, DockerServerException;
+
+    /**
+     * The status of every image we have been asked to pull since the container service started.
+     */
+    List<ImagePullStatus> getPullStatuses();
+
+    ImagePullMetrics getPullMetrics();
+
+    interface PullListener {
+        void pulled(DockerImage image);
+        void failed(Exception e);
+    }
+}
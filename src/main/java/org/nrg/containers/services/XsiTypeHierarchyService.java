@@ -0,0 +1,21 @@
+package org.nrg.containers.services;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Answers "is this XSI type the same as, or descended from, that one?" from a precomputed
+ * table of every data type's ancestors, rather than walking the XFT schema on each question.
+ */
+public interface XsiTypeHierarchyService {
+    /**
+     * @param xsiType A data type, e.g. "xnat:mrSessionData"
+     * @param ancestorXsiType A data type that xsiType may extend, e.g. "xnat:imageSessionData"
+     * @return true if the types are equal, or xsiType extends ancestorXsiType. false if either type is unknown.
+     */
+    boolean isA(@Nonnull String xsiType, @Nonnull String ancestorXsiType);
+
+    /**
+     * @return true if XFT knows the data type. false if it does not, or if XFT is not initialized yet.
+     */
+    boolean isKnown(@Nonnull String xsiType);
+}
@@ -0,0 +1,129 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.nrg.containers.model.CommandCacheStatistics;
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.framework.exceptions.NotFoundException;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through caches of command POJOs, so that reads do not have to initialize every lazy collection
+ * of the command entities. Commands are immutable, so cached values can be handed to any caller.
+ *
+ * Commands change rarely, and a change to one wrapper can change the answer to any of these lookups,
+ * so every write drops everything. A load that was already running when the caches were dropped may have
+ * read the old commands, so each invalidation starts a new generation and a value loaded in an older
+ * generation is not kept.
+ */
+class CommandCache {
+    private static final String ALL = "all";
+    private static final long MAXIMUM_SIZE = 1000;
+
+    private final Cache<String, List<Command>> all = newCache();
+    private final Cache<Long, Optional<Command>> byId = newCache();
+    private final Cache<String, List<Command>> byImage = newCache();
+    private final Cache<Long, Command> byWrapperId = newCache();
+
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+
+    List<Command> all(final Callable<List<Command>> loader) {
+        return getUnchecked(all, ALL, loader);
+    }
+
+    Optional<Command> byId(final long id, final Callable<Optional<Command>> loader) {
+        return getUnchecked(byId, id, loader);
+    }
+
+    List<Command> byImage(final String image, final Callable<List<Command>> loader) {
+        return getUnchecked(byImage, image, loader);
+    }
+
+    /**
+     * @return The command, with only the wrapper with the given ID in its list of wrappers.
+     */
+    Command byWrapperId(final long wrapperId, final Callable<Command> loader) throws NotFoundException {
+        final long loadedIn = generation.get();
+        try {
+            return keepIfCurrent(byWrapperId, wrapperId, byWrapperId.get(wrapperId, loader), loadedIn);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof NotFoundException) {
+                throw (NotFoundException) e.getCause();
+            }
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Drop everything. Loads that started before this call will not be cached.
+     */
+    void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.addAndGet(size());
+        all.invalidateAll();
+        byId.invalidateAll();
+        byImage.invalidateAll();
+        byWrapperId.invalidateAll();
+    }
+
+    /**
+     * @return A number that changes every time the caches are invalidated. Anything built from commands read
+     *         while the generation was {@code n} is stale once the generation is no longer {@code n}.
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    CommandCacheStatistics statistics() {
+        final CacheStats stats = all.stats().plus(byId.stats()).plus(byImage.stats()).plus(byWrapperId.stats());
+        return CommandCacheStatistics.create(stats.hitCount(), stats.missCount(),
+                stats.evictionCount() + invalidations.get(), size());
+    }
+
+    private long size() {
+        return all.size() + byId.size() + byImage.size() + byWrapperId.size();
+    }
+
+    private static <K, V> Cache<K, V> newCache() {
+        return CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .recordStats()
+                .<K, V>build();
+    }
+
+    private <K, V> V getUnchecked(final Cache<K, V> cache, final K key, final Callable<V> loader) {
+        final long loadedIn = generation.get();
+        try {
+            return keepIfCurrent(cache, key, cache.get(key, loader), loadedIn);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * If the caches were invalidated while we were reading, the value may have been loaded from the commands as
+     * they were before the write, and Guava will have cached it anyway. Take it back out.
+     */
+    private <K, V> V keepIfCurrent(final Cache<K, V> cache, final K key, final V value, final long loadedIn) {
+        if (generation.get() != loadedIn) {
+            cache.asMap().remove(key, value);
+        }
+        return value;
+    }
+
+    private static RuntimeException propagate(final Exception e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new UncheckedExecutionException(cause);
+    }
+}
@@ -0,0 +1,358 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.model.CommandEventLaunchCounts;
+import org.nrg.containers.model.CommandEventMapping;
+import org.nrg.containers.model.command.auto.BulkResolutionResult;
+import org.nrg.containers.model.command.auto.Command.ConfiguredCommand;
+import org.nrg.containers.model.command.auto.ResolvedCommand;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.container.auto.Container;
+import org.nrg.containers.model.xnat.XnatModelObject;
+import org.nrg.containers.services.CommandEventLaunchService;
+import org.nrg.containers.services.CommandResolutionService;
+import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerService;
+import org.nrg.xdat.security.services.UserManagementServiceI;
+import org.nrg.xdat.security.user.exceptions.UserInitException;
+import org.nrg.xdat.security.user.exceptions.UserNotFoundException;
+import org.nrg.xft.security.UserI;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class CommandEventLaunchServiceImpl implements CommandEventLaunchService {
+    private static final long DEBOUNCED_HAND_OFF_TIMEOUT_SECONDS = 1L;
+
+    private final ContainerService containerService;
+    private final CommandService commandService;
+    private final CommandResolutionService commandResolutionService;
+    private final UserManagementServiceI userManagementService;
+    private final ContainerServicePrefsBean containerServicePrefsBean;
+
+    // Bounded, so a large import cannot queue an unbounded number of launches.
+    // When the queue is full the event thread runs the launch itself, which slows the events down to the rate we can launch.
+    private final ThreadPoolExecutor launchExecutor;
+    private final ConcurrentMap<Long, LaunchCounters> launchCounters = Maps.newConcurrentMap();
+
+    // Launches waiting out the debounce window, keyed by mapping and trigger. A repeated trigger replaces the waiting launch.
+    // Only as many launches may wait as the launch queue holds. When all the slots are taken, new triggers go straight
+    // to the launch executor, so a large import still gets its backpressure. A launch whose window ends while the
+    // launch queue is still full is skipped rather than run on, or left blocking, the debounce thread.
+    private final ScheduledExecutorService debounceScheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("command-event-debounce-%d").setDaemon(true).build());
+    private final Map<String, DebouncedLaunch> debouncedLaunches = Maps.newHashMap();
+    private final Semaphore debounceSlots;
+
+    @Autowired
+    public CommandEventLaunchServiceImpl(final ContainerService containerService,
+                                         final CommandService commandService,
+                                         final CommandResolutionService commandResolutionService,
+                                         final UserManagementServiceI userManagementService,
+                                         final ContainerServicePrefsBean containerServicePrefsBean) {
+        this.containerService = containerService;
+        this.commandService = commandService;
+        this.commandResolutionService = commandResolutionService;
+        this.userManagementService = userManagementService;
+        this.containerServicePrefsBean = containerServicePrefsBean;
+
+        final int threads = positiveOrDefault(containerServicePrefsBean.getEventLaunchThreads(),
+                ContainerServicePrefsBean.DEFAULT_EVENT_LAUNCH_THREADS);
+        final int queueSize = positiveOrDefault(containerServicePrefsBean.getEventLaunchQueueSize(),
+                ContainerServicePrefsBean.DEFAULT_EVENT_LAUNCH_QUEUE_SIZE);
+        this.launchExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize),
+                new ThreadFactoryBuilder().setNameFormat("command-event-launch-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // Debounced launches are put straight on the queue, which needs the threads to be running already
+        this.launchExecutor.prestartAllCoreThreads();
+        this.debounceSlots = new Semaphore(queueSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        debounceScheduler.shutdownNow();
+        launchExecutor.shutdownNow();
+    }
+
+    @Override
+    public void queueLaunch(final CommandEventMapping commandEventMapping,
+                            final Map<String, String> inputValues,
+                            final UserI eventUser,
+                            final @Nullable String triggerId) {
+        queueLaunches(commandEventMapping, Collections.singletonList(inputValues), eventUser, triggerId);
+    }
+
+    @Override
+    public void queueLaunches(final CommandEventMapping commandEventMapping,
+                              final List<Map<String, String>> inputValuesList,
+                              final UserI eventUser,
+                              final @Nullable String triggerId) {
+        queueLaunches(commandEventMapping, inputValuesList, eventUser, triggerId, Collections.<XnatModelObject>emptyList());
+    }
+
+    @Override
+    public void queueLaunches(final CommandEventMapping commandEventMapping,
+                              final List<Map<String, String>> inputValuesList,
+                              final UserI eventUser,
+                              final @Nullable String triggerId,
+                              final List<? extends XnatModelObject> prebuiltModelObjects) {
+        if (inputValuesList == null || inputValuesList.isEmpty()) {
+            return;
+        }
+        final LaunchCounters counters = countersFor(commandEventMapping.getId());
+        final int numLaunches = inputValuesList.size();
+        counters.pending.addAndGet(numLaunches);
+
+        final Runnable launchTask = new Runnable() {
+            @Override
+            public void run() {
+                counters.pending.addAndGet(-numLaunches);
+                final LaunchOutcome outcome = launchAll(commandEventMapping, inputValuesList, eventUser, prebuiltModelObjects);
+                counters.succeeded.addAndGet(outcome.succeeded);
+                counters.skipped.addAndGet(outcome.skipped);
+                counters.failed.addAndGet(numLaunches - outcome.succeeded - outcome.skipped);
+            }
+        };
+
+        final Integer debounceSeconds = containerServicePrefsBean.getEventLaunchDebounceSeconds();
+        if (triggerId == null || debounceSeconds == null || debounceSeconds <= 0 ||
+                !debounce(commandEventMapping.getId() + ":" + triggerId, numLaunches, counters, launchTask, debounceSeconds)) {
+            launchExecutor.execute(launchTask);
+        }
+    }
+
+    @Override
+    public List<CommandEventLaunchCounts> getLaunchCounts() {
+        final List<CommandEventLaunchCounts> launchCounts = Lists.newArrayList();
+        for (final Map.Entry<Long, LaunchCounters> entry : launchCounters.entrySet()) {
+            final LaunchCounters counters = entry.getValue();
+            launchCounts.add(CommandEventLaunchCounts.create(entry.getKey(),
+                    counters.pending.get(), counters.succeeded.get(), counters.failed.get(), counters.skipped.get()));
+        }
+        Collections.sort(launchCounts, new Comparator<CommandEventLaunchCounts>() {
+            @Override
+            public int compare(final CommandEventLaunchCounts o1, final CommandEventLaunchCounts o2) {
+                return Long.compare(o1.mappingId(), o2.mappingId());
+            }
+        });
+        return launchCounts;
+    }
+
+    /**
+     * Hold a launch until no other trigger with the same key has arrived for the debounce window.
+     * A trigger that arrives while an earlier one is waiting replaces it, and the earlier launches are counted as skipped.
+     *
+     * @return False if too many launches are already waiting, in which case the caller must launch now
+     */
+    private boolean debounce(final String debounceKey,
+                             final int numLaunches,
+                             final LaunchCounters counters,
+                             final Runnable launchTask,
+                             final int debounceSeconds) {
+        synchronized (debouncedLaunches) {
+            final DebouncedLaunch previous = debouncedLaunches.get(debounceKey);
+            if (previous != null && previous.future.cancel(false)) {
+                // The new launch takes over the replaced launch's slot
+                log.info("Collapsing a repeated trigger for {} into one launch.", debounceKey);
+                counters.pending.addAndGet(-previous.numLaunches);
+                counters.skipped.addAndGet(previous.numLaunches);
+            } else if (!debounceSlots.tryAcquire()) {
+                log.debug("Too many launches are waiting out the debounce window. Not debouncing {}.", debounceKey);
+                return false;
+            }
+
+            final DebouncedLaunch debouncedLaunch = new DebouncedLaunch(numLaunches);
+            debouncedLaunch.future = debounceScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (debouncedLaunches) {
+                        if (debouncedLaunches.get(debounceKey) == debouncedLaunch) {
+                            debouncedLaunches.remove(debounceKey);
+                        }
+                    }
+                    try {
+                        handOff(launchTask, numLaunches, counters);
+                    } finally {
+                        debounceSlots.release();
+                    }
+                }
+            }, debounceSeconds, TimeUnit.SECONDS);
+            debouncedLaunches.put(debounceKey, debouncedLaunch);
+            return true;
+        }
+    }
+
+    /**
+     * Put a debounced launch on the launch queue, waiting a short while for room if the queue is full.
+     * The launch never runs on the debounce thread, and the debounce thread never waits long, so a busy
+     * launch executor cannot hold up the other launches that are waiting. A launch that finds no room is skipped.
+     */
+    private void handOff(final Runnable launchTask, final int numLaunches, final LaunchCounters counters) {
+        boolean queued = false;
+        try {
+            queued = !launchExecutor.isShutdown() &&
+                    launchExecutor.getQueue().offer(launchTask, DEBOUNCED_HAND_OFF_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            // Same recheck as ThreadPoolExecutor.execute: a launch queued during shutdown would never run
+            if (queued && launchExecutor.isShutdown() && launchExecutor.remove(launchTask)) {
+                queued = false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queued) {
+            log.warn("No room on the launch queue after {} seconds, or the service is shutting down. Skipping {} debounced launch(es).",
+                    DEBOUNCED_HAND_OFF_TIMEOUT_SECONDS, numLaunches);
+            counters.pending.addAndGet(-numLaunches);
+            counters.skipped.addAndGet(numLaunches);
+        }
+    }
+
+    private LaunchOutcome launchAll(final CommandEventMapping commandEventMapping,
+                                    final List<Map<String, String>> inputValuesList,
+                                    final UserI eventUser,
+                                    final List<? extends XnatModelObject> prebuiltModelObjects) {
+        final LaunchOutcome outcome = new LaunchOutcome();
+        final Long commandId = commandEventMapping.getCommandId();
+        final String wrapperName = commandEventMapping.getXnatCommandWrapperName();
+        final String subscriptionProjectId = StringUtils.defaultIfEmpty(commandEventMapping.getProjectId(), null);
+
+        final UserI subscriptionUser;
+        final List<BulkResolutionResult<ResolvedCommand>> resolutionResults;
+        try {
+            subscriptionUser = userManagementService.getUser(commandEventMapping.getSubscriptionUserName());
+            final ConfiguredCommand configuredCommand = subscriptionProjectId == null ?
+                    commandService.getAndConfigure(commandId, wrapperName) :
+                    commandService.getAndConfigure(subscriptionProjectId, commandId, wrapperName);
+
+            final List<Map<String, String>> toLaunch = Lists.newArrayList(inputValuesList);
+            if (Boolean.TRUE.equals(containerServicePrefsBean.getSkipDuplicateEventLaunches())) {
+                outcome.skipped = removeAlreadyLaunched(configuredCommand, subscriptionProjectId, toLaunch);
+                if (toLaunch.isEmpty()) {
+                    return outcome;
+                }
+            }
+
+            log.info("Launching command {}, {}, {} times for user \"{}\" as \"{}\"",
+                    commandId,
+                    StringUtils.isNotBlank(wrapperName) ? String.format("wrapper \"%s\"", wrapperName) : "identity wrapper",
+                    toLaunch.size(),
+                    eventUser == null ? null : eventUser.getLogin(),
+                    subscriptionUser.getLogin());
+            if (log.isDebugEnabled()) {
+                log.debug("Runtime parameter values:");
+                for (final Map<String, String> inputValues : toLaunch) {
+                    log.debug(inputValues.toString());
+                }
+            }
+            resolutionResults = commandResolutionService.resolveAll(configuredCommand, toLaunch, subscriptionUser, prebuiltModelObjects);
+        } catch (UserNotFoundException | UserInitException e) {
+            log.error(String.format("Error launching command %d. Could not find or Init subscription owner: %s", commandId, commandEventMapping.getSubscriptionUserName()), e);
+            return outcome;
+        } catch (Exception e) {
+            log.error("Error launching command " + commandId, e);
+            return outcome;
+        }
+
+        for (final BulkResolutionResult<ResolvedCommand> resolutionResult : resolutionResults) {
+            if (!resolutionResult.succeeded()) {
+                log.error("Error launching command " + commandId + " with inputs " + resolutionResult.inputValues(), resolutionResult.error());
+                continue;
+            }
+            final ResolvedCommand resolvedCommand = subscriptionProjectId == null ?
+                    resolutionResult.resolved() :
+                    resolutionResult.resolved().toBuilder().project(subscriptionProjectId).build();
+            try {
+                containerService.launchResolvedCommand(resolvedCommand, subscriptionUser);
+                outcome.succeeded++;
+            } catch (Exception e) {
+                log.error("Error launching command " + commandId + " with inputs " + resolutionResult.inputValues(), e);
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Remove every set of input values that already has a container for the same wrapper that is queued or running.
+     *
+     * @return The number of input value sets removed
+     */
+    private int removeAlreadyLaunched(final ConfiguredCommand configuredCommand,
+                                      final @Nullable String project,
+                                      final List<Map<String, String>> inputValuesList) {
+        final long wrapperId = configuredCommand.wrapper().id();
+        final List<Container> nonfinalized = project == null ?
+                containerService.getAll(true) :
+                containerService.getAll(true, project);
+
+        int removed = 0;
+        for (final Container container : nonfinalized) {
+            if (container.wrapperId() != wrapperId) {
+                continue;
+            }
+            final Map<String, String> rawInputs = container.getRawInputs();
+            if (inputValuesList.remove(rawInputs)) {
+                log.info("Not launching wrapper {} with inputs {}. Container {} is already queued or running with the same inputs.",
+                        wrapperId, rawInputs, container.databaseId());
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private LaunchCounters countersFor(final long mappingId) {
+        final LaunchCounters counters = launchCounters.get(mappingId);
+        if (counters != null) {
+            return counters;
+        }
+        final LaunchCounters newCounters = new LaunchCounters();
+        final LaunchCounters existing = launchCounters.putIfAbsent(mappingId, newCounters);
+        return existing == null ? newCounters : existing;
+    }
+
+    private static int positiveOrDefault(final Integer value, final int defaultValue) {
+        return value == null || value <= 0 ? defaultValue : value;
+    }
+
+    private static class LaunchCounters {
+        private final AtomicLong pending = new AtomicLong();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+    }
+
+    private static class LaunchOutcome {
+        private int succeeded;
+        private int skipped;
+    }
+
+    private static class DebouncedLaunch {
+        private final int numLaunches;
+        private ScheduledFuture<?> future;
+
+        private DebouncedLaunch(final int numLaunches) {
+            this.numLaunches = numLaunches;
+        }
+    }
+}
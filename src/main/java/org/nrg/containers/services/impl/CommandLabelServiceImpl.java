@@ -2,7 +2,11 @@ package org.nrg.containers.services.impl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.model.command.auto.Command;
@@ -16,6 +20,9 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -23,6 +30,11 @@ public class CommandLabelServiceImpl implements CommandLabelService {
 
     private final ObjectMapper objectMapper;
 
+    private final Cache<String, List<Command>> parsedLabelsByImageId = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
     @Autowired
     public CommandLabelServiceImpl(final ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
@@ -43,7 +55,40 @@ public class CommandLabelServiceImpl implements CommandLabelService {
             return commandsToReturn;
         }
 
-        final String labelValue = labels.get(LABEL_KEY);
+        final List<Command> parsed = parseLabel(labels.get(LABEL_KEY), dockerImage.imageId());
+        for (final Command command : parsed) {
+            // The command as read from the image may not contain all the values we want to store
+            // So we add them now.
+            commandsToReturn.add(command.toBuilder().image(imageName).build());
+        }
+        return commandsToReturn;
+    }
+
+    /**
+     * Parsed commands are cached by image ID. An image's ID is the digest of its configuration,
+     * labels included, so the label for an ID can never change.
+     */
+    @Nonnull
+    private List<Command> parseLabel(final String labelValue, final String imageId) {
+        if (StringUtils.isBlank(imageId)) {
+            return readLabel(labelValue, imageId);
+        }
+        try {
+            return parsedLabelsByImageId.get(imageId, new Callable<List<Command>>() {
+                @Override
+                public List<Command> call() {
+                    return readLabel(labelValue, imageId);
+                }
+            });
+        } catch (ExecutionException e) {
+            // readLabel does not throw checked exceptions
+            throw new UncheckedExecutionException(e.getCause());
+        }
+    }
+
+    @Nonnull
+    private List<Command> readLabel(final String labelValue, final String imageId) {
+        final ImmutableList.Builder<Command> commands = ImmutableList.builder();
         if (StringUtils.isNotBlank(labelValue)) {
             try {
                 final List<Command.CommandCreation> commandCreationsFromLabels =
@@ -51,13 +96,10 @@ public class CommandLabelServiceImpl implements CommandLabelService {
 
                 if (commandCreationsFromLabels != null && !commandCreationsFromLabels.isEmpty()) {
                     for (final Command.CommandCreation commandCreation : commandCreationsFromLabels) {
-                        // The command as read from the image may not contain all the values we want to store
-                        // So we add them now.
-                        commandsToReturn.add(
+                        commands.add(
                                 Command.create(commandCreation)
                                         .toBuilder()
-                                        .image(imageName)
-                                        .hash(dockerImage.imageId())
+                                        .hash(imageId)
                                         .build()
                         );
                     }
@@ -67,6 +109,6 @@ public class CommandLabelServiceImpl implements CommandLabelService {
                 log.error("Could not parse Commands from label: " + labelValue, e);
             }
         }
-        return commandsToReturn;
+        return commands.build();
     }
 }
@@ -0,0 +1,221 @@
+package org.nrg.containers.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.exceptions.CommandResolutionException;
+import org.nrg.containers.model.command.auto.Command.CommandInput;
+import org.nrg.containers.model.command.auto.Command.CommandWrapper;
+import org.nrg.containers.model.command.auto.Command.CommandWrapperDerivedInput;
+import org.nrg.containers.model.command.auto.Command.CommandWrapperExternalInput;
+import org.nrg.containers.model.command.auto.Command.CommandWrapperOutput;
+import org.nrg.containers.model.command.auto.Command.ConfiguredCommand;
+import org.nrg.containers.model.command.auto.Command.Input;
+import org.nrg.containers.model.command.auto.PreresolvedInputTreeNode;
+import org.nrg.containers.utils.ReplacementTemplate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything about resolving a configured command that does not depend on the runtime input values.
+ *
+ * A plan is compiled once per configured command (that is, per command, wrapper, and configuration)
+ * and reused by every resolution of that command. Resolution then only has to bind values.
+ */
+@Slf4j
+class CommandResolutionPlan {
+    private final ConfiguredCommand command;
+    private final List<PreresolvedInputTreeNode<? extends Input>> rootNodes;
+    private final ReplacementTemplate.Tokenizer templateTokenizer;
+    private final Map<String, List<CommandWrapperOutput>> wrapperOutputsByHandledCommandOutputName;
+    private final Map<String, CommandWrapperOutput> wrapperOutputsByName;
+    private final DocumentContext commandJsonpathSearchContext;
+    private final DocumentContext commandWrapperJsonpathSearchContext;
+
+    private CommandResolutionPlan(final ConfiguredCommand command,
+                                  final List<PreresolvedInputTreeNode<? extends Input>> rootNodes,
+                                  final ReplacementTemplate.Tokenizer templateTokenizer,
+                                  final Map<String, List<CommandWrapperOutput>> wrapperOutputsByHandledCommandOutputName,
+                                  final Map<String, CommandWrapperOutput> wrapperOutputsByName,
+                                  final DocumentContext commandJsonpathSearchContext,
+                                  final DocumentContext commandWrapperJsonpathSearchContext) {
+        this.command = command;
+        this.rootNodes = rootNodes;
+        this.templateTokenizer = templateTokenizer;
+        this.wrapperOutputsByHandledCommandOutputName = wrapperOutputsByHandledCommandOutputName;
+        this.wrapperOutputsByName = wrapperOutputsByName;
+        this.commandJsonpathSearchContext = commandJsonpathSearchContext;
+        this.commandWrapperJsonpathSearchContext = commandWrapperJsonpathSearchContext;
+    }
+
+    @Nonnull
+    static CommandResolutionPlan compile(final @Nonnull ConfiguredCommand command,
+                                         final @Nonnull ObjectMapper mapper)
+            throws CommandResolutionException {
+        log.debug("Compiling resolution plan for command \"{}\" wrapper \"{}\".", command.name(), command.wrapper().name());
+        final CommandWrapper commandWrapper = command.wrapper();
+
+        final List<String> replacementKeys = Lists.newArrayList();
+        for (final CommandWrapperExternalInput input : commandWrapper.externalInputs()) {
+            replacementKeys.add(input.replacementKey());
+        }
+        for (final CommandWrapperDerivedInput input : commandWrapper.derivedInputs()) {
+            replacementKeys.add(input.replacementKey());
+        }
+        for (final CommandInput input : command.inputs()) {
+            replacementKeys.add(input.replacementKey());
+        }
+
+        final Map<String, List<CommandWrapperOutput>> wrapperOutputsByHandledCommandOutputName = Maps.newHashMap();
+        final Map<String, CommandWrapperOutput> wrapperOutputsByName = Maps.newHashMap();
+        for (final CommandWrapperOutput commandWrapperOutput : commandWrapper.outputHandlers()) {
+            if (!wrapperOutputsByHandledCommandOutputName.containsKey(commandWrapperOutput.commandOutputName())) {
+                wrapperOutputsByHandledCommandOutputName.put(commandWrapperOutput.commandOutputName(), Lists.<CommandWrapperOutput>newArrayList());
+            }
+            wrapperOutputsByHandledCommandOutputName.get(commandWrapperOutput.commandOutputName()).add(commandWrapperOutput);
+            wrapperOutputsByName.put(commandWrapperOutput.name(), commandWrapperOutput);
+        }
+        for (final Map.Entry<String, List<CommandWrapperOutput>> entry : wrapperOutputsByHandledCommandOutputName.entrySet()) {
+            entry.setValue(ImmutableList.copyOf(entry.getValue()));
+        }
+
+        // Set up JSONPath search contexts
+        final Configuration c = Configuration.defaultConfiguration().addOptions(Option.ALWAYS_RETURN_LIST);
+        final DocumentContext commandJsonpathSearchContext;
+        try {
+            commandJsonpathSearchContext = JsonPath.using(c).parse(mapper.writeValueAsString(command));
+        } catch (JsonProcessingException e) {
+            throw new CommandResolutionException("Could not serialize command to JSON.", e);
+        }
+        final DocumentContext commandWrapperJsonpathSearchContext;
+        try {
+            commandWrapperJsonpathSearchContext = JsonPath.using(c).parse(mapper.writeValueAsString(commandWrapper));
+        } catch (JsonProcessingException e) {
+            throw new CommandResolutionException("Could not serialize command to JSON.", e);
+        }
+
+        return new CommandResolutionPlan(command,
+                initializePreresolvedInputTree(command),
+                new ReplacementTemplate.Tokenizer(replacementKeys),
+                ImmutableMap.copyOf(wrapperOutputsByHandledCommandOutputName),
+                ImmutableMap.copyOf(wrapperOutputsByName),
+                commandJsonpathSearchContext,
+                commandWrapperJsonpathSearchContext);
+    }
+
+    ConfiguredCommand command() {
+        return command;
+    }
+
+    /**
+     * @return The roots of the input trees, in the order they must be resolved.
+     */
+    List<PreresolvedInputTreeNode<? extends Input>> rootNodes() {
+        return rootNodes;
+    }
+
+    ReplacementTemplate.Tokenizer templateTokenizer() {
+        return templateTokenizer;
+    }
+
+    @Nullable
+    List<CommandWrapperOutput> outputHandlersForCommandOutput(final String commandOutputName) {
+        return wrapperOutputsByHandledCommandOutputName.get(commandOutputName);
+    }
+
+    @Nullable
+    CommandWrapperOutput outputHandler(final String outputHandlerName) {
+        return wrapperOutputsByName.get(outputHandlerName);
+    }
+
+    DocumentContext commandJsonpathSearchContext() {
+        return commandJsonpathSearchContext;
+    }
+
+    DocumentContext commandWrapperJsonpathSearchContext() {
+        return commandWrapperJsonpathSearchContext;
+    }
+
+    private static List<PreresolvedInputTreeNode<? extends Input>> initializePreresolvedInputTree(final ConfiguredCommand command)
+            throws CommandResolutionException {
+        log.debug("Initializing tree of wrapper input parent-child relationships.");
+        final CommandWrapper commandWrapper = command.wrapper();
+        final Map<String, PreresolvedInputTreeNode<? extends Input>> nodesThatProvideValueForCommandInputs = Maps.newHashMap();
+        final Map<String, PreresolvedInputTreeNode<? extends Input>> nodesByName = Maps.newHashMap();
+        final List<PreresolvedInputTreeNode<? extends Input>> rootNodes = Lists.newArrayList();
+        for (final CommandWrapperExternalInput input : commandWrapper.externalInputs()) {
+            // External inputs have no parents, so they are all root nodes
+            final PreresolvedInputTreeNode<? extends Input> externalInputNode =
+                    PreresolvedInputTreeNode.create(input);
+            rootNodes.add(externalInputNode);
+            nodesByName.put(input.name(), externalInputNode);
+
+            // If this input provides a value for a command input, cache that now
+            final String providesValueForCommandInput = input.providesValueForCommandInput();
+            if (StringUtils.isNotBlank(providesValueForCommandInput)) {
+                nodesThatProvideValueForCommandInputs.put(providesValueForCommandInput, externalInputNode);
+            }
+        }
+        for (final CommandWrapperDerivedInput input : commandWrapper.derivedInputs()) {
+            // Derived inputs must have a non-blank parent name
+            final String parentName = input.derivedFromWrapperInput();
+            if (StringUtils.isBlank(parentName)) {
+                // This is unlikely to happen. This should be caught by command validation.
+                final String message = String.format("Derived input \"%s\" needs a parent.", input);
+                log.error(message);
+                throw new CommandResolutionException(message);
+            }
+
+            // Make sure that we have already made a node for the parent.
+            final PreresolvedInputTreeNode<? extends Input> parent = nodesByName.get(parentName);
+            if (parent == null) {
+                // This is unlikely to happen. This should be caught by command validation.
+                final String message = String.format(
+                        "Derived input \"%1$s\" claims parent \"%2$s\", but I couldn't find \"%2$s\". Are the inputs out of order?",
+                        input, parentName);
+                log.error(message);
+                throw new CommandResolutionException(message);
+            }
+
+            final PreresolvedInputTreeNode<? extends Input> derivedInputNode =
+                    PreresolvedInputTreeNode.create(input, parent);
+            nodesByName.put(input.name(), derivedInputNode);
+
+            // If this input provides a value for a command input, cache that now
+            final String providesValueForCommandInput = input.providesValueForCommandInput();
+            if (StringUtils.isNotBlank(providesValueForCommandInput)) {
+                nodesThatProvideValueForCommandInputs.put(providesValueForCommandInput, derivedInputNode);
+            }
+        }
+
+        for (final CommandInput input : command.inputs()) {
+            // Command inputs can be root nodes if no wrapper inputs provide values for them,
+            // otherwise they are child nodes
+            final PreresolvedInputTreeNode<? extends Input> commandInputNode;
+            if (nodesThatProvideValueForCommandInputs.containsKey(input.name())) {
+                final PreresolvedInputTreeNode<? extends Input> parent = nodesThatProvideValueForCommandInputs.get(input.name());
+                commandInputNode = PreresolvedInputTreeNode.create(input, parent);
+            } else {
+                commandInputNode = PreresolvedInputTreeNode.create(input);
+                rootNodes.add(commandInputNode);
+            }
+            nodesByName.put(input.name(), commandInputNode);
+        }
+
+        log.debug("Done initializing tree of wrapper input parent-child relationships.");
+        return Collections.unmodifiableList(rootNodes);
+    }
+}
@@ -3,14 +3,16 @@ package org.nrg.containers.services.impl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Function;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.jayway.jsonpath.Configuration;
-import com.jayway.jsonpath.DocumentContext;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
-import com.jayway.jsonpath.Option;
 import com.jayway.jsonpath.TypeRef;
 import com.jayway.jsonpath.spi.mapper.MappingException;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +25,7 @@ import org.nrg.containers.exceptions.CommandResolutionException;
 import org.nrg.containers.exceptions.ContainerMountResolutionException;
 import org.nrg.containers.exceptions.IllegalInputException;
 import org.nrg.containers.exceptions.UnauthorizedException;
+import org.nrg.containers.model.command.auto.BulkResolutionResult;
 import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.command.auto.Command.CommandInput;
 import org.nrg.containers.model.command.auto.Command.CommandMount;
@@ -45,6 +48,7 @@ import org.nrg.containers.model.command.auto.ResolvedInputTreeNode.ResolvedInput
 import org.nrg.containers.model.command.auto.ResolvedInputValue;
 import org.nrg.containers.model.command.entity.CommandType;
 import org.nrg.containers.model.command.entity.CommandWrapperOutputEntity;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
 import org.nrg.containers.model.server.docker.DockerServerBase;
 import org.nrg.containers.model.xnat.Assessor;
 import org.nrg.containers.model.xnat.Project;
@@ -57,6 +61,7 @@ import org.nrg.containers.model.xnat.XnatModelObject;
 import org.nrg.containers.services.CommandResolutionService;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.DockerService;
+import org.nrg.containers.utils.ReplacementTemplate;
 import org.nrg.framework.constants.Scope;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.xdat.preferences.SiteConfigPreferences;
@@ -71,6 +76,7 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
@@ -82,6 +88,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -109,6 +126,23 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
     private final ObjectMapper mapper;
     private final DockerService dockerService;
 
+    // All bulk resolutions share this pool, so one large batch cannot take over the server's threads.
+    // Its size is the most that the bulk launch UI concurrency preference can be set to.
+    private static final int BULK_RESOLUTION_THREADS = ContainerServicePrefsBean.MAX_BULK_LAUNCH_UI_CONCURRENCY;
+    private final ExecutorService bulkResolutionExecutor = Executors.newFixedThreadPool(BULK_RESOLUTION_THREADS,
+            new ThreadFactoryBuilder().setNameFormat("command-resolution-%d").setDaemon(true).build());
+
+    // Commands are resolved far more often than they change, so compile a plan once per configured command.
+    private final LoadingCache<ConfiguredCommand, CommandResolutionPlan> resolutionPlans =
+            CacheBuilder.newBuilder()
+                    .maximumSize(500)
+                    .build(new CacheLoader<ConfiguredCommand, CommandResolutionPlan>() {
+                        @Override
+                        public CommandResolutionPlan load(final @Nonnull ConfiguredCommand configuredCommand) throws Exception {
+                            return CommandResolutionPlan.compile(configuredCommand, mapper);
+                        }
+                    });
+
     @Autowired
     public CommandResolutionServiceImpl(final CommandService commandService,
                                         final ConfigService configService,
@@ -122,6 +156,15 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
         this.dockerService = dockerService;
     }
 
+    @PreDestroy
+    public void shutdown() {
+        bulkResolutionExecutor.shutdownNow();
+    }
+
+    private static String prebuiltModelObjectKey(final Class<?> model, final String uri) {
+        return model.getSimpleName() + ":" + (uri.startsWith("/archive") ? uri : "/archive" + uri);
+    }
+
     @Override
     public PartiallyResolvedCommand preResolve(final long wrapperId,
                                                final Map<String, String> inputValues,
@@ -167,10 +210,37 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
     @Override
     public PartiallyResolvedCommand preResolve(final ConfiguredCommand configuredCommand, final Map<String, String> inputValues, final UserI userI)
             throws CommandResolutionException, UnauthorizedException {
-        final CommandResolutionHelper helper = new CommandResolutionHelper(configuredCommand, inputValues, userI);
+        final CommandResolutionHelper helper = new CommandResolutionHelper(configuredCommand, prepareSharedState(configuredCommand), inputValues, userI);
         return helper.preResolve();
     }
 
+    @Override
+    @Nonnull
+    public List<BulkResolutionResult<PartiallyResolvedCommand>> preResolveAll(final ConfiguredCommand configuredCommand,
+                                                                              final List<Map<String, String>> inputValuesList,
+                                                                              final UserI userI)
+            throws CommandResolutionException {
+        return preResolveAll(configuredCommand, inputValuesList, userI, BULK_RESOLUTION_THREADS, 0L, TimeUnit.SECONDS);
+    }
+
+    @Override
+    @Nonnull
+    public List<BulkResolutionResult<PartiallyResolvedCommand>> preResolveAll(final ConfiguredCommand configuredCommand,
+                                                                              final List<Map<String, String>> inputValuesList,
+                                                                              final UserI userI,
+                                                                              final int maxConcurrent,
+                                                                              final long timeout,
+                                                                              final TimeUnit timeUnit)
+            throws CommandResolutionException {
+        return resolveEach(configuredCommand, inputValuesList, userI, maxConcurrent, timeUnit.toMillis(timeout),
+                Collections.<XnatModelObject>emptyList(), new BulkResolutionStep<PartiallyResolvedCommand>() {
+                    @Override
+                    public PartiallyResolvedCommand resolve(final CommandResolutionHelper helper) throws Exception {
+                        return helper.preResolve();
+                    }
+                });
+    }
+
     @Override
     public ResolvedCommand resolve(final long commandId,
                                    final String wrapperName,
@@ -245,24 +315,201 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
                                    final Map<String, String> inputValues,
                                    final UserI userI)
             throws NotFoundException, CommandResolutionException, UnauthorizedException {
-        final CommandResolutionHelper helper = new CommandResolutionHelper(configuredCommand, inputValues, userI);
+        final CommandResolutionHelper helper = new CommandResolutionHelper(configuredCommand, prepareSharedState(configuredCommand), inputValues, userI);
         return helper.resolve();
     }
 
+    @Override
+    @Nonnull
+    public List<BulkResolutionResult<ResolvedCommand>> resolveAll(final ConfiguredCommand configuredCommand,
+                                                                  final List<Map<String, String>> inputValuesList,
+                                                                  final UserI userI)
+            throws CommandResolutionException {
+        return resolveAll(configuredCommand, inputValuesList, userI, Collections.<XnatModelObject>emptyList());
+    }
+
+    @Override
+    @Nonnull
+    public List<BulkResolutionResult<ResolvedCommand>> resolveAll(final ConfiguredCommand configuredCommand,
+                                                                  final List<Map<String, String>> inputValuesList,
+                                                                  final UserI userI,
+                                                                  final List<? extends XnatModelObject> prebuiltModelObjects)
+            throws CommandResolutionException {
+        return resolveEach(configuredCommand, inputValuesList, userI, BULK_RESOLUTION_THREADS, 0L, prebuiltModelObjects, new BulkResolutionStep<ResolvedCommand>() {
+            @Override
+            public ResolvedCommand resolve(final CommandResolutionHelper helper) throws Exception {
+                return helper.resolve();
+            }
+        });
+    }
+
+    private interface BulkResolutionStep<T> {
+        T resolve(CommandResolutionHelper helper) throws Exception;
+    }
+
+    /**
+     * Resolve each set of input values with the given step. At most maxConcurrent items are in flight at once,
+     * each worker taking the next unclaimed item until none are left. If timeoutMillis is positive, items that
+     * are not done by then are abandoned and reported as failures.
+     */
+    @Nonnull
+    private <T> List<BulkResolutionResult<T>> resolveEach(final ConfiguredCommand configuredCommand,
+                                                          final List<Map<String, String>> inputValuesList,
+                                                          final UserI userI,
+                                                          final int maxConcurrent,
+                                                          final long timeoutMillis,
+                                                          final List<? extends XnatModelObject> prebuiltModelObjects,
+                                                          final BulkResolutionStep<T> step)
+            throws CommandResolutionException {
+        if (inputValuesList == null || inputValuesList.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final int numItems = inputValuesList.size();
+        final int numWorkers = Math.min(numItems, maxConcurrent <= 0 ? BULK_RESOLUTION_THREADS : Math.min(maxConcurrent, BULK_RESOLUTION_THREADS));
+        log.debug("Resolving command {}, wrapper {} against {} sets of input values with {} workers.",
+                configuredCommand.name(), configuredCommand.wrapper().name(), numItems, numWorkers);
+        final SharedResolutionState sharedState = prepareSharedState(configuredCommand, prebuiltModelObjects);
+
+        final AtomicReferenceArray<BulkResolutionResult<T>> results = new AtomicReferenceArray<>(numItems);
+        final AtomicInteger nextItem = new AtomicInteger(0);
+        final AtomicBoolean abandoned = new AtomicBoolean(false);
+        final CountDownLatch itemsDone = new CountDownLatch(numItems);
+
+        final List<Future<?>> workers = Lists.newArrayListWithCapacity(numWorkers);
+        for (int i = 0; i < numWorkers; i++) {
+            workers.add(bulkResolutionExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    int index;
+                    while (!abandoned.get() && (index = nextItem.getAndIncrement()) < numItems) {
+                        final Map<String, String> inputValues = inputValuesList.get(index);
+                        try {
+                            final T resolved = step.resolve(new CommandResolutionHelper(configuredCommand, sharedState, inputValues, userI));
+                            results.set(index, BulkResolutionResult.success(index, inputValues, resolved));
+                        } catch (Throwable t) {
+                            log.debug("Could not resolve item {} of {}.", index, numItems, t);
+                            final Exception e = t instanceof Exception ? (Exception) t : new CommandResolutionException(t);
+                            results.set(index, BulkResolutionResult.<T>failure(index, inputValues, e));
+                        } finally {
+                            itemsDone.countDown();
+                        }
+                    }
+                }
+            }));
+        }
+
+        boolean allDone;
+        try {
+            if (timeoutMillis > 0) {
+                allDone = itemsDone.await(timeoutMillis, TimeUnit.MILLISECONDS);
+            } else {
+                itemsDone.await();
+                allDone = true;
+            }
+        } catch (InterruptedException e) {
+            abandoned.set(true);
+            for (final Future<?> worker : workers) {
+                worker.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new CommandResolutionException("Interrupted while resolving command " + configuredCommand.name() + ".", e);
+        }
+
+        if (!allDone) {
+            log.warn("Timed out after {} ms resolving command {}, wrapper {}. {} of {} items are not done.",
+                    timeoutMillis, configuredCommand.name(), configuredCommand.wrapper().name(), itemsDone.getCount(), numItems);
+            abandoned.set(true);
+            for (final Future<?> worker : workers) {
+                worker.cancel(true);
+            }
+        }
+
+        final List<BulkResolutionResult<T>> orderedResults = Lists.newArrayListWithCapacity(numItems);
+        for (int index = 0; index < numItems; index++) {
+            final BulkResolutionResult<T> result = results.get(index);
+            orderedResults.add(result != null ? result :
+                    BulkResolutionResult.<T>failure(index, inputValuesList.get(index),
+                            new CommandResolutionException("Timed out waiting for the command to resolve.")));
+        }
+        return orderedResults;
+    }
+
+    /**
+     * Everything a resolution needs that does not depend on the input values.
+     * A bulk resolution builds this once and shares it between all of its items.
+     */
+    private static class SharedResolutionState {
+        private final CommandResolutionPlan plan;
+        private final String pathTranslationXnatPrefix;
+        private final String pathTranslationContainerHostPrefix;
+
+        // XNAT objects already loaded by URI or ID. Only shared between resolutions for the same user.
+        private final ConcurrentMap<String, XnatModelObject> modelObjects = new ConcurrentHashMap<>();
+
+        // XNAT objects the caller built before asking for this resolution, such as the session in an archive event,
+        // keyed by model and archive URI. Unlike modelObjects, the user's read permission on these is still checked.
+        private final Map<String, XnatModelObject> prebuiltModelObjects;
+
+        private SharedResolutionState(final CommandResolutionPlan plan,
+                                      final String pathTranslationXnatPrefix,
+                                      final String pathTranslationContainerHostPrefix,
+                                      final Map<String, XnatModelObject> prebuiltModelObjects) {
+            this.plan = plan;
+            this.pathTranslationXnatPrefix = pathTranslationXnatPrefix;
+            this.pathTranslationContainerHostPrefix = pathTranslationContainerHostPrefix;
+            this.prebuiltModelObjects = prebuiltModelObjects;
+        }
+    }
+
+    @Nonnull
+    private SharedResolutionState prepareSharedState(final ConfiguredCommand configuredCommand) throws CommandResolutionException {
+        return prepareSharedState(configuredCommand, Collections.<XnatModelObject>emptyList());
+    }
+
+    @Nonnull
+    private SharedResolutionState prepareSharedState(final ConfiguredCommand configuredCommand,
+                                                     final List<? extends XnatModelObject> prebuiltModelObjects)
+            throws CommandResolutionException {
+        final CommandResolutionPlan plan = getResolutionPlan(configuredCommand);
+
+        String pathTranslationXnatPrefix = null;
+        String pathTranslationContainerHostPrefix = null;
+        try {
+            log.debug("Getting docker server to read path prefixes.");
+            final DockerServerBase.DockerServerWithPing dockerServer = dockerService.getServer();
+            pathTranslationXnatPrefix = dockerServer.pathTranslationXnatPrefix();
+            pathTranslationContainerHostPrefix = dockerServer.pathTranslationDockerPrefix();
+        } catch (NotFoundException e) {
+            log.debug("Could not get docker server. I'll keep going, but this is likely to cause other problems down the line.");
+        }
+
+        final Map<String, XnatModelObject> prebuiltModelObjectsByKey = Maps.newHashMap();
+        if (prebuiltModelObjects != null) {
+            for (final XnatModelObject modelObject : prebuiltModelObjects) {
+                if (modelObject != null && StringUtils.isNotBlank(modelObject.getUri())) {
+                    prebuiltModelObjectsByKey.put(prebuiltModelObjectKey(modelObject.getClass(), modelObject.getUri()), modelObject);
+                }
+            }
+        }
+
+        return new SharedResolutionState(plan, pathTranslationXnatPrefix, pathTranslationContainerHostPrefix, prebuiltModelObjectsByKey);
+    }
+
     private class CommandResolutionHelper {
         private final String JSONPATH_SUBSTRING_REGEX = "\\^(wrapper:)?(.+)\\^";
 
         private final CommandWrapper commandWrapper;
         private final ConfiguredCommand command;
+        private final CommandResolutionPlan plan;
+        private final SharedResolutionState sharedState;
 
         private final UserI userI;
         private final Pattern jsonpathSubstringPattern;
-        private final DocumentContext commandJsonpathSearchContext;
-        private final DocumentContext commandWrapperJsonpathSearchContext;
         private String containerHost;
 
-        private String pathTranslationXnatPrefix = null;
-        private String pathTranslationContainerHostPrefix = null;
+        private final String pathTranslationXnatPrefix;
+        private final String pathTranslationContainerHostPrefix;
 
         private List<ResolvedCommand> resolvedSetupCommands;
 
@@ -270,35 +517,15 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
         private Map<String, String> inputValues;
 
         private CommandResolutionHelper(final ConfiguredCommand configuredCommand,
+                                        final SharedResolutionState sharedState,
                                         final Map<String, String> inputValues,
-                                        final UserI userI) throws CommandResolutionException {
+                                        final UserI userI) {
             this.commandWrapper = configuredCommand.wrapper();
             this.command = configuredCommand;
-
-            try {
-                log.debug("Getting docker server to read path prefixes.");
-                final DockerServerBase.DockerServerWithPing dockerServer = dockerService.getServer();
-                pathTranslationXnatPrefix = dockerServer.pathTranslationXnatPrefix();
-                pathTranslationContainerHostPrefix = dockerServer.pathTranslationDockerPrefix();
-            } catch (NotFoundException e) {
-                log.debug("Could not get docker server. I'll keep going, but this is likely to cause other problems down the line.");
-            }
-
-            // Set up JSONPath search contexts
-            final Configuration c = Configuration.defaultConfiguration().addOptions(Option.ALWAYS_RETURN_LIST);
-            try {
-                final String commandJson = mapper.writeValueAsString(command);
-                commandJsonpathSearchContext = JsonPath.using(c).parse(commandJson);
-            } catch (JsonProcessingException e) {
-                throw new CommandResolutionException("Could not serialize command to JSON.", e);
-            }
-
-            try {
-                final String commandWrapperJson = mapper.writeValueAsString(commandWrapper);
-                commandWrapperJsonpathSearchContext = JsonPath.using(c).parse(commandWrapperJson);
-            } catch (JsonProcessingException e) {
-                throw new CommandResolutionException("Could not serialize command to JSON.", e);
-            }
+            this.sharedState = sharedState;
+            this.plan = sharedState.plan;
+            this.pathTranslationXnatPrefix = sharedState.pathTranslationXnatPrefix;
+            this.pathTranslationContainerHostPrefix = sharedState.pathTranslationContainerHostPrefix;
 
             this.userI = userI;
             this.jsonpathSubstringPattern = Pattern.compile(JSONPATH_SUBSTRING_REGEX);
@@ -319,7 +546,7 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
         @Nonnull
         private List<ResolvedInputTreeNode<? extends Input>> resolveInputTrees(final Map<String, String> resolvedValuesByReplacementKey)
                 throws CommandResolutionException, UnauthorizedException {
-            final List<PreresolvedInputTreeNode<? extends Input>> rootNodes = initializePreresolvedInputTree();
+            final List<PreresolvedInputTreeNode<? extends Input>> rootNodes = plan.rootNodes();
 
             final List<ResolvedInputTreeNode<? extends Input>> resolvedInputTrees = Lists.newArrayList();
             for (final PreresolvedInputTreeNode<? extends Input> rootNode : rootNodes) {
@@ -429,6 +656,10 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
                     .reserveMemory(command.reserveMemory())
                     .limitMemory(command.limitMemory())
                     .limitCpu(command.limitCpu())
+                    .reserveCpu(command.reserveCpu())
+                    .placementConstraints(command.placementConstraints())
+                    .placementSpread(command.placementSpread())
+                    .maxReplicasPerNode(command.maxReplicasPerNode())
                     .build();
 
             log.info("Done resolving command.");
@@ -541,24 +772,25 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
 
                     final XnatModelObject xnatModelObject;
                     final boolean preload = input.loadChildren();
+                    final String modelObjectCacheKey = type + (preload ? ":preload:" : ":") + resolvedValue;
                     try {
                         if (type.equals(PROJECT.getName())) {
-                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher,
+                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher, modelObjectCacheKey,
                                     Project.class, Project.uriToModelObject(preload), Project.idToModelObject(userI, preload));
                         } else if (type.equals(SUBJECT.getName())) {
-                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher,
+                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher, modelObjectCacheKey,
                                     Subject.class, Subject.uriToModelObject(), Subject.idToModelObject(userI));
                         } else if (type.equals(SESSION.getName())) {
-                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher,
+                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher, modelObjectCacheKey,
                                     Session.class, Session.uriToModelObject(), Session.idToModelObject(userI));
                         } else if (type.equals(SCAN.getName())) {
-                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher,
+                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher, modelObjectCacheKey,
                                     Scan.class, Scan.uriToModelObject(), Scan.idToModelObject(userI));
                         } else if (type.equals(ASSESSOR.getName())) {
-                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher,
+                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher, modelObjectCacheKey,
                                     Assessor.class, Assessor.uriToModelObject(), Assessor.idToModelObject(userI));
                         } else {
-                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher,
+                            xnatModelObject = resolveXnatObject(resolvedValue, resolvedMatcher, modelObjectCacheKey,
                                     Resource.class, Resource.uriToModelObject(), Resource.idToModelObject(userI));
                         }
                     } catch (CommandInputResolutionException e) {
@@ -1172,74 +1404,6 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
                     parentType);
         }
 
-        private List<PreresolvedInputTreeNode<? extends Input>> initializePreresolvedInputTree() throws CommandResolutionException {
-            log.debug("Initializing tree of wrapper input parent-child relationships.");
-            final Map<String, PreresolvedInputTreeNode<? extends Input>> nodesThatProvideValueForCommandInputs = Maps.newHashMap();
-            final Map<String, PreresolvedInputTreeNode<? extends Input>> nodesByName = Maps.newHashMap();
-            final List<PreresolvedInputTreeNode<? extends Input>> rootNodes = Lists.newArrayList();
-            for (final CommandWrapperExternalInput input : commandWrapper.externalInputs()) {
-                // External inputs have no parents, so they are all root nodes
-                final PreresolvedInputTreeNode<? extends Input> externalInputNode =
-                        PreresolvedInputTreeNode.create(input);
-                rootNodes.add(externalInputNode);
-                nodesByName.put(input.name(), externalInputNode);
-
-                // If this input provides a value for a command input, cache that now
-                final String providesValueForCommandInput = input.providesValueForCommandInput();
-                if (StringUtils.isNotBlank(providesValueForCommandInput)) {
-                    nodesThatProvideValueForCommandInputs.put(providesValueForCommandInput, externalInputNode);
-                }
-            }
-            for (final CommandWrapperDerivedInput input : commandWrapper.derivedInputs()) {
-                // Derived inputs must have a non-blank parent name
-                final String parentName = input.derivedFromWrapperInput();
-                if (StringUtils.isBlank(parentName)) {
-                    // This is unlikely to happen. This should be caught by command validation.
-                    final String message = String.format("Derived input \"%s\" needs a parent.", input);
-                    log.error(message);
-                    throw new CommandResolutionException(message);
-                }
-
-                // Make sure that we have already made a node for the parent.
-                final PreresolvedInputTreeNode<? extends Input> parent = nodesByName.get(parentName);
-                if (parent == null) {
-                    // This is unlikely to happen. This should be caught by command validation.
-                    final String message = String.format(
-                            "Derived input \"%1$s\" claims parent \"%2$s\", but I couldn't find \"%2$s\". Are the inputs out of order?",
-                            input, parentName);
-                    log.error(message);
-                    throw new CommandResolutionException(message);
-                }
-
-                final PreresolvedInputTreeNode<? extends Input> derivedInputNode =
-                        PreresolvedInputTreeNode.create(input, parent);
-                nodesByName.put(input.name(), derivedInputNode);
-
-                // If this input provides a value for a command input, cache that now
-                final String providesValueForCommandInput = input.providesValueForCommandInput();
-                if (StringUtils.isNotBlank(providesValueForCommandInput)) {
-                    nodesThatProvideValueForCommandInputs.put(providesValueForCommandInput, derivedInputNode);
-                }
-            }
-
-            for (final CommandInput input : command.inputs()) {
-                // Command inputs can be root nodes if no wrapper inputs provide values for them,
-                // otherwise they are child nodes
-                final PreresolvedInputTreeNode<? extends Input> commandInputNode;
-                if (nodesThatProvideValueForCommandInputs.containsKey(input.name())) {
-                    final PreresolvedInputTreeNode<? extends Input> parent = nodesThatProvideValueForCommandInputs.get(input.name());
-                    commandInputNode = PreresolvedInputTreeNode.create(input, parent);
-                } else {
-                    commandInputNode = PreresolvedInputTreeNode.create(input);
-                    rootNodes.add(commandInputNode);
-                }
-                nodesByName.put(input.name(), commandInputNode);
-            }
-
-            log.debug("Done initializing tree of wrapper input parent-child relationships.");
-            return rootNodes;
-        }
-
         @Nonnull
         private ResolvedInputTreeNode<? extends Input> resolveNode(final PreresolvedInputTreeNode<? extends Input> preresolvedInputNode,
                                                                    final @Nullable ResolvedInputValue parentValue,
@@ -1497,6 +1661,7 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
         @Nullable
         private <T extends XnatModelObject> T resolveXnatObject(final @Nullable String value,
                                                                 final @Nullable String matcher,
+                                                                final @Nullable String cacheKey,
                                                                 final @Nonnull Class<T> model,
                                                                 final @Nonnull Function<ArchiveItemURI, T> uriToModelObject,
                                                                 final @Nullable Function<String, T> idToModelObject)
@@ -1512,7 +1677,11 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
             log.debug("Value: \"{}\"", value);
 
             T newModelObject = null;
-            if (value.startsWith("/")) {
+            final XnatModelObject cached = cacheKey == null ? null : sharedState.modelObjects.get(cacheKey);
+            if (model.isInstance(cached)) {
+                log.debug("Using the {} already loaded for this value.", modelName);
+                newModelObject = model.cast(cached);
+            } else if (value.startsWith("/")) {
                 log.debug("Attempting to initialize a {} using value as URI.", modelName);
 
                 URIManager.DataURIA uri = null;
@@ -1525,12 +1694,18 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
                 if (uri == null || !(uri instanceof ArchiveItemURI)) {
                     log.debug("Cannot interpret \"{}\" as a URI.", value);
                 } else {
-                    try {
-                        newModelObject = uriToModelObject.apply((ArchiveItemURI) uri);
-                    } catch (Throwable e) {
-                        final String message = String.format("Could not instantiate %s with URI %s.", modelName, value);
-                        log.error(message);
-                        throw new CommandInputResolutionException(message, value);
+                    final XnatModelObject prebuilt = sharedState.prebuiltModelObjects.get(prebuiltModelObjectKey(model, value));
+                    if (model.isInstance(prebuilt)) {
+                        log.debug("Using the {} that was built when its event fired.", modelName);
+                        newModelObject = model.cast(prebuilt);
+                    } else {
+                        try {
+                            newModelObject = uriToModelObject.apply((ArchiveItemURI) uri);
+                        } catch (Throwable e) {
+                            final String message = String.format("Could not instantiate %s with URI %s.", modelName, value);
+                            log.error(message);
+                            throw new CommandInputResolutionException(message, value);
+                        }
                     }
 
                     // TODO This is a workaround for CS-263 and XXX-55. Once XXX-55 is fixed, this can (hopefully) be removed.
@@ -1566,6 +1741,9 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
                 return null;
             }
             log.debug("Successfully instantiated a {}.", modelName);
+            if (cacheKey != null && !value.startsWith("{")) {
+                sharedState.modelObjects.putIfAbsent(cacheKey, newModelObject);
+            }
 
             T aMatch = null;
             if (StringUtils.isNotBlank(matcher)) {
@@ -1625,26 +1803,9 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
                 return resolvedOutputs;
             }
 
-            final Map<String, List<CommandWrapperOutput>> wrapperOutputsByHandledCommandOutputName = new HashMap<>();
-            final Map<String, CommandWrapperOutput> wrapperOutputsByName = new HashMap<>();
-            if (commandWrapper.outputHandlers() != null) {
-                for (final CommandWrapperOutput commandWrapperOutput : commandWrapper.outputHandlers()) {
-                    if (wrapperOutputsByHandledCommandOutputName.containsKey(commandWrapperOutput.commandOutputName())) {
-                        wrapperOutputsByHandledCommandOutputName.get(commandWrapperOutput.commandOutputName()).add(commandWrapperOutput);
-                    } else {
-                        final List<CommandWrapperOutput> outputs = new ArrayList<>();
-                        outputs.add(commandWrapperOutput);
-                        wrapperOutputsByHandledCommandOutputName.put(commandWrapperOutput.commandOutputName(), outputs);
-                    }
-
-                    wrapperOutputsByName.put(commandWrapperOutput.name(), commandWrapperOutput);
-                }
-            }
-
             final Map<String, ResolvedCommandOutput> resolvedCommandOutputsByOutputHandlerName = new HashMap<>();
             for (final CommandOutput commandOutput : command.outputs()) {
-                final List<ResolvedCommandOutput> resolvedOutputList = resolveCommandOutput(commandOutput, resolvedInputTrees, resolvedInputValuesByReplacementKey,
-                        wrapperOutputsByHandledCommandOutputName, wrapperOutputsByName);
+                final List<ResolvedCommandOutput> resolvedOutputList = resolveCommandOutput(commandOutput, resolvedInputTrees, resolvedInputValuesByReplacementKey);
                 if (resolvedOutputList == null || resolvedOutputList.size() == 0) {
                     continue;
                 }
@@ -1682,16 +1843,14 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
         @Nullable
         private List<ResolvedCommandOutput> resolveCommandOutput(final CommandOutput commandOutput,
                                                                  final List<ResolvedInputTreeNode<? extends Input>> resolvedInputTrees,
-                                                                 final Map<String, String> resolvedInputValuesByReplacementKey,
-                                                                 final Map<String, List<CommandWrapperOutput>> wrapperOutputsByHandledCommandOutputName,
-                                                                 final Map<String, CommandWrapperOutput> wrapperOutputsByName)
+                                                                 final Map<String, String> resolvedInputValuesByReplacementKey)
                 throws CommandResolutionException {
             log.info("Resolving command output \"{}\".", commandOutput.name());
             log.debug("{}", commandOutput);
 
             final List<ResolvedCommandOutput> resolvedCommandOutputs = new ArrayList<>();
 
-            final List<CommandWrapperOutput> commandOutputHandlers = wrapperOutputsByHandledCommandOutputName.get(commandOutput.name());
+            final List<CommandWrapperOutput> commandOutputHandlers = plan.outputHandlersForCommandOutput(commandOutput.name());
             if (commandOutputHandlers == null || commandOutputHandlers.size() == 0) {
                 throw new CommandResolutionException(String.format("No wrapper output handler was configured to handle command output \"%s\".", commandOutput.name()));
             }
@@ -1769,7 +1928,7 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
 
                     log.debug("Handler \"{}\"'s target \"{}\" is not an input with a unique value. Is it another output handler?", commandOutputHandler.name(), commandOutputHandler.targetName());
 
-                    final CommandWrapperOutput otherOutputHandler = wrapperOutputsByName.get(commandOutputHandler.targetName());
+                    final CommandWrapperOutput otherOutputHandler = plan.outputHandler(commandOutputHandler.targetName());
                     if (otherOutputHandler == null) {
                         // Looks like we can't find an input or an output to which this handler intends to upload its output
                         final String message = String.format("Cannot resolve output \"%s\". " +
@@ -2247,17 +2406,16 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
             }
 
             // First find any JSONPath strings in the template
-            String toResolve = resolveJsonpathSubstring(template);
-
-            // Look through the provided map of cached replacement values, and replace any that are found.
-            for (final String replacementKey : valuesMap.keySet()) {
-                final String replacementValue = valuesMap.get(replacementKey);
-                final String copyForLogging = toResolve;
+            final String withJsonpathResolved = resolveJsonpathSubstring(template);
 
-                toResolve = toResolve.replace(replacementKey, replacementValue == null ? "" : replacementValue);
-                if (!toResolve.equals(copyForLogging)) {
-                    // If the replacement operation changed the template, log the replacement
-                    log.debug("{} -> {}", replacementKey, replacementValue);
+            // Then replace any replacement keys with their cached values in one pass.
+            final ReplacementTemplate tokenizedTemplate = plan.templateTokenizer().tokenize(withJsonpathResolved);
+            final String toResolve = tokenizedTemplate.render(valuesMap);
+            if (log.isDebugEnabled()) {
+                for (final String replacementKey : tokenizedTemplate.placeholders()) {
+                    if (valuesMap.containsKey(replacementKey)) {
+                        log.debug("{} -> {}", replacementKey, valuesMap.get(replacementKey));
+                    }
                 }
             }
 
@@ -2297,10 +2455,10 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
                         final List<String> searchResult;
                         if (StringUtils.isNotBlank(useWrapper)) {
                             log.debug("Performing JSONPath search through command wrapper with search string \"{}\".", jsonpathSearchWithoutMarkers);
-                            searchResult = commandWrapperJsonpathSearchContext.read(jsonpathSearchWithoutMarkers);
+                            searchResult = plan.commandWrapperJsonpathSearchContext().read(jsonpathSearchWithoutMarkers);
                         } else {
                             log.debug("Performing JSONPath search through command with search string \"{}\".", jsonpathSearchWithoutMarkers);
-                            searchResult = commandJsonpathSearchContext.read(jsonpathSearchWithoutMarkers);
+                            searchResult = plan.commandJsonpathSearchContext().read(jsonpathSearchWithoutMarkers);
                         }
 
                         if (searchResult != null && !searchResult.isEmpty() && searchResult.get(0) != null) {
@@ -2373,6 +2531,18 @@ public class CommandResolutionServiceImpl implements CommandResolutionService {
         }
     }
 
+    @Nonnull
+    private CommandResolutionPlan getResolutionPlan(final ConfiguredCommand configuredCommand) throws CommandResolutionException {
+        try {
+            return resolutionPlans.get(configuredCommand);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof CommandResolutionException) {
+                throw (CommandResolutionException) e.getCause();
+            }
+            throw new CommandResolutionException("Could not compile resolution plan for command " + configuredCommand.name() + ".", e.getCause());
+        }
+    }
+
     @Nonnull
     private String getBuildDirectory() throws IOException {
         final String rootBuildPath = siteConfigPreferences.getBuildPath();
@@ -1,6 +1,9 @@
 package org.nrg.containers.services.impl;
 
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.jayway.jsonpath.Configuration;
@@ -11,8 +14,10 @@ import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 import com.jayway.jsonpath.spi.mapper.MappingProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.nrg.containers.exceptions.CommandValidationException;
+import org.nrg.containers.model.CommandCacheStatistics;
 import org.nrg.containers.model.command.auto.CommandSummaryForContext;
 import org.nrg.containers.model.configuration.CommandConfiguration;
+import org.nrg.containers.model.configuration.CommandConfiguration.CommandSchedulingConfiguration;
 import org.nrg.containers.model.command.entity.CommandEntity;
 import org.nrg.containers.model.command.entity.CommandWrapperEntity;
 import org.nrg.containers.model.command.auto.Command;
@@ -23,27 +28,29 @@ import org.nrg.containers.services.CommandEntityService;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.ContainerConfigService;
 import org.nrg.containers.services.ContainerConfigService.CommandConfigurationException;
+import org.nrg.containers.services.XsiTypeHierarchyService;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.framework.exceptions.NrgRuntimeException;
 import org.nrg.framework.exceptions.NrgServiceRuntimeException;
-import org.nrg.xdat.schema.SchemaElement;
 import org.nrg.xdat.security.helpers.Permissions;
 import org.nrg.xft.exception.ElementNotFoundException;
-import org.nrg.xft.exception.XFTInitException;
 import org.nrg.xft.security.UserI;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Slf4j
 @Service
@@ -51,12 +58,23 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
 
     private final CommandEntityService commandEntityService;
     private final ContainerConfigService containerConfigService;
+    private final XsiTypeHierarchyService xsiTypeHierarchyService;
+
+    private static final Set<String> CACHED_LOOKUP_PROPERTIES = ImmutableSet.of("image", "name", "version");
+
+    private final CommandCache commandCache = new CommandCache();
+
+    // Wrappers that can be launched on each xsiType, built from one snapshot of all commands.
+    // Rebuilt as a whole once the command cache has been invalidated since the snapshot was read.
+    private volatile LaunchableWrapperIndex launchableWrapperIndex;
 
     @Autowired
     public CommandServiceImpl(final CommandEntityService commandEntityService,
-                              final ContainerConfigService containerConfigService) {
+                              final ContainerConfigService containerConfigService,
+                              final XsiTypeHierarchyService xsiTypeHierarchyService) {
         this.commandEntityService = commandEntityService;
         this.containerConfigService = containerConfigService;
+        this.xsiTypeHierarchyService = xsiTypeHierarchyService;
     }
 
     @Override
@@ -97,34 +115,63 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
             log.error(sb.toString());
             throw new CommandValidationException(errors);
         }
-        return toPojo(commandEntityService.create(fromPojo(command)));
+        final Command created = toPojo(commandEntityService.create(fromPojo(command)));
+        invalidateCachedCommands();
+        return created;
     }
 
     @Override
     @Nonnull
     public List<Command> getAll() {
-        return toPojo(commandEntityService.getAll());
+        return Lists.newArrayList(commandCache.all(new Callable<List<Command>>() {
+            @Override
+            public List<Command> call() {
+                return ImmutableList.copyOf(toPojo(commandEntityService.getAll()));
+            }
+        }));
     }
 
     @Override
     @Nullable
     public Command retrieve(final long id) {
-        final CommandEntity commandEntity = commandEntityService.retrieve(id);
-        return commandEntity == null ? null : toPojo(commandEntity);
+        return commandCache.byId(id, new Callable<Optional<Command>>() {
+            @Override
+            public Optional<Command> call() {
+                final CommandEntity commandEntity = commandEntityService.retrieve(id);
+                return commandEntity == null ? Optional.<Command>absent() : Optional.of(toPojo(commandEntity));
+            }
+        }).orNull();
     }
 
     @Override
     @Nonnull
     public Command get(final long id) throws NotFoundException {
-        return toPojo(commandEntityService.get(id));
+        final Command command = retrieve(id);
+        return command != null ? command : toPojo(commandEntityService.get(id));
     }
 
     @Override
     @Nonnull
     public List<Command> findByProperties(final Map<String, Object> properties) {
+        // Lookups by image, optionally narrowed by name and version, are served from the cached commands for that image
+        final Object image = properties.get("image");
+        if (image instanceof String && CACHED_LOOKUP_PROPERTIES.containsAll(properties.keySet())) {
+            final List<Command> matches = Lists.newArrayList();
+            for (final Command command : getByImage((String) image)) {
+                if (matchesIfPresent(properties.get("name"), command.name()) &&
+                        matchesIfPresent(properties.get("version"), command.version())) {
+                    matches.add(command);
+                }
+            }
+            return matches;
+        }
         return toPojo(commandEntityService.findByProperties(properties));
     }
 
+    private static boolean matchesIfPresent(final Object expected, final String actual) {
+        return expected == null || expected.equals(actual);
+    }
+
     @Override
     @Nonnull
     @Transactional
@@ -135,6 +182,7 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
         }
         final CommandEntity updatableEntity = fromPojo(toUpdate);
         commandEntityService.update(updatableEntity);
+        invalidateCachedCommands();
         return toPojo(updatableEntity);
     }
 
@@ -150,6 +198,7 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
         }
 
         commandEntityService.delete(command.id());
+        invalidateCachedCommands();
     }
 
     @Override
@@ -172,7 +221,12 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
     @Override
     @Nonnull
     public List<Command> getByImage(final String image) {
-        return toPojo(commandEntityService.getByImage(image));
+        return Lists.newArrayList(commandCache.byImage(image, new Callable<List<Command>>() {
+            @Override
+            public List<Command> call() {
+                return ImmutableList.copyOf(toPojo(commandEntityService.getByImage(image)));
+            }
+        }));
     }
 
     @Override
@@ -194,6 +248,7 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
     @Transactional
     public CommandWrapper addWrapper(final @Nonnull Command command, final @Nonnull CommandWrapper wrapperToAdd) throws CommandValidationException, NotFoundException {
         final CommandWrapper created = toPojo(commandEntityService.addWrapper(fromPojo(command), fromPojo(wrapperToAdd)));
+        invalidateCachedCommands();
 
         final List<String> errors = get(command.id()).validate();
         if (!errors.isEmpty()) {
@@ -205,8 +260,11 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
     @Override
     @Nullable
     public CommandWrapper retrieveWrapper(final long wrapperId) {
-        final CommandWrapperEntity commandWrapperEntity = commandEntityService.retrieveWrapper(wrapperId);
-        return commandWrapperEntity == null ? null : toPojo(commandWrapperEntity);
+        try {
+            return getWrapper(wrapperId);
+        } catch (NotFoundException e) {
+            return null;
+        }
     }
 
     @Override
@@ -219,7 +277,7 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
     @Override
     @Nonnull
     public CommandWrapper getWrapper(final long wrapperId) throws NotFoundException {
-        return toPojo(commandEntityService.getWrapper(wrapperId));
+        return getCommandWithOneWrapper(wrapperId).xnatCommandWrappers().get(0);
     }
 
     @Override
@@ -235,6 +293,7 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
         final CommandEntity commandEntity = commandEntityService.get(commandId);
         final CommandWrapperEntity template = commandEntityService.getWrapper(toUpdate.id());
         final CommandWrapper updated = toPojo(commandEntityService.update(template.update(toUpdate)));
+        invalidateCachedCommands();
 
         final List<String> errors = toPojo(commandEntity).validate();
         if (!errors.isEmpty()) {
@@ -247,11 +306,14 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
     @Transactional
     public void deleteWrapper(final long wrapperId) {
         commandEntityService.deleteWrapper(wrapperId);
+        invalidateCachedCommands();
     }
 
     @Override
     public void configureForSite(final CommandConfiguration commandConfiguration, final long wrapperId, final boolean enable, final String username, final String reason)
-            throws CommandConfigurationException, NotFoundException {
+            throws CommandConfigurationException, CommandValidationException, NotFoundException {
+        validateScheduling(commandConfiguration, wrapperId);
+
         // If the "enable" param is true, we enable the configuration.
         // Otherwise, we leave the existing "enabled" setting alone (even if it is null).
         // We will never change "enabled" to "false" here.
@@ -263,12 +325,14 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
 
     @Override
     public void configureForSite(final CommandConfiguration commandConfiguration, final long commandId, final String wrapperName, final boolean enable, final String username, final String reason)
-            throws CommandConfigurationException, NotFoundException {
+            throws CommandConfigurationException, CommandValidationException, NotFoundException {
         configureForSite(commandConfiguration, getWrapperId(commandId, wrapperName), enable, username, reason);
     }
 
     @Override
-    public void configureForProject(final CommandConfiguration commandConfiguration, final String project, final long wrapperId, final boolean enable, final String username, final String reason) throws CommandConfigurationException, NotFoundException {
+    public void configureForProject(final CommandConfiguration commandConfiguration, final String project, final long wrapperId, final boolean enable, final String username, final String reason) throws CommandConfigurationException, CommandValidationException, NotFoundException {
+        validateScheduling(commandConfiguration, wrapperId);
+
         // If the "enable" param is true, we enable the configuration.
         // Otherwise, we leave the existing "enabled" setting alone (even if it is null).
         // We will never change "enabled" to "false" here.
@@ -279,10 +343,26 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
     }
 
     @Override
-    public void configureForProject(final CommandConfiguration commandConfiguration, final String project, final long commandId, final String wrapperName, final boolean enable, final String username, final String reason) throws CommandConfigurationException, NotFoundException {
+    public void configureForProject(final CommandConfiguration commandConfiguration, final String project, final long commandId, final String wrapperName, final boolean enable, final String username, final String reason) throws CommandConfigurationException, CommandValidationException, NotFoundException {
         configureForProject(commandConfiguration, project, getWrapperId(commandId, wrapperName), enable, username, reason);
     }
 
+    /**
+     * Scheduling overrides are checked like the command's own values, because they replace them at launch.
+     */
+    private void validateScheduling(final CommandConfiguration commandConfiguration, final long wrapperId)
+            throws CommandValidationException, NotFoundException {
+        final CommandSchedulingConfiguration scheduling = commandConfiguration.scheduling();
+        if (scheduling == null) {
+            return;
+        }
+        final List<String> errors = scheduling.validate(getCommandWithOneWrapper(wrapperId));
+        if (!errors.isEmpty()) {
+            log.debug("Cannot configure wrapper {}. Scheduling validation failed. Errors: {}", wrapperId, errors);
+            throw new CommandValidationException(errors);
+        }
+    }
+
     @Override
     @Nonnull
     public CommandConfiguration getSiteConfiguration(final long wrapperId) throws NotFoundException {
@@ -442,35 +522,20 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
                                                     final UserI userI) throws ElementNotFoundException {
         final List<CommandSummaryForContext> available = new ArrayList<>();
 
-        for (final Command command : getAll()) {
-            for (final CommandWrapper wrapper : command.xnatCommandWrappers()) {
-
-                // Can only launch if the user gave us an xsiType that matches
-                // one of the wrapper's contexts
-                if (!xsiTypesMatch(xsiType, wrapper.contexts())) {
-                    continue;
-                }
-
-                // Can only launch if this user has permission
-                if (!userCanLaunch(userI, project, wrapper)) {
-                    continue;
-                }
-
-                // Can only launch with a single external input
-                // It seems iffy to me to bake this into the code, but I don't know a way around it.
-                // We don't have any UI right now where a user can sensibly launch
-                //   on two completely unconnected objects.
-                final String externalInputName;
-                if (wrapper.externalInputs().size() == 1) {
-                    externalInputName = wrapper.externalInputs().get(0).name();
-                } else {
-                    continue;
-                }
+        for (final LaunchableWrapper launchable : getLaunchableWrapperIndex().get(xsiType)) {
+            // Can only launch with a single external input
+            if (launchable.externalInputName.isEmpty()) {
+                continue;
+            }
 
-                available.add(CommandSummaryForContext.create(command, wrapper,
-                        containerConfigService.isEnabledForProject(project, wrapper.id()),
-                        externalInputName));
+            // Can only launch if this user has permission
+            if (!userCanLaunch(userI, project, launchable.wrapper)) {
+                continue;
             }
+
+            available.add(CommandSummaryForContext.create(launchable.command, launchable.wrapper,
+                    containerConfigService.isEnabledForProject(project, launchable.wrapper.id()),
+                    launchable.externalInputName));
         }
 
         return available;
@@ -482,34 +547,10 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
                                                     final UserI userI) throws ElementNotFoundException {
         final List<CommandSummaryForContext> available = new ArrayList<>();
 
-        for (final Command command : getAll()) {
-            for (final CommandWrapper wrapper : command.xnatCommandWrappers()) {
-
-                // Can only launch if the user gave us an xsiType that matches
-                // one of the wrapper's contexts
-                if (!xsiTypesMatch(xsiType, wrapper.contexts())) {
-                    continue;
-                }
-
-                // Can only launch with a single external input
-                // It seems iffy to me to bake this into the code, but I don't know a way around it.
-                // We don't have any UI right now where a user can sensibly launch
-                //   on two completely unconnected objects.
-                final String externalInputName;
-                if (wrapper.externalInputs().size() == 1) {
-                    externalInputName = wrapper.externalInputs().get(0).name();
-                } else if (wrapper.externalInputs().size() == 0) {
-                    // I guess it's fine to have no external inputs. Site-wide command wrappers won't have any.
-                    //      - JF 2017-09-28
-                    externalInputName = "";
-                } else {
-                    continue;
-                }
-
-                available.add(CommandSummaryForContext.create(command, wrapper,
-                        containerConfigService.isEnabledForSite(wrapper.id()),
-                        externalInputName));
-            }
+        for (final LaunchableWrapper launchable : getLaunchableWrapperIndex().get(xsiType)) {
+            available.add(CommandSummaryForContext.create(launchable.command, launchable.wrapper,
+                    containerConfigService.isEnabledForSite(launchable.wrapper.id()),
+                    launchable.externalInputName));
         }
 
         return available;
@@ -520,9 +561,45 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
         commandEntityService.throwExceptionIfCommandExists(fromPojo(command));
     }
 
-    // Cache the pairs of (parent, child) xsiType relationships.
-    // If child is descended from parent, return true. Else return false.
-    private Map<XsiTypePair, Boolean> xsiTypePairCache = new HashMap<>();
+    @Override
+    @Nonnull
+    public CommandCacheStatistics getCacheStatistics() {
+        return commandCache.statistics();
+    }
+
+    private LaunchableWrapperIndex getLaunchableWrapperIndex() {
+        // Read the generation before the commands, so an index built from commands that a write then replaces
+        // carries a generation that is already out of date, and is rebuilt by the next caller.
+        final long generation = commandCache.generation();
+        LaunchableWrapperIndex index = launchableWrapperIndex;
+        if (index == null || index.generation != generation) {
+            synchronized (this) {
+                index = launchableWrapperIndex;
+                if (index == null || index.generation != generation) {
+                    index = new LaunchableWrapperIndex(generation, getAll());
+                    launchableWrapperIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Drop the cached commands now, and again once the current transaction completes. The second
+     * invalidation catches a cache that was refilled by another thread before our change committed.
+     * Each invalidation also makes the launchable wrapper index out of date.
+     */
+    private void invalidateCachedCommands() {
+        commandCache.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(final int status) {
+                    commandCache.invalidateAll();
+                }
+            });
+        }
+    }
 
     /**
      * Check if the xsiType that the user gave us is equal to *or* *descended* *from*
@@ -545,38 +622,9 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
      * @return Can this wrapper run on this xsiType?
      */
     private boolean xsiTypesMatch(final @Nonnull String xsiType,
-                                  final @Nonnull Set<String> wrapperXsiTypes) throws ElementNotFoundException {
-        if (wrapperXsiTypes.contains(xsiType)) {
-            return true;
-        }
-
+                                  final @Nonnull Set<String> wrapperXsiTypes) {
         for (final String wrapperXsiType : wrapperXsiTypes) {
-            final XsiTypePair xsiTypeKey = new XsiTypePair(wrapperXsiType, xsiType);
-
-            // Return a result from the cache if it exists.
-            if (xsiTypePairCache.containsKey(xsiTypeKey)) {
-                final Boolean cached = xsiTypePairCache.get(xsiTypeKey);
-                return cached == null ? false : cached; // Should never be null. But let's check for safety.
-            }
-
-            // Compute new result
-            boolean match = false;
-            try {
-                match = SchemaElement.GetElement(xsiType).getGenericXFTElement().instanceOf(wrapperXsiType);
-            } catch (XFTInitException e) {
-                log.error("XFT not initialized."); // If this happens, we have a lot of other problems.
-            } catch (ElementNotFoundException e) {
-                // I was treating this as an error. Now I want to log it and move on.
-                // This will allow users to set whatever they want as the context and request it by name.
-                //      - JF 2017-09-28
-                log.debug("Did not find XSI type \"{}\".", xsiType);
-            }
-
-            // Add result to cache
-            xsiTypePairCache.put(xsiTypeKey, match);
-
-            // Shortcut loop if a result is true
-            if (match) {
+            if (xsiTypeHierarchyService.isA(xsiType, wrapperXsiType)) {
                 return true;
             }
         }
@@ -631,6 +679,16 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
 
     @Nonnull
     private Command getCommandWithOneWrapper(final long wrapperId) throws NotFoundException {
+        return commandCache.byWrapperId(wrapperId, new Callable<Command>() {
+            @Override
+            public Command call() throws NotFoundException {
+                return loadCommandWithOneWrapper(wrapperId);
+            }
+        });
+    }
+
+    @Nonnull
+    private Command loadCommandWithOneWrapper(final long wrapperId) throws NotFoundException {
         final CommandEntity commandEntity = commandEntityService.getCommandByWrapperId(wrapperId);
         final List<CommandWrapperEntity> listWithOneWrapper = Lists.newArrayList();
         for (final CommandWrapperEntity wrapper : commandEntity.getCommandWrapperEntities()) {
@@ -644,28 +702,55 @@ public class CommandServiceImpl implements CommandService, InitializingBean {
 
     }
 
-    private static class XsiTypePair {
-        private String wrapperXsiType;
-        private String userRequestedXsiType;
+    private static class LaunchableWrapper {
+        private final Command command;
+        private final CommandWrapper wrapper;
+        private final String externalInputName;
 
-        XsiTypePair(final String wrapperXsiType,
-                    final String userRequestedXsiType) {
-            this.wrapperXsiType = wrapperXsiType;
-            this.userRequestedXsiType = userRequestedXsiType;
+        LaunchableWrapper(final Command command, final CommandWrapper wrapper, final String externalInputName) {
+            this.command = command;
+            this.wrapper = wrapper;
+            this.externalInputName = externalInputName;
         }
+    }
 
-        @Override
-        public boolean equals(final Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            final XsiTypePair that = (XsiTypePair) o;
-            return Objects.equals(this.wrapperXsiType, that.wrapperXsiType) &&
-                    Objects.equals(this.userRequestedXsiType, that.userRequestedXsiType);
+    /**
+     * For each xsiType that has been asked about, the wrappers whose contexts are that type or one of its ancestors.
+     * Only wrappers with zero or one external inputs are kept; no UI can launch on two unconnected objects.
+     * The xsiType comes straight from the request, so only types that XFT knows are kept. Others are computed each time.
+     */
+    private class LaunchableWrapperIndex {
+        private final long generation;
+        private final List<Command> commands;
+        private final ConcurrentMap<String, List<LaunchableWrapper>> byXsiType = new ConcurrentHashMap<>();
+
+        LaunchableWrapperIndex(final long generation, final List<Command> commands) {
+            this.generation = generation;
+            this.commands = commands;
         }
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(wrapperXsiType, userRequestedXsiType);
+        List<LaunchableWrapper> get(final String xsiType) {
+            final List<LaunchableWrapper> indexed = byXsiType.get(xsiType);
+            if (indexed != null) {
+                return indexed;
+            }
+
+            final ImmutableList.Builder<LaunchableWrapper> launchable = ImmutableList.builder();
+            for (final Command command : commands) {
+                for (final CommandWrapper wrapper : command.xnatCommandWrappers()) {
+                    if (wrapper.externalInputs().size() > 1 || !xsiTypesMatch(xsiType, wrapper.contexts())) {
+                        continue;
+                    }
+                    final String externalInputName = wrapper.externalInputs().isEmpty() ? "" : wrapper.externalInputs().get(0).name();
+                    launchable.add(new LaunchableWrapper(command, wrapper, externalInputName));
+                }
+            }
+            final List<LaunchableWrapper> built = launchable.build();
+            if (!xsiTypeHierarchyService.isKnown(xsiType)) {
+                return built;
+            }
+            final List<LaunchableWrapper> raced = byXsiType.putIfAbsent(xsiType, built);
+            return raced == null ? built : raced;
         }
     }
 }
@@ -2,19 +2,27 @@ package org.nrg.containers.services.impl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.nrg.config.entities.Configuration;
 import org.nrg.config.exceptions.ConfigServiceException;
 import org.nrg.config.services.ConfigService;
 import org.nrg.containers.model.configuration.CommandConfigurationInternal;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
 import org.nrg.containers.services.ContainerConfigService;
 import org.nrg.framework.constants.Scope;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -23,11 +31,30 @@ public class ContainerConfigServiceImpl implements ContainerConfigService {
     private final ConfigService configService;
     private final ObjectMapper mapper;
 
+    // Parsed configurations, including the enabled flags, by scope, project and wrapper. Entries are dropped when
+    // this node changes them; the TTL bounds how long a change made on another node can go unnoticed.
+    private final LoadingCache<ConfigurationKey, Optional<CommandConfigurationInternal>> configurations;
+
     @Autowired
     public ContainerConfigServiceImpl(final ConfigService configService,
-                                      final ObjectMapper mapper) {
+                                      final ObjectMapper mapper,
+                                      final ContainerServicePrefsBean containerServicePrefsBean) {
         this.configService = configService;
         this.mapper = mapper;
+
+        final Integer ttlSeconds = containerServicePrefsBean.getCommandConfigurationCacheTtlSeconds();
+        this.configurations = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(ttlSeconds == null || ttlSeconds <= 0 ?
+                                ContainerServicePrefsBean.DEFAULT_COMMAND_CONFIGURATION_CACHE_TTL_SECONDS :
+                                ttlSeconds,
+                        TimeUnit.SECONDS)
+                .build(new CacheLoader<ConfigurationKey, Optional<CommandConfigurationInternal>>() {
+                    @Override
+                    public Optional<CommandConfigurationInternal> load(final @Nonnull ConfigurationKey key) {
+                        return Optional.fromNullable(readCommandConfiguration(key.scope, key.project, key.wrapperId));
+                    }
+                });
     }
 
     @Override
@@ -129,6 +156,11 @@ public class ContainerConfigServiceImpl implements ContainerConfigService {
         return isEnabledForSite(wrapperId) && projectIsEnabledConfig != null && projectIsEnabledConfig;
     }
 
+    @Override
+    public void invalidateCachedConfigurations() {
+        configurations.invalidateAll();
+    }
+
     private void setCommandEnabled(final Boolean enabled, final Scope scope, final String project, final long wrapperId, final String username, final String reason) throws CommandConfigurationException {
         final CommandConfigurationInternal alreadyExists = getCommandConfiguration(scope, project, wrapperId);
         final CommandConfigurationInternal toSet =
@@ -164,6 +196,8 @@ public class ContainerConfigServiceImpl implements ContainerConfigService {
             final String message = String.format("Could not save configuration for wrapper id %d.", wrapperId);
             log.error(message);
             throw new CommandConfigurationException(message, e);
+        } finally {
+            configurations.invalidate(new ConfigurationKey(scope, project, wrapperId));
         }
     }
 
@@ -183,6 +217,11 @@ public class ContainerConfigServiceImpl implements ContainerConfigService {
             // TODO error
         }
 
+        return configurations.getUnchecked(new ConfigurationKey(scope, project, wrapperId)).orNull();
+    }
+
+    @Nullable
+    private CommandConfigurationInternal readCommandConfiguration(final Scope scope, final String project, final long wrapperId) {
         final String path = String.format(WRAPPER_CONFIG_PATH_TEMPLATE, wrapperId);
         final Configuration configuration = configService.getConfig(TOOL_ID, path, scope, project);
         if (configuration == null) {
@@ -221,11 +260,42 @@ public class ContainerConfigServiceImpl implements ContainerConfigService {
         }
         if (commandConfigurationInternal.enabled() == null) {
             final String path = String.format(WRAPPER_CONFIG_PATH_TEMPLATE, wrapperId);
-            configService.delete(configService.getConfig(TOOL_ID, path, scope, project));
+            try {
+                configService.delete(configService.getConfig(TOOL_ID, path, scope, project));
+            } finally {
+                configurations.invalidate(new ConfigurationKey(scope, project, wrapperId));
+            }
             return;
         }
 
         setCommandConfigurationInternal(CommandConfigurationInternal.create(commandConfigurationInternal.enabled(), null),
                 scope, project, wrapperId, username, "Deleting command configuration");
     }
+
+    private static class ConfigurationKey {
+        private final Scope scope;
+        private final String project;
+        private final long wrapperId;
+
+        private ConfigurationKey(final Scope scope, final String project, final long wrapperId) {
+            this.scope = scope;
+            this.project = scope.equals(Scope.Site) ? null : project;
+            this.wrapperId = wrapperId;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final ConfigurationKey that = (ConfigurationKey) o;
+            return wrapperId == that.wrapperId &&
+                    scope == that.scope &&
+                    Objects.equals(project, that.project);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, project, wrapperId);
+        }
+    }
 }
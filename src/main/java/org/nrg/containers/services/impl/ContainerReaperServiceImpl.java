@@ -0,0 +1,65 @@
+package org.nrg.containers.services.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoDockerServerException;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.container.auto.Container;
+import org.nrg.containers.model.container.entity.ContainerEntity;
+import org.nrg.containers.services.ContainerEntityService;
+import org.nrg.containers.services.ContainerReaperService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class ContainerReaperServiceImpl implements ContainerReaperService {
+    // How many containers one sweep removes at most, so a backlog does not tie up the scheduler thread
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    private final ContainerControlApi controlApi;
+    private final ContainerEntityService containerEntityService;
+    private final ContainerServicePrefsBean containerServicePrefsBean;
+
+    @Autowired
+    public ContainerReaperServiceImpl(final ContainerControlApi controlApi,
+                                      final ContainerEntityService containerEntityService,
+                                      final ContainerServicePrefsBean containerServicePrefsBean) {
+        this.controlApi = controlApi;
+        this.containerEntityService = containerEntityService;
+        this.containerServicePrefsBean = containerServicePrefsBean;
+    }
+
+    @Override
+    public void sweep() {
+        if (!Boolean.TRUE.equals(containerServicePrefsBean.getRemoveFinishedContainers())) {
+            return;
+        }
+
+        final Integer graceMinutes = containerServicePrefsBean.getRemoveFinishedContainersAfterMinutes();
+        final Date finishedBefore = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(graceMinutes == null || graceMinutes < 0 ?
+                ContainerServicePrefsBean.DEFAULT_REMOVE_FINISHED_CONTAINERS_AFTER_MINUTES :
+                graceMinutes));
+        final boolean includeFailed = Boolean.FALSE.equals(containerServicePrefsBean.getKeepFailedContainers());
+
+        for (final ContainerEntity finished : containerEntityService.getFinalizedNotRemovedFromServer(finishedBefore, includeFailed, SWEEP_BATCH_SIZE)) {
+            try {
+                controlApi.removeContainerOrService(Container.create(finished));
+            } catch (NoDockerServerException e) {
+                // The server it ran on is gone, and with it the container
+                log.debug("Docker server for container {} no longer exists: {}", finished.getId(), e.getMessage());
+            } catch (DockerServerException e) {
+                // Leave it to be tried again on the next sweep
+                log.info("Could not remove container {} from the docker server: {}", finished.getId(), e.getMessage());
+                continue;
+            }
+
+            finished.setRemovedFromServer(true);
+            containerEntityService.update(finished);
+        }
+    }
+}
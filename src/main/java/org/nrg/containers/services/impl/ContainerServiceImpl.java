@@ -4,6 +4,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.api.ContainerControlApi;
@@ -19,18 +20,22 @@ import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.command.auto.ResolvedCommand;
 import org.nrg.containers.model.command.auto.ResolvedInputTreeNode;
 import org.nrg.containers.model.command.auto.ResolvedInputValue;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
 import org.nrg.containers.model.configuration.PluginVersionCheck;
 import org.nrg.containers.model.container.auto.Container;
 import org.nrg.containers.model.container.auto.Container.ContainerHistory;
 import org.nrg.containers.model.container.auto.ServiceTask;
 import org.nrg.containers.model.container.entity.ContainerEntity;
 import org.nrg.containers.model.container.entity.ContainerEntityHistory;
+import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
 import org.nrg.containers.model.xnat.Scan;
 import org.nrg.containers.model.xnat.XnatModelObject;
 import org.nrg.containers.services.CommandResolutionService;
 import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.containers.services.ContainerFinalizeService;
 import org.nrg.containers.services.ContainerService;
+import org.nrg.containers.services.ImagePullService;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.xdat.entities.AliasToken;
 import org.nrg.xdat.preferences.SiteConfigPreferences;
@@ -49,6 +54,7 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -57,6 +63,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -75,6 +83,7 @@ import static org.nrg.containers.model.command.entity.CommandWrapperInputType.SU
 public class ContainerServiceImpl implements ContainerService {
     private static final Pattern exitCodePattern = Pattern.compile("kill|die|oom\\((\\d+|x)\\)");
     private static final String MIN_XNAT_VERSION_REQUIRED = "1.7.5";
+    private static final String PULLING_IMAGE = "Pulling image";
 
     private final ContainerControlApi containerControlApi;
     private final ContainerEntityService containerEntityService;
@@ -83,6 +92,11 @@ public class ContainerServiceImpl implements ContainerService {
     private final SiteConfigPreferences siteConfigPreferences;
     private final ContainerFinalizeService containerFinalizeService;
     private final XnatAppInfo xnatAppInfo;
+    private final ImagePullService imagePullService;
+
+    // Launches that were waiting on an image pull resume here, so the pull threads go straight back to pulling.
+    // The queue is not bounded, but every launch in it is a container already recorded in the database.
+    private final ExecutorService resumedLaunchExecutor;
 
     @Autowired
     public ContainerServiceImpl(final ContainerControlApi containerControlApi,
@@ -91,7 +105,9 @@ public class ContainerServiceImpl implements ContainerService {
                                 final AliasTokenService aliasTokenService,
                                 final SiteConfigPreferences siteConfigPreferences,
                                 final ContainerFinalizeService containerFinalizeService,
-                                final XnatAppInfo xnatAppInfo) {
+                                final XnatAppInfo xnatAppInfo,
+                                final ImagePullService imagePullService,
+                                final ContainerServicePrefsBean containerServicePrefsBean) {
         this.containerControlApi = containerControlApi;
         this.containerEntityService = containerEntityService;
         this.commandResolutionService = commandResolutionService;
@@ -99,6 +115,17 @@ public class ContainerServiceImpl implements ContainerService {
         this.siteConfigPreferences = siteConfigPreferences;
         this.containerFinalizeService = containerFinalizeService;
         this.xnatAppInfo = xnatAppInfo;
+        this.imagePullService = imagePullService;
+
+        final Integer threads = containerServicePrefsBean.getEventLaunchThreads();
+        this.resumedLaunchExecutor = Executors.newFixedThreadPool(
+                threads == null || threads <= 0 ? ContainerServicePrefsBean.DEFAULT_EVENT_LAUNCH_THREADS : threads,
+                new ThreadFactoryBuilder().setNameFormat("resumed-launch-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        resumedLaunchExecutor.shutdownNow();
     }
 
     @Override
@@ -340,8 +367,13 @@ public class ContainerServiceImpl implements ContainerService {
         log.info("Preparing to launch resolved command.");
         final ResolvedCommand preparedToLaunch = prepareToLaunch(resolvedCommand, parent, userI);
 
+        final DockerServer server = containerControlApi.chooseServer();
+        if (containerControlApi.imageMustBePulled(server, preparedToLaunch.image())) {
+            return launchAfterImagePull(resolvedCommand, preparedToLaunch, server, parent, userI);
+        }
+
         log.info("Creating container from resolved command.");
-        final Container createdContainerOrService = containerControlApi.createContainerOrSwarmService(preparedToLaunch, userI);
+        final Container createdContainerOrService = containerControlApi.createContainerOrSwarmService(preparedToLaunch, server, userI);
 
         log.info("Recording container launch.");
         final String workflowId = makeWorkflowIfAppropriate(resolvedCommand, createdContainerOrService, userI);
@@ -352,14 +384,102 @@ public class ContainerServiceImpl implements ContainerService {
                         .build()
         ), userI));
 
+        createWrapupContainersInDb(resolvedCommand, savedContainerOrService, userI);
+        launchSetupContainersOrStart(resolvedCommand, savedContainerOrService, userI);
+
+        return savedContainerOrService;
+    }
+
+    /**
+     * Record the container in the database with status "Pulling image", placed on the server, and create the docker container
+     * there once the image has been pulled onto it. Keeps the launching thread from waiting on the pull.
+     */
+    @Nonnull
+    private Container launchAfterImagePull(final ResolvedCommand resolvedCommand,
+                                           final ResolvedCommand preparedToLaunch,
+                                           final DockerServer server,
+                                           final Container parent,
+                                           final UserI userI) {
+        log.info("Image {} is not on docker server {}. Recording container launch and pulling image.", preparedToLaunch.image(), server.name());
+        final Container toCreate = Container.containerFromResolvedCommand(preparedToLaunch, null, userI.getLogin());
+        final String workflowId = makeWorkflowIfAppropriate(resolvedCommand, toCreate, userI);
+        final Container parked = toPojo(containerEntityService.create(fromPojo(
+                toCreate.toBuilder()
+                        .workflowId(workflowId)
+                        .parent(parent)
+                        .dockerServerId(server.id())
+                        .build()
+        )));
+        addContainerHistoryItem(parked, ContainerHistory.fromSystem(PULLING_IMAGE, "Waiting for image " + preparedToLaunch.image()), userI);
+        createWrapupContainersInDb(resolvedCommand, parked, userI);
+
+        whenImageIsPulled(parked, server, userI, new Runnable() {
+            @Override
+            public void run() {
+                final Container toLaunch = retrieveUnlessFinished(parked.databaseId());
+                if (toLaunch == null) {
+                    return;
+                }
+                try {
+                    final Container created = createContainerFromDbObject(toLaunch, userI);
+                    launchSetupContainersOrStart(resolvedCommand, created, userI);
+                } catch (NoDockerServerException | DockerServerException | ContainerException e) {
+                    log.error("Could not launch container {} after pulling its image.", parked.databaseId(), e);
+                    addContainerHistoryItem(toLaunch, ContainerHistory.fromSystem("Failed", "Did not launch. " + e.getMessage()), userI);
+                    handleFailure(toLaunch);
+                }
+            }
+        });
+
+        final Container recorded = retrieve(parked.databaseId());
+        return recorded == null ? parked : recorded;
+    }
+
+    /**
+     * Pull the container's image onto the server in the background, and queue the launch when it arrives.
+     * If the pull fails, the container fails.
+     */
+    private void whenImageIsPulled(final Container parked, final DockerServer server, final UserI userI, final Runnable launch) {
+        imagePullService.pullInBackground(server, parked.dockerImage(), new ImagePullService.PullListener() {
+            @Override
+            public void pulled(final DockerImage image) {
+                log.info("Pulled image {}. Resuming launch of container {}.", parked.dockerImage(), parked.databaseId());
+                resumedLaunchExecutor.execute(launch);
+            }
+
+            @Override
+            public void failed(final Exception e) {
+                log.error("Could not pull image {} for container {}.", parked.dockerImage(), parked.databaseId(), e);
+                final Container failed = retrieve(parked.databaseId());
+                if (failed != null) {
+                    addContainerHistoryItem(failed, ContainerHistory.fromSystem("Failed", "Could not pull image. " + e.getMessage()), userI);
+                    handleFailure(failed);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return The container, or null if it is gone or has already finished, say because it was killed while its image was pulled.
+     */
+    @Nullable
+    private Container retrieveUnlessFinished(final long databaseId) {
+        final ContainerEntity containerEntity = containerEntityService.retrieve(databaseId);
+        return containerEntity == null || containerEntity.statusIsTerminal() ? null : toPojo(containerEntity);
+    }
+
+    private void createWrapupContainersInDb(final ResolvedCommand resolvedCommand, final Container parent, final UserI userI) {
         if (resolvedCommand.wrapupCommands().size() > 0) {
             log.info("Creating wrapup container objects in database (not creating docker containers).");
             for (final ResolvedCommand resolvedWrapupCommand : resolvedCommand.wrapupCommands()) {
-                final Container wrapupContainer = createWrapupContainerInDbFromResolvedCommand(resolvedWrapupCommand, savedContainerOrService, userI);
-                log.debug("Created wrapup container {} for parent container {}.", wrapupContainer.databaseId(), savedContainerOrService.databaseId());
+                final Container wrapupContainer = createWrapupContainerInDbFromResolvedCommand(resolvedWrapupCommand, parent, userI);
+                log.debug("Created wrapup container {} for parent container {}.", wrapupContainer.databaseId(), parent.databaseId());
             }
         }
+    }
 
+    private void launchSetupContainersOrStart(final ResolvedCommand resolvedCommand, final Container savedContainerOrService, final UserI userI)
+            throws NoDockerServerException, DockerServerException, ContainerException {
         if (resolvedCommand.setupCommands().size() > 0) {
             log.info("Launching setup containers.");
             for (final ResolvedCommand resolvedSetupCommand : resolvedCommand.setupCommands()) {
@@ -368,8 +488,6 @@ public class ContainerServiceImpl implements ContainerService {
         } else {
             startContainer(userI, savedContainerOrService);
         }
-
-        return savedContainerOrService;
     }
 
     private void startContainer(final UserI userI, final Container savedContainerOrService) throws NoDockerServerException, ContainerException {
@@ -394,17 +512,49 @@ public class ContainerServiceImpl implements ContainerService {
     }
 
     @Nonnull
-    private Container launchContainerFromDbObject(final Container toLaunch, final UserI userI) throws DockerServerException, NoDockerServerException, ContainerException {
+    private Container launchContainerFromDbObject(final Container container, final UserI userI) throws DockerServerException, NoDockerServerException, ContainerException {
+        final DockerServer server = containerControlApi.chooseServer(container);
+        if (containerControlApi.imageMustBePulled(server, container.dockerImage())) {
+            log.info("Image {} is not on docker server {}. Pulling image before launching container {}.", container.dockerImage(), server.name(), container.databaseId());
+            // Record where the container was placed, so it is created on the server its image is pulled onto
+            final Container toLaunch = container.toBuilder().dockerServerId(server.id()).build();
+            containerEntityService.update(fromPojo(toLaunch));
+            addContainerHistoryItem(toLaunch, ContainerHistory.fromSystem(PULLING_IMAGE, "Waiting for image " + toLaunch.dockerImage()), userI);
+            whenImageIsPulled(toLaunch, server, userI, new Runnable() {
+                @Override
+                public void run() {
+                    final Container parked = retrieveUnlessFinished(toLaunch.databaseId());
+                    if (parked == null) {
+                        return;
+                    }
+                    try {
+                        startContainer(userI, createContainerFromDbObject(parked, userI));
+                    } catch (NoDockerServerException | DockerServerException | ContainerException e) {
+                        log.error("Could not launch container {} after pulling its image.", toLaunch.databaseId(), e);
+                        addContainerHistoryItem(parked, ContainerHistory.fromSystem("Failed", "Did not launch. " + e.getMessage()), userI);
+                        handleFailure(parked);
+                    }
+                }
+            });
+            return toLaunch;
+        }
+
+        final Container createdContainerOrService = createContainerFromDbObject(container.toBuilder().dockerServerId(server.id()).build(), userI);
+        startContainer(userI, createdContainerOrService);
+
+        return createdContainerOrService;
+    }
+
+    @Nonnull
+    private Container createContainerFromDbObject(final Container toLaunch, final UserI userI) throws DockerServerException, NoDockerServerException, ContainerException {
         final Container preparedToLaunch = prepareToLaunch(toLaunch, userI);
 
-        log.info("Creating docker container for wrapup container {}.", toLaunch.databaseId());
+        log.info("Creating docker container for container {}.", toLaunch.databaseId());
         final Container createdContainerOrService = containerControlApi.createContainerOrSwarmService(preparedToLaunch, userI);
 
-        log.info("Updating wrapup container {}.", toLaunch.databaseId());
+        log.info("Updating container {}.", toLaunch.databaseId());
         containerEntityService.update(fromPojo(createdContainerOrService));
 
-        startContainer(userI, createdContainerOrService);
-
         return createdContainerOrService;
     }
 
@@ -736,7 +886,11 @@ public class ContainerServiceImpl implements ContainerService {
         addContainerHistoryItem(container, ContainerHistory.fromUserAction("Killed", userI.getLogin()), userI);
 
         final String containerDockerId = container.containerId();
-        containerControlApi.killContainer(containerDockerId);
+        if (StringUtils.isBlank(containerDockerId) && StringUtils.isBlank(container.serviceId())) {
+            // Nothing to kill on the docker server yet. The recorded kill keeps the container from being created.
+            return null;
+        }
+        containerControlApi.killContainer(container);
         return containerDockerId;
     }
 
@@ -0,0 +1,221 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoDockerServerException;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
+import org.nrg.containers.model.dockerhub.DockerHubHealth;
+import org.nrg.containers.services.DockerHubHealthService;
+import org.nrg.containers.services.DockerHubService;
+import org.nrg.xft.schema.XFTManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Service
+public class DockerHubHealthServiceImpl implements DockerHubHealthService {
+    private final ContainerControlApi controlApi;
+    private final DockerHubService dockerHubService;
+    private final ContainerServicePrefsBean containerServicePrefsBean;
+
+    // Threads for the pings themselves. A ping that never returns keeps its thread, so a hub is not pinged
+    // again until its last ping has returned, and there are never more stuck threads than there are hubs.
+    private static final int PING_THREADS = 4;
+    private final ExecutorService pingExecutor = Executors.newFixedThreadPool(PING_THREADS,
+            new ThreadFactoryBuilder().setNameFormat("docker-hub-ping-%d").setDaemon(true).build());
+
+    private final ConcurrentMap<Long, DockerHubHealth> lastHealth = Maps.newConcurrentMap();
+
+    // The ping each hub has running. Only that ping, or a caller that gave up waiting on it, records the hub's health.
+    private final ConcurrentMap<Long, Ping> runningPings = Maps.newConcurrentMap();
+    private final Object recordLock = new Object();
+
+    @Autowired
+    public DockerHubHealthServiceImpl(final ContainerControlApi controlApi,
+                                      final DockerHubService dockerHubService,
+                                      final ContainerServicePrefsBean containerServicePrefsBean) {
+        this.controlApi = controlApi;
+        this.dockerHubService = dockerHubService;
+        this.containerServicePrefsBean = containerServicePrefsBean;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pingExecutor.shutdownNow();
+    }
+
+    @Override
+    @Nullable
+    public DockerHubHealth getHealth(final DockerHub hub) {
+        final DockerHubHealth health = lastHealth.get(hub.id());
+        if (health == null || health.isOlderThan(ttlMillis())) {
+            final Ping ping = start(hub);
+            if (ping.isOverdue(TimeUnit.SECONDS.toMillis(timeoutSeconds()))) {
+                return ping.timedOut();
+            }
+        }
+        return health;
+    }
+
+    @Override
+    @Nonnull
+    public DockerHubHealth refresh(final DockerHub hub) {
+        return start(hub).await(TimeUnit.SECONDS.toMillis(timeoutSeconds()));
+    }
+
+    @Override
+    public void refreshInBackground() {
+        if (!XFTManager.isInitialized()) {
+            return;
+        }
+        final List<DockerHub> hubs = dockerHubService.getHubs();
+
+        // Drop results for hubs that are gone
+        final Set<Long> hubIds = Sets.newHashSet();
+        for (final DockerHub hub : hubs) {
+            hubIds.add(hub.id());
+        }
+        lastHealth.keySet().retainAll(hubIds);
+
+        // Refresh at half the TTL, so a fresh result is always available to callers
+        final long maxAgeMillis = ttlMillis() / 2;
+        final List<Ping> pings = Lists.newArrayList();
+        for (final DockerHub hub : hubs) {
+            final DockerHubHealth health = lastHealth.get(hub.id());
+            if (health == null || health.isOlderThan(maxAgeMillis)) {
+                pings.add(start(hub));
+            }
+        }
+
+        // The pings run at the same time, so this waits about one timeout in all
+        final long timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds());
+        for (final Ping ping : pings) {
+            ping.await(timeoutMillis);
+        }
+    }
+
+    @Override
+    public void forget(final long hubId) {
+        synchronized (recordLock) {
+            runningPings.remove(hubId);
+            lastHealth.remove(hubId);
+        }
+    }
+
+    /**
+     * @return The hub's running ping, or a new one if it has none
+     */
+    @Nonnull
+    private Ping start(final DockerHub hub) {
+        synchronized (recordLock) {
+            final Ping running = runningPings.get(hub.id());
+            if (running != null) {
+                return running;
+            }
+            final Ping ping = new Ping(hub);
+            runningPings.put(hub.id(), ping);
+            ping.future = pingExecutor.submit(ping);
+            return ping;
+        }
+    }
+
+    private long ttlMillis() {
+        final Integer ttlSeconds = containerServicePrefsBean.getDockerHubPingTtlSeconds();
+        return TimeUnit.SECONDS.toMillis(ttlSeconds == null || ttlSeconds <= 0 ?
+                ContainerServicePrefsBean.DEFAULT_DOCKER_HUB_PING_TTL_SECONDS :
+                ttlSeconds);
+    }
+
+    private int timeoutSeconds() {
+        final Integer timeoutSeconds = containerServicePrefsBean.getDockerHubPingTimeoutSeconds();
+        return timeoutSeconds == null || timeoutSeconds <= 0 ?
+                ContainerServicePrefsBean.DEFAULT_DOCKER_HUB_PING_TIMEOUT_SECONDS :
+                timeoutSeconds;
+    }
+
+    private class Ping implements Runnable {
+        private final DockerHub hub;
+        private final Date pingTime = new Date();
+        private volatile Future<?> future;
+        private volatile DockerHubHealth health;
+
+        private Ping(final DockerHub hub) {
+            this.hub = hub;
+        }
+
+        @Override
+        public void run() {
+            Boolean result = null;
+            try {
+                result = "OK".equals(controlApi.pingHub(hub));
+            } catch (DockerServerException | NoDockerServerException e) {
+                log.debug("Could not ping docker hub {}: {}", hub.name(), e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Could not ping docker hub {}.", hub.name(), e);
+            }
+
+            health = DockerHubHealth.create(result, pingTime);
+            synchronized (recordLock) {
+                if (runningPings.remove(hub.id(), this)) {
+                    lastHealth.put(hub.id(), health);
+                }
+            }
+        }
+
+        private boolean isOverdue(final long timeoutMillis) {
+            return System.currentTimeMillis() - pingTime.getTime() > timeoutMillis;
+        }
+
+        /**
+         * Wait until the ping returns, or until it has been running for the timeout.
+         */
+        @Nonnull
+        private DockerHubHealth await(final long timeoutMillis) {
+            try {
+                future.get(Math.max(0L, pingTime.getTime() + timeoutMillis - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.debug("Docker hub {} did not answer a ping within {} seconds.", hub.name(), TimeUnit.MILLISECONDS.toSeconds(timeoutMillis));
+                return timedOut();
+            } catch (ExecutionException e) {
+                log.error("Could not ping docker hub {}.", hub.name(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return health == null ? DockerHubHealth.create(null, pingTime) : health;
+        }
+
+        /**
+         * Record that the hub is unreachable. The ping is left running, and records its own result if it ever returns.
+         */
+        @Nonnull
+        private DockerHubHealth timedOut() {
+            final DockerHubHealth unreachable = DockerHubHealth.create(false, pingTime);
+            synchronized (recordLock) {
+                if (runningPings.get(hub.id()) == this) {
+                    lastHealth.put(hub.id(), unreachable);
+                }
+            }
+            return unreachable;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.DockerServerHealth;
+import org.nrg.containers.services.DockerServerHealthService;
+import org.nrg.containers.services.DockerServerPlacementService;
+import org.nrg.containers.services.DockerServerService;
+import org.nrg.framework.exceptions.NotFoundException;
+import org.nrg.xft.schema.XFTManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Nonnull;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class DockerServerHealthServiceImpl implements DockerServerHealthService {
+    private final ContainerControlApi controlApi;
+    private final DockerServerService dockerServerService;
+    private final DockerServerPlacementService dockerServerPlacementService;
+    private final ContainerServicePrefsBean containerServicePrefsBean;
+
+    private final Object pingLock = new Object();
+    private volatile DockerServerHealth lastHealth = null;
+
+    // The other enabled servers are only pinged in the background, for placement
+    private final ConcurrentMap<Long, DockerServerHealth> otherServerHealth = Maps.newConcurrentMap();
+
+    @Autowired
+    public DockerServerHealthServiceImpl(final ContainerControlApi controlApi,
+                                         final DockerServerService dockerServerService,
+                                         final DockerServerPlacementService dockerServerPlacementService,
+                                         final ContainerServicePrefsBean containerServicePrefsBean) {
+        this.controlApi = controlApi;
+        this.dockerServerService = dockerServerService;
+        this.dockerServerPlacementService = dockerServerPlacementService;
+        this.containerServicePrefsBean = containerServicePrefsBean;
+    }
+
+    @Override
+    @Nonnull
+    public DockerServerHealth getHealth() {
+        final DockerServerHealth health = lastHealth;
+        if (health != null && !health.isOlderThan(ttlMillis())) {
+            return health;
+        }
+        return refreshIfOlderThan(ttlMillis());
+    }
+
+    @Override
+    @Nonnull
+    public DockerServerHealth refresh() {
+        synchronized (pingLock) {
+            return ping();
+        }
+    }
+
+    @Override
+    public void refreshInBackground() {
+        if (!XFTManager.isInitialized()) {
+            return;
+        }
+        final DockerServer defaultServer;
+        try {
+            defaultServer = dockerServerService.getServer();
+        } catch (NotFoundException e) {
+            // Nothing to ping
+            return;
+        }
+
+        // Refresh at half the TTL, so a cached result is always available to callers
+        final long maxAgeMillis = ttlMillis() / 2;
+        dockerServerPlacementService.recordHealth(defaultServer.id(), refreshIfOlderThan(maxAgeMillis));
+
+        final Set<Long> otherServerIds = Sets.newHashSet();
+        for (final DockerServer server : dockerServerService.getEnabledServers()) {
+            if (server.id().equals(defaultServer.id())) {
+                continue;
+            }
+            otherServerIds.add(server.id());
+            final DockerServerHealth health = otherServerHealth.get(server.id());
+            if (health == null || health.isOlderThan(maxAgeMillis)) {
+                final DockerServerHealth pinged = ping(server);
+                otherServerHealth.put(server.id(), pinged);
+                dockerServerPlacementService.recordHealth(server.id(), pinged);
+            }
+        }
+
+        // Drop results for servers that are no longer enabled
+        otherServerHealth.keySet().retainAll(otherServerIds);
+    }
+
+    @Nonnull
+    private DockerServerHealth refreshIfOlderThan(final long maxAgeMillis) {
+        synchronized (pingLock) {
+            // Another thread may have pinged while we waited for the lock
+            final DockerServerHealth health = lastHealth;
+            if (health != null && !health.isOlderThan(maxAgeMillis)) {
+                return health;
+            }
+            return ping();
+        }
+    }
+
+    @Nonnull
+    private DockerServerHealth ping() {
+        final Date pingTime = new Date();
+        final long start = System.nanoTime();
+        final boolean ping = controlApi.canConnect();
+        final long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        final DockerServerHealth health = DockerServerHealth.create(ping, pingTime, latencyMillis);
+        log.debug("Pinged docker server. Ping {}, latency {} ms.", ping ? "succeeded" : "failed", latencyMillis);
+        lastHealth = health;
+        return health;
+    }
+
+    @Nonnull
+    private DockerServerHealth ping(final DockerServer server) {
+        final Date pingTime = new Date();
+        final long start = System.nanoTime();
+        final boolean ping = controlApi.canConnect(server);
+        final long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        log.debug("Pinged docker server {}. Ping {}, latency {} ms.", server.name(), ping ? "succeeded" : "failed", latencyMillis);
+        return DockerServerHealth.create(ping, pingTime, latencyMillis);
+    }
+
+    private long ttlMillis() {
+        final Integer ttlSeconds = containerServicePrefsBean.getDockerServerPingTtlSeconds();
+        return TimeUnit.SECONDS.toMillis(ttlSeconds == null || ttlSeconds <= 0 ?
+                ContainerServicePrefsBean.DEFAULT_DOCKER_SERVER_PING_TTL_SECONDS :
+                ttlSeconds);
+    }
+}
@@ -0,0 +1,137 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.exceptions.NoDockerServerException;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.DockerServerHealth;
+import org.nrg.containers.model.server.docker.DockerServerLoad;
+import org.nrg.containers.services.ContainerEntityService;
+import org.nrg.containers.services.DockerServerPlacementService;
+import org.nrg.containers.services.DockerServerService;
+import org.nrg.framework.exceptions.NotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class DockerServerPlacementServiceImpl implements DockerServerPlacementService {
+    public static final String ROUND_ROBIN = "round-robin";
+    public static final String LEAST_CONTAINERS = "least-containers";
+    public static final String LEAST_RESERVED_MEMORY = "least-reserved-memory";
+
+    private final DockerServerService dockerServerService;
+    private final ContainerEntityService containerEntityService;
+    private final ContainerServicePrefsBean containerServicePrefsBean;
+
+    private final AtomicLong placements = new AtomicLong();
+    private final ConcurrentMap<Long, DockerServerHealth> serverHealth = Maps.newConcurrentMap();
+
+    @Autowired
+    public DockerServerPlacementServiceImpl(final DockerServerService dockerServerService,
+                                            final ContainerEntityService containerEntityService,
+                                            final ContainerServicePrefsBean containerServicePrefsBean) {
+        this.dockerServerService = dockerServerService;
+        this.containerEntityService = containerEntityService;
+        this.containerServicePrefsBean = containerServicePrefsBean;
+    }
+
+    @Override
+    @Nonnull
+    public DockerServer chooseServer() throws NoDockerServerException {
+        final List<DockerServer> enabledServers = dockerServerService.getEnabledServers();
+        if (enabledServers == null || enabledServers.size() <= 1) {
+            try {
+                return dockerServerService.getServer();
+            } catch (NotFoundException e) {
+                throw new NoDockerServerException(e);
+            }
+        }
+        final List<DockerServer> servers = reachable(enabledServers);
+
+        // Every strategy starts from the next server in turn, so servers that tie are used in turn.
+        // A burst of launches is recorded in the database only after the containers are created,
+        // and would otherwise all see the same loads and land on the same server.
+        final int first = (int) (placements.getAndIncrement() % servers.size());
+        final String placement = containerServicePrefsBean.getDockerServerPlacement();
+        if (LEAST_CONTAINERS.equals(placement) || LEAST_RESERVED_MEMORY.equals(placement)) {
+            return leastLoaded(servers, enabledServers.get(0).id(), first, LEAST_RESERVED_MEMORY.equals(placement));
+        }
+        if (placement != null && !ROUND_ROBIN.equals(placement)) {
+            log.warn("Unknown docker server placement \"{}\". Using {}.", placement, ROUND_ROBIN);
+        }
+        return servers.get(first);
+    }
+
+    @Override
+    public void recordHealth(final long serverId, final @Nonnull DockerServerHealth health) {
+        serverHealth.put(serverId, health);
+    }
+
+    @Override
+    @Nonnull
+    public List<String> getCommandNodeIds(final DockerServer server, final long commandId) {
+        // Containers without a server were launched before servers were recorded, when there was only the default
+        boolean isDefaultServer;
+        try {
+            isDefaultServer = server.id().equals(dockerServerService.getServer().id());
+        } catch (NotFoundException e) {
+            isDefaultServer = false;
+        }
+        return containerEntityService.getNonfinalizedNodeIds(commandId, server.id(), isDefaultServer);
+    }
+
+    /**
+     * @return The servers whose last ping did not fail. All of them, if none answered, so the launch fails with the server's own error.
+     */
+    private List<DockerServer> reachable(final List<DockerServer> servers) {
+        final List<DockerServer> reachable = Lists.newArrayList();
+        for (final DockerServer server : servers) {
+            final DockerServerHealth health = serverHealth.get(server.id());
+            if (health == null || health.ping()) {
+                reachable.add(server);
+            } else {
+                log.debug("Not placing containers on docker server {}. Its last ping failed.", server.name());
+            }
+        }
+        if (reachable.isEmpty()) {
+            log.warn("No enabled docker server answered its last ping. Placing containers on all of them.");
+            return servers;
+        }
+        return reachable;
+    }
+
+    private DockerServer leastLoaded(final List<DockerServer> servers, final long defaultServerId,
+                                     final int first, final boolean byReservedMemory) {
+        // Containers without a server were launched before servers were recorded, when there was only the default
+        final Map<Long, Long> loads = Maps.newHashMap();
+        for (final DockerServerLoad load : containerEntityService.getNonfinalizedLoadByServer()) {
+            final long serverId = load.serverId() == null ? defaultServerId : load.serverId();
+            final long value = byReservedMemory ? load.reservedMemory() : load.containers();
+            final Long previous = loads.get(serverId);
+            loads.put(serverId, previous == null ? value : previous + value);
+        }
+
+        DockerServer chosen = null;
+        long chosenLoad = Long.MAX_VALUE;
+        for (int i = 0; i < servers.size(); i++) {
+            final DockerServer server = servers.get((first + i) % servers.size());
+            final Long load = loads.get(server.id());
+            final long serverLoad = load == null ? 0L : load;
+            if (serverLoad < chosenLoad) {
+                chosen = server;
+                chosenLoad = serverLoad;
+            }
+        }
+        log.debug("Placing container on docker server {}, with load {}.", chosen.name(), chosenLoad);
+        return chosen;
+    }
+}
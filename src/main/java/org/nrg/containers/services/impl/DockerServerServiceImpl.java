@@ -55,6 +55,28 @@ public class DockerServerServiceImpl implements DockerServerService {
         dockerServerEntityService.update(fromPojo(dockerServer));
     }
 
+    @Override
+    @Nonnull
+    public List<DockerServer> getEnabledServers() {
+        return toPojo(dockerServerEntityService.getEnabledServers());
+    }
+
+    @Override
+    @Nullable
+    public DockerServer retrieveServer(final long id) {
+        return toPojo(dockerServerEntityService.retrieve(id));
+    }
+
+    @Override
+    public DockerServer addServer(final DockerServer dockerServer) {
+        return toPojo(dockerServerEntityService.addServer(DockerServerEntity.create(dockerServer)));
+    }
+
+    @Override
+    public void disableServer(final long id) {
+        dockerServerEntityService.disableServer(id);
+    }
+
     @Nullable
     public DockerServer toPojo(final DockerServerEntity dockerServerEntity) {
         return dockerServerEntity == null ? null : DockerServer.create(dockerServerEntity);
@@ -13,23 +13,33 @@ import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
 import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHubWithPing;
 import org.nrg.containers.model.image.docker.DockerImage;
 import org.nrg.containers.model.image.docker.DockerImageAndCommandSummary;
+import org.nrg.containers.model.image.docker.ImageGarbageCollectionReport;
+import org.nrg.containers.model.image.docker.ImagePullMetrics;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServerWithPing;
 import org.nrg.containers.services.CommandLabelService;
 import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.DockerHubHealthService;
 import org.nrg.containers.services.DockerHubService;
 import org.nrg.containers.services.DockerHubService.DockerHubDeleteDefaultException;
+import org.nrg.containers.services.DockerServerHealthService;
 import org.nrg.containers.services.DockerServerService;
 import org.nrg.containers.services.DockerService;
+import org.nrg.containers.services.ImageGarbageCollectionService;
+import org.nrg.containers.services.ImagePullService;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import static org.nrg.containers.utils.ContainerUtils.imageWithoutCommandName;
+import static org.nrg.containers.utils.ContainerUtils.withDefaultTag;
+
 @Slf4j
 @Service
 public class DockerServiceImpl implements DockerService {
@@ -39,53 +49,67 @@ public class DockerServiceImpl implements DockerService {
     private CommandService commandService;
     private DockerServerService dockerServerService;
     private final CommandLabelService commandLabelService;
+    private final DockerServerHealthService dockerServerHealthService;
+    private final DockerHubHealthService dockerHubHealthService;
+    private final ImagePullService imagePullService;
+    private final ImageGarbageCollectionService imageGarbageCollectionService;
 
     @Autowired
     public DockerServiceImpl(final ContainerControlApi controlApi,
                              final DockerHubService dockerHubService,
                              final CommandService commandService,
                              final DockerServerService dockerServerService,
-                             final CommandLabelService commandLabelService) {
+                             final CommandLabelService commandLabelService,
+                             final DockerServerHealthService dockerServerHealthService,
+                             final DockerHubHealthService dockerHubHealthService,
+                             final ImagePullService imagePullService,
+                             final ImageGarbageCollectionService imageGarbageCollectionService) {
         this.controlApi = controlApi;
         this.dockerHubService = dockerHubService;
         this.commandService = commandService;
         this.dockerServerService = dockerServerService;
         this.commandLabelService = commandLabelService;
+        this.dockerServerHealthService = dockerServerHealthService;
+        this.dockerHubHealthService = dockerHubHealthService;
+        this.imagePullService = imagePullService;
+        this.imageGarbageCollectionService = imageGarbageCollectionService;
     }
 
     @Override
     public List<DockerHubWithPing> getHubs() {
-        return ping(dockerHubService.getHubs());
+        return withHealth(dockerHubService.getHubs());
     }
 
     @Override
     public DockerHubWithPing getHub(final long id) throws NotFoundException {
-        return ping(dockerHubService.getHub(id));
+        return withHealth(dockerHubService.getHub(id));
     }
 
     @Override
     public DockerHubWithPing getHub(final String name) throws NotFoundException, NotUniqueException {
-        return ping(dockerHubService.getHub(name));
+        return withHealth(dockerHubService.getHub(name));
     }
 
     @Override
     public DockerHubWithPing createHub(final DockerHub hub)  {
-        return ping(dockerHubService.create(hub));
+        return withNewHealth(dockerHubService.create(hub));
     }
 
     @Override
     public DockerHubWithPing createHubAndSetDefault(final DockerHub hub, final String username, final String reason)  {
-        return ping(dockerHubService.createAndSetDefault(hub, username, reason));
+        return withNewHealth(dockerHubService.createAndSetDefault(hub, username, reason));
     }
 
     @Override
     public void updateHub(final DockerHub hub) {
         dockerHubService.update(hub);
+        dockerHubHealthService.forget(hub.id());
     }
 
     @Override
     public void updateHubAndSetDefault(final DockerHub hub, final String username, final String reason) {
         dockerHubService.updateAndSetDefault(hub, username, reason);
+        dockerHubHealthService.forget(hub.id());
     }
 
     @Override
@@ -96,6 +120,7 @@ public class DockerServiceImpl implements DockerService {
     @Override
     public void deleteHub(final long id) throws DockerHubDeleteDefaultException {
         dockerHubService.delete(id);
+        dockerHubHealthService.forget(id);
     }
 
     @Override
@@ -138,29 +163,23 @@ public class DockerServiceImpl implements DockerService {
         return controlApi.pingHub(hub, username, password);
     }
 
-    @Nullable
-    private Boolean canConnectToHub(final DockerHub hub) {
-        try {
-            return "OK".equals(pingHub(hub));
-        } catch (DockerServerException | NoDockerServerException e) {
-            // ignored
-        }
-        return null;
+    @Nonnull
+    private DockerHubWithPing withHealth(final DockerHub hub) {
+        return DockerHubWithPing.create(hub, dockerHubHealthService.getHealth(hub));
     }
 
     @Nonnull
-    private DockerHubWithPing ping(final DockerHub hubBeforePing) {
-        final Boolean ping = canConnectToHub(hubBeforePing);
-        return DockerHubWithPing.create(hubBeforePing, ping);
+    private DockerHubWithPing withNewHealth(final DockerHub hub) {
+        return DockerHubWithPing.create(hub, dockerHubHealthService.refresh(hub));
     }
 
     @Nonnull
-    private List<DockerHubWithPing> ping(final @Nonnull List<DockerHub> hubsBeforePing) {
-        final List<DockerHubWithPing> hubsAfterPing = Lists.newArrayList();
-        for (final DockerHub hubBeforePing : hubsBeforePing) {
-            hubsAfterPing.add(ping(hubBeforePing));
+    private List<DockerHubWithPing> withHealth(final @Nonnull List<DockerHub> hubs) {
+        final List<DockerHubWithPing> hubsWithHealth = Lists.newArrayList();
+        for (final DockerHub hub : hubs) {
+            hubsWithHealth.add(withHealth(hub));
         }
-        return hubsAfterPing;
+        return hubsWithHealth;
     }
 
     @Override
@@ -204,25 +223,49 @@ public class DockerServiceImpl implements DockerService {
                                     final String username,
                                     final String password)
             throws NoDockerServerException, DockerServerException, NotFoundException {
-        final DockerImage dockerImage = controlApi.pullImage(imageName, hub, username, password);
+        final DockerImage dockerImage = imagePullService.pull(imageName, hub, username, password);
         if (saveCommands) {
             saveFromImageLabels(imageName, dockerImage);
         }
         return dockerImage;
     }
 
+    @Override
+    public List<ImagePullStatus> getPullStatuses() {
+        return imagePullService.getPullStatuses();
+    }
+
+    @Override
+    public ImagePullMetrics getPullMetrics() {
+        return imagePullService.getPullMetrics();
+    }
+
     @Override
     public DockerServerWithPing getServer() throws NotFoundException {
         final DockerServer dockerServer = dockerServerService.getServer();
-        final boolean ping = controlApi.canConnect();
-        return DockerServerWithPing.create(dockerServer, ping);
+        return DockerServerWithPing.create(dockerServer, dockerServerHealthService.getHealth());
     }
 
     @Override
     public DockerServerWithPing setServer(final DockerServer server) {
         final DockerServer dockerServer = dockerServerService.setServer(server);
-        final boolean ping = controlApi.canConnect();
-        return DockerServerWithPing.create(dockerServer, ping);
+        // The server settings changed, so the cached ping result no longer applies
+        return DockerServerWithPing.create(dockerServer, dockerServerHealthService.refresh());
+    }
+
+    @Override
+    public List<DockerServer> getEnabledServers() {
+        return dockerServerService.getEnabledServers();
+    }
+
+    @Override
+    public DockerServer addServer(final DockerServer server) {
+        return dockerServerService.addServer(server);
+    }
+
+    @Override
+    public void disableServer(final long id) {
+        dockerServerService.disableServer(id);
     }
 
     @Override
@@ -240,52 +283,38 @@ public class DockerServiceImpl implements DockerService {
     @Nonnull
     public List<DockerImageAndCommandSummary> getImageSummaries()
             throws NoDockerServerException, DockerServerException {
-        // TODO once I have multiple docker servers, I will have to go ask all of them for their images
-        final DockerServer dockerServer;
-        try {
-            dockerServer = dockerServerService.getServer();
-        } catch (NotFoundException e) {
-            throw new NoDockerServerException(e);
+        // Ask every enabled server for its images. The default server is first.
+        List<DockerServer> dockerServers = dockerServerService.getEnabledServers();
+        if (dockerServers == null || dockerServers.isEmpty()) {
+            try {
+                dockerServers = Collections.singletonList(dockerServerService.getServer());
+            } catch (NotFoundException e) {
+                throw new NoDockerServerException(e);
+            }
         }
-        final String server = dockerServer.name();
-
-        final List<DockerImage> rawImages = controlApi.getAllImages();
 
         // Store the images by every name that someone might call them: all tags and id
         // final Map<String, DockerImage> imagesByIdUniqueValues = Maps.newHashMap();
         final Map<String, String> imageIdsByNameDuplicateValues = Maps.newHashMap();
 
-        // Store the summaries indexed by image id
+        // Store the summaries indexed by image id, and the names of the servers that have each image
         final Map<String, DockerImageAndCommandSummary.Builder> imageSummaryBuildersByImageId = Maps.newHashMap();
         final Map<String, List<Command>> commandListsByImageId = Maps.newHashMap();
-        for (final DockerImage image : rawImages) {
-
-            if (StringUtils.isNotBlank(image.imageId())) {
-                // Keep track of all the tags that the image uses. This will make the image
-                // easier to find if a command uses one of these tags as its "image name".
-                if (image.tags() != null && !image.tags().isEmpty()) {
-                    for (final String tag : image.tags()) {
-                        imageIdsByNameDuplicateValues.put(tag, image.imageId());
-                    }
-                }
-
-                // Start building the image summary (but leave it partially built for now).
-                // The reason for leaving it as a Builder is that we may need to modify the
-                // list of commands later (when we have to reconcile the commands that are defined
-                // in the image's labels with the commands we read from the database),
-                // but if we fully build the image summary then the commands are in an ImmutableList.
-                imageSummaryBuildersByImageId.put(image.imageId(),
-                        DockerImageAndCommandSummary.builder()
-                                .addDockerImage(image)
-                                .server(server)
-                );
-                commandListsByImageId.put(image.imageId(),
-                        commandLabelService.parseLabels(image)
-                );
+        final Map<String, List<String>> serverNamesByImageId = Maps.newHashMap();
+        for (final DockerServer dockerServer : dockerServers) {
+            final List<DockerImage> rawImages;
+            if (dockerServer.equals(dockerServers.get(0))) {
+                rawImages = controlApi.getAllImages(dockerServer);
             } else {
-                // If image has no ID, then we will have problems tracking it uniquely.
-                // Just skip it.
+                try {
+                    rawImages = controlApi.getAllImages(dockerServer);
+                } catch (DockerServerException e) {
+                    log.warn("Could not list images on docker server {}. Leaving them out of the image summaries.", dockerServer.name());
+                    continue;
+                }
             }
+            addImageSummaries(dockerServer.name(), rawImages, imageIdsByNameDuplicateValues,
+                    imageSummaryBuildersByImageId, commandListsByImageId, serverNamesByImageId);
         }
 
         // Go through all commands in the database, update the image summaries we have with
@@ -295,6 +324,14 @@ public class DockerServiceImpl implements DockerService {
             if (StringUtils.isNotBlank(imageNameUsedByTheCommand)) {
                 // The command refers to the image by some name. Let's see if we've already
                 // started an image summary with that name...
+                if (!imageIdsByNameDuplicateValues.containsKey(imageNameUsedByTheCommand)) {
+                    // Docker lists images by full tag. A name without a tag means "latest", so if we
+                    // know the image by that tag we can map this name to it without asking docker.
+                    final String imageIdForDefaultTag = imageIdsByNameDuplicateValues.get(withDefaultTag(imageNameUsedByTheCommand));
+                    if (imageIdForDefaultTag != null) {
+                        imageIdsByNameDuplicateValues.put(imageNameUsedByTheCommand, imageIdForDefaultTag);
+                    }
+                }
                 if (imageIdsByNameDuplicateValues.containsKey(imageNameUsedByTheCommand)) {
 
                     // We do recognize the image by this name, so we have already started building a summary.
@@ -359,11 +396,58 @@ public class DockerServiceImpl implements DockerService {
         for (final String imageId : imageSummaryBuildersByImageId.keySet()) {
             final DockerImageAndCommandSummary.Builder builder = imageSummaryBuildersByImageId.get(imageId);
             final List<Command> commands = commandListsByImageId.get(imageId);
+            final List<String> serverNames = serverNamesByImageId.get(imageId);
+            if (serverNames != null) {
+                builder.server(StringUtils.join(serverNames, ", "));
+            }
             summaries.add(builder.commands(commands).build());
         }
         return summaries;
     }
 
+    private void addImageSummaries(final String server,
+                                   final List<DockerImage> rawImages,
+                                   final Map<String, String> imageIdsByNameDuplicateValues,
+                                   final Map<String, DockerImageAndCommandSummary.Builder> imageSummaryBuildersByImageId,
+                                   final Map<String, List<Command>> commandListsByImageId,
+                                   final Map<String, List<String>> serverNamesByImageId) {
+        for (final DockerImage image : rawImages) {
+
+            if (StringUtils.isNotBlank(image.imageId())) {
+                // Keep track of all the tags that the image uses. This will make the image
+                // easier to find if a command uses one of these tags as its "image name".
+                if (image.tags() != null && !image.tags().isEmpty()) {
+                    for (final String tag : image.tags()) {
+                        imageIdsByNameDuplicateValues.put(tag, image.imageId());
+                    }
+                }
+
+                // The same image on another server is the same summary. Only note that this server has it too.
+                if (imageSummaryBuildersByImageId.containsKey(image.imageId())) {
+                    serverNamesByImageId.get(image.imageId()).add(server);
+                    continue;
+                }
+
+                // Start building the image summary (but leave it partially built for now).
+                // The reason for leaving it as a Builder is that we may need to modify the
+                // list of commands later (when we have to reconcile the commands that are defined
+                // in the image's labels with the commands we read from the database),
+                // but if we fully build the image summary then the commands are in an ImmutableList.
+                imageSummaryBuildersByImageId.put(image.imageId(),
+                        DockerImageAndCommandSummary.builder()
+                                .addDockerImage(image)
+                );
+                serverNamesByImageId.put(image.imageId(), Lists.newArrayList(server));
+                commandListsByImageId.put(image.imageId(),
+                        commandLabelService.parseLabels(image)
+                );
+            } else {
+                // If image has no ID, then we will have problems tracking it uniquely.
+                // Just skip it.
+            }
+        }
+    }
+
     public DockerImage getImage(final String imageId)
             throws NoDockerServerException, NotFoundException {
         try {
@@ -393,6 +477,11 @@ public class DockerServiceImpl implements DockerService {
 
     }
 
+    @Override
+    public ImageGarbageCollectionReport collectImages(final boolean dryRun) throws NoDockerServerException, DockerServerException {
+        return imageGarbageCollectionService.collect(dryRun);
+    }
+
     @Override
     @Nonnull
     public List<Command> saveFromImageLabels(final String imageName) throws DockerServerException, NotFoundException, NoDockerServerException {
@@ -445,7 +534,7 @@ public class DockerServiceImpl implements DockerService {
     @Nonnull
     public Command getCommandByImage(final String imageWithCommandName) throws NotFoundException {
         final String[] imageSplitOnColon = imageWithCommandName.split(":");
-        final String imageWithoutCommandName = imageSplitOnColon.length == 1 ? imageSplitOnColon[0] : imageSplitOnColon[0] + ":" + imageSplitOnColon[1];
+        final String imageWithoutCommandName = imageWithoutCommandName(imageWithCommandName);
         final String commandName;
         if (imageSplitOnColon.length > 3) {
             final StringBuilder sb = new StringBuilder(imageSplitOnColon[2]);
@@ -1,6 +1,11 @@
 package org.nrg.containers.services.impl;
 
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.daos.CommandEventMappingDao;
 import org.nrg.containers.model.CommandEventMapping;
 import org.nrg.containers.services.CommandEventMappingService;
@@ -8,16 +13,49 @@ import org.nrg.framework.exceptions.NotFoundException;
 import org.nrg.framework.orm.hibernate.AbstractHibernateEntityService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
 public class HibernateCommandEventMappingService extends AbstractHibernateEntityService<CommandEventMapping, CommandEventMappingDao>
         implements CommandEventMappingService {
 
+    // Enabled mappings, indexed by event type. Rebuilt lazily after any change and
+    // replaced as a whole, so readers always see a complete, immutable snapshot.
+    // The index holds detached copies, never entities bound to the session that loaded them.
+    private volatile EnabledMappingIndex enabledMappingIndex;
+
+    @Override
+    public CommandEventMapping create(final CommandEventMapping commandEventMapping) {
+        final CommandEventMapping created = super.create(commandEventMapping);
+        invalidateEnabledMappings();
+        return created;
+    }
+
+    @Override
+    public void update(final CommandEventMapping commandEventMapping) {
+        super.update(commandEventMapping);
+        invalidateEnabledMappings();
+    }
+
+    @Override
+    public void delete(final CommandEventMapping commandEventMapping) {
+        super.delete(commandEventMapping);
+        invalidateEnabledMappings();
+    }
+
+    @Override
+    public void delete(final long id) {
+        super.delete(id);
+        invalidateEnabledMappings();
+    }
+
     @Override
     public void enable(final long id) throws NotFoundException {
         enable(get(id));
@@ -50,4 +88,139 @@ public class HibernateCommandEventMappingService extends AbstractHibernateEntity
     public List<CommandEventMapping> findByEventType(String eventType, boolean onlyEnabled) {
         return getDao().findByEventType(eventType, onlyEnabled);
     }
+
+    @Override
+    public List<CommandEventMapping> getEnabledMappings(final String eventType, final String projectId) {
+        if (StringUtils.isBlank(eventType)) {
+            return Lists.newArrayList();
+        }
+        return getEnabledMappingIndex().get(eventType, projectId);
+    }
+
+    private EnabledMappingIndex getEnabledMappingIndex() {
+        EnabledMappingIndex index = enabledMappingIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = enabledMappingIndex;
+                if (index == null) {
+                    index = EnabledMappingIndex.build(getDao().findAllEnabledMappings());
+                    enabledMappingIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Drop the index now, and again once the current transaction completes. The second
+     * invalidation catches an index that was rebuilt by another thread before our change committed.
+     */
+    private void invalidateEnabledMappings() {
+        enabledMappingIndex = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(final int status) {
+                    enabledMappingIndex = null;
+                }
+            });
+        }
+    }
+
+    private static class EnabledMappingIndex {
+        private final Map<String, List<CommandEventMapping>> siteWide;
+        private final Map<String, Map<String, List<CommandEventMapping>>> byProject;
+
+        private EnabledMappingIndex(final Map<String, List<CommandEventMapping>> siteWide,
+                                    final Map<String, Map<String, List<CommandEventMapping>>> byProject) {
+            this.siteWide = siteWide;
+            this.byProject = byProject;
+        }
+
+        static EnabledMappingIndex build(final List<CommandEventMapping> enabledMappings) {
+            final Map<String, ImmutableList.Builder<CommandEventMapping>> siteWideBuilders = Maps.newHashMap();
+            final Map<String, Map<String, ImmutableList.Builder<CommandEventMapping>>> byProjectBuilders = Maps.newHashMap();
+            for (final CommandEventMapping entity : enabledMappings) {
+                final CommandEventMapping mapping = copyOf(entity);
+                final String eventType = mapping.getEventType();
+                if (StringUtils.isBlank(eventType)) {
+                    continue;
+                }
+                final String projectId = mapping.getProjectId();
+                if (StringUtils.isEmpty(projectId)) {
+                    builderFor(siteWideBuilders, eventType).add(mapping);
+                } else {
+                    Map<String, ImmutableList.Builder<CommandEventMapping>> projectBuilders = byProjectBuilders.get(eventType);
+                    if (projectBuilders == null) {
+                        projectBuilders = Maps.newHashMap();
+                        byProjectBuilders.put(eventType, projectBuilders);
+                    }
+                    builderFor(projectBuilders, projectId).add(mapping);
+                }
+            }
+
+            final ImmutableMap.Builder<String, Map<String, List<CommandEventMapping>>> byProject = ImmutableMap.builder();
+            for (final Map.Entry<String, Map<String, ImmutableList.Builder<CommandEventMapping>>> entry : byProjectBuilders.entrySet()) {
+                byProject.put(entry.getKey(), buildAll(entry.getValue()));
+            }
+            return new EnabledMappingIndex(buildAll(siteWideBuilders), byProject.build());
+        }
+
+        /**
+         * @return Copies of the site-wide mappings for this event type, followed by those subscribed to this project.
+         *         Callers may change them without touching the index.
+         */
+        List<CommandEventMapping> get(final String eventType, final String projectId) {
+            final List<CommandEventMapping> siteWideMappings = siteWide.get(eventType);
+            final Map<String, List<CommandEventMapping>> projectMappingsByProject = byProject.get(eventType);
+            final List<CommandEventMapping> projectMappings =
+                    projectMappingsByProject == null || StringUtils.isEmpty(projectId) ? null : projectMappingsByProject.get(projectId);
+
+            final List<CommandEventMapping> mappings = Lists.newArrayList();
+            if (siteWideMappings != null) {
+                for (final CommandEventMapping mapping : siteWideMappings) {
+                    mappings.add(copyOf(mapping));
+                }
+            }
+            if (projectMappings != null) {
+                for (final CommandEventMapping mapping : projectMappings) {
+                    mappings.add(copyOf(mapping));
+                }
+            }
+            return mappings;
+        }
+
+        private static CommandEventMapping copyOf(final CommandEventMapping mapping) {
+            final CommandEventMapping copy = new CommandEventMapping();
+            copy.setId(mapping.getId());
+            copy.setEnabled(mapping.isEnabled());
+            copy.setCreated(mapping.getCreated());
+            copy.setTimestamp(mapping.getTimestamp());
+            copy.setDisabled(mapping.getDisabled());
+            copy.setEventType(mapping.getEventType());
+            copy.setCommandId(mapping.getCommandId());
+            copy.setXnatCommandWrapperName(mapping.getXnatCommandWrapperName());
+            copy.setProjectId(mapping.getProjectId());
+            copy.setSubscriptionUserName(mapping.getSubscriptionUserName());
+            return copy;
+        }
+
+        private static ImmutableList.Builder<CommandEventMapping> builderFor(final Map<String, ImmutableList.Builder<CommandEventMapping>> builders,
+                                                                             final String key) {
+            ImmutableList.Builder<CommandEventMapping> builder = builders.get(key);
+            if (builder == null) {
+                builder = ImmutableList.builder();
+                builders.put(key, builder);
+            }
+            return builder;
+        }
+
+        private static Map<String, List<CommandEventMapping>> buildAll(final Map<String, ImmutableList.Builder<CommandEventMapping>> builders) {
+            final ImmutableMap.Builder<String, List<CommandEventMapping>> built = ImmutableMap.builder();
+            for (final Map.Entry<String, ImmutableList.Builder<CommandEventMapping>> entry : builders.entrySet()) {
+                built.put(entry.getKey(), entry.getValue().build());
+            }
+            return built.build();
+        }
+    }
 }
@@ -7,6 +7,7 @@ import org.nrg.containers.events.model.ContainerEvent;
 import org.nrg.containers.model.command.entity.CommandType;
 import org.nrg.containers.model.container.entity.ContainerEntity;
 import org.nrg.containers.model.container.entity.ContainerEntityHistory;
+import org.nrg.containers.model.server.docker.DockerServerLoad;
 import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.containers.utils.ContainerUtils;
 import org.nrg.framework.exceptions.NotFoundException;
@@ -17,7 +18,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -106,6 +109,32 @@ public class HibernateContainerEntityService
         return getDao().retrieveContainersForParentWithSubtype(parentId, CommandType.DOCKER_WRAPUP.getName());
     }
 
+    @Override
+    @Nonnull
+    public Map<String, Date> getLastLaunchTimesByImage() {
+        return getDao().getLastLaunchTimesByImage();
+    }
+
+    @Override
+    @Nonnull
+    public List<DockerServerLoad> getNonfinalizedLoadByServer() {
+        return getDao().getNonfinalizedLoadByServer();
+    }
+
+    @Override
+    @Nonnull
+    public List<String> getNonfinalizedNodeIds(final long commandId, final long dockerServerId, final boolean includeUnplaced) {
+        return getDao().getNonfinalizedNodeIds(commandId, dockerServerId, includeUnplaced);
+    }
+
+    @Override
+    @Nonnull
+    public List<ContainerEntity> getFinalizedNotRemovedFromServer(final Date finishedBefore,
+                                                                  final boolean includeFailed,
+                                                                  final int maxResults) {
+        return getDao().getFinalizedNotRemovedFromServer(finishedBefore, includeFailed, maxResults);
+    }
+
     @Override
     @Nullable
     public ContainerEntity addContainerEventToHistory(final ContainerEvent containerEvent, final UserI userI) {
@@ -0,0 +1,265 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoDockerServerException;
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.command.auto.Command.CommandWrapper;
+import org.nrg.containers.model.command.auto.Command.CommandWrapperDerivedInput;
+import org.nrg.containers.model.command.auto.Command.CommandWrapperExternalInput;
+import org.nrg.containers.model.command.auto.Command.CommandWrapperOutput;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.ImageGarbageCollectionReport;
+import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerConfigService;
+import org.nrg.containers.services.ContainerEntityService;
+import org.nrg.containers.services.ImageGarbageCollectionService;
+import org.nrg.xft.schema.XFTManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.nrg.containers.utils.ContainerUtils.imageWithoutCommandName;
+import static org.nrg.containers.utils.ContainerUtils.withDefaultTag;
+
+@Slf4j
+@Service
+public class ImageGarbageCollectionServiceImpl implements ImageGarbageCollectionService {
+    private static final long BYTES_PER_GB = 1024L * 1024L * 1024L;
+    // Collect down to a little below the mark, so that every small pull does not start another collection
+    private static final double LOW_WATER_MARK_FRACTION = 0.9;
+    private static final String SHA256 = "sha256:";
+
+    private final ContainerControlApi controlApi;
+    private final CommandService commandService;
+    private final ContainerConfigService containerConfigService;
+    private final ContainerEntityService containerEntityService;
+    private final ContainerServicePrefsBean containerServicePrefsBean;
+
+    @Autowired
+    public ImageGarbageCollectionServiceImpl(final ContainerControlApi controlApi,
+                                             final CommandService commandService,
+                                             final ContainerConfigService containerConfigService,
+                                             final ContainerEntityService containerEntityService,
+                                             final ContainerServicePrefsBean containerServicePrefsBean) {
+        this.controlApi = controlApi;
+        this.commandService = commandService;
+        this.containerConfigService = containerConfigService;
+        this.containerEntityService = containerEntityService;
+        this.containerServicePrefsBean = containerServicePrefsBean;
+    }
+
+    @Override
+    public void collectIfEnabled() {
+        if (!XFTManager.isInitialized() || !Boolean.TRUE.equals(containerServicePrefsBean.getImageGcEnabled())) {
+            return;
+        }
+        try {
+            final ImageGarbageCollectionReport report = collect(false);
+            if (!report.removed().isEmpty() || !report.failures().isEmpty()) {
+                log.info("Image garbage collection removed {} images, {} bytes. Could not remove {} images.",
+                        report.removed().size(), report.removedBytes(), report.failures().size());
+            }
+        } catch (NoDockerServerException | DockerServerException e) {
+            log.debug("Skipping image garbage collection: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public ImageGarbageCollectionReport collect(final boolean dryRun) throws NoDockerServerException, DockerServerException {
+        final long highWaterMarkBytes = positiveOrDefault(containerServicePrefsBean.getImageGcHighWaterMarkGb(),
+                ContainerServicePrefsBean.DEFAULT_IMAGE_GC_HIGH_WATER_MARK_GB) * BYTES_PER_GB;
+
+        // The listed size of an image includes the layers it shares with other images, so the listed sizes add up to
+        // far more than the disk in use. Count each layer once, and only count a layer as freed when its last image is removed.
+        final List<DockerImage> images = controlApi.getAllImages();
+        final Map<DockerImage, Map<String, Long>> layersByImage = Maps.newHashMap();
+        final Map<String, Integer> imagesByLayer = Maps.newHashMap();
+        long totalBytes = 0L;
+        for (final DockerImage image : images) {
+            final Map<String, Long> layers = layersOf(image);
+            layersByImage.put(image, layers);
+            for (final Map.Entry<String, Long> layer : layers.entrySet()) {
+                final Integer imageCount = imagesByLayer.get(layer.getKey());
+                if (imageCount == null) {
+                    totalBytes += layer.getValue();
+                }
+                imagesByLayer.put(layer.getKey(), imageCount == null ? 1 : imageCount + 1);
+            }
+        }
+
+        final List<DockerImage> removed = Lists.newArrayList();
+        final Map<String, String> failures = Maps.newLinkedHashMap();
+        long removedBytes = 0L;
+        if (totalBytes > highWaterMarkBytes) {
+            final long lowWaterMarkBytes = (long) (highWaterMarkBytes * LOW_WATER_MARK_FRACTION);
+            long remainingBytes = totalBytes;
+            for (final DockerImage image : leastRecentlyUsedFirst(removableImages(images))) {
+                if (remainingBytes <= lowWaterMarkBytes) {
+                    break;
+                }
+                if (!dryRun) {
+                    try {
+                        log.debug("Removing image {} {}.", image.imageId(), image.tags());
+                        controlApi.deleteImageById(image.imageId(), false);
+                    } catch (DockerServerException e) {
+                        // Most likely a stopped container still refers to the image
+                        failures.put(image.imageId(), e.getMessage());
+                        continue;
+                    }
+                }
+                removed.add(image);
+
+                long freedBytes = 0L;
+                for (final Map.Entry<String, Long> layer : layersByImage.get(image).entrySet()) {
+                    final int imageCount = imagesByLayer.get(layer.getKey()) - 1;
+                    imagesByLayer.put(layer.getKey(), imageCount);
+                    if (imageCount == 0) {
+                        freedBytes += layer.getValue();
+                    }
+                }
+                removedBytes += freedBytes;
+                remainingBytes -= freedBytes;
+            }
+        }
+
+        return ImageGarbageCollectionReport.create(dryRun, totalBytes, highWaterMarkBytes, removed, removedBytes, failures);
+    }
+
+    /**
+     * @return The images that are not used by an enabled command, or by a setup or wrapup command of an enabled wrapper,
+     * and have not been launched recently, with the time each was last launched, or zero if it never was.
+     */
+    private Map<DockerImage, Long> removableImages(final List<DockerImage> images) {
+        final Set<String> namesInUse = Sets.newHashSet();
+        for (final Command command : commandService.getAll()) {
+            for (final CommandWrapper wrapper : command.xnatCommandWrappers()) {
+                if (containerConfigService.isEnabledForSite(wrapper.id())) {
+                    namesInUse.addAll(imagesUsedBy(command, wrapper));
+                }
+            }
+        }
+
+        final Map<String, Long> lastLaunchTimesByName = Maps.newHashMap();
+        for (final Map.Entry<String, Date> lastLaunch : containerEntityService.getLastLaunchTimesByImage().entrySet()) {
+            if (lastLaunch.getValue() != null) {
+                final String name = withDefaultTag(lastLaunch.getKey());
+                final Long previous = lastLaunchTimesByName.get(name);
+                lastLaunchTimesByName.put(name, Math.max(previous == null ? 0L : previous, lastLaunch.getValue().getTime()));
+            }
+        }
+
+        final long keepRecentDays = positiveOrDefault(containerServicePrefsBean.getImageGcKeepRecentDays(),
+                ContainerServicePrefsBean.DEFAULT_IMAGE_GC_KEEP_RECENT_DAYS);
+        final long recentCutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(keepRecentDays);
+
+        final Map<DockerImage, Long> removable = Maps.newHashMap();
+        imageLoop:
+        for (final DockerImage image : images) {
+            long lastLaunched = 0L;
+            for (final String name : namesOf(image)) {
+                if (namesInUse.contains(name)) {
+                    continue imageLoop;
+                }
+                final Long launched = lastLaunchTimesByName.get(name);
+                if (launched != null) {
+                    lastLaunched = Math.max(lastLaunched, launched);
+                }
+            }
+            if (lastLaunched < recentCutoff) {
+                removable.put(image, lastLaunched);
+            }
+        }
+        return removable;
+    }
+
+    /**
+     * The images a launch of the wrapper may run: the command's own, and those of the setup and wrapup commands the wrapper refers to.
+     */
+    private static Set<String> imagesUsedBy(final Command command, final CommandWrapper wrapper) {
+        final Set<String> names = Sets.newHashSet();
+        if (command.image() != null) {
+            names.add(withDefaultTag(command.image()));
+        }
+        for (final CommandWrapperExternalInput input : wrapper.externalInputs()) {
+            addSpecialCommandImage(names, input.viaSetupCommand());
+        }
+        for (final CommandWrapperDerivedInput input : wrapper.derivedInputs()) {
+            addSpecialCommandImage(names, input.viaSetupCommand());
+        }
+        for (final CommandWrapperOutput output : wrapper.outputHandlers()) {
+            addSpecialCommandImage(names, output.viaWrapupCommand());
+        }
+        return names;
+    }
+
+    private static void addSpecialCommandImage(final Set<String> names, final String imageWithCommandName) {
+        if (StringUtils.isNotBlank(imageWithCommandName)) {
+            names.add(withDefaultTag(imageWithoutCommandName(imageWithCommandName)));
+        }
+    }
+
+    private static List<DockerImage> leastRecentlyUsedFirst(final Map<DockerImage, Long> lastLaunchTimes) {
+        final List<DockerImage> images = Lists.newArrayList(lastLaunchTimes.keySet());
+        Collections.sort(images, new Comparator<DockerImage>() {
+            @Override
+            public int compare(final DockerImage o1, final DockerImage o2) {
+                return Long.compare(lastLaunchTimes.get(o1), lastLaunchTimes.get(o2));
+            }
+        });
+        return images;
+    }
+
+    /**
+     * The names a command or a container may have used for the image: its tags, and its ID with and without the "sha256:" prefix.
+     */
+    private static Set<String> namesOf(final DockerImage image) {
+        final Set<String> names = Sets.newHashSet();
+        for (final String tag : image.tags()) {
+            names.add(withDefaultTag(tag));
+        }
+        if (image.imageId() != null) {
+            names.add(image.imageId());
+            names.add(image.imageId().startsWith(SHA256) ? image.imageId().substring(SHA256.length()) : SHA256 + image.imageId());
+        }
+        return names;
+    }
+
+    /**
+     * @return The image's layers and their sizes, or the whole image as one layer if its layers cannot be read
+     */
+    private Map<String, Long> layersOf(final DockerImage image) throws NoDockerServerException {
+        if (image.imageId() != null) {
+            try {
+                final Map<String, Long> layers = controlApi.getImageLayerSizes(image.imageId());
+                if (layers != null && !layers.isEmpty()) {
+                    return layers;
+                }
+            } catch (DockerServerException e) {
+                log.debug("Could not read the layers of image {}: {}", image.imageId(), e.getMessage());
+            }
+        }
+        return Collections.singletonMap(image.imageId() == null ? "" : image.imageId(), sizeOf(image));
+    }
+
+    private static long sizeOf(final DockerImage image) {
+        return image.size() == null ? 0L : image.size();
+    }
+
+    private static long positiveOrDefault(final Integer value, final int defaultValue) {
+        return value == null || value <= 0 ? defaultValue : value;
+    }
+}
@@ -0,0 +1,334 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoDockerServerException;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
+import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.ImagePullMetrics;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.services.DockerHubService;
+import org.nrg.containers.services.ImagePullService;
+import org.nrg.framework.exceptions.NotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.nrg.containers.utils.ContainerUtils.withDefaultTag;
+
+@Slf4j
+@Service
+public class ImagePullServiceImpl implements ImagePullService {
+    private static final String[] DEFAULT_REGISTRY_PREFIXES = {"docker.io/", "index.docker.io/", "registry-1.docker.io/"};
+    private static final String OFFICIAL_IMAGE_PREFIX = "library/";
+
+    private final ContainerControlApi controlApi;
+    private final DockerHubService dockerHubService;
+
+    // Pulls are mostly waiting on the network and the server's disk. A few at a time keeps the hubs
+    // and the disk busy without every pull slowing down every other one.
+    private final ExecutorService pullExecutor;
+    private final ConcurrentMap<String, ImagePullStatus> pullStatuses = Maps.newConcurrentMap();
+
+    // The pulls that are queued or running, by normalized image reference, server, hub and user. Each removes itself when it finishes.
+    // A pull with one hub's or user's credentials may succeed where another fails, so only identical pulls share a result.
+    private final ConcurrentMap<String, Pull> inFlightPulls = Maps.newConcurrentMap();
+
+    private final AtomicLong pulls = new AtomicLong();
+    private final AtomicLong coalescedPulls = new AtomicLong();
+    private final AtomicLong failedPulls = new AtomicLong();
+    private final AtomicLong pullMillis = new AtomicLong();
+    private final AtomicLong pulledBytes = new AtomicLong();
+
+    @Autowired
+    public ImagePullServiceImpl(final ContainerControlApi controlApi,
+                                final DockerHubService dockerHubService,
+                                final ContainerServicePrefsBean containerServicePrefsBean) {
+        this.controlApi = controlApi;
+        this.dockerHubService = dockerHubService;
+
+        final Integer threads = containerServicePrefsBean.getImagePullThreads();
+        this.pullExecutor = Executors.newFixedThreadPool(
+                threads == null || threads <= 0 ? ContainerServicePrefsBean.DEFAULT_IMAGE_PULL_THREADS : threads,
+                new ThreadFactoryBuilder().setNameFormat("image-pull-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pullExecutor.shutdownNow();
+    }
+
+    @Override
+    public DockerImage pull(final String imageName,
+                            final @Nullable DockerHub hub,
+                            final @Nullable String username,
+                            final @Nullable String password)
+            throws NoDockerServerException, DockerServerException, NotFoundException {
+        final Future<DockerImage> pull = startPull(null, imageName, hub, username, password);
+        try {
+            return pull.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DockerServerException("Interrupted while waiting for image " + imageName + " to be pulled.", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof NotFoundException) {
+                throw (NotFoundException) cause;
+            } else if (cause instanceof NoDockerServerException) {
+                throw (NoDockerServerException) cause;
+            } else if (cause instanceof DockerServerException) {
+                throw (DockerServerException) cause;
+            }
+            throw new DockerServerException("Could not pull image " + imageName, cause);
+        }
+    }
+
+    @Override
+    public void pullInBackground(final DockerServer server, final String imageName, final PullListener listener) {
+        startPull(server, imageName, hubFor(imageName), null, null).addListener(listener);
+    }
+
+    @Override
+    public void prePull(final Collection<String> imageNames) throws NoDockerServerException, DockerServerException {
+        final Set<String> presentNames = Sets.newHashSet();
+        for (final DockerImage image : controlApi.getAllImages()) {
+            presentNames.addAll(image.tags());
+        }
+
+        for (final String imageName : Sets.newLinkedHashSet(imageNames)) {
+            if (presentNames.contains(imageName) || presentNames.contains(withDefaultTag(imageName))) {
+                log.debug("Image \"{}\" is already on the docker server. Not pulling it.", imageName);
+                setStatus(imageName, ImagePullStatus.PRESENT, null);
+                continue;
+            }
+
+            startPull(null, imageName, null, null, null);
+        }
+    }
+
+    @Override
+    public List<ImagePullStatus> getPullStatuses() {
+        final List<ImagePullStatus> statuses = Lists.newArrayList(pullStatuses.values());
+        Collections.sort(statuses, new Comparator<ImagePullStatus>() {
+            @Override
+            public int compare(final ImagePullStatus o1, final ImagePullStatus o2) {
+                return o1.image().compareTo(o2.image());
+            }
+        });
+        return statuses;
+    }
+
+    @Override
+    public ImagePullMetrics getPullMetrics() {
+        return ImagePullMetrics.create(pulls.get(), coalescedPulls.get(), failedPulls.get(), pullMillis.get(), pulledBytes.get());
+    }
+
+    /**
+     * Queue a pull of the image, unless the same pull is already queued or running, and return the pull to wait on.
+     *
+     * @param server The server to pull onto. If null, the default server.
+     */
+    private Pull startPull(final @Nullable DockerServer server,
+                           final String imageName,
+                           final @Nullable DockerHub hub,
+                           final @Nullable String username,
+                           final @Nullable String password) {
+        final Pull pull = new Pull(pullKey(server, imageName, hub, username), pullTask(server, imageName, hub, username, password));
+        final Pull inFlight = inFlightPulls.putIfAbsent(pull.key, pull);
+        if (inFlight != null) {
+            log.debug("Image \"{}\" is already being pulled. Waiting for that pull.", imageName);
+            coalescedPulls.incrementAndGet();
+            return inFlight;
+        }
+
+        log.debug("Queueing pull of image \"{}\".", imageName);
+        setStatus(imageName, ImagePullStatus.QUEUED, null);
+        pullExecutor.execute(pull);
+        return pull;
+    }
+
+    private Callable<DockerImage> pullTask(final @Nullable DockerServer server,
+                                           final String imageName,
+                                           final @Nullable DockerHub hub,
+                                           final @Nullable String username,
+                                           final @Nullable String password) {
+        return new Callable<DockerImage>() {
+            @Override
+            public DockerImage call() throws Exception {
+                setStatus(imageName, ImagePullStatus.PULLING, null);
+                pulls.incrementAndGet();
+                final long start = System.currentTimeMillis();
+                try {
+                    final DockerImage image = server == null ?
+                            controlApi.pullImage(imageName, hub, username, password) :
+                            controlApi.pullImage(server, imageName, hub, username, password);
+                    final long millis = System.currentTimeMillis() - start;
+                    log.debug("Pulled image \"{}\" in {} ms.", imageName, millis);
+                    pullMillis.addAndGet(millis);
+                    if (image != null && image.size() != null) {
+                        pulledBytes.addAndGet(image.size());
+                    }
+                    setStatus(imageName, ImagePullStatus.PULLED, null);
+                    return image;
+                } catch (Exception e) {
+                    log.debug("Encountered a problem pulling image \"{}\": {}", imageName, e.getMessage());
+                    pullMillis.addAndGet(System.currentTimeMillis() - start);
+                    failedPulls.incrementAndGet();
+                    setStatus(imageName, ImagePullStatus.FAILED, e.getMessage());
+                    throw e;
+                }
+            }
+        };
+    }
+
+    /**
+     * Names that docker resolves to the same image reference normalize to the same string:
+     * "ubuntu", "ubuntu:latest", and "docker.io/library/ubuntu:latest" are all "ubuntu:latest".
+     */
+    static String normalizeImageReference(final String imageName) {
+        String reference = withDefaultTag(imageName.trim());
+        for (final String defaultRegistry : DEFAULT_REGISTRY_PREFIXES) {
+            if (reference.startsWith(defaultRegistry)) {
+                reference = reference.substring(defaultRegistry.length());
+                break;
+            }
+        }
+        return reference.startsWith(OFFICIAL_IMAGE_PREFIX) ? reference.substring(OFFICIAL_IMAGE_PREFIX.length()) : reference;
+    }
+
+    /**
+     * Pulls with the same key pull the same image onto the same server from the same hub as the same user.
+     */
+    static String pullKey(final @Nullable DockerServer server, final String imageName, final @Nullable DockerHub hub, final @Nullable String username) {
+        return normalizeImageReference(imageName) + "|" +
+                (server == null ? "" : server.id()) + "|" +
+                (hub == null ? "" : hub.id()) + "|" +
+                (username == null ? "" : username);
+    }
+
+    /**
+     * The hub for the image's registry: the default hub if the image name has no registry, otherwise the hub at the registry's address.
+     * Null if no hub is configured for the registry, in which case the docker server pulls with its own settings.
+     */
+    @Nullable
+    private DockerHub hubFor(final String imageName) {
+        final String registry = registryOf(imageName);
+        if (registry == null) {
+            return dockerHubService.getDefault();
+        }
+        for (final DockerHub hub : dockerHubService.getHubs()) {
+            if (hub.url() != null && registry.equals(addressOf(hub.url()))) {
+                return hub;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Docker reads the first part of an image name as a registry if it looks like a host: "localhost", or containing a "." or ":".
+     *
+     * @return The registry the image name refers to, or null for the default registry.
+     */
+    @Nullable
+    static String registryOf(final String imageName) {
+        final String reference = normalizeImageReference(imageName);
+        final int slash = reference.indexOf('/');
+        if (slash < 0) {
+            return null;
+        }
+        final String first = reference.substring(0, slash);
+        return first.contains(".") || first.contains(":") || first.equals("localhost") ? first : null;
+    }
+
+    /**
+     * @return The host and port of a hub URL like "https://registry.example.com:5000/v2/"
+     */
+    private static String addressOf(final String url) {
+        final int scheme = url.indexOf("://");
+        final String address = scheme < 0 ? url : url.substring(scheme + 3);
+        final int slash = address.indexOf('/');
+        return slash < 0 ? address : address.substring(0, slash);
+    }
+
+    private void setStatus(final String imageName, final String status, final @Nullable String message) {
+        pullStatuses.put(imageName, ImagePullStatus.create(imageName, status, message));
+    }
+
+    /**
+     * A queued or running pull, which tells its listeners how it went and leaves the in-flight pulls when it is done.
+     */
+    private class Pull extends FutureTask<DockerImage> {
+        private final String key;
+        private final List<PullListener> listeners = Lists.newArrayList();
+
+        private Pull(final String key, final Callable<DockerImage> task) {
+            super(task);
+            this.key = key;
+        }
+
+        private void addListener(final PullListener listener) {
+            synchronized (listeners) {
+                if (!isDone()) {
+                    listeners.add(listener);
+                    return;
+                }
+            }
+            tell(listener);
+        }
+
+        @Override
+        protected void done() {
+            inFlightPulls.remove(key, this);
+
+            final List<PullListener> toTell;
+            synchronized (listeners) {
+                toTell = Lists.newArrayList(listeners);
+                listeners.clear();
+            }
+            for (final PullListener listener : toTell) {
+                tell(listener);
+            }
+        }
+
+        private void tell(final PullListener listener) {
+            try {
+                final DockerImage image;
+                try {
+                    image = get();
+                } catch (ExecutionException e) {
+                    listener.failed(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                    return;
+                } catch (InterruptedException | CancellationException e) {
+                    listener.failed(e);
+                    return;
+                }
+                listener.pulled(image);
+            } catch (RuntimeException e) {
+                log.error("Error handling the pull {}.", key, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import org.nrg.containers.services.XsiTypeHierarchyService;
+import org.nrg.xdat.schema.SchemaElement;
+import org.nrg.xft.exception.ElementNotFoundException;
+import org.nrg.xft.exception.XFTInitException;
+import org.nrg.xft.schema.Wrappers.GenericWrapper.GenericWrapperElement;
+import org.nrg.xft.schema.XFTManager;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Slf4j
+@Service
+public class XsiTypeHierarchyServiceImpl implements XsiTypeHierarchyService {
+
+    // Ancestors of every data type XFT knew about when the table was built. Null until XFT is initialized.
+    private volatile Map<String, Set<String>> ancestorsByXsiType;
+
+    // Ancestors of data types that were registered after the table was built
+    private final ConcurrentMap<String, Set<String>> lateAncestorsByXsiType = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isA(final @Nonnull String xsiType, final @Nonnull String ancestorXsiType) {
+        return xsiType.equals(ancestorXsiType) || ancestors(xsiType).contains(ancestorXsiType);
+    }
+
+    @Override
+    public boolean isKnown(final @Nonnull String xsiType) {
+        final Map<String, Set<String>> hierarchy = getHierarchy();
+        if (hierarchy == null) {
+            return false;
+        }
+        if (hierarchy.containsKey(xsiType)) {
+            return true;
+        }
+        // Looking up the ancestors registers the type if it was added after the table was built
+        ancestors(xsiType);
+        return lateAncestorsByXsiType.containsKey(xsiType);
+    }
+
+    @Nonnull
+    private Set<String> ancestors(final String xsiType) {
+        final Map<String, Set<String>> hierarchy = getHierarchy();
+        if (hierarchy == null) {
+            return Collections.emptySet();
+        }
+
+        final Set<String> ancestors = hierarchy.get(xsiType);
+        if (ancestors != null) {
+            return ancestors;
+        }
+
+        final Set<String> lateAncestors = lateAncestorsByXsiType.get(xsiType);
+        if (lateAncestors != null) {
+            return lateAncestors;
+        }
+
+        try {
+            final GenericWrapperElement element = SchemaElement.GetElement(xsiType).getGenericXFTElement();
+            final Set<String> computed = computeAncestors(element, hierarchy.keySet());
+            final Set<String> raced = lateAncestorsByXsiType.putIfAbsent(xsiType, computed);
+            return raced == null ? computed : raced;
+        } catch (XFTInitException e) {
+            log.error("XFT not initialized."); // If this happens, we have a lot of other problems.
+        } catch (ElementNotFoundException e) {
+            // Users can set whatever they want as a context and request it by name, so this is not an error.
+            // Unknown types are not cached, so a flood of made-up names cannot grow the table.
+            log.debug("Did not find XSI type \"{}\".", xsiType);
+        }
+        return Collections.emptySet();
+    }
+
+    private Map<String, Set<String>> getHierarchy() {
+        Map<String, Set<String>> hierarchy = ancestorsByXsiType;
+        if (hierarchy == null && XFTManager.isInitialized()) {
+            synchronized (this) {
+                hierarchy = ancestorsByXsiType;
+                if (hierarchy == null) {
+                    hierarchy = buildHierarchy();
+                    ancestorsByXsiType = hierarchy;
+                }
+            }
+        }
+        return hierarchy;
+    }
+
+    private Map<String, Set<String>> buildHierarchy() {
+        final Map<String, Set<String>> hierarchy = Maps.newHashMap();
+        try {
+            final List<GenericWrapperElement> elements = GenericWrapperElement.GetAllElements(false);
+            final ImmutableSet.Builder<String> knownXsiTypes = ImmutableSet.builder();
+            for (final GenericWrapperElement element : elements) {
+                knownXsiTypes.add(element.getXSIType());
+            }
+            final Set<String> xsiTypes = knownXsiTypes.build();
+            for (final GenericWrapperElement element : elements) {
+                hierarchy.put(element.getXSIType(), computeAncestors(element, xsiTypes));
+            }
+        } catch (XFTInitException e) {
+            log.error("XFT not initialized."); // If this happens, we have a lot of other problems.
+        } catch (ElementNotFoundException e) {
+            log.error("Could not read the XFT data types.", e);
+        }
+        final Map<String, Set<String>> built = ImmutableMap.copyOf(hierarchy);
+        log.debug("Computed the ancestors of {} XSI types.", built.size());
+        return built;
+    }
+
+    private Set<String> computeAncestors(final GenericWrapperElement element, final Set<String> knownXsiTypes) {
+        final ImmutableSet.Builder<String> ancestors = ImmutableSet.builder();
+        for (final String candidate : knownXsiTypes) {
+            if (!candidate.equals(element.getXSIType()) && element.instanceOf(candidate)) {
+                ancestors.add(candidate);
+            }
+        }
+        return ancestors.build();
+    }
+}
@@ -34,4 +34,24 @@ public class ContainerUtils {
             log.debug("Container has no workflow ID. Not attempting to update workflow.");
         }
     }
+
+    /**
+     * Docker treats an image name without a tag as the "latest" tag of that name.
+     *
+     * @return The image name with ":latest" appended, if it has neither a tag nor a digest.
+     */
+    public static String withDefaultTag(final String imageName) {
+        final String repository = imageName.substring(imageName.lastIndexOf('/') + 1);
+        return repository.contains(":") || repository.contains("@") ? imageName : imageName + ":latest";
+    }
+
+    /**
+     * Setup and wrapup commands are referred to as "image:tag:commandName", where the command name is optional.
+     *
+     * @return The "image:tag" part of the reference.
+     */
+    public static String imageWithoutCommandName(final String imageWithCommandName) {
+        final String[] imageSplitOnColon = imageWithCommandName.split(":");
+        return imageSplitOnColon.length == 1 ? imageSplitOnColon[0] : imageSplitOnColon[0] + ":" + imageSplitOnColon[1];
+    }
 }
@@ -0,0 +1,185 @@
+package org.nrg.containers.utils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A template string that has been split into literal and placeholder segments.
+ *
+ * The placeholders are the replacement keys of a command's inputs. Templates are tokenized once,
+ * by a {@link Tokenizer} that knows all the replacement keys of a command, and can then be
+ * rendered any number of times against a map of resolved values in a single pass.
+ *
+ * For use cases, see tests in org.nrg.containers.utils.ReplacementTemplateTest.
+ */
+public class ReplacementTemplate {
+    private final String template;
+    private final List<String> segments;
+    private final List<Boolean> segmentIsPlaceholder;
+
+    private ReplacementTemplate(final String template,
+                                final List<String> segments,
+                                final List<Boolean> segmentIsPlaceholder) {
+        this.template = template;
+        this.segments = segments;
+        this.segmentIsPlaceholder = segmentIsPlaceholder;
+    }
+
+    public String template() {
+        return template;
+    }
+
+    public boolean hasPlaceholders() {
+        return segmentIsPlaceholder.contains(Boolean.TRUE);
+    }
+
+    @Nonnull
+    public List<String> placeholders() {
+        final List<String> placeholders = Lists.newArrayList();
+        for (int i = 0; i < segments.size(); i++) {
+            if (segmentIsPlaceholder.get(i)) {
+                placeholders.add(segments.get(i));
+            }
+        }
+        return placeholders;
+    }
+
+    /**
+     * Render the template.
+     *
+     * Placeholders found in the values map are replaced by their value (null values render as ""),
+     * placeholders not found in the map are left in the output unchanged.
+     *
+     * @param valuesMap Values keyed by replacement key
+     * @return The rendered template
+     */
+    @Nonnull
+    public String render(final Map<String, String> valuesMap) {
+        if (!hasPlaceholders()) {
+            return template;
+        }
+
+        final StringBuilder rendered = new StringBuilder(template.length());
+        for (int i = 0; i < segments.size(); i++) {
+            final String segment = segments.get(i);
+            if (segmentIsPlaceholder.get(i) && valuesMap.containsKey(segment)) {
+                final String value = valuesMap.get(segment);
+                rendered.append(value == null ? "" : value);
+            } else {
+                rendered.append(segment);
+            }
+        }
+        return rendered.toString();
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    /**
+     * Splits templates on a fixed set of replacement keys, and remembers the templates it has split.
+     *
+     * When two keys could match at the same position in a template, the longer key wins.
+     */
+    public static class Tokenizer {
+        private final Map<Character, List<String>> replacementKeysByFirstChar;
+        private final ConcurrentMap<String, ReplacementTemplate> tokenized = new ConcurrentHashMap<>();
+
+        public Tokenizer(final Collection<String> replacementKeys) {
+            final Map<Character, List<String>> keysByFirstChar = Maps.newHashMap();
+            for (final String replacementKey : replacementKeys) {
+                if (StringUtils.isEmpty(replacementKey)) {
+                    continue;
+                }
+
+                final Character firstChar = replacementKey.charAt(0);
+                if (!keysByFirstChar.containsKey(firstChar)) {
+                    keysByFirstChar.put(firstChar, Lists.<String>newArrayList());
+                }
+                final List<String> keys = keysByFirstChar.get(firstChar);
+                if (!keys.contains(replacementKey)) {
+                    keys.add(replacementKey);
+                }
+            }
+
+            // Check longer keys first so that a key which is a prefix of another does not shadow it
+            for (final List<String> keys : keysByFirstChar.values()) {
+                Collections.sort(keys, new Comparator<String>() {
+                    @Override
+                    public int compare(final String first, final String second) {
+                        return second.length() - first.length();
+                    }
+                });
+            }
+            this.replacementKeysByFirstChar = keysByFirstChar;
+        }
+
+        @Nonnull
+        public ReplacementTemplate tokenize(final @Nonnull String template) {
+            final ReplacementTemplate cached = tokenized.get(template);
+            if (cached != null) {
+                return cached;
+            }
+
+            final ReplacementTemplate newlyTokenized = doTokenize(template);
+            final ReplacementTemplate raced = tokenized.putIfAbsent(template, newlyTokenized);
+            return raced == null ? newlyTokenized : raced;
+        }
+
+        @Nonnull
+        private ReplacementTemplate doTokenize(final @Nonnull String template) {
+            final List<String> segments = Lists.newArrayList();
+            final List<Boolean> segmentIsPlaceholder = Lists.newArrayList();
+
+            int literalStart = 0;
+            int position = 0;
+            while (position < template.length()) {
+                final String matchedKey = keyAt(template, position);
+                if (matchedKey == null) {
+                    position++;
+                    continue;
+                }
+
+                if (position > literalStart) {
+                    segments.add(template.substring(literalStart, position));
+                    segmentIsPlaceholder.add(false);
+                }
+                segments.add(matchedKey);
+                segmentIsPlaceholder.add(true);
+
+                position += matchedKey.length();
+                literalStart = position;
+            }
+            if (literalStart < template.length()) {
+                segments.add(template.substring(literalStart));
+                segmentIsPlaceholder.add(false);
+            }
+
+            return new ReplacementTemplate(template, segments, segmentIsPlaceholder);
+        }
+
+        private String keyAt(final String template, final int position) {
+            final List<String> candidates = replacementKeysByFirstChar.get(template.charAt(position));
+            if (candidates == null) {
+                return null;
+            }
+            for (final String candidate : candidates) {
+                if (template.startsWith(candidate, position)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -1,19 +1,19 @@
 package org.nrg.xnat.initialization.tasks;
 
 import lombok.extern.slf4j.Slf4j;
-import org.nrg.containers.api.ContainerControlApi;
 import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.NoDockerServerException;
 import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.server.docker.DockerServerBase;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.DockerService;
+import org.nrg.containers.services.ImagePullService;
 import org.nrg.framework.exceptions.NotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.nrg.xnat.initialization.tasks.InitializingTaskException.Level.RequiresInitialization;
 
@@ -22,15 +22,15 @@ import static org.nrg.xnat.initialization.tasks.InitializingTaskException.Level.
 public class CheckDockerImagesArePresent extends AbstractInitializingTask {
     private DockerService dockerService;
     private CommandService commandService;
-    private ContainerControlApi containerControlApi;
+    private ImagePullService imagePullService;
 
     @Autowired
     public CheckDockerImagesArePresent(final DockerService dockerService,
                                        final CommandService commandService,
-                                       final ContainerControlApi containerControlApi) {
+                                       final ImagePullService imagePullService) {
         this.dockerService = dockerService;
         this.commandService = commandService;
-        this.containerControlApi = containerControlApi;
+        this.imagePullService = imagePullService;
     }
 
     @Override
@@ -59,8 +59,7 @@ public class CheckDockerImagesArePresent extends AbstractInitializingTask {
             return;
         }
 
-        final Map<String, String> imageNameToCommandName = new HashMap<>();
-        final Map<String, Long> imageNameToCommandId = new HashMap<>();
+        final Set<String> imageNames = new HashSet<>();
         for (final Command command : commandService.getAll()) {
             final String imageName = command.image();
 
@@ -70,19 +69,14 @@ public class CheckDockerImagesArePresent extends AbstractInitializingTask {
                 continue;
             }
 
-            imageNameToCommandId.put(imageName, command.id());
-            imageNameToCommandName.put(imageName, command.name());
+            imageNames.add(imageName);
         }
 
-        for (final String imageName : imageNameToCommandId.keySet()) {
-            final String commandName = imageNameToCommandName.get(imageName);
-            final Long commandId = imageNameToCommandId.get(imageName);
-            log.debug("Pulling image \"{}\" for command {} \"{}\".", imageName, commandId, commandName);
-            try {
-                containerControlApi.pullImage(imageName);
-            } catch (NoDockerServerException | DockerServerException | NotFoundException e) {
-                log.debug("Encountered a problem pulling image \"{}\": {}", imageName, e.getMessage());
-            }
+        // The pulls run in the background. Their progress is on the /docker/pulls endpoint.
+        try {
+            imagePullService.prePull(imageNames);
+        } catch (NoDockerServerException | DockerServerException e) {
+            log.debug("Encountered a problem listing images on the docker server: {}", e.getMessage());
         }
     }
 }
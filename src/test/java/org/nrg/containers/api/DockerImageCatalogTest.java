@@ -0,0 +1,141 @@
+package org.nrg.containers.api;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.nrg.containers.model.image.docker.DockerImage;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class DockerImageCatalogTest {
+    private static final String SERVER = "unix:///var/run/docker.sock";
+    private static final String OTHER_SERVER = "tcp://other:2375";
+    private static final String BUSYBOX_ID = "sha256:2b8fd9751c4c0f5dd266fcae00707e67a2545ef34f9a29354585f93dac906749";
+    private static final String ALPINE_ID = "sha256:a24bb4013296f61e89ba57005a7b3e52274d8edd3ae2077d04395f806b63d83e";
+
+    private final DockerImage busybox = DockerImage.create(BUSYBOX_ID, Lists.newArrayList("busybox:latest", "busybox:1.31"), null, 1000L);
+    private final DockerImage alpine = DockerImage.create(ALPINE_ID, Lists.newArrayList("alpine:3.10"), null, 2000L);
+
+    private DockerImageCatalog catalog;
+
+    @Before
+    public void setup() {
+        catalog = new DockerImageCatalog();
+        catalog.replaceAll(SERVER, Lists.newArrayList(busybox, alpine));
+    }
+
+    @Test
+    public void testFindByIdNameAndPrefix() throws Exception {
+        assertThat(catalog.find(SERVER, BUSYBOX_ID), is(busybox));
+        assertThat(catalog.find(SERVER, BUSYBOX_ID.substring("sha256:".length())), is(busybox));
+        assertThat(catalog.find(SERVER, "2b8fd9751c4c"), is(busybox));
+        assertThat(catalog.find(SERVER, "busybox:1.31"), is(busybox));
+        assertThat(catalog.find(SERVER, "alpine:3.10"), is(alpine));
+
+        // Too short, or not hex, to be an ID prefix
+        assertThat(catalog.find(SERVER, "2b8fd"), is(nullValue()));
+        assertThat(catalog.find(SERVER, "alpine"), is(nullValue()));
+    }
+
+    @Test
+    public void testNameWithoutTagFallsBackToLatest() throws Exception {
+        assertThat(catalog.find(SERVER, "busybox"), is(busybox));
+    }
+
+    @Test
+    public void testOtherServerIsNotCurrentAndFindsNothing() throws Exception {
+        assertThat(catalog.isCurrent(SERVER), is(true));
+        assertThat(catalog.isCurrent(OTHER_SERVER), is(false));
+        assertThat(catalog.find(OTHER_SERVER, "busybox:latest"), is(nullValue()));
+
+        // Changes for another server are ignored
+        catalog.remove(OTHER_SERVER, "busybox:latest");
+        catalog.apply(OTHER_SERVER, "delete", BUSYBOX_ID, null);
+        assertThat(catalog.find(SERVER, "busybox:latest"), is(busybox));
+
+        // Listing another server replaces the catalog
+        catalog.replaceAll(OTHER_SERVER, Collections.singletonList(alpine));
+        assertThat(catalog.isCurrent(SERVER), is(false));
+        assertThat(catalog.find(SERVER, "alpine:3.10"), is(nullValue()));
+        assertThat(catalog.find(OTHER_SERVER, "alpine:3.10"), is(alpine));
+        assertThat(catalog.find(OTHER_SERVER, "busybox:latest"), is(nullValue()));
+    }
+
+    @Test
+    public void testNewCatalogIsNotCurrent() throws Exception {
+        assertThat(new DockerImageCatalog().isCurrent(SERVER), is(false));
+    }
+
+    @Test
+    public void testPutRecordsNameButKeepsListedImage() throws Exception {
+        final DockerImage inspected = DockerImage.create(BUSYBOX_ID, Collections.<String>emptyList(), null);
+        catalog.put(SERVER, "registry.example.com/busybox:latest", inspected);
+
+        assertThat(catalog.find(SERVER, "registry.example.com/busybox:latest"), is(busybox));
+
+        final String newId = "sha256:0000000000000000000000000000000000000000000000000000000000000001";
+        final DockerImage pulled = DockerImage.create(newId, Collections.singletonList("new:1"), null);
+        catalog.put(SERVER, "new:1", pulled);
+        assertThat(catalog.find(SERVER, "new:1"), is(pulled));
+    }
+
+    @Test
+    public void testRemoveForgetsImageAndAllItsNames() throws Exception {
+        catalog.remove(SERVER, "busybox:1.31");
+
+        assertThat(catalog.find(SERVER, "busybox:latest"), is(nullValue()));
+        assertThat(catalog.find(SERVER, BUSYBOX_ID), is(nullValue()));
+        assertThat(catalog.find(SERVER, "alpine:3.10"), is(alpine));
+    }
+
+    @Test
+    public void testPullEventForgetsTheName() throws Exception {
+        catalog.apply(SERVER, "pull", "busybox", null);
+
+        // The name may now be a different image, so it is looked up again. The image itself is still known.
+        assertThat(catalog.find(SERVER, "busybox:latest"), is(nullValue()));
+        assertThat(catalog.find(SERVER, "busybox:1.31"), is(busybox));
+        assertThat(catalog.find(SERVER, BUSYBOX_ID), is(busybox));
+    }
+
+    @Test
+    public void testTagEventAddsName() throws Exception {
+        catalog.apply(SERVER, "tag", ALPINE_ID, ImmutableMap.of("name", "busybox:latest"));
+
+        assertThat(catalog.find(SERVER, "busybox:latest"), is(alpine));
+        assertThat(catalog.find(SERVER, "busybox:1.31"), is(busybox));
+    }
+
+    @Test
+    public void testTagEventForUnknownImageForgetsName() throws Exception {
+        catalog.apply(SERVER, "tag", "sha256:ffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff",
+                ImmutableMap.of("name", "alpine:3.10"));
+
+        assertThat(catalog.find(SERVER, "alpine:3.10"), is(nullValue()));
+    }
+
+    @Test
+    public void testUntagAndDeleteEventsForgetImage() throws Exception {
+        catalog.apply(SERVER, "untag", BUSYBOX_ID, null);
+        assertThat(catalog.find(SERVER, "busybox:latest"), is(nullValue()));
+        assertThat(catalog.find(SERVER, BUSYBOX_ID), is(nullValue()));
+
+        catalog.apply(SERVER, "delete", ALPINE_ID, null);
+        assertThat(catalog.find(SERVER, "alpine:3.10"), is(nullValue()));
+    }
+
+    @Test
+    public void testOtherEventsChangeNothing() throws Exception {
+        catalog.apply(SERVER, "import", BUSYBOX_ID, null);
+        catalog.apply(SERVER, null, BUSYBOX_ID, null);
+        catalog.apply(SERVER, "delete", null, null);
+
+        assertThat(catalog.find(SERVER, "busybox:latest"), is(busybox));
+        assertThat(catalog.find(SERVER, "alpine:3.10"), is(alpine));
+    }
+}
@@ -0,0 +1,65 @@
+package org.nrg.containers.api;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+
+public class SwarmNodeLocalityTest {
+    private static final Map<String, List<String>> NODE_PREFIXES = ImmutableMap.<String, List<String>>of(
+            "node1", Lists.newArrayList("/data/archive/ProjectA", "/data/build"),
+            "node2", Lists.newArrayList("/data/archive/ProjectA/"),
+            "node3", Lists.newArrayList("/data/archive/ProjectB"));
+    private static final List<String> SWARM_NODES = Lists.newArrayList("node1", "node2", "node3", "node4");
+
+    @Test
+    public void testNodesWithMostLocalMounts() throws Exception {
+        assertThat(SwarmNodeLocality.localNodes(NODE_PREFIXES, Lists.newArrayList("/data/archive/ProjectA/arc001/E1", "/data/build/abc")),
+                contains("node1"));
+        assertThat(SwarmNodeLocality.localNodes(NODE_PREFIXES, Lists.newArrayList("/data/archive/ProjectA/arc001/E1", "/data/other")),
+                containsInAnyOrder("node1", "node2"));
+    }
+
+    @Test
+    public void testPrefixMatchesWholePathSegments() throws Exception {
+        assertThat(SwarmNodeLocality.localNodes(NODE_PREFIXES, Collections.singletonList("/data/archive/ProjectAB/arc001")),
+                empty());
+        assertThat(SwarmNodeLocality.localNodes(NODE_PREFIXES, Collections.singletonList("/data/archive/ProjectB")),
+                contains("node3"));
+    }
+
+    @Test
+    public void testOneLocalNode() throws Exception {
+        assertThat(SwarmNodeLocality.constraints(Collections.singleton("node1"), SWARM_NODES, SWARM_NODES),
+                contains("node.hostname==node1"));
+    }
+
+    @Test
+    public void testSeveralLocalNodesExcludeTheOthers() throws Exception {
+        final Set<String> localNodes = Sets.newHashSet("node1", "node2");
+        assertThat(SwarmNodeLocality.constraints(localNodes, SWARM_NODES, SWARM_NODES),
+                contains("node.hostname!=node3", "node.hostname!=node4"));
+
+        // Only one of them can take tasks now
+        assertThat(SwarmNodeLocality.constraints(localNodes, SWARM_NODES, Lists.newArrayList("node2", "node3")),
+                contains("node.hostname==node2"));
+    }
+
+    @Test
+    public void testAnyNodeWhenNoLocalNodeIsReady() throws Exception {
+        assertThat(SwarmNodeLocality.constraints(Collections.singleton("node1"), SWARM_NODES, Lists.newArrayList("node3", "node4")),
+                empty());
+        assertThat(SwarmNodeLocality.constraints(Collections.<String>emptySet(), SWARM_NODES, SWARM_NODES),
+                empty());
+    }
+}
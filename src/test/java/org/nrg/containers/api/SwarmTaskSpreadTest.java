@@ -0,0 +1,57 @@
+package org.nrg.containers.api;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class SwarmTaskSpreadTest {
+    private static final String RACK = "node.labels.rack";
+    private static final Map<String, String> RACKS_BY_NODE = ImmutableMap.of(
+            "node1", "a",
+            "node2", "a",
+            "node3", "b",
+            "node4", "c");
+
+    @Test
+    public void testFullNodes() throws Exception {
+        final List<String> commandNodeIds = Lists.newArrayList("node1", "node1", "node2", "node3", "node3");
+        assertThat(SwarmTaskSpread.excludeNodes(SwarmTaskSpread.fullNodes(commandNodeIds, 2)),
+                contains("node.id!=node1", "node.id!=node3"));
+        assertThat(SwarmTaskSpread.fullNodes(commandNodeIds, 3), is(empty()));
+    }
+
+    @Test
+    public void testSpreadToLeastUsedLabelValue() throws Exception {
+        final List<String> commandNodeIds = Lists.newArrayList("node1", "node3", "node4", "node4");
+        assertThat(SwarmTaskSpread.spreadConstraint(RACK, RACKS_BY_NODE, commandNodeIds, 0L),
+                is("node.labels.rack==a"));
+
+        // Tasks on nodes that cannot take this one, or that lack the label, do not count
+        assertThat(SwarmTaskSpread.spreadConstraint(RACK, RACKS_BY_NODE, Lists.newArrayList("node5", "node1"), 0L),
+                is("node.labels.rack==b"));
+    }
+
+    @Test
+    public void testTiesAreUsedInTurn() throws Exception {
+        final List<String> noTasks = Collections.emptyList();
+        assertThat(SwarmTaskSpread.spreadConstraint(RACK, RACKS_BY_NODE, noTasks, 0L), is("node.labels.rack==a"));
+        assertThat(SwarmTaskSpread.spreadConstraint(RACK, RACKS_BY_NODE, noTasks, 1L), is("node.labels.rack==b"));
+        assertThat(SwarmTaskSpread.spreadConstraint(RACK, RACKS_BY_NODE, noTasks, 2L), is("node.labels.rack==c"));
+    }
+
+    @Test
+    public void testNoConstraintWithoutLabeledNodes() throws Exception {
+        assertThat(SwarmTaskSpread.spreadConstraint(RACK, Collections.<String, String>emptyMap(),
+                Collections.<String>emptyList(), 0L), is(nullValue()));
+    }
+}
@@ -4,11 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.mockito.Mockito;
 import org.nrg.config.services.ConfigService;
 import org.nrg.containers.daos.CommandEntityRepository;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
 import org.nrg.containers.services.CommandEntityService;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.ContainerConfigService;
+import org.nrg.containers.services.XsiTypeHierarchyService;
 import org.nrg.containers.services.impl.CommandServiceImpl;
 import org.nrg.containers.services.impl.ContainerConfigServiceImpl;
+import org.nrg.containers.services.impl.XsiTypeHierarchyServiceImpl;
 import org.nrg.containers.services.impl.HibernateCommandEntityService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,8 +22,14 @@ import org.springframework.context.annotation.Import;
 public class CommandConfig {
     @Bean
     public CommandService commandService(final CommandEntityService commandEntityService,
-                                         final ContainerConfigService containerConfigService) {
-        return new CommandServiceImpl(commandEntityService, containerConfigService);
+                                         final ContainerConfigService containerConfigService,
+                                         final XsiTypeHierarchyService xsiTypeHierarchyService) {
+        return new CommandServiceImpl(commandEntityService, containerConfigService, xsiTypeHierarchyService);
+    }
+
+    @Bean
+    public XsiTypeHierarchyService xsiTypeHierarchyService() {
+        return new XsiTypeHierarchyServiceImpl();
     }
 
     @Bean
@@ -36,7 +45,7 @@ public class CommandConfig {
     @Bean
     public ContainerConfigService containerConfigService(final ConfigService configService,
                                                          final ObjectMapper objectMapper) {
-        return new ContainerConfigServiceImpl(configService, objectMapper);
+        return new ContainerConfigServiceImpl(configService, objectMapper, Mockito.mock(ContainerServicePrefsBean.class));
     }
 
     @Bean
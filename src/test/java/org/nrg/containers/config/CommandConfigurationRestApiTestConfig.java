@@ -3,12 +3,15 @@ package org.nrg.containers.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.mockito.Mockito;
 import org.nrg.config.services.ConfigService;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
 import org.nrg.containers.rest.CommandConfigurationRestApi;
 import org.nrg.containers.services.CommandEntityService;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.ContainerConfigService;
+import org.nrg.containers.services.XsiTypeHierarchyService;
 import org.nrg.containers.services.impl.CommandServiceImpl;
 import org.nrg.containers.services.impl.ContainerConfigServiceImpl;
+import org.nrg.containers.services.impl.XsiTypeHierarchyServiceImpl;
 import org.nrg.framework.services.ContextService;
 import org.nrg.xdat.security.services.PermissionsServiceI;
 import org.nrg.xdat.security.services.RoleHolder;
@@ -37,8 +40,14 @@ public class CommandConfigurationRestApiTestConfig extends WebSecurityConfigurer
 
     @Bean
     public CommandService commandService(final CommandEntityService commandEntityService,
-                                         final ContainerConfigService containerConfigService) {
-        return new CommandServiceImpl(commandEntityService, containerConfigService);
+                                         final ContainerConfigService containerConfigService,
+                                         final XsiTypeHierarchyService xsiTypeHierarchyService) {
+        return new CommandServiceImpl(commandEntityService, containerConfigService, xsiTypeHierarchyService);
+    }
+
+    @Bean
+    public XsiTypeHierarchyService xsiTypeHierarchyService() {
+        return new XsiTypeHierarchyServiceImpl();
     }
 
     @Bean
@@ -49,7 +58,7 @@ public class CommandConfigurationRestApiTestConfig extends WebSecurityConfigurer
     @Bean
     public ContainerConfigService containerConfigService(final ConfigService configService,
                                                          final ObjectMapper objectMapper) {
-        return new ContainerConfigServiceImpl(configService, objectMapper);
+        return new ContainerConfigServiceImpl(configService, objectMapper, Mockito.mock(ContainerServicePrefsBean.class));
     }
 
     @Bean
@@ -0,0 +1,46 @@
+package org.nrg.containers.config;
+
+import org.hibernate.SessionFactory;
+import org.nrg.containers.daos.CommandEventMappingDao;
+import org.nrg.containers.model.CommandEventMapping;
+import org.nrg.containers.services.CommandEventMappingService;
+import org.nrg.containers.services.impl.HibernateCommandEventMappingService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.hibernate4.HibernateTransactionManager;
+import org.springframework.orm.hibernate4.LocalSessionFactoryBean;
+import org.springframework.transaction.support.ResourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+
+@Configuration
+@Import({HibernateConfig.class})
+public class CommandEventMappingTestConfig {
+    @Bean
+    public CommandEventMappingService commandEventMappingService() {
+        return new HibernateCommandEventMappingService();
+    }
+
+    @Bean
+    public CommandEventMappingDao commandEventMappingDao() {
+        return new CommandEventMappingDao();
+    }
+
+    @Bean
+    public LocalSessionFactoryBean sessionFactory(final DataSource dataSource, @Qualifier("hibernateProperties") final Properties properties) {
+        final LocalSessionFactoryBean bean = new LocalSessionFactoryBean();
+        bean.setDataSource(dataSource);
+        bean.setHibernateProperties(properties);
+        bean.setAnnotatedClasses(
+                CommandEventMapping.class);
+        return bean;
+    }
+
+    @Bean
+    public ResourceTransactionManager transactionManager(final SessionFactory sessionFactory) throws Exception {
+        return new HibernateTransactionManager(sessionFactory);
+    }
+}
@@ -2,11 +2,13 @@ package org.nrg.containers.config;
 
 import org.mockito.Mockito;
 import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
 import org.nrg.containers.rest.ContainerRestApi;
 import org.nrg.containers.services.CommandResolutionService;
 import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.containers.services.ContainerFinalizeService;
 import org.nrg.containers.services.ContainerService;
+import org.nrg.containers.services.ImagePullService;
 import org.nrg.containers.services.impl.ContainerServiceImpl;
 import org.nrg.framework.services.ContextService;
 import org.nrg.xdat.preferences.SiteConfigPreferences;
@@ -43,8 +45,20 @@ public class ContainerRestApiTestConfig extends WebSecurityConfigurerAdapter {
                                              final CommandResolutionService commandResolutionService,
                                              final AliasTokenService aliasTokenService,
                                              final SiteConfigPreferences siteConfigPreferences,
-                                             final ContainerFinalizeService containerFinalizeService) {
-        return new ContainerServiceImpl(containerControlApi, containerEntityService, commandResolutionService, aliasTokenService, siteConfigPreferences, containerFinalizeService, null);
+                                             final ContainerFinalizeService containerFinalizeService,
+                                             final ImagePullService imagePullService,
+                                             final ContainerServicePrefsBean containerServicePrefsBean) {
+        return new ContainerServiceImpl(containerControlApi, containerEntityService, commandResolutionService, aliasTokenService, siteConfigPreferences, containerFinalizeService, null, imagePullService, containerServicePrefsBean);
+    }
+
+    @Bean
+    public ContainerServicePrefsBean containerServicePrefsBean() {
+        return Mockito.mock(ContainerServicePrefsBean.class);
+    }
+
+    @Bean
+    public ImagePullService mockImagePullService() {
+        return Mockito.mock(ImagePullService.class);
     }
 
     @Bean
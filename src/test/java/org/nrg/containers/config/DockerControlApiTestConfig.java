@@ -4,10 +4,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.mockito.Mockito;
 import org.nrg.containers.api.DockerControlApi;
 import org.nrg.containers.daos.ContainerEntityRepository;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
 import org.nrg.containers.services.CommandLabelService;
 import org.nrg.containers.services.ContainerEntityService;
+import org.nrg.containers.services.DockerServerPlacementService;
 import org.nrg.containers.services.DockerServerService;
 import org.nrg.containers.services.impl.CommandLabelServiceImpl;
+import org.nrg.containers.services.impl.DockerServerPlacementServiceImpl;
 import org.nrg.framework.services.NrgEventService;
 import org.nrg.prefs.beans.AbstractPreferenceBean;
 import org.nrg.prefs.entities.Tool;
@@ -25,9 +28,17 @@ import static org.mockito.Mockito.when;
 public class DockerControlApiTestConfig {
     @Bean
     public DockerControlApi dockerControlApi(final DockerServerService dockerServerService,
+                                             final DockerServerPlacementService dockerServerPlacementService,
                                              final CommandLabelService commandLabelService,
                                              final NrgEventService eventService) {
-        return new DockerControlApi(dockerServerService, commandLabelService, eventService);
+        return new DockerControlApi(dockerServerService, dockerServerPlacementService, commandLabelService, eventService);
+    }
+
+    @Bean
+    public DockerServerPlacementService dockerServerPlacementService(final DockerServerService dockerServerService,
+                                                                     final ContainerEntityService containerEntityService) {
+        return new DockerServerPlacementServiceImpl(dockerServerService, containerEntityService,
+                Mockito.mock(ContainerServicePrefsBean.class));
     }
 
     @Bean
@@ -4,14 +4,24 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.mockito.Mockito;
 import org.nrg.containers.api.ContainerControlApi;
 import org.nrg.containers.api.DockerControlApi;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
 import org.nrg.containers.rest.DockerRestApi;
 import org.nrg.containers.services.CommandLabelService;
 import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerEntityService;
+import org.nrg.containers.services.DockerHubHealthService;
 import org.nrg.containers.services.DockerHubService;
+import org.nrg.containers.services.DockerServerHealthService;
+import org.nrg.containers.services.DockerServerPlacementService;
 import org.nrg.containers.services.DockerServerService;
 import org.nrg.containers.services.DockerService;
+import org.nrg.containers.services.ImageGarbageCollectionService;
+import org.nrg.containers.services.ImagePullService;
 import org.nrg.containers.services.impl.CommandLabelServiceImpl;
+import org.nrg.containers.services.impl.DockerServerHealthServiceImpl;
+import org.nrg.containers.services.impl.DockerServerPlacementServiceImpl;
 import org.nrg.containers.services.impl.DockerServiceImpl;
+import org.nrg.containers.services.impl.ImagePullServiceImpl;
 import org.nrg.framework.services.ContextService;
 import org.nrg.framework.services.NrgEventService;
 import org.nrg.prefs.services.NrgPreferenceService;
@@ -45,8 +55,42 @@ public class DockerRestApiTestConfig extends WebSecurityConfigurerAdapter {
                                        final DockerHubService dockerHubService,
                                        final CommandService commandService,
                                        final DockerServerService dockerServerService,
-                                       final CommandLabelService commandLabelService) {
-        return new DockerServiceImpl(controlApi, dockerHubService, commandService, dockerServerService, commandLabelService);
+                                       final CommandLabelService commandLabelService,
+                                       final DockerServerHealthService dockerServerHealthService,
+                                       final DockerHubHealthService dockerHubHealthService,
+                                       final ImagePullService imagePullService,
+                                       final ImageGarbageCollectionService imageGarbageCollectionService) {
+        return new DockerServiceImpl(controlApi, dockerHubService, commandService, dockerServerService, commandLabelService, dockerServerHealthService, dockerHubHealthService, imagePullService, imageGarbageCollectionService);
+    }
+
+    @Bean
+    public ImageGarbageCollectionService mockImageGarbageCollectionService() {
+        return Mockito.mock(ImageGarbageCollectionService.class);
+    }
+
+    @Bean
+    public ImagePullService imagePullService(final ContainerControlApi controlApi,
+                                             final DockerHubService dockerHubService,
+                                             final ContainerServicePrefsBean containerServicePrefsBean) {
+        return new ImagePullServiceImpl(controlApi, dockerHubService, containerServicePrefsBean);
+    }
+
+    @Bean
+    public DockerServerHealthService dockerServerHealthService(final ContainerControlApi controlApi,
+                                                               final DockerServerService dockerServerService,
+                                                               final DockerServerPlacementService dockerServerPlacementService,
+                                                               final ContainerServicePrefsBean containerServicePrefsBean) {
+        return new DockerServerHealthServiceImpl(controlApi, dockerServerService, dockerServerPlacementService, containerServicePrefsBean);
+    }
+
+    @Bean
+    public DockerHubHealthService mockDockerHubHealthService() {
+        return Mockito.mock(DockerHubHealthService.class);
+    }
+
+    @Bean
+    public ContainerServicePrefsBean containerServicePrefsBean() {
+        return Mockito.mock(ContainerServicePrefsBean.class);
     }
 
     @Bean
@@ -66,12 +110,19 @@ public class DockerRestApiTestConfig extends WebSecurityConfigurerAdapter {
 
     @Bean
     public ContainerControlApi mockContainerControlApi(final DockerServerService dockerServerService,
+                                                       final DockerServerPlacementService dockerServerPlacementService,
                                                        final CommandLabelService commandLabelService,
                                                        final NrgEventService eventService) {
-        final ContainerControlApi controlApi = new DockerControlApi(dockerServerService, commandLabelService, eventService);
+        final ContainerControlApi controlApi = new DockerControlApi(dockerServerService, dockerServerPlacementService, commandLabelService, eventService);
         return Mockito.spy(controlApi);
     }
 
+    @Bean
+    public DockerServerPlacementService dockerServerPlacementService(final DockerServerService dockerServerService,
+                                                                     final ContainerServicePrefsBean containerServicePrefsBean) {
+        return new DockerServerPlacementServiceImpl(dockerServerService, Mockito.mock(ContainerEntityService.class), containerServicePrefsBean);
+    }
+
     @Bean
     public NrgPreferenceService nrgPreferenceService() {
         return Mockito.mock(NrgPreferenceService.class);
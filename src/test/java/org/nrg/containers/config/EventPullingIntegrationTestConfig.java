@@ -2,6 +2,7 @@ package org.nrg.containers.config;
 
 import org.nrg.containers.api.DockerControlApi;
 import org.nrg.containers.events.DockerStatusUpdater;
+import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.containers.services.ContainerService;
 import org.nrg.containers.services.DockerServerService;
 import org.springframework.context.annotation.Bean;
@@ -25,8 +26,9 @@ public class EventPullingIntegrationTestConfig implements SchedulingConfigurer {
     @Bean
     public DockerStatusUpdater dockerStatusUpdater(final DockerControlApi dockerControlApi,
                                                    final DockerServerService dockerServerService,
-                                                   final ContainerService containerService) {
-        return new DockerStatusUpdater(dockerControlApi, dockerServerService, containerService);
+                                                   final ContainerService containerService,
+                                                   final ContainerEntityService containerEntityService) {
+        return new DockerStatusUpdater(dockerControlApi, dockerServerService, containerService, containerEntityService);
     }
 
     @Bean
@@ -21,6 +21,7 @@ import org.nrg.containers.model.command.entity.CommandWrapperOutputEntity;
 import org.nrg.containers.model.command.entity.DockerCommandEntity;
 import org.nrg.containers.model.command.entity.DockerSetupCommandEntity;
 import org.nrg.containers.model.command.entity.DockerWrapupCommandEntity;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
 import org.nrg.containers.model.container.entity.ContainerEntity;
 import org.nrg.containers.model.container.entity.ContainerEntityHistory;
 import org.nrg.containers.model.container.entity.ContainerEntityInput;
@@ -33,18 +34,29 @@ import org.nrg.containers.services.CommandResolutionService;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.containers.services.ContainerFinalizeService;
+import org.nrg.containers.services.ContainerReaperService;
 import org.nrg.containers.services.ContainerService;
+import org.nrg.containers.services.DockerHubHealthService;
 import org.nrg.containers.services.DockerHubService;
 import org.nrg.containers.services.DockerServerEntityService;
+import org.nrg.containers.services.DockerServerPlacementService;
+import org.nrg.containers.services.DockerServerHealthService;
 import org.nrg.containers.services.DockerServerService;
 import org.nrg.containers.services.DockerService;
+import org.nrg.containers.services.ImageGarbageCollectionService;
+import org.nrg.containers.services.ImagePullService;
 import org.nrg.containers.services.impl.CommandLabelServiceImpl;
 import org.nrg.containers.services.impl.CommandResolutionServiceImpl;
 import org.nrg.containers.services.impl.ContainerFinalizeServiceImpl;
+import org.nrg.containers.services.impl.ContainerReaperServiceImpl;
 import org.nrg.containers.services.impl.ContainerServiceImpl;
+import org.nrg.containers.services.impl.DockerHubHealthServiceImpl;
 import org.nrg.containers.services.impl.DockerServerServiceImpl;
+import org.nrg.containers.services.impl.DockerServerHealthServiceImpl;
 import org.nrg.containers.services.impl.DockerServiceImpl;
+import org.nrg.containers.services.impl.ImagePullServiceImpl;
 import org.nrg.containers.services.impl.HibernateContainerEntityService;
+import org.nrg.containers.services.impl.DockerServerPlacementServiceImpl;
 import org.nrg.containers.services.impl.HibernateDockerServerEntityService;
 import org.nrg.framework.services.ContextService;
 import org.nrg.framework.services.NrgEventService;
@@ -78,9 +90,17 @@ public class IntegrationTestConfig {
      */
     @Bean
     public DockerControlApi dockerControlApi(final DockerServerService dockerServerService,
+                                             final DockerServerPlacementService dockerServerPlacementService,
                                              final CommandLabelService commandLabelService,
                                              final NrgEventService eventService) {
-        return new DockerControlApi(dockerServerService, commandLabelService, eventService);
+        return new DockerControlApi(dockerServerService, dockerServerPlacementService, commandLabelService, eventService);
+    }
+
+    @Bean
+    public DockerServerPlacementService dockerServerPlacementService(final DockerServerService dockerServerService,
+                                                                     final ContainerEntityService containerEntityService,
+                                                                     final ContainerServicePrefsBean containerServicePrefsBean) {
+        return new DockerServerPlacementServiceImpl(dockerServerService, containerEntityService, containerServicePrefsBean);
     }
 
     @Bean
@@ -142,10 +162,19 @@ public class IntegrationTestConfig {
                                              final CommandResolutionService commandResolutionService,
                                              final AliasTokenService aliasTokenService,
                                              final SiteConfigPreferences siteConfigPreferences,
-                                             final ContainerFinalizeService containerFinalizeService) {
+                                             final ContainerFinalizeService containerFinalizeService,
+                                             final ImagePullService imagePullService,
+                                             final ContainerServicePrefsBean containerServicePrefsBean) {
         return new ContainerServiceImpl(containerControlApi, containerEntityService,
                         commandResolutionService, aliasTokenService, siteConfigPreferences,
-                        containerFinalizeService, null);
+                        containerFinalizeService, null, imagePullService, containerServicePrefsBean);
+    }
+
+    @Bean
+    public ContainerReaperService containerReaperService(final ContainerControlApi containerControlApi,
+                                                         final ContainerEntityService containerEntityService,
+                                                         final ContainerServicePrefsBean containerServicePrefsBean) {
+        return new ContainerReaperServiceImpl(containerControlApi, containerEntityService, containerServicePrefsBean);
     }
 
     @Bean
@@ -162,8 +191,44 @@ public class IntegrationTestConfig {
                                        final DockerHubService dockerHubService,
                                        final CommandService commandService,
                                        final DockerServerService dockerServerService,
-                                       final CommandLabelService commandLabelService) {
-        return new DockerServiceImpl(controlApi, dockerHubService, commandService, dockerServerService, commandLabelService);
+                                       final CommandLabelService commandLabelService,
+                                       final DockerServerHealthService dockerServerHealthService,
+                                       final DockerHubHealthService dockerHubHealthService,
+                                       final ImagePullService imagePullService,
+                                       final ImageGarbageCollectionService imageGarbageCollectionService) {
+        return new DockerServiceImpl(controlApi, dockerHubService, commandService, dockerServerService, commandLabelService, dockerServerHealthService, dockerHubHealthService, imagePullService, imageGarbageCollectionService);
+    }
+
+    @Bean
+    public ImageGarbageCollectionService mockImageGarbageCollectionService() {
+        return Mockito.mock(ImageGarbageCollectionService.class);
+    }
+
+    @Bean
+    public ImagePullService imagePullService(final ContainerControlApi controlApi,
+                                             final DockerHubService dockerHubService,
+                                             final ContainerServicePrefsBean containerServicePrefsBean) {
+        return new ImagePullServiceImpl(controlApi, dockerHubService, containerServicePrefsBean);
+    }
+
+    @Bean
+    public DockerServerHealthService dockerServerHealthService(final ContainerControlApi controlApi,
+                                                               final DockerServerService dockerServerService,
+                                                               final DockerServerPlacementService dockerServerPlacementService,
+                                                               final ContainerServicePrefsBean containerServicePrefsBean) {
+        return new DockerServerHealthServiceImpl(controlApi, dockerServerService, dockerServerPlacementService, containerServicePrefsBean);
+    }
+
+    @Bean
+    public DockerHubHealthService dockerHubHealthService(final ContainerControlApi controlApi,
+                                                         final DockerHubService dockerHubService,
+                                                         final ContainerServicePrefsBean containerServicePrefsBean) {
+        return new DockerHubHealthServiceImpl(controlApi, dockerHubService, containerServicePrefsBean);
+    }
+
+    @Bean
+    public ContainerServicePrefsBean containerServicePrefsBean() {
+        return Mockito.mock(ContainerServicePrefsBean.class);
     }
 
     @Bean
@@ -2,6 +2,7 @@ package org.nrg.containers.config;
 
 import org.mockito.Mockito;
 import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
 import org.nrg.containers.rest.LaunchRestApi;
 import org.nrg.containers.services.CommandResolutionService;
 import org.nrg.containers.services.CommandService;
@@ -9,6 +10,7 @@ import org.nrg.containers.services.ContainerEntityService;
 import org.nrg.containers.services.ContainerFinalizeService;
 import org.nrg.containers.services.ContainerService;
 import org.nrg.containers.services.DockerServerService;
+import org.nrg.containers.services.ImagePullService;
 import org.nrg.containers.services.impl.ContainerServiceImpl;
 import org.nrg.framework.services.ContextService;
 import org.nrg.xdat.preferences.SiteConfigPreferences;
@@ -36,9 +38,15 @@ public class LaunchRestApiTestConfig extends WebSecurityConfigurerAdapter {
     public LaunchRestApi launchRestApi(final CommandService commandService,
                                        final ContainerService containerService,
                                        final CommandResolutionService commandResolutionService,
+                                       final ContainerServicePrefsBean containerServicePrefsBean,
                                        final UserManagementServiceI userManagementServiceI,
                                        final RoleHolder roleHolder) {
-        return new LaunchRestApi(commandService, containerService, commandResolutionService, userManagementServiceI, roleHolder);
+        return new LaunchRestApi(commandService, containerService, commandResolutionService, containerServicePrefsBean, userManagementServiceI, roleHolder);
+    }
+
+    @Bean
+    public ContainerServicePrefsBean containerServicePrefsBean() {
+        return Mockito.mock(ContainerServicePrefsBean.class);
     }
 
     @Bean
@@ -47,10 +55,17 @@ public class LaunchRestApiTestConfig extends WebSecurityConfigurerAdapter {
                                              final CommandResolutionService commandResolutionService,
                                              final AliasTokenService aliasTokenService,
                                              final SiteConfigPreferences siteConfigPreferences,
-                                             final ContainerFinalizeService containerFinalizeService) {
+                                             final ContainerFinalizeService containerFinalizeService,
+                                             final ImagePullService imagePullService,
+                                             final ContainerServicePrefsBean containerServicePrefsBean) {
         return new ContainerServiceImpl(containerControlApi, containerEntityService,
                 commandResolutionService, aliasTokenService, siteConfigPreferences,
-                containerFinalizeService, null);
+                containerFinalizeService, null, imagePullService, containerServicePrefsBean);
+    }
+
+    @Bean
+    public ImagePullService mockImagePullService() {
+        return Mockito.mock(ImagePullService.class);
     }
 
     @Bean
@@ -0,0 +1,100 @@
+package org.nrg.containers.events;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.DockerServerLoad;
+import org.nrg.containers.services.ContainerEntityService;
+import org.nrg.containers.services.ContainerService;
+import org.nrg.containers.services.DockerServerService;
+import org.nrg.xft.schema.XFTManager;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(XFTManager.class)
+@PowerMockIgnore({"org.apache.*", "java.*", "javax.*", "org.w3c.*", "com.sun.*"})
+public class DockerStatusUpdaterTest {
+    private static final DockerServer ENABLED = server(1L, "enabled");
+    private static final DockerServer DISABLED_BUSY = server(2L, "busy");
+    private static final DockerServer DISABLED_IDLE = server(3L, "idle");
+
+    private ContainerControlApi mockControlApi;
+    private DockerServerService mockDockerServerService;
+    private ContainerEntityService mockContainerEntityService;
+    private DockerStatusUpdater dockerStatusUpdater;
+
+    @Before
+    public void setup() {
+        mockStatic(XFTManager.class);
+        when(XFTManager.isInitialized()).thenReturn(true);
+
+        mockControlApi = Mockito.mock(ContainerControlApi.class);
+        mockDockerServerService = Mockito.mock(DockerServerService.class);
+        mockContainerEntityService = Mockito.mock(ContainerEntityService.class);
+        when(mockDockerServerService.retrieveServer(DISABLED_BUSY.id())).thenReturn(DISABLED_BUSY);
+        when(mockDockerServerService.retrieveServer(DISABLED_IDLE.id())).thenReturn(DISABLED_IDLE);
+
+        dockerStatusUpdater = new DockerStatusUpdater(mockControlApi, mockDockerServerService,
+                Mockito.mock(ContainerService.class), mockContainerEntityService);
+    }
+
+    @After
+    public void teardown() {
+        dockerStatusUpdater.shutdown();
+    }
+
+    @Test
+    public void testDisabledServerIsPolledUntilItsContainersFinish() throws Exception {
+        when(mockDockerServerService.getEnabledServers()).thenReturn(Lists.newArrayList(ENABLED));
+        when(mockContainerEntityService.getNonfinalizedLoadByServer()).thenReturn(Lists.newArrayList(
+                DockerServerLoad.create(null, 1L, 0L),
+                DockerServerLoad.create(ENABLED.id(), 1L, 0L),
+                DockerServerLoad.create(DISABLED_BUSY.id(), 2L, 0L)));
+
+        dockerStatusUpdater.run();
+
+        verify(mockControlApi).canConnect(ENABLED);
+        verify(mockControlApi).canConnect(DISABLED_BUSY);
+        verify(mockControlApi, never()).canConnect(DISABLED_IDLE);
+    }
+
+    @Test
+    public void testDisabledServerIsPolledWhenNoServerIsEnabled() throws Exception {
+        when(mockDockerServerService.getEnabledServers()).thenReturn(Collections.<DockerServer>emptyList());
+        when(mockContainerEntityService.getNonfinalizedLoadByServer()).thenReturn(Lists.newArrayList(
+                DockerServerLoad.create(DISABLED_BUSY.id(), 1L, 0L)));
+
+        dockerStatusUpdater.run();
+
+        verify(mockControlApi).canConnect(DISABLED_BUSY);
+    }
+
+    @Test
+    public void testNothingIsPolledWithoutServers() throws Exception {
+        when(mockDockerServerService.getEnabledServers()).thenReturn(Collections.<DockerServer>emptyList());
+        when(mockContainerEntityService.getNonfinalizedLoadByServer()).thenReturn(Collections.<DockerServerLoad>emptyList());
+
+        dockerStatusUpdater.run();
+
+        verify(mockControlApi, never()).canConnect(any(DockerServer.class));
+    }
+
+    private static DockerServer server(final long id, final String name) {
+        return DockerServer.create(id, name, "tcp://" + name + ":2376", null, false, null, null, null, null);
+    }
+}
@@ -2,12 +2,15 @@ package org.nrg.containers.model;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Maps;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.nrg.config.entities.Configuration;
 import org.nrg.config.services.ConfigService;
 import org.nrg.containers.config.CommandConfigurationTestConfig;
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.configuration.CommandConfiguration.CommandSchedulingConfiguration;
 import org.nrg.containers.model.configuration.CommandConfigurationInternal;
 import org.nrg.containers.model.configuration.CommandConfigurationInternal.CommandInputConfiguration;
 import org.nrg.containers.model.configuration.CommandConfigurationInternal.CommandOutputConfiguration;
@@ -17,8 +20,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.Collections;
 import java.util.Map;
 
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
@@ -41,6 +47,12 @@ public class CommandConfigurationTest {
     @Autowired private ContainerConfigService containerConfigService;
     @Autowired private ConfigService mockConfigService;
 
+    @Before
+    public void setup() {
+        // The config service mock is shared by all tests, so drop anything cached from what an earlier test stubbed
+        containerConfigService.invalidateCachedConfigurations();
+    }
+
     @Test
     public void testSpringConfiguration() {
         assertThat(containerConfigService, not(nullValue()));
@@ -62,6 +74,46 @@ public class CommandConfigurationTest {
         assertThat(retrieved, is(site));
     }
 
+    @Test
+    public void testChangesInvalidateCachedConfiguration() throws Exception {
+        final CommandConfigurationInternal before = CommandConfigurationInternal.builder()
+                .addInput("foo", CommandInputConfiguration.builder().defaultValue("a").build())
+                .build();
+        final CommandConfigurationInternal after = CommandConfigurationInternal.builder()
+                .addInput("foo", CommandInputConfiguration.builder().defaultValue("b").build())
+                .build();
+
+        stubSiteConfiguration(before);
+        assertThat(containerConfigService.getSiteConfiguration(WRAPPER_ID), is(before));
+
+        // Read from the cache until this node changes it
+        stubSiteConfiguration(after);
+        assertThat(containerConfigService.getSiteConfiguration(WRAPPER_ID), is(before));
+        containerConfigService.configureForSite(after, WRAPPER_ID, "admin", "reason");
+        assertThat(containerConfigService.getSiteConfiguration(WRAPPER_ID), is(after));
+
+        containerConfigService.deleteSiteConfiguration(WRAPPER_ID, "admin");
+        when(mockConfigService.getConfig(eq(TOOL_ID), anyString(), eq(Scope.Site), isNull(String.class))).thenReturn(null);
+        assertThat(containerConfigService.getSiteConfiguration(WRAPPER_ID), is(nullValue()));
+    }
+
+    @Test
+    public void testSchedulingOverridesAreValidated() throws Exception {
+        final Command command = Command.builder()
+                .name("command")
+                .image("xnat/command:1.0")
+                .limitCpu(2D)
+                .build();
+
+        final CommandSchedulingConfiguration valid = CommandSchedulingConfiguration.create(1D,
+                Collections.singletonList("node.labels.gpu==true"), "node.labels.rack", 2);
+        assertThat(valid.validate(command), is(empty()));
+
+        final CommandSchedulingConfiguration invalid = CommandSchedulingConfiguration.create(4D,
+                Collections.singletonList("gpu"), "rack", 0);
+        assertThat(invalid.validate(command), hasSize(4));
+    }
+
     @Test
     public void testConfigureCommandForProject() throws Exception {
 
@@ -149,4 +201,10 @@ public class CommandConfigurationTest {
                 .advanced(true)
                 .userSettable(true);
     }
+
+    private void stubSiteConfiguration(final CommandConfigurationInternal site) throws Exception {
+        final Configuration mockSiteConfiguration = Mockito.mock(Configuration.class);
+        when(mockSiteConfiguration.getContents()).thenReturn(mapper.writeValueAsString(site));
+        when(mockConfigService.getConfig(eq(TOOL_ID), anyString(), eq(Scope.Site), isNull(String.class))).thenReturn(mockSiteConfiguration);
+    }
 }
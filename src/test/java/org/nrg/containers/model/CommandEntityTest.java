@@ -33,6 +33,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.io.File;
 import java.nio.file.Paths;
 import java.security.SecureRandom;
+import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.Matchers.contains;
@@ -137,6 +138,10 @@ public class CommandEntityTest {
                 .reserveMemory(4000L)
                 .limitMemory(8000L)
                 .limitCpu(0.5D)
+                .reserveCpu(0.25D)
+                .placementConstraints(Collections.singletonList("node.labels.gpu==true"))
+                .placementSpread("node.labels.rack")
+                .maxReplicasPerNode(2)
                 .addMount(mountIn)
                 .addMount(mountOut)
                 .addInput(coolInput)
@@ -160,6 +165,17 @@ public class CommandEntityTest {
         assertThat(mapper.readValue(mapper.writeValueAsString(COMMAND), Command.class), is(COMMAND));
     }
 
+    @Test
+    public void testValidateScheduling() throws Exception {
+        final Command invalid = COMMAND.toBuilder()
+                .reserveCpu(1D)
+                .placementConstraints(Collections.singletonList("gpu"))
+                .placementSpread("rack")
+                .maxReplicasPerNode(0)
+                .build();
+        assertThat(invalid.validate(), hasSize(4));
+    }
+
     @Test
     @DirtiesContext
     public void testPersistCommandWithWrapper() throws Exception {
@@ -88,6 +88,7 @@ public class CommandConfigurationRestApiTest {
     @Autowired private ObjectMapper mapper;
     @Autowired private CommandEntityService mockCommandEntityService;
     @Autowired private ConfigService mockConfigService;
+    @Autowired private ContainerConfigService containerConfigService;
     @Autowired private RoleServiceI mockRoleService;
     @Autowired private UserManagementServiceI mockUserManagementServiceI;
 
@@ -95,6 +96,7 @@ public class CommandConfigurationRestApiTest {
 
     @Before
     public void setup() throws Exception {
+        containerConfigService.invalidateCachedConfigurations();
         mockMvc = MockMvcBuilders.webAppContextSetup(wac).apply(springSecurity()).build();
 
         // Mock the userI
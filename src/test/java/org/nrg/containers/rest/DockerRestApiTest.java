@@ -19,10 +19,14 @@ import org.nrg.containers.model.command.auto.Command;
 import org.nrg.containers.model.command.auto.Command.CommandWrapper;
 import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
 import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHubWithPing;
+import org.nrg.containers.model.dockerhub.DockerHubHealth;
 import org.nrg.containers.model.image.docker.DockerImage;
 import org.nrg.containers.model.image.docker.DockerImageAndCommandSummary;
 import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServerWithPing;
+import org.nrg.containers.model.server.docker.DockerServerHealth;
 import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.DockerHubHealthService;
 import org.nrg.containers.services.DockerHubService;
 import org.nrg.containers.services.DockerServerService;
 import org.nrg.framework.exceptions.NotFoundException;
@@ -43,6 +47,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import java.io.File;
 import java.nio.charset.Charset;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -100,6 +105,8 @@ public class DockerRestApiTest {
     private final DockerServerException DOCKER_SERVER_EXCEPTION =
             new DockerServerException("Your server dun goofed.");
 
+    private final static DockerHubHealth HUB_HEALTH = DockerHubHealth.create(true, new Date());
+
     @Autowired private WebApplicationContext wac;
     @Autowired private ObjectMapper mapper;
     @Autowired private ContainerControlApi mockContainerControlApi;
@@ -107,6 +114,7 @@ public class DockerRestApiTest {
     @Autowired private CommandService mockCommandService;
     @Autowired private UserManagementServiceI mockUserManagementServiceI;
     @Autowired private DockerHubService mockDockerHubService;
+    @Autowired private DockerHubHealthService mockDockerHubHealthService;
     @Autowired private DockerServerService mockDockerServerService;
 
     @Before
@@ -133,6 +141,8 @@ public class DockerRestApiTest {
         doReturn("OK")
                 .when(mockContainerControlApi).pingHub(Mockito.any(DockerHub.class), Mockito.anyString(), Mockito.anyString());
         doReturn(MOCK_CONTAINER_SERVER).when(mockDockerServerService).getServer();
+        when(mockDockerHubHealthService.getHealth(any(DockerHub.class))).thenReturn(HUB_HEALTH);
+        when(mockDockerHubHealthService.refresh(any(DockerHub.class))).thenReturn(HUB_HEALTH);
     }
 
     @Test
@@ -171,6 +181,17 @@ public class DockerRestApiTest {
         assertThat(exceptionResponse, containsString("message"));
     }
 
+    @Test
+    public void testServerWithPingJsonRoundTrip() throws Exception {
+        final DockerServerWithPing serverWithPing = DockerServerWithPing.create(
+                MOCK_CONTAINER_SERVER.updateEventCheckTime(new Date(0)),
+                DockerServerHealth.create(true, new Date(), 12L));
+
+        final DockerServerWithPing deserialized =
+                mapper.readValue(mapper.writeValueAsString(serverWithPing), DockerServerWithPing.class);
+        assertThat(deserialized, is(serverWithPing));
+    }
+
     @Test
     public void testSetServer() throws Exception {
 
@@ -271,8 +292,8 @@ public class DockerRestApiTest {
         final DockerHub privateHub = DockerHub.create(10L, "my hub", "http://localhost", false);
         final List<DockerHub> hubs = Lists.newArrayList(dockerHub, privateHub);
         final List<DockerHubWithPing> hubsWithPing = Lists.newArrayList(
-                DockerHubWithPing.create(dockerHub, true),
-                DockerHubWithPing.create(privateHub, true)
+                DockerHubWithPing.create(dockerHub, HUB_HEALTH),
+                DockerHubWithPing.create(privateHub, HUB_HEALTH)
         );
 
         when(mockDockerHubService.getHubs()).thenReturn(hubs);
@@ -292,9 +313,9 @@ public class DockerRestApiTest {
 
         final long privateHubId = 10L;
         final DockerHub privateHub = DockerHub.create(privateHubId, "my hub", "http://localhost", false);
-        final DockerHubWithPing privateHubWithPing = DockerHubWithPing.create(privateHub, true);
+        final DockerHubWithPing privateHubWithPing = DockerHubWithPing.create(privateHub, HUB_HEALTH);
         final DockerHub defaultHub = DockerHub.DEFAULT;
-        final DockerHubWithPing defaultHubWithPing = DockerHubWithPing.create(defaultHub, true);
+        final DockerHubWithPing defaultHubWithPing = DockerHubWithPing.create(defaultHub, HUB_HEALTH);
         final long defaultHubId = defaultHub.id();
 
         when(mockDockerHubService.getHub(defaultHubId)).thenReturn(defaultHub);
@@ -339,9 +360,9 @@ public class DockerRestApiTest {
 
         final String privateHubName = "my hub";
         final DockerHub privateHub = DockerHub.create(10L, privateHubName, "http://localhost", false);
-        final DockerHubWithPing privateHubWithPing = DockerHubWithPing.create(privateHub, true);
+        final DockerHubWithPing privateHubWithPing = DockerHubWithPing.create(privateHub, HUB_HEALTH);
         final DockerHub defaultHub = DockerHub.DEFAULT;
-        final DockerHubWithPing defaultHubWithPing = DockerHubWithPing.create(defaultHub, true);
+        final DockerHubWithPing defaultHubWithPing = DockerHubWithPing.create(defaultHub, HUB_HEALTH);
         final String defaultHubName = defaultHub.name();
 
         when(mockDockerHubService.getHub(defaultHubName)).thenReturn(defaultHub);
@@ -393,7 +414,7 @@ public class DockerRestApiTest {
         final DockerHub hubToCreate = mapper.readValue(hubToCreateJson, DockerHub.class);
 
         final DockerHub created = DockerHub.create(10L, "a hub name", "http://localhost", false);
-        final DockerHubWithPing createdAndPingged = DockerHubWithPing.create(created, true);
+        final DockerHubWithPing createdAndPingged = DockerHubWithPing.create(created, HUB_HEALTH);
 
         when(mockDockerHubService.create(hubToCreate)).thenReturn(created);
 
@@ -637,7 +658,7 @@ public class DockerRestApiTest {
                         .build();
 
         // Mock out responses
-        doReturn(Lists.newArrayList(imageWithSavedCommand, imageWithNonDbCommandLabels)).when(mockContainerControlApi).getAllImages();
+        doReturn(Lists.newArrayList(imageWithSavedCommand, imageWithNonDbCommandLabels)).when(mockContainerControlApi).getAllImages(MOCK_CONTAINER_SERVER);
         doReturn(null).when(mockContainerControlApi).getImageById(commandWithUnknownImage_imageName);
         when(mockCommandService.getAll()).thenReturn(Lists.newArrayList(commandWithImage, unknownCommand));
 
@@ -21,13 +21,16 @@ import org.mockito.Mockito;
 import org.nrg.containers.api.ContainerControlApi;
 import org.nrg.containers.config.LaunchRestApiTestConfig;
 import org.nrg.containers.exceptions.CommandResolutionException;
+import org.nrg.containers.model.command.auto.BulkResolutionResult;
 import org.nrg.containers.model.command.auto.Command.CommandWrapper;
+import org.nrg.containers.model.command.auto.Command.ConfiguredCommand;
 import org.nrg.containers.model.command.auto.LaunchReport;
 import org.nrg.containers.model.command.auto.LaunchUi;
 import org.nrg.containers.model.command.auto.ResolvedCommand;
 import org.nrg.containers.model.configuration.CommandConfiguration;
 import org.nrg.containers.model.container.auto.Container;
 import org.nrg.containers.model.container.entity.ContainerEntity;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
 import org.nrg.containers.services.CommandResolutionService;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.ContainerEntityService;
@@ -195,7 +198,7 @@ public class LaunchRestApiTest {
         when(mockContainerEntityService.save(containerEntity, mockAdmin)).thenReturn(containerEntity);
 
         // We have to match any resolved command because spring will add a csrf token to the inputs. I don't know how to get that token in advance.
-        when(mockDockerControlApi.createContainerOrSwarmService(any(ResolvedCommand.class), eq(mockAdmin))).thenReturn(CONTAINER);
+        when(mockDockerControlApi.createContainerOrSwarmService(any(ResolvedCommand.class), any(DockerServer.class), eq(mockAdmin))).thenReturn(CONTAINER);
         doNothing().when(mockDockerControlApi).startContainer(any(Container.class));
         // when(mockContainerEntityService.save(any(ResolvedCommand.class), eq(FAKE_CONTAINER_ID), any(String.class), eq(mockAdmin)))
         //         .thenReturn(CONTAINER_ENTITY);
@@ -270,18 +273,19 @@ public class LaunchRestApiTest {
         final String bulkInputJson = mapper.writeValueAsString(bulkInputs);
 
 
-        when(mockCommandResolutionService.resolve(
-                eq(WRAPPER_ID),
-                argThat(isMapWithEntry(INPUT_NAME, INPUT_VALUE)),
-                eq(mockAdmin)
-        )).thenReturn(RESOLVED_COMMAND);
+        final ConfiguredCommand configuredCommand = Mockito.mock(ConfiguredCommand.class);
+        when(mockCommandService.getAndConfigure(WRAPPER_ID)).thenReturn(configuredCommand);
 
         final String exceptionMessage = "uh oh!";
-        when(mockCommandResolutionService.resolve(
-                eq(WRAPPER_ID),
-                argThat(isMapWithEntry(INPUT_NAME, badInputValue)),
+        final List<BulkResolutionResult<ResolvedCommand>> resolutionResults = Lists.newArrayList(
+                BulkResolutionResult.success(0, input1, RESOLVED_COMMAND),
+                BulkResolutionResult.<ResolvedCommand>failure(1, input2, new CommandResolutionException(exceptionMessage))
+        );
+        when(mockCommandResolutionService.resolveAll(
+                eq(configuredCommand),
+                eq(bulkInputs),
                 eq(mockAdmin)
-        )).thenThrow(new CommandResolutionException(exceptionMessage));
+        )).thenReturn(resolutionResults);
 
         final String path = String.format(pathTemplate, WRAPPER_ID);
         final MockHttpServletRequestBuilder request =
@@ -0,0 +1,223 @@
+package org.nrg.containers.services;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.nrg.containers.exceptions.CommandResolutionException;
+import org.nrg.containers.model.CommandEventLaunchCounts;
+import org.nrg.containers.model.CommandEventMapping;
+import org.nrg.containers.model.command.auto.BulkResolutionResult;
+import org.nrg.containers.model.command.auto.Command.CommandWrapper;
+import org.nrg.containers.model.command.auto.Command.ConfiguredCommand;
+import org.nrg.containers.model.command.auto.ResolvedCommand;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.container.auto.Container;
+import org.nrg.containers.model.xnat.Scan;
+import org.nrg.containers.model.xnat.XnatModelObject;
+import org.nrg.containers.services.impl.CommandEventLaunchServiceImpl;
+import org.nrg.framework.exceptions.NotFoundException;
+import org.nrg.xdat.security.services.UserManagementServiceI;
+import org.nrg.xft.security.UserI;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CommandEventLaunchServiceTest {
+    private static final String WRAPPER_NAME = "wrapper";
+    private static final long WRAPPER_ID = 10L;
+    private static final String SUBSCRIPTION_USER = "subscriber";
+    private static final Map<String, String> FIRST_INPUT_VALUES = Collections.singletonMap("scan", "/archive/experiments/E1/scans/1");
+    private static final Map<String, String> SECOND_INPUT_VALUES = Collections.singletonMap("scan", "/archive/experiments/E1/scans/2");
+
+    private ContainerService mockContainerService;
+    private CommandService mockCommandService;
+    private CommandResolutionService mockCommandResolutionService;
+    private ContainerServicePrefsBean mockPrefsBean;
+    private UserManagementServiceI mockUserManagementService;
+    private ConfiguredCommand mockConfiguredCommand;
+    private CommandEventLaunchService commandEventLaunchService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        mockContainerService = Mockito.mock(ContainerService.class);
+        mockCommandService = Mockito.mock(CommandService.class);
+        mockCommandResolutionService = Mockito.mock(CommandResolutionService.class);
+        mockPrefsBean = Mockito.mock(ContainerServicePrefsBean.class);
+        mockUserManagementService = Mockito.mock(UserManagementServiceI.class);
+        when(mockUserManagementService.getUser(SUBSCRIPTION_USER)).thenReturn(Mockito.mock(UserI.class));
+
+        final CommandWrapper mockWrapper = Mockito.mock(CommandWrapper.class);
+        when(mockWrapper.id()).thenReturn(WRAPPER_ID);
+        mockConfiguredCommand = Mockito.mock(ConfiguredCommand.class);
+        when(mockConfiguredCommand.wrapper()).thenReturn(mockWrapper);
+        when(mockCommandService.getAndConfigure(1L, WRAPPER_NAME)).thenReturn(mockConfiguredCommand);
+        when(mockCommandService.getAndConfigure(2L, WRAPPER_NAME)).thenThrow(new NotFoundException("No command 2"));
+        when(mockCommandResolutionService.resolveAll(eq(mockConfiguredCommand), anyList(), any(UserI.class), anyListOf(XnatModelObject.class)))
+                .thenReturn(Collections.singletonList(BulkResolutionResult.success(0, FIRST_INPUT_VALUES, Mockito.mock(ResolvedCommand.class))));
+
+        commandEventLaunchService = new CommandEventLaunchServiceImpl(mockContainerService, mockCommandService,
+                mockCommandResolutionService, mockUserManagementService, mockPrefsBean);
+    }
+
+    @Test
+    public void testLaunchesAreCountedPerMapping() throws Exception {
+        commandEventLaunchService.queueLaunch(mapping(1L, 1L), FIRST_INPUT_VALUES, null, null);
+        commandEventLaunchService.queueLaunch(mapping(1L, 1L), FIRST_INPUT_VALUES, null, null);
+        commandEventLaunchService.queueLaunch(mapping(2L, 2L), FIRST_INPUT_VALUES, null, null);
+
+        final List<CommandEventLaunchCounts> launchCounts = waitForLaunches(3);
+        assertThat(launchCounts, contains(CommandEventLaunchCounts.create(1L, 0, 2, 0, 0),
+                CommandEventLaunchCounts.create(2L, 0, 0, 1, 0)));
+    }
+
+    @Test
+    public void testBatchLaunchesAreCountedPerInputSet() throws Exception {
+        final List<Map<String, String>> inputValuesList = Lists.newArrayList(FIRST_INPUT_VALUES, SECOND_INPUT_VALUES);
+        final List<BulkResolutionResult<ResolvedCommand>> resolutionResults = Lists.newArrayList(
+                BulkResolutionResult.success(0, FIRST_INPUT_VALUES, Mockito.mock(ResolvedCommand.class)),
+                BulkResolutionResult.<ResolvedCommand>failure(1, SECOND_INPUT_VALUES, new CommandResolutionException("Could not resolve")));
+        when(mockCommandResolutionService.resolveAll(eq(mockConfiguredCommand), eq(inputValuesList), any(UserI.class), anyListOf(XnatModelObject.class)))
+                .thenReturn(resolutionResults);
+
+        commandEventLaunchService.queueLaunches(mapping(3L, 1L), inputValuesList, null, null);
+
+        final List<CommandEventLaunchCounts> launchCounts = waitForLaunches(2);
+        assertThat(launchCounts, contains(CommandEventLaunchCounts.create(3L, 0, 1, 1, 0)));
+        verify(mockCommandService, times(1)).getAndConfigure(1L, WRAPPER_NAME);
+        verify(mockContainerService, times(1)).launchResolvedCommand(any(ResolvedCommand.class), any(UserI.class));
+    }
+
+    @Test
+    public void testRepeatedTriggersAreCollapsed() throws Exception {
+        when(mockPrefsBean.getEventLaunchDebounceSeconds()).thenReturn(1);
+
+        commandEventLaunchService.queueLaunch(mapping(4L, 1L), FIRST_INPUT_VALUES, null, "/archive/experiments/E1");
+        commandEventLaunchService.queueLaunch(mapping(4L, 1L), FIRST_INPUT_VALUES, null, "/archive/experiments/E1");
+
+        final List<CommandEventLaunchCounts> launchCounts = waitForLaunches(2);
+        assertThat(launchCounts, contains(CommandEventLaunchCounts.create(4L, 0, 1, 0, 1)));
+        verify(mockContainerService, times(1)).launchResolvedCommand(any(ResolvedCommand.class), any(UserI.class));
+    }
+
+    @Test
+    public void testTriggersAreNotDebouncedWhenTooManyAreWaiting() throws Exception {
+        when(mockPrefsBean.getEventLaunchDebounceSeconds()).thenReturn(60);
+        when(mockPrefsBean.getEventLaunchQueueSize()).thenReturn(1);
+        commandEventLaunchService = new CommandEventLaunchServiceImpl(mockContainerService, mockCommandService,
+                mockCommandResolutionService, mockUserManagementService, mockPrefsBean);
+
+        commandEventLaunchService.queueLaunch(mapping(7L, 1L), FIRST_INPUT_VALUES, null, "/archive/experiments/E1");
+        commandEventLaunchService.queueLaunch(mapping(7L, 1L), SECOND_INPUT_VALUES, null, "/archive/experiments/E2");
+
+        // The first trigger waits out the debounce window. The second finds no room to wait and launches now.
+        final List<CommandEventLaunchCounts> launchCounts = waitForLaunches(1);
+        assertThat(launchCounts, contains(CommandEventLaunchCounts.create(7L, 1, 1, 0, 0)));
+    }
+
+    @Test
+    public void testDebouncedLaunchIsSkippedWhenTheQueueStaysFull() throws Exception {
+        when(mockPrefsBean.getEventLaunchDebounceSeconds()).thenReturn(1);
+        when(mockPrefsBean.getEventLaunchThreads()).thenReturn(1);
+        when(mockPrefsBean.getEventLaunchQueueSize()).thenReturn(1);
+        commandEventLaunchService = new CommandEventLaunchServiceImpl(mockContainerService, mockCommandService,
+                mockCommandResolutionService, mockUserManagementService, mockPrefsBean);
+
+        final CountDownLatch launchStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLaunches = new CountDownLatch(1);
+        when(mockCommandResolutionService.resolveAll(eq(mockConfiguredCommand), anyList(), any(UserI.class), anyListOf(XnatModelObject.class)))
+                .thenAnswer(new Answer<List<BulkResolutionResult<ResolvedCommand>>>() {
+                    @Override
+                    public List<BulkResolutionResult<ResolvedCommand>> answer(final InvocationOnMock invocation) throws Throwable {
+                        launchStarted.countDown();
+                        releaseLaunches.await();
+                        return Collections.singletonList(BulkResolutionResult.success(0, FIRST_INPUT_VALUES, Mockito.mock(ResolvedCommand.class)));
+                    }
+                });
+
+        // Tie up the only launch thread, then fill the queue
+        commandEventLaunchService.queueLaunch(mapping(8L, 1L), FIRST_INPUT_VALUES, null, null);
+        assertThat(launchStarted.await(10, TimeUnit.SECONDS), is(true));
+        commandEventLaunchService.queueLaunch(mapping(8L, 1L), SECOND_INPUT_VALUES, null, null);
+
+        commandEventLaunchService.queueLaunch(mapping(8L, 1L), FIRST_INPUT_VALUES, null, "/archive/experiments/E1");
+        final List<CommandEventLaunchCounts> whileFull = waitForLaunches(1);
+        assertThat(whileFull, contains(CommandEventLaunchCounts.create(8L, 1, 0, 0, 1)));
+
+        releaseLaunches.countDown();
+        final List<CommandEventLaunchCounts> launchCounts = waitForLaunches(3);
+        assertThat(launchCounts, contains(CommandEventLaunchCounts.create(8L, 0, 2, 0, 1)));
+    }
+
+    @Test
+    public void testAlreadyRunningContainerIsNotLaunchedAgain() throws Exception {
+        when(mockPrefsBean.getSkipDuplicateEventLaunches()).thenReturn(true);
+        final Container running = Mockito.mock(Container.class);
+        when(running.wrapperId()).thenReturn(WRAPPER_ID);
+        when(running.getRawInputs()).thenReturn(SECOND_INPUT_VALUES);
+        when(mockContainerService.getAll(true)).thenReturn(Collections.singletonList(running));
+
+        final List<Map<String, String>> inputValuesList = Lists.newArrayList(FIRST_INPUT_VALUES, SECOND_INPUT_VALUES);
+        commandEventLaunchService.queueLaunches(mapping(5L, 1L), inputValuesList, null, null);
+
+        final List<CommandEventLaunchCounts> launchCounts = waitForLaunches(2);
+        assertThat(launchCounts, contains(CommandEventLaunchCounts.create(5L, 0, 1, 0, 1)));
+        verify(mockCommandResolutionService, times(1)).resolveAll(eq(mockConfiguredCommand),
+                eq(Collections.singletonList(FIRST_INPUT_VALUES)), any(UserI.class), anyListOf(XnatModelObject.class));
+    }
+
+    @Test
+    public void testPrebuiltModelObjectsAreUsedForTheirLaunchOnly() throws Exception {
+        final Scan scan = Mockito.mock(Scan.class);
+        commandEventLaunchService.queueLaunches(mapping(6L, 1L), Collections.singletonList(FIRST_INPUT_VALUES), null, null,
+                Collections.singletonList(scan));
+        commandEventLaunchService.queueLaunch(mapping(6L, 1L), SECOND_INPUT_VALUES, null, null);
+
+        waitForLaunches(2);
+        verify(mockCommandResolutionService, times(1)).resolveAll(eq(mockConfiguredCommand),
+                eq(Collections.singletonList(FIRST_INPUT_VALUES)), any(UserI.class), eq(Collections.singletonList(scan)));
+        verify(mockCommandResolutionService, times(1)).resolveAll(eq(mockConfiguredCommand),
+                eq(Collections.singletonList(SECOND_INPUT_VALUES)), any(UserI.class), eq(Collections.<XnatModelObject>emptyList()));
+    }
+
+    private CommandEventMapping mapping(final long mappingId, final long commandId) {
+        final CommandEventMapping commandEventMapping = new CommandEventMapping();
+        commandEventMapping.setId(mappingId);
+        commandEventMapping.setCommandId(commandId);
+        commandEventMapping.setXnatCommandWrapperName(WRAPPER_NAME);
+        commandEventMapping.setSubscriptionUserName(SUBSCRIPTION_USER);
+        return commandEventMapping;
+    }
+
+    private List<CommandEventLaunchCounts> waitForLaunches(final long expected) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000L;
+        while (true) {
+            final List<CommandEventLaunchCounts> launchCounts = commandEventLaunchService.getLaunchCounts();
+            long finished = 0;
+            for (final CommandEventLaunchCounts counts : launchCounts) {
+                finished += counts.succeeded() + counts.failed() + counts.skipped();
+            }
+            if (finished >= expected || System.currentTimeMillis() > deadline) {
+                return launchCounts;
+            }
+            Thread.sleep(10L);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.nrg.containers.services;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nrg.containers.config.CommandEventMappingTestConfig;
+import org.nrg.containers.model.CommandEventMapping;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@Transactional
+@ContextConfiguration(classes = CommandEventMappingTestConfig.class)
+public class CommandEventMappingServiceTest {
+    private static final String PROJECT = "project";
+    private static final String OTHER_PROJECT = "other-project";
+
+    @Autowired private CommandEventMappingService commandEventMappingService;
+
+    @Test
+    public void testSiteWideMappingsComeBeforeProjectMappings() throws Exception {
+        // Each test uses its own event type, since committed mappings outlive the test
+        final String eventType = "ordering";
+        create(eventType, 1L, PROJECT);
+        create(eventType, 2L, null);
+        create(eventType, 3L, OTHER_PROJECT);
+        create("another event", 4L, null);
+        commit();
+
+        assertThat(commandIds(commandEventMappingService.getEnabledMappings(eventType, PROJECT)), contains(2L, 1L));
+        assertThat(commandIds(commandEventMappingService.getEnabledMappings(eventType, OTHER_PROJECT)), contains(2L, 3L));
+        assertThat(commandIds(commandEventMappingService.getEnabledMappings(eventType, null)), contains(2L));
+        assertThat(commandEventMappingService.getEnabledMappings("no mappings", PROJECT), is(empty()));
+        assertThat(commandEventMappingService.getEnabledMappings(null, PROJECT), is(empty()));
+    }
+
+    @Test
+    public void testIndexIsRefreshedOnEveryChange() throws Exception {
+        final String eventType = "changes";
+        assertThat(commandEventMappingService.getEnabledMappings(eventType, PROJECT), is(empty()));
+
+        final long id = create(eventType, 1L, PROJECT).getId();
+        commit();
+        assertThat(commandIds(commandEventMappingService.getEnabledMappings(eventType, PROJECT)), contains(1L));
+
+        commandEventMappingService.disable(id);
+        commit();
+        assertThat(commandEventMappingService.getEnabledMappings(eventType, PROJECT), is(empty()));
+
+        commandEventMappingService.enable(id);
+        commit();
+        assertThat(commandIds(commandEventMappingService.getEnabledMappings(eventType, PROJECT)), contains(1L));
+
+        final CommandEventMapping toUpdate = commandEventMappingService.retrieve(id);
+        toUpdate.setProjectId(OTHER_PROJECT);
+        commandEventMappingService.update(toUpdate);
+        commit();
+        assertThat(commandEventMappingService.getEnabledMappings(eventType, PROJECT), is(empty()));
+        assertThat(commandIds(commandEventMappingService.getEnabledMappings(eventType, OTHER_PROJECT)), contains(1L));
+
+        commandEventMappingService.delete(id);
+        commit();
+        assertThat(commandEventMappingService.getEnabledMappings(eventType, OTHER_PROJECT), is(empty()));
+    }
+
+    @Test
+    public void testEnabledMappingsAreDetachedCopies() throws Exception {
+        final String eventType = "copies";
+        final long id = create(eventType, 1L, PROJECT).getId();
+        commit();
+
+        final CommandEventMapping first = commandEventMappingService.getEnabledMappings(eventType, PROJECT).get(0);
+        assertThat(first.getId(), is(id));
+        assertThat(first, is(not(sameInstance(commandEventMappingService.retrieve(id)))));
+
+        // Changing a returned mapping changes neither the index nor the stored mapping
+        first.setCommandId(2L);
+        assertThat(commandIds(commandEventMappingService.getEnabledMappings(eventType, PROJECT)), contains(1L));
+        assertThat(commandEventMappingService.retrieve(id).getCommandId(), is(1L));
+    }
+
+    private CommandEventMapping create(final String eventType, final long commandId, final String projectId) {
+        final CommandEventMapping mapping = new CommandEventMapping();
+        mapping.setEventType(eventType);
+        mapping.setCommandId(commandId);
+        mapping.setXnatCommandWrapperName("wrapper");
+        mapping.setProjectId(projectId);
+        mapping.setSubscriptionUserName("admin");
+        mapping.setEnabled(true);
+        return commandEventMappingService.create(mapping);
+    }
+
+    private List<Long> commandIds(final List<CommandEventMapping> mappings) {
+        final List<Long> commandIds = Lists.newArrayList();
+        for (final CommandEventMapping mapping : mappings) {
+            commandIds.add(mapping.getCommandId());
+        }
+        return commandIds;
+    }
+
+    private void commit() {
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TestTransaction.start();
+    }
+}
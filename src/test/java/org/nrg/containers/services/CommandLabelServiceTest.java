@@ -43,4 +43,23 @@ public class CommandLabelServiceTest {
         assertThat(commandsFromLabels, hasSize(1));
         assertThat(commandsFromLabels.get(0).name(), is(commandName));
     }
+
+    @Test
+    public void testCachedLabelsTakeTheRequestedImageName() throws Exception {
+        final Command command = Command.builder()
+                .name("cached command")
+                .build();
+
+        final String dockerImageLabel = objectMapper.writeValueAsString(Collections.singletonList(command));
+        final DockerImage dockerImage = DockerImage.builder()
+                .imageId("cached image id")
+                .addLabel(CommandLabelService.LABEL_KEY, dockerImageLabel)
+                .build();
+
+        final List<Command> first = commandLabelService.parseLabels("first:1.0", dockerImage);
+        final List<Command> second = commandLabelService.parseLabels("second:1.0", dockerImage);
+        assertThat(first.get(0).image(), is("first:1.0"));
+        assertThat(second.get(0).image(), is("second:1.0"));
+        assertThat(second.get(0).hash(), is("cached image id"));
+    }
 }
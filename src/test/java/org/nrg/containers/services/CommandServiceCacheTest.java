@@ -0,0 +1,182 @@
+package org.nrg.containers.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.nrg.containers.model.CommandCacheStatistics;
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.command.auto.Command.CommandWrapper;
+import org.nrg.containers.model.command.auto.Command.CommandWrapperExternalInput;
+import org.nrg.containers.model.command.auto.CommandSummaryForContext;
+import org.nrg.containers.model.command.entity.CommandEntity;
+import org.nrg.containers.services.impl.CommandServiceImpl;
+import org.nrg.framework.exceptions.NotFoundException;
+import org.nrg.xft.security.UserI;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CommandServiceCacheTest {
+    private static final long COMMAND_ID = 1L;
+    private static final long WRAPPER_ID = 10L;
+    private static final String MR_SESSION = "xnat:mrSessionData";
+    private static final String IMAGE_SESSION = "xnat:imageSessionData";
+
+    private CommandEntityService mockCommandEntityService;
+    private XsiTypeHierarchyService mockXsiTypeHierarchyService;
+    private CommandService commandService;
+    private Command command;
+
+    @Before
+    public void setup() throws Exception {
+        mockCommandEntityService = Mockito.mock(CommandEntityService.class);
+        mockXsiTypeHierarchyService = Mockito.mock(XsiTypeHierarchyService.class);
+        commandService = new CommandServiceImpl(mockCommandEntityService, Mockito.mock(ContainerConfigService.class),
+                mockXsiTypeHierarchyService);
+
+        command = Command.builder()
+                .id(COMMAND_ID)
+                .name("aCommand")
+                .type("docker")
+                .image("an/image:latest")
+                .addCommandWrapper(CommandWrapper.builder()
+                        .id(WRAPPER_ID)
+                        .name("aWrapper")
+                        .contexts(IMAGE_SESSION)
+                        .addExternalInput(CommandWrapperExternalInput.builder().name("session").type("Session").build())
+                        .build())
+                .build();
+        when(mockCommandEntityService.getCommandByWrapperId(WRAPPER_ID)).thenReturn(CommandEntity.fromPojo(command));
+        when(mockCommandEntityService.retrieve(COMMAND_ID)).thenReturn(CommandEntity.fromPojo(command));
+        when(mockCommandEntityService.getAll()).thenReturn(Collections.singletonList(CommandEntity.fromPojo(command)));
+
+        when(mockXsiTypeHierarchyService.isA(MR_SESSION, IMAGE_SESSION)).thenReturn(true);
+        when(mockXsiTypeHierarchyService.isKnown(MR_SESSION)).thenReturn(true);
+    }
+
+    @Test
+    public void testRepeatedReadsAreServedFromCache() throws Exception {
+        final CommandWrapper first = commandService.getWrapper(WRAPPER_ID);
+        final CommandWrapper second = commandService.getWrapper(WRAPPER_ID);
+        commandService.retrieve(COMMAND_ID);
+        commandService.retrieve(COMMAND_ID);
+
+        assertThat(second, is(first));
+        verify(mockCommandEntityService, times(1)).getCommandByWrapperId(WRAPPER_ID);
+        verify(mockCommandEntityService, times(1)).retrieve(COMMAND_ID);
+
+        final CommandCacheStatistics statistics = commandService.getCacheStatistics();
+        assertThat(statistics.hits(), is(2L));
+        assertThat(statistics.misses(), is(2L));
+    }
+
+    @Test
+    public void testWritesEvictCachedCommands() throws Exception {
+        commandService.getWrapper(WRAPPER_ID);
+        commandService.deleteWrapper(WRAPPER_ID);
+        commandService.getWrapper(WRAPPER_ID);
+
+        verify(mockCommandEntityService, times(2)).getCommandByWrapperId(WRAPPER_ID);
+        assertThat(commandService.getCacheStatistics().evictions(), is(1L));
+    }
+
+    @Test
+    public void testValuesLoadedDuringAWriteAreNotCached() throws Exception {
+        final CommandEntity before = CommandEntity.fromPojo(command);
+        when(mockCommandEntityService.retrieve(COMMAND_ID)).thenAnswer(new Answer<CommandEntity>() {
+            private boolean first = true;
+
+            @Override
+            public CommandEntity answer(final InvocationOnMock invocation) {
+                if (first) {
+                    // Another thread writes, and invalidates the caches, while this read is in progress
+                    first = false;
+                    commandService.deleteWrapper(WRAPPER_ID);
+                }
+                return before;
+            }
+        });
+
+        commandService.retrieve(COMMAND_ID);
+        commandService.retrieve(COMMAND_ID);
+        commandService.retrieve(COMMAND_ID);
+
+        // The first read may have seen the commands as they were before the write, so it is read again
+        verify(mockCommandEntityService, times(3)).retrieve(COMMAND_ID);
+    }
+
+    @Test
+    public void testLaunchableWrappersAreIndexedByKnownXsiType() throws Exception {
+        final UserI user = Mockito.mock(UserI.class);
+        final List<CommandSummaryForContext> first = commandService.available(MR_SESSION, user);
+        final List<CommandSummaryForContext> second = commandService.available(MR_SESSION, user);
+
+        assertThat(first, hasSize(1));
+        assertThat(second, is(first));
+        verify(mockCommandEntityService, times(1)).getAll();
+        verify(mockXsiTypeHierarchyService, times(1)).isA(MR_SESSION, IMAGE_SESSION);
+    }
+
+    @Test
+    public void testUnknownXsiTypesAreNotIndexed() throws Exception {
+        final UserI user = Mockito.mock(UserI.class);
+        assertThat(commandService.available("made:upData", user), is(empty()));
+        assertThat(commandService.available("made:upData", user), is(empty()));
+
+        // The wrappers are checked again each time, rather than being kept for a type XFT does not know
+        verify(mockXsiTypeHierarchyService, times(2)).isA("made:upData", IMAGE_SESSION);
+    }
+
+    @Test
+    public void testWritesRebuildTheIndex() throws Exception {
+        final UserI user = Mockito.mock(UserI.class);
+        commandService.available(MR_SESSION, user);
+        commandService.deleteWrapper(WRAPPER_ID);
+        commandService.available(MR_SESSION, user);
+
+        verify(mockCommandEntityService, times(2)).getAll();
+        verify(mockXsiTypeHierarchyService, times(2)).isA(MR_SESSION, IMAGE_SESSION);
+    }
+
+    @Test
+    public void testIndexBuiltDuringAWriteIsRebuilt() throws Exception {
+        final List<CommandEntity> before = Collections.singletonList(CommandEntity.fromPojo(command));
+        when(mockCommandEntityService.getAll()).thenAnswer(new Answer<List<CommandEntity>>() {
+            private boolean first = true;
+
+            @Override
+            public List<CommandEntity> answer(final InvocationOnMock invocation) {
+                if (first) {
+                    // Another thread writes while the index is being built from the old commands
+                    first = false;
+                    commandService.deleteWrapper(WRAPPER_ID);
+                }
+                return before;
+            }
+        });
+
+        final UserI user = Mockito.mock(UserI.class);
+        commandService.available(MR_SESSION, user);
+        commandService.available(MR_SESSION, user);
+        commandService.available(MR_SESSION, user);
+
+        verify(mockCommandEntityService, times(2)).getAll();
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testMissingWrapperIsNotFound() throws Exception {
+        when(mockCommandEntityService.getCommandByWrapperId(WRAPPER_ID + 1))
+                .thenThrow(new NotFoundException("No command with wrapper with id " + (WRAPPER_ID + 1)));
+        commandService.getWrapper(WRAPPER_ID + 1);
+    }
+}
@@ -0,0 +1,104 @@
+package org.nrg.containers.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.container.auto.Container;
+import org.nrg.containers.model.container.entity.ContainerEntity;
+import org.nrg.containers.services.impl.ContainerReaperServiceImpl;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ContainerReaperServiceTest {
+    private ContainerControlApi mockControlApi;
+    private ContainerEntityService mockContainerEntityService;
+    private ContainerServicePrefsBean mockPrefsBean;
+    private ContainerReaperService containerReaperService;
+
+    @Before
+    public void setup() {
+        mockControlApi = Mockito.mock(ContainerControlApi.class);
+        mockContainerEntityService = Mockito.mock(ContainerEntityService.class);
+        mockPrefsBean = Mockito.mock(ContainerServicePrefsBean.class);
+        when(mockPrefsBean.getRemoveFinishedContainers()).thenReturn(true);
+        when(mockPrefsBean.getKeepFailedContainers()).thenReturn(true);
+        containerReaperService = new ContainerReaperServiceImpl(mockControlApi, mockContainerEntityService, mockPrefsBean);
+    }
+
+    @Test
+    public void testFinishedContainerIsRemovedAndRecorded() throws Exception {
+        final ContainerEntity complete = entity("Complete");
+        when(mockContainerEntityService.getFinalizedNotRemovedFromServer(any(Date.class), anyBoolean(), anyInt()))
+                .thenReturn(Collections.singletonList(complete));
+
+        final long before = System.currentTimeMillis();
+        when(mockPrefsBean.getRemoveFinishedContainersAfterMinutes()).thenReturn(0);
+        containerReaperService.sweep();
+
+        verify(mockControlApi).removeContainerOrService(any(Container.class));
+        verify(mockContainerEntityService).update(complete);
+        assertThat(complete.getRemovedFromServer(), is(true));
+
+        final ArgumentCaptor<Date> finishedBefore = ArgumentCaptor.forClass(Date.class);
+        verify(mockContainerEntityService).getFinalizedNotRemovedFromServer(finishedBefore.capture(), eq(false), anyInt());
+        assertThat(before, lessThanOrEqualTo(finishedBefore.getValue().getTime()));
+    }
+
+    @Test
+    public void testContainerIsKeptForRetryWhenRemovalFails() throws Exception {
+        final ContainerEntity complete = entity("Complete");
+        when(mockContainerEntityService.getFinalizedNotRemovedFromServer(any(Date.class), anyBoolean(), anyInt()))
+                .thenReturn(Collections.singletonList(complete));
+        doThrow(new DockerServerException("unreachable")).when(mockControlApi).removeContainerOrService(any(Container.class));
+
+        containerReaperService.sweep();
+
+        verify(mockContainerEntityService, never()).update(any(ContainerEntity.class));
+        assertThat(complete.getRemovedFromServer(), is(nullValue()));
+    }
+
+    @Test
+    public void testFailedContainersAreIncludedWhenNotKept() throws Exception {
+        when(mockPrefsBean.getKeepFailedContainers()).thenReturn(false);
+        containerReaperService.sweep();
+
+        verify(mockContainerEntityService).getFinalizedNotRemovedFromServer(any(Date.class), eq(true), anyInt());
+    }
+
+    @Test
+    public void testNothingIsRemovedWhenDisabled() throws Exception {
+        when(mockPrefsBean.getRemoveFinishedContainers()).thenReturn(false);
+        containerReaperService.sweep();
+
+        verify(mockContainerEntityService, never()).getFinalizedNotRemovedFromServer(any(Date.class), anyBoolean(), anyInt());
+        verify(mockControlApi, never()).removeContainerOrService(any(Container.class));
+    }
+
+    private static ContainerEntity entity(final String status) {
+        final ContainerEntity entity = new ContainerEntity();
+        entity.setContainerId("abc123");
+        entity.setUserId("aUser");
+        entity.setDockerImage("an/image:latest");
+        entity.setCommandLine("echo hello");
+        entity.setStatus(status);
+        return entity;
+    }
+}
@@ -0,0 +1,98 @@
+package org.nrg.containers.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
+import org.nrg.containers.model.dockerhub.DockerHubHealth;
+import org.nrg.containers.services.impl.DockerHubHealthServiceImpl;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DockerHubHealthServiceTest {
+    private static final DockerHub HUB = DockerHub.create(10L, "my hub", "http://localhost", false);
+
+    private ContainerControlApi mockControlApi;
+    private DockerHubHealthService dockerHubHealthService;
+
+    @Before
+    public void setup() {
+        mockControlApi = Mockito.mock(ContainerControlApi.class);
+        final ContainerServicePrefsBean mockPrefsBean = Mockito.mock(ContainerServicePrefsBean.class);
+        when(mockPrefsBean.getDockerHubPingTtlSeconds()).thenReturn(60);
+        when(mockPrefsBean.getDockerHubPingTimeoutSeconds()).thenReturn(1);
+        dockerHubHealthService = new DockerHubHealthServiceImpl(mockControlApi,
+                Mockito.mock(DockerHubService.class), mockPrefsBean);
+    }
+
+    @Test
+    public void testHealthIsCachedWithinTtl() throws Exception {
+        when(mockControlApi.pingHub(HUB)).thenReturn("OK");
+
+        final DockerHubHealth refreshed = dockerHubHealthService.refresh(HUB);
+
+        assertThat(refreshed.ping(), is(true));
+        assertThat(dockerHubHealthService.getHealth(HUB), is(sameInstance(refreshed)));
+        verify(mockControlApi, times(1)).pingHub(HUB);
+    }
+
+    @Test
+    public void testSlowHubTimesOut() throws Exception {
+        when(mockControlApi.pingHub(HUB)).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(final InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(10000L);
+                return "OK";
+            }
+        });
+
+        final long start = System.currentTimeMillis();
+        final DockerHubHealth refreshed = dockerHubHealthService.refresh(HUB);
+
+        assertThat(refreshed.ping(), is(false));
+        assertThat(System.currentTimeMillis() - start, is(lessThan(5000L)));
+    }
+
+    @Test
+    public void testHubIsNotPingedAgainUntilItsLastPingReturns() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        when(mockControlApi.pingHub(HUB)).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(final InvocationOnMock invocation) throws Throwable {
+                release.await();
+                return "OK";
+            }
+        });
+
+        try {
+            assertThat(dockerHubHealthService.refresh(HUB).ping(), is(false));
+            assertThat(dockerHubHealthService.refresh(HUB).ping(), is(false));
+            verify(mockControlApi, times(1)).pingHub(HUB);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testForgottenHubHasNoHealth() throws Exception {
+        when(mockControlApi.pingHub(HUB)).thenReturn("OK");
+
+        dockerHubHealthService.refresh(HUB);
+        dockerHubHealthService.forget(HUB.id());
+
+        assertThat(dockerHubHealthService.getHealth(HUB), is(nullValue()));
+    }
+}
@@ -0,0 +1,117 @@
+package org.nrg.containers.services;
+
+import com.google.common.collect.Lists;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeMatcher;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.DockerServerHealth;
+import org.nrg.containers.services.impl.DockerServerHealthServiceImpl;
+import org.nrg.xft.schema.XFTManager;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(XFTManager.class)
+@PowerMockIgnore({"org.apache.*", "java.*", "javax.*", "org.w3c.*", "com.sun.*"})
+public class DockerServerHealthServiceTest {
+    private static final DockerServer DEFAULT = server(1L, "default");
+    private static final DockerServer OTHER = server(2L, "other");
+
+    private ContainerControlApi mockControlApi;
+    private DockerServerService mockDockerServerService;
+    private DockerServerPlacementService mockDockerServerPlacementService;
+    private DockerServerHealthService dockerServerHealthService;
+
+    @Before
+    public void setup() {
+        mockControlApi = Mockito.mock(ContainerControlApi.class);
+        mockDockerServerService = Mockito.mock(DockerServerService.class);
+        mockDockerServerPlacementService = Mockito.mock(DockerServerPlacementService.class);
+        final ContainerServicePrefsBean mockPrefsBean = Mockito.mock(ContainerServicePrefsBean.class);
+        when(mockPrefsBean.getDockerServerPingTtlSeconds()).thenReturn(60);
+        dockerServerHealthService = new DockerServerHealthServiceImpl(mockControlApi,
+                mockDockerServerService, mockDockerServerPlacementService, mockPrefsBean);
+    }
+
+    @Test
+    public void testHealthIsCachedWithinTtl() {
+        when(mockControlApi.canConnect()).thenReturn(true);
+
+        final DockerServerHealth first = dockerServerHealthService.getHealth();
+        final DockerServerHealth second = dockerServerHealthService.getHealth();
+
+        assertThat(first.ping(), is(true));
+        assertThat(second, is(sameInstance(first)));
+        verify(mockControlApi, times(1)).canConnect();
+    }
+
+    @Test
+    public void testRefreshPingsAgain() {
+        when(mockControlApi.canConnect()).thenReturn(true).thenReturn(false);
+
+        final DockerServerHealth first = dockerServerHealthService.getHealth();
+        final DockerServerHealth refreshed = dockerServerHealthService.refresh();
+
+        assertThat(refreshed, is(not(sameInstance(first))));
+        assertThat(refreshed.ping(), is(false));
+        assertThat(dockerServerHealthService.getHealth(), is(sameInstance(refreshed)));
+        verify(mockControlApi, times(2)).canConnect();
+    }
+
+    @Test
+    public void testEveryEnabledServerIsPingedForPlacement() throws Exception {
+        mockStatic(XFTManager.class);
+        when(XFTManager.isInitialized()).thenReturn(true);
+        when(mockDockerServerService.getServer()).thenReturn(DEFAULT);
+        when(mockDockerServerService.getEnabledServers()).thenReturn(Lists.newArrayList(DEFAULT, OTHER));
+        when(mockControlApi.canConnect()).thenReturn(true);
+        when(mockControlApi.canConnect(OTHER)).thenReturn(false);
+
+        dockerServerHealthService.refreshInBackground();
+        dockerServerHealthService.refreshInBackground();
+
+        // The second refresh is within the TTL, so it pings nothing
+        verify(mockControlApi, times(1)).canConnect();
+        verify(mockControlApi, times(1)).canConnect(OTHER);
+        verify(mockDockerServerPlacementService).recordHealth(eq(OTHER.id().longValue()), argThat(pinged(false)));
+        verify(mockDockerServerPlacementService, times(2)).recordHealth(eq(DEFAULT.id().longValue()), any(DockerServerHealth.class));
+    }
+
+    private static Matcher<DockerServerHealth> pinged(final boolean ping) {
+        return new TypeSafeMatcher<DockerServerHealth>() {
+            @Override
+            protected boolean matchesSafely(final DockerServerHealth health) {
+                return health.ping() == ping;
+            }
+
+            @Override
+            public void describeTo(final Description description) {
+                description.appendText("a ping that " + (ping ? "succeeded" : "failed"));
+            }
+        };
+    }
+
+    private static DockerServer server(final long id, final String name) {
+        return DockerServer.create(id, name, "tcp://" + name + ":2376", null, false, null, null, null, null);
+    }
+}
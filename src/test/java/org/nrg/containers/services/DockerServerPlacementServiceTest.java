@@ -0,0 +1,118 @@
+package org.nrg.containers.services;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.model.server.docker.DockerServerHealth;
+import org.nrg.containers.model.server.docker.DockerServerLoad;
+import org.nrg.containers.services.impl.DockerServerPlacementServiceImpl;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+public class DockerServerPlacementServiceTest {
+    private static final DockerServer FIRST = server(1L, "first");
+    private static final DockerServer SECOND = server(2L, "second");
+    private static final DockerServer THIRD = server(3L, "third");
+
+    private DockerServerService mockDockerServerService;
+    private ContainerEntityService mockContainerEntityService;
+    private ContainerServicePrefsBean mockPrefsBean;
+    private DockerServerPlacementService dockerServerPlacementService;
+
+    @Before
+    public void setup() throws Exception {
+        mockDockerServerService = Mockito.mock(DockerServerService.class);
+        mockContainerEntityService = Mockito.mock(ContainerEntityService.class);
+        mockPrefsBean = Mockito.mock(ContainerServicePrefsBean.class);
+        when(mockDockerServerService.getServer()).thenReturn(FIRST);
+        when(mockDockerServerService.getEnabledServers()).thenReturn(Lists.newArrayList(FIRST, SECOND, THIRD));
+        dockerServerPlacementService = new DockerServerPlacementServiceImpl(mockDockerServerService,
+                mockContainerEntityService, mockPrefsBean);
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception {
+        assertThat(dockerServerPlacementService.chooseServer(), is(FIRST));
+        assertThat(dockerServerPlacementService.chooseServer(), is(SECOND));
+        assertThat(dockerServerPlacementService.chooseServer(), is(THIRD));
+        assertThat(dockerServerPlacementService.chooseServer(), is(FIRST));
+    }
+
+    @Test
+    public void testLeastContainers() throws Exception {
+        when(mockPrefsBean.getDockerServerPlacement()).thenReturn(DockerServerPlacementServiceImpl.LEAST_CONTAINERS);
+        // Containers without a server count against the default server
+        when(mockContainerEntityService.getNonfinalizedLoadByServer()).thenReturn(Lists.newArrayList(
+                DockerServerLoad.create(null, 2L, 0L),
+                DockerServerLoad.create(2L, 1L, 0L),
+                DockerServerLoad.create(3L, 3L, 0L)));
+
+        assertThat(dockerServerPlacementService.chooseServer(), is(SECOND));
+    }
+
+    @Test
+    public void testLeastReservedMemory() throws Exception {
+        when(mockPrefsBean.getDockerServerPlacement()).thenReturn(DockerServerPlacementServiceImpl.LEAST_RESERVED_MEMORY);
+        when(mockContainerEntityService.getNonfinalizedLoadByServer()).thenReturn(Lists.newArrayList(
+                DockerServerLoad.create(1L, 1L, 4096L),
+                DockerServerLoad.create(2L, 1L, 8192L),
+                DockerServerLoad.create(3L, 5L, 1024L)));
+
+        assertThat(dockerServerPlacementService.chooseServer(), is(THIRD));
+    }
+
+    @Test
+    public void testTiesAreUsedInTurn() throws Exception {
+        when(mockPrefsBean.getDockerServerPlacement()).thenReturn(DockerServerPlacementServiceImpl.LEAST_CONTAINERS);
+        when(mockContainerEntityService.getNonfinalizedLoadByServer()).thenReturn(Collections.<DockerServerLoad>emptyList());
+
+        assertThat(dockerServerPlacementService.chooseServer(), is(FIRST));
+        assertThat(dockerServerPlacementService.chooseServer(), is(SECOND));
+    }
+
+    @Test
+    public void testServersThatDoNotAnswerAreSkipped() throws Exception {
+        dockerServerPlacementService.recordHealth(SECOND.id(), DockerServerHealth.create(false, new Date(), 0L));
+        dockerServerPlacementService.recordHealth(THIRD.id(), DockerServerHealth.create(true, new Date(), 0L));
+
+        assertThat(dockerServerPlacementService.chooseServer(), is(FIRST));
+        assertThat(dockerServerPlacementService.chooseServer(), is(THIRD));
+        assertThat(dockerServerPlacementService.chooseServer(), is(FIRST));
+
+        // Least loaded, even though the unreachable server has no load
+        when(mockPrefsBean.getDockerServerPlacement()).thenReturn(DockerServerPlacementServiceImpl.LEAST_CONTAINERS);
+        when(mockContainerEntityService.getNonfinalizedLoadByServer()).thenReturn(Lists.newArrayList(
+                DockerServerLoad.create(1L, 2L, 0L),
+                DockerServerLoad.create(3L, 1L, 0L)));
+        assertThat(dockerServerPlacementService.chooseServer(), is(THIRD));
+    }
+
+    @Test
+    public void testAllServersAreUsedWhenNoneAnswer() throws Exception {
+        for (final DockerServer server : Lists.newArrayList(FIRST, SECOND, THIRD)) {
+            dockerServerPlacementService.recordHealth(server.id(), DockerServerHealth.create(false, new Date(), 0L));
+        }
+
+        assertThat(dockerServerPlacementService.chooseServer(), is(FIRST));
+        assertThat(dockerServerPlacementService.chooseServer(), is(SECOND));
+    }
+
+    @Test
+    public void testOnlyServerIsTheDefault() throws Exception {
+        when(mockDockerServerService.getEnabledServers()).thenReturn(Collections.<DockerServer>emptyList());
+
+        assertThat(dockerServerPlacementService.chooseServer(), is(FIRST));
+    }
+
+    private static DockerServer server(final long id, final String name) {
+        return DockerServer.create(id, name, "tcp://" + name + ":2376", null, false, null, null, null, null);
+    }
+}
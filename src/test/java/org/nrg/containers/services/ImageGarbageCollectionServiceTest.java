@@ -0,0 +1,164 @@
+package org.nrg.containers.services;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.model.command.auto.Command;
+import org.nrg.containers.model.command.auto.Command.CommandWrapper;
+import org.nrg.containers.model.command.auto.Command.CommandWrapperExternalInput;
+import org.nrg.containers.model.command.auto.Command.CommandWrapperOutput;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.ImageGarbageCollectionReport;
+import org.nrg.containers.services.impl.ImageGarbageCollectionServiceImpl;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ImageGarbageCollectionServiceTest {
+    private static final long GB = 1024L * 1024L * 1024L;
+    private static final long WRAPPER_ID = 10L;
+    private static final long DISABLED_WRAPPER_ID = 20L;
+
+    private static final DockerImage COMMAND_IMAGE = image("sha256:command", "xnat/command:1.0");
+    private static final DockerImage RECENT_IMAGE = image("sha256:recent", "xnat/recent:latest");
+    private static final DockerImage OLD_IMAGE = image("sha256:old", "xnat/old:1.0");
+    private static final DockerImage NEVER_USED_IMAGE = image("sha256:never", "xnat/never:1.0");
+    private static final DockerImage SETUP_IMAGE = image("sha256:setup", "xnat/setup:1.0");
+    private static final DockerImage WRAPUP_IMAGE = image("sha256:wrapup", "xnat/wrapup:latest");
+
+    private ContainerControlApi mockControlApi;
+    private CommandService mockCommandService;
+    private ImageGarbageCollectionService imageGarbageCollectionService;
+
+    @Before
+    public void setup() throws Exception {
+        mockControlApi = Mockito.mock(ContainerControlApi.class);
+        when(mockControlApi.getAllImages()).thenReturn(Lists.newArrayList(COMMAND_IMAGE, RECENT_IMAGE, OLD_IMAGE, NEVER_USED_IMAGE));
+
+        mockCommandService = Mockito.mock(CommandService.class);
+        when(mockCommandService.getAll()).thenReturn(Collections.singletonList(Command.builder()
+                .name("command")
+                .image("xnat/command:1.0")
+                .addCommandWrapper(CommandWrapper.builder().id(WRAPPER_ID).name("wrapper").build())
+                .build()));
+        final ContainerConfigService mockContainerConfigService = Mockito.mock(ContainerConfigService.class);
+        when(mockContainerConfigService.isEnabledForSite(WRAPPER_ID)).thenReturn(true);
+
+        final Map<String, Date> lastLaunchTimes = new HashMap<>();
+        lastLaunchTimes.put("xnat/recent", new Date());
+        lastLaunchTimes.put("xnat/old:1.0", new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(100)));
+        final ContainerEntityService mockContainerEntityService = Mockito.mock(ContainerEntityService.class);
+        when(mockContainerEntityService.getLastLaunchTimesByImage()).thenReturn(lastLaunchTimes);
+
+        final ContainerServicePrefsBean mockPrefsBean = Mockito.mock(ContainerServicePrefsBean.class);
+        when(mockPrefsBean.getImageGcHighWaterMarkGb()).thenReturn(2);
+
+        imageGarbageCollectionService = new ImageGarbageCollectionServiceImpl(mockControlApi, mockCommandService,
+                mockContainerConfigService, mockContainerEntityService, mockPrefsBean);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedImagesAreRemovedFirst() throws Exception {
+        final ImageGarbageCollectionReport report = imageGarbageCollectionService.collect(false);
+
+        assertThat(report.totalBytes(), is(4 * GB));
+        assertThat(report.removed(), contains(NEVER_USED_IMAGE, OLD_IMAGE));
+        assertThat(report.removedBytes(), is(2 * GB));
+        verify(mockControlApi).deleteImageById("sha256:never", false);
+        verify(mockControlApi).deleteImageById("sha256:old", false);
+    }
+
+    @Test
+    public void testDryRunRemovesNothing() throws Exception {
+        final ImageGarbageCollectionReport report = imageGarbageCollectionService.collect(true);
+
+        assertThat(report.dryRun(), is(true));
+        assertThat(report.removed(), contains(NEVER_USED_IMAGE, OLD_IMAGE));
+        verify(mockControlApi, never()).deleteImageById(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void testSetupAndWrapupImagesOfEnabledWrappersAreKept() throws Exception {
+        when(mockControlApi.getAllImages()).thenReturn(Lists.newArrayList(COMMAND_IMAGE, SETUP_IMAGE, WRAPUP_IMAGE, OLD_IMAGE, NEVER_USED_IMAGE));
+        when(mockCommandService.getAll()).thenReturn(Lists.newArrayList(
+                Command.builder()
+                        .name("command")
+                        .image("xnat/command:1.0")
+                        .addCommandWrapper(CommandWrapper.builder()
+                                .id(WRAPPER_ID)
+                                .name("wrapper")
+                                .addExternalInput(CommandWrapperExternalInput.builder()
+                                        .name("session")
+                                        .viaSetupCommand("xnat/setup:1.0:setup-command")
+                                        .build())
+                                .addOutputHandler(CommandWrapperOutput.builder()
+                                        .name("output")
+                                        .viaWrapupCommand("xnat/wrapup")
+                                        .build())
+                                .build())
+                        .build(),
+                Command.builder()
+                        .name("disabled")
+                        .image("xnat/disabled:1.0")
+                        .addCommandWrapper(CommandWrapper.builder()
+                                .id(DISABLED_WRAPPER_ID)
+                                .name("disabled-wrapper")
+                                .addExternalInput(CommandWrapperExternalInput.builder()
+                                        .name("session")
+                                        .viaSetupCommand("xnat/old:1.0")
+                                        .build())
+                                .build())
+                        .build()));
+
+        final ImageGarbageCollectionReport report = imageGarbageCollectionService.collect(true);
+
+        // Only images no enabled wrapper can launch are removed, even though collecting them does not reach the low-water mark
+        assertThat(report.totalBytes(), is(5 * GB));
+        assertThat(report.removed(), contains(NEVER_USED_IMAGE, OLD_IMAGE));
+    }
+
+    @Test
+    public void testSharedLayersAreCountedOnce() throws Exception {
+        // Both images are built on the same 1 GB base, and each adds half a GB
+        final DockerImage oldImage = DockerImage.create("sha256:old", Collections.singletonList("xnat/old:1.0"), null, 3 * GB / 2);
+        final DockerImage neverUsedImage = DockerImage.create("sha256:never", Collections.singletonList("xnat/never:1.0"), null, 3 * GB / 2);
+        when(mockControlApi.getAllImages()).thenReturn(Lists.newArrayList(COMMAND_IMAGE, RECENT_IMAGE, oldImage, neverUsedImage));
+        when(mockControlApi.getImageLayerSizes("sha256:old")).thenReturn(layers("base", GB, "old", GB / 2));
+        when(mockControlApi.getImageLayerSizes("sha256:never")).thenReturn(layers("base", GB, "never", GB / 2));
+
+        final ImageGarbageCollectionReport report = imageGarbageCollectionService.collect(true);
+
+        assertThat(report.totalBytes(), is(4 * GB));
+        assertThat(report.removed(), contains(neverUsedImage, oldImage));
+
+        // Removing the first image only frees its own layer. The base is freed with the second.
+        assertThat(report.removedBytes(), is(2 * GB));
+    }
+
+    private static Map<String, Long> layers(final String base, final long baseBytes, final String top, final long topBytes) {
+        final Map<String, Long> layers = new LinkedHashMap<>();
+        layers.put(base, baseBytes);
+        layers.put(top, topBytes);
+        return layers;
+    }
+
+    private static DockerImage image(final String imageId, final String tag) {
+        return DockerImage.create(imageId, Collections.singletonList(tag), null, GB);
+    }
+}
@@ -0,0 +1,248 @@
+package org.nrg.containers.services;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.model.configuration.ContainerServicePrefsBean;
+import org.nrg.containers.model.dockerhub.DockerHubBase.DockerHub;
+import org.nrg.containers.model.image.docker.DockerImage;
+import org.nrg.containers.model.image.docker.ImagePullMetrics;
+import org.nrg.containers.model.image.docker.ImagePullStatus;
+import org.nrg.containers.model.server.docker.DockerServerBase.DockerServer;
+import org.nrg.containers.services.impl.ImagePullServiceImpl;
+import org.nrg.framework.exceptions.NotFoundException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ImagePullServiceTest {
+    private static final DockerServer SERVER = DockerServer.create(20L, "other", "tcp://other:2376", null, false, null, null, null, null);
+    private static final DockerHub DEFAULT_HUB = DockerHub.create(1L, "Docker Hub", "https://index.docker.io/v1/", true);
+    private static final DockerHub PRIVATE_HUB = DockerHub.create(2L, "Private", "https://registry.example.com:5000/", false);
+
+    private ContainerControlApi mockControlApi;
+    private ImagePullService imagePullService;
+
+    @Before
+    public void setup() throws Exception {
+        mockControlApi = Mockito.mock(ContainerControlApi.class);
+        when(mockControlApi.getAllImages()).thenReturn(Collections.singletonList(
+                DockerImage.create("sha256:present", Collections.singletonList("present:latest"), null)));
+        when(mockControlApi.pullImage(eq("missing"), any(DockerHub.class), anyString(), anyString()))
+                .thenReturn(DockerImage.create("sha256:missing", Collections.singletonList("missing:latest"), null));
+        when(mockControlApi.pullImage(eq("nonexistent"), any(DockerHub.class), anyString(), anyString()))
+                .thenThrow(new NotFoundException("No image nonexistent"));
+
+        when(mockControlApi.pullImage(eq(SERVER), eq("missing"), any(DockerHub.class), anyString(), anyString()))
+                .thenReturn(DockerImage.create("sha256:missing", Collections.singletonList("missing:latest"), null));
+        when(mockControlApi.pullImage(eq(SERVER), eq("nonexistent"), any(DockerHub.class), anyString(), anyString()))
+                .thenThrow(new NotFoundException("No image nonexistent"));
+
+        final DockerHubService mockDockerHubService = Mockito.mock(DockerHubService.class);
+        when(mockDockerHubService.getDefault()).thenReturn(DEFAULT_HUB);
+        when(mockDockerHubService.getHubs()).thenReturn(Lists.newArrayList(DEFAULT_HUB, PRIVATE_HUB));
+
+        imagePullService = new ImagePullServiceImpl(mockControlApi, mockDockerHubService, Mockito.mock(ContainerServicePrefsBean.class));
+    }
+
+    @Test
+    public void testPrePullSkipsImagesAlreadyPresent() throws Exception {
+        imagePullService.prePull(Lists.newArrayList("present", "missing", "nonexistent"));
+
+        final List<ImagePullStatus> statuses = waitForPulls();
+        assertThat(statuses.size(), is(3));
+        assertThat(statuses.get(0).status(), is(ImagePullStatus.PULLED));
+        assertThat(statuses.get(1).status(), is(ImagePullStatus.FAILED));
+        assertThat(statuses.get(2).status(), is(ImagePullStatus.PRESENT));
+        verify(mockControlApi, times(1)).getAllImages();
+        verify(mockControlApi, never()).pullImage(eq("present"), any(DockerHub.class), anyString(), anyString());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testPullRethrowsTheCause() throws Exception {
+        imagePullService.pull("nonexistent", null, null, null);
+    }
+
+    @Test
+    public void testPullReturnsThePulledImage() throws Exception {
+        final DockerImage image = imagePullService.pull("missing", null, null, null);
+        assertThat(image.tags(), contains("missing:latest"));
+    }
+
+    @Test
+    public void testConcurrentPullsOfTheSameImageAreCoalesced() throws Exception {
+        final CountDownLatch pullStarted = new CountDownLatch(1);
+        final CountDownLatch finishPull = new CountDownLatch(1);
+        when(mockControlApi.pullImage(eq("slow"), any(DockerHub.class), anyString(), anyString()))
+                .thenAnswer(new Answer<DockerImage>() {
+                    @Override
+                    public DockerImage answer(final InvocationOnMock invocation) throws Throwable {
+                        pullStarted.countDown();
+                        finishPull.await(10, TimeUnit.SECONDS);
+                        return DockerImage.create("sha256:slow", Collections.singletonList("slow:latest"), null, 100L);
+                    }
+                });
+
+        final ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            final Future<DockerImage> first = callers.submit(pullOf("slow"));
+            pullStarted.await(10, TimeUnit.SECONDS);
+            final Future<DockerImage> second = callers.submit(pullOf("docker.io/library/slow:latest"));
+            final long deadline = System.currentTimeMillis() + 10000L;
+            while (imagePullService.getPullMetrics().coalesced() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            finishPull.countDown();
+
+            assertThat(first.get(10, TimeUnit.SECONDS).imageId(), is("sha256:slow"));
+            assertThat(second.get(10, TimeUnit.SECONDS).imageId(), is("sha256:slow"));
+        } finally {
+            callers.shutdownNow();
+        }
+
+        verify(mockControlApi, times(1)).pullImage(anyString(), any(DockerHub.class), anyString(), anyString());
+        final ImagePullMetrics metrics = imagePullService.getPullMetrics();
+        assertThat(metrics.pulls(), is(1L));
+        assertThat(metrics.coalesced(), is(1L));
+        assertThat(metrics.bytes(), is(100L));
+    }
+
+    @Test
+    public void testPullsWithDifferentCredentialsAreNotCoalesced() throws Exception {
+        final CountDownLatch anonymousPullStarted = new CountDownLatch(1);
+        final CountDownLatch finishAnonymousPull = new CountDownLatch(1);
+        when(mockControlApi.pullImage(eq("private"), any(DockerHub.class), anyString(), anyString()))
+                .thenAnswer(new Answer<DockerImage>() {
+                    @Override
+                    public DockerImage answer(final InvocationOnMock invocation) throws Throwable {
+                        if (invocation.getArguments()[2] == null) {
+                            anonymousPullStarted.countDown();
+                            finishAnonymousPull.await(10, TimeUnit.SECONDS);
+                            throw new NotFoundException("No image private");
+                        }
+                        return DockerImage.create("sha256:private", Collections.singletonList("private:latest"), null);
+                    }
+                });
+
+        final DockerHub hub = DockerHub.create(10L, "private hub", "https://hub.example.com", false);
+        final ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            final Future<DockerImage> anonymous = callers.submit(pullOf("private"));
+            anonymousPullStarted.await(10, TimeUnit.SECONDS);
+
+            // The pull with credentials does not wait for, or share the failure of, the anonymous pull
+            assertThat(imagePullService.pull("private", hub, "user", "password").imageId(), is("sha256:private"));
+
+            finishAnonymousPull.countDown();
+            try {
+                anonymous.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertThat(e.getCause() instanceof NotFoundException, is(true));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(imagePullService.getPullMetrics().coalesced(), is(0L));
+    }
+
+    @Test
+    public void testBackgroundPullTellsTheListener() throws Exception {
+        final CountDownLatch told = new CountDownLatch(2);
+        final List<String> outcomes = Collections.synchronizedList(Lists.<String>newArrayList());
+        final ImagePullService.PullListener listener = new ImagePullService.PullListener() {
+            @Override
+            public void pulled(final DockerImage image) {
+                outcomes.add(image.imageId());
+                told.countDown();
+            }
+
+            @Override
+            public void failed(final Exception e) {
+                outcomes.add(e.getClass().getSimpleName());
+                told.countDown();
+            }
+        };
+
+        imagePullService.pullInBackground(SERVER, "missing", listener);
+        imagePullService.pullInBackground(SERVER, "nonexistent", listener);
+
+        assertThat(told.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(outcomes, containsInAnyOrder("sha256:missing", "NotFoundException"));
+        verify(mockControlApi, never()).pullImage(eq("missing"), any(DockerHub.class), anyString(), anyString());
+    }
+
+    @Test
+    public void testBackgroundPullUsesTheHubForTheImageRegistry() throws Exception {
+        final String privateImage = "registry.example.com:5000/lab/private:1.0";
+        when(mockControlApi.pullImage(eq(SERVER), eq(privateImage), any(DockerHub.class), anyString(), anyString()))
+                .thenReturn(DockerImage.create("sha256:private", Collections.singletonList(privateImage), null));
+
+        final CountDownLatch told = new CountDownLatch(2);
+        final ImagePullService.PullListener listener = new ImagePullService.PullListener() {
+            @Override
+            public void pulled(final DockerImage image) {
+                told.countDown();
+            }
+
+            @Override
+            public void failed(final Exception e) {
+                told.countDown();
+            }
+        };
+
+        imagePullService.pullInBackground(SERVER, "missing", listener);
+        imagePullService.pullInBackground(SERVER, privateImage, listener);
+
+        assertThat(told.await(10, TimeUnit.SECONDS), is(true));
+        verify(mockControlApi).pullImage(SERVER, "missing", DEFAULT_HUB, null, null);
+        verify(mockControlApi).pullImage(SERVER, privateImage, PRIVATE_HUB, null, null);
+    }
+
+    private Callable<DockerImage> pullOf(final String imageName) {
+        return new Callable<DockerImage>() {
+            @Override
+            public DockerImage call() throws Exception {
+                return imagePullService.pull(imageName, null, null, null);
+            }
+        };
+    }
+
+    private List<ImagePullStatus> waitForPulls() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000L;
+        while (true) {
+            final List<ImagePullStatus> statuses = imagePullService.getPullStatuses();
+            boolean finished = true;
+            for (final ImagePullStatus status : statuses) {
+                finished &= !status.status().equals(ImagePullStatus.QUEUED) && !status.status().equals(ImagePullStatus.PULLING);
+            }
+            if (finished || System.currentTimeMillis() > deadline) {
+                return statuses;
+            }
+            Thread.sleep(10L);
+        }
+    }
+}
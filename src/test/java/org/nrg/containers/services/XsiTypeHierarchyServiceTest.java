@@ -0,0 +1,106 @@
+package org.nrg.containers.services;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nrg.containers.services.impl.XsiTypeHierarchyServiceImpl;
+import org.nrg.xdat.schema.SchemaElement;
+import org.nrg.xft.exception.ElementNotFoundException;
+import org.nrg.xft.schema.Wrappers.GenericWrapper.GenericWrapperElement;
+import org.nrg.xft.schema.XFTManager;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({XFTManager.class, GenericWrapperElement.class, SchemaElement.class})
+@PowerMockIgnore({"org.apache.*", "java.*", "javax.*", "org.w3c.*", "com.sun.*"})
+public class XsiTypeHierarchyServiceTest {
+    private static final String EXPERIMENT = "xnat:experimentData";
+    private static final String IMAGE_SESSION = "xnat:imageSessionData";
+    private static final String MR_SESSION = "xnat:mrSessionData";
+    private static final String LATE_SESSION = "custom:lateSessionData";
+    private static final String UNKNOWN = "made:upData";
+
+    private XsiTypeHierarchyService xsiTypeHierarchyService;
+
+    @Before
+    public void setup() throws Exception {
+        mockStatic(XFTManager.class);
+        mockStatic(GenericWrapperElement.class);
+        mockStatic(SchemaElement.class);
+
+        when(XFTManager.isInitialized()).thenReturn(true);
+        when(GenericWrapperElement.GetAllElements(false)).thenReturn(Lists.newArrayList(
+                element(EXPERIMENT),
+                element(IMAGE_SESSION, EXPERIMENT),
+                element(MR_SESSION, IMAGE_SESSION, EXPERIMENT)));
+        when(SchemaElement.GetElement(UNKNOWN)).thenThrow(new ElementNotFoundException(UNKNOWN));
+
+        xsiTypeHierarchyService = new XsiTypeHierarchyServiceImpl();
+    }
+
+    @Test
+    public void testDirectMatch() throws Exception {
+        assertThat(xsiTypeHierarchyService.isA(MR_SESSION, MR_SESSION), is(true));
+        assertThat(xsiTypeHierarchyService.isKnown(MR_SESSION), is(true));
+    }
+
+    @Test
+    public void testSubtypeMatchesItsAncestors() throws Exception {
+        assertThat(xsiTypeHierarchyService.isA(MR_SESSION, IMAGE_SESSION), is(true));
+        assertThat(xsiTypeHierarchyService.isA(MR_SESSION, EXPERIMENT), is(true));
+        assertThat(xsiTypeHierarchyService.isA(IMAGE_SESSION, MR_SESSION), is(false));
+    }
+
+    @Test
+    public void testLateRegisteredType() throws Exception {
+        // Build the table before the new type exists
+        assertThat(xsiTypeHierarchyService.isKnown(MR_SESSION), is(true));
+
+        final SchemaElement lateSchemaElement = PowerMockito.mock(SchemaElement.class);
+        final GenericWrapperElement lateElement = element(LATE_SESSION, IMAGE_SESSION, EXPERIMENT);
+        when(lateSchemaElement.getGenericXFTElement()).thenReturn(lateElement);
+        when(SchemaElement.GetElement(LATE_SESSION)).thenReturn(lateSchemaElement);
+
+        assertThat(xsiTypeHierarchyService.isA(LATE_SESSION, IMAGE_SESSION), is(true));
+        assertThat(xsiTypeHierarchyService.isA(LATE_SESSION, MR_SESSION), is(false));
+        assertThat(xsiTypeHierarchyService.isKnown(LATE_SESSION), is(true));
+    }
+
+    @Test
+    public void testUnknownType() throws Exception {
+        assertThat(xsiTypeHierarchyService.isA(UNKNOWN, EXPERIMENT), is(false));
+        assertThat(xsiTypeHierarchyService.isKnown(UNKNOWN), is(false));
+    }
+
+    @Test
+    public void testBeforeXftIsInitialized() throws Exception {
+        when(XFTManager.isInitialized()).thenReturn(false);
+
+        // Only equal types match, and no type is known yet
+        assertThat(xsiTypeHierarchyService.isA(MR_SESSION, MR_SESSION), is(true));
+        assertThat(xsiTypeHierarchyService.isA(MR_SESSION, IMAGE_SESSION), is(false));
+        assertThat(xsiTypeHierarchyService.isKnown(MR_SESSION), is(false));
+
+        // The table is built once XFT is up
+        when(XFTManager.isInitialized()).thenReturn(true);
+        assertThat(xsiTypeHierarchyService.isA(MR_SESSION, IMAGE_SESSION), is(true));
+    }
+
+    private static GenericWrapperElement element(final String xsiType, final String... ancestors) {
+        final GenericWrapperElement element = PowerMockito.mock(GenericWrapperElement.class);
+        when(element.getXSIType()).thenReturn(xsiType);
+        for (final String ancestor : ancestors) {
+            when(element.instanceOf(ancestor)).thenReturn(true);
+        }
+        return element;
+    }
+}
@@ -0,0 +1,63 @@
+package org.nrg.containers.utils;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ReplacementTemplateTest {
+    private final ReplacementTemplate.Tokenizer tokenizer =
+            new ReplacementTemplate.Tokenizer(Arrays.asList("#IN#", "#INPUT#", "#OUT#", "[FLAG]"));
+
+    @Test
+    public void noPlaceholdersRendersTemplate() {
+        final ReplacementTemplate template = tokenizer.tokenize("echo hello");
+        assertThat(template.hasPlaceholders(), is(false));
+        assertThat(template.render(ImmutableMap.of("#IN#", "foo")), is("echo hello"));
+    }
+
+    @Test
+    public void replacesEveryOccurrence() {
+        final ReplacementTemplate template = tokenizer.tokenize("cp #IN# #OUT#/#IN#");
+        assertThat(template.placeholders(), contains("#IN#", "#OUT#", "#IN#"));
+        assertThat(template.render(ImmutableMap.of("#IN#", "a.txt", "#OUT#", "/output")), is("cp a.txt /output/a.txt"));
+    }
+
+    @Test
+    public void longerKeyWins() {
+        final ReplacementTemplate template = tokenizer.tokenize("#INPUT##IN#");
+        assertThat(template.placeholders(), contains("#INPUT#", "#IN#"));
+        assertThat(template.render(ImmutableMap.of("#IN#", "short", "#INPUT#", "long")), is("longshort"));
+    }
+
+    @Test
+    public void missingValuesAreLeftInPlace() {
+        assertThat(tokenizer.tokenize("run [FLAG] #IN#").render(ImmutableMap.of("#IN#", "x")), is("run [FLAG] x"));
+        assertThat(tokenizer.tokenize("run [FLAG]").render(Collections.<String, String>emptyMap()), is("run [FLAG]"));
+    }
+
+    @Test
+    public void nullValuesRenderEmpty() {
+        final Map<String, String> values = new HashMap<>();
+        values.put("#IN#", null);
+        assertThat(tokenizer.tokenize("a#IN#b").render(values), is("ab"));
+    }
+
+    @Test
+    public void valuesAreNotRescanned() {
+        assertThat(tokenizer.tokenize("#IN#").render(ImmutableMap.of("#IN#", "#OUT#", "#OUT#", "nope")), is("#OUT#"));
+    }
+
+    @Test
+    public void tokenizedTemplatesAreReused() {
+        assertThat(tokenizer.tokenize("#IN# #OUT#"), is(sameInstance(tokenizer.tokenize("#IN# #OUT#"))));
+    }
+}